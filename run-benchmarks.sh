@@ -0,0 +1,16 @@
+#!/bin/bash
+# Usage: [BENCHMARK_MODULE=benchmark-ce] ./run-benchmarks.sh [JMH options]
+# Example: ./run-benchmarks.sh FileSystemQueryBenchmark -p files=1000000
+# Example: BENCHMARK_MODULE=benchmark-ce ./run-benchmarks.sh FormulaExecutorBenchmark
+# Results are exported to tests/<module>/target/jmh-result.json, benchmark-scanner being the default module.
+# The load harness of the Compute Engine is not a JMH benchmark, see ReportProcessingHarness.
+set -euo pipefail
+
+MODULE=${BENCHMARK_MODULE:-benchmark-scanner}
+
+echo 'Build benchmarks'
+mvn install -B -e -V -DskipTests -Ptests -pl tests/$MODULE -am
+
+echo 'Run benchmarks'
+cd tests/$MODULE
+java -jar target/benchmarks.jar -rf json -rff target/jmh-result.json "$@"
@@ -69,6 +69,7 @@ import org.sonar.server.activity.index.ActivityIndexer;
 import org.sonar.server.component.ComponentCleanerService;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.component.ComponentService;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.computation.CeModule;
 import org.sonar.server.computation.CeQueueModule;
 import org.sonar.server.computation.queue.PurgeCeActivities;
@@ -78,6 +79,7 @@ import org.sonar.server.debt.DebtModelPluginRepository;
 import org.sonar.server.debt.DebtRulesXMLImporter;
 import org.sonar.server.event.NewAlerts;
 import org.sonar.server.issue.IssueUpdater;
+import org.sonar.server.issue.index.IssueAuthorizationCache;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueIndex;
 import org.sonar.server.issue.index.IssueIndexer;
@@ -91,6 +93,7 @@ import org.sonar.server.issue.notification.NewIssuesNotificationDispatcher;
 import org.sonar.server.issue.notification.NewIssuesNotificationFactory;
 import org.sonar.server.issue.workflow.FunctionExecutor;
 import org.sonar.server.issue.workflow.IssueWorkflow;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 import org.sonar.server.metric.CoreCustomMetrics;
 import org.sonar.server.metric.DefaultMetricFinder;
 import org.sonar.server.notification.DefaultNotificationManager;
@@ -245,6 +248,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
 
       // issues
       IssueIndex.class,
+      IssueAuthorizationCache.class,
 
       // Classes kept for backward compatibility of plugins/libs (like sonar-license) that are directly calling classes from the core
       // org.sonar.core.properties.PropertiesDao.class, replaced by ReadOnlyPropertiesDao (declared above) which is a ReadOnly
@@ -397,6 +401,9 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       // MeasureFilterFactory.class, used only in MeasureFilterEngine
       // MeasureFilterExecutor.class, used only in MeasureFilterEngine
       // MeasureFilterEngine.class, used only in JRubyFacade
+      // ProjectMeasuresIndexDefinition.class, ES maintenance, responsibility of Web Server
+      ProjectMeasuresIndexer.class,
+      // ProjectMeasuresIndex.class, used only in MeasureFilterExecutor
       // MetricsWsModule.class, no Web Service in CE
       // MeasuresWsModule.class, no Web Service in CE
       // CustomMeasuresWsModule.class, no Web Service in CE
@@ -482,6 +489,9 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       NewAlerts.class,
       NewAlerts.newMetadata(),
       ComponentCleanerService.class,
+      // ComponentIndexDefinition.class, ES maintenance, responsibility of Web Server
+      ComponentIndexer.class,
+      // ComponentIndex.class, only used by Web Services
 
       // views
       // ViewIndexDefinition.class, ES maintenance, responsibility of Web Server
@@ -597,6 +607,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       // PluginsMonitor.class, no Monitor in CE, responsibility of Web Server
       // JvmPropsMonitor.class, no Monitor in CE, responsibility of Web Server
       // DatabaseMonitor.class, no Monitor in CE, responsibility of Web Server
+      // SqlMonitor.class, no Monitor in CE, statistics of CE tasks are logged by CeWorkerCallableImpl
       // MigrateDbAction.class, no Web Service in CE
       // LogsAction.class, no Web Service in CE
       // ChangeLogLevelAction.class, no Web Service in CE
@@ -88,7 +88,7 @@ public class ComputeEngineContainerImplTest {
     assertThat(picoContainer.getComponentAdapters())
       .hasSize(
         CONTAINER_ITSELF
-          + 75 // level 4
+          + 77 // level 4
           + 7 // content of CeModule
           + 7 // content of CeQueueModule
           + 4 // content of ProjectAnalysisTaskModule
@@ -104,7 +104,7 @@ public class ComputeEngineContainerImplTest {
     );
     assertThat(picoContainer.getParent().getParent().getParent().getComponentAdapters()).hasSize(
       COMPONENTS_IN_LEVEL_1_AT_CONSTRUCTION
-        + 26 // level 1
+        + 27 // level 1
         + 46 // content of DaoModule
         + 1 // content of EsSearchModule
         + 55 // content of CorePropertyDefinitions
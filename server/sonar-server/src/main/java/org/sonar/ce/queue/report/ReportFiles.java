@@ -19,11 +19,22 @@
  */
 package org.sonar.ce.queue.report;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Striped;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
@@ -31,14 +42,34 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.process.ProcessProperties;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 @ComputeEngineSide
 public class ReportFiles {
 
   private static final String ZIP_EXTENSION = "zip";
+  private static final String PROJECT_KEY_EXTENSION = "key";
+  private static final Pattern UPLOAD_ID_PATTERN = Pattern.compile("[a-zA-Z0-9_\\-]{1,40}");
+
+  /**
+   * Maximum size of a report uploaded by chunks, in bytes. Default is 2 GB.
+   */
+  public static final String PROPERTY_UPLOAD_MAX_SIZE = "sonar.ce.upload.maxSize";
+  private static final long DEFAULT_UPLOAD_MAX_SIZE = 2L * 1024 * 1024 * 1024;
+
+  /**
+   * Number of hours after which an upload that did not receive any chunk is considered as
+   * abandoned and is deleted. Default is 24 hours.
+   */
+  public static final String PROPERTY_UPLOAD_MAX_AGE = "sonar.ce.upload.maxAgeInHours";
+  private static final long DEFAULT_UPLOAD_MAX_AGE = 24L;
 
   private final Settings settings;
+  // uploads are locked independently, so that concurrent uploads of different reports do not wait for each other
+  private final Striped<Lock> uploadLocks = Striped.lazyWeakLock(64);
 
   public ReportFiles(Settings settings) {
     this.settings = settings;
@@ -55,12 +86,163 @@ public class ReportFiles {
     }
   }
 
+  /**
+   * Appends a chunk of a report uploaded in several requests. The chunk is written at the given offset, so
+   * that a chunk sent again after a failure replaces the bytes already received. Returns the number of bytes
+   * received so far. The uploads abandoned for more than {@link #PROPERTY_UPLOAD_MAX_AGE} hours are
+   * deleted when a new upload starts.
+   * <p/>
+   * The upload belongs to the project of its first chunk. Chunks of other projects are rejected.
+   *
+   * @param projectKey the key of the project, including its branch
+   * @throws IllegalArgumentException if the upload belongs to another project, if the offset is after the end
+   * of the bytes already received, or if the upload exceeds {@link #PROPERTY_UPLOAD_MAX_SIZE} bytes
+   * @since 6.1
+   */
+  public long appendChunk(String uploadId, String projectKey, long offset, InputStream chunk) {
+    File file = fileForUpload(uploadId);
+    if (offset == 0L) {
+      purgeAbandonedUploads();
+    }
+    Lock lock = uploadLocks.get(uploadId);
+    lock.lock();
+    try {
+      return appendChunk(uploadId, projectKey, file, offset, chunk);
+    } finally {
+      lock.unlock();
+      IOUtils.closeQuietly(chunk);
+    }
+  }
+
+  private long appendChunk(String uploadId, String projectKey, File file, long offset, InputStream chunk) {
+    long length = file.length();
+    checkArgument(offset >= 0 && offset <= length, "Upload %s has %s bytes, can not write chunk at offset %s", uploadId, length, offset);
+    long maxSize = uploadMaxSize();
+    try {
+      FileUtils.forceMkdir(file.getParentFile());
+      File projectKeyFile = projectKeyFileForUpload(uploadId);
+      if (projectKeyFile.exists()) {
+        checkProjectKey(uploadId, projectKey);
+      } else {
+        FileUtils.writeStringToFile(projectKeyFile, projectKey, UTF_8);
+      }
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        raf.setLength(offset);
+        raf.seek(offset);
+        OutputStream output = Channels.newOutputStream(raf.getChannel());
+        // one byte more than allowed is enough to detect that the upload is too big
+        IOUtils.copyLarge(ByteStreams.limit(chunk, maxSize - offset + 1), output);
+        if (raf.length() > maxSize) {
+          raf.setLength(offset);
+          throw new IllegalArgumentException(format("Upload %s exceeds the maximum size of %s bytes", uploadId, maxSize));
+        }
+        return raf.length();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to write chunk of upload: %s", file.getAbsolutePath()), e);
+    }
+  }
+
+  /**
+   * Number of bytes received for the given upload, so that the client can resume it.
+   *
+   * @param projectKey the key of the project, including its branch
+   * @throws IllegalArgumentException if the upload belongs to another project
+   * @since 6.1
+   */
+  public long uploadedBytes(String uploadId, String projectKey) {
+    File file = fileForUpload(uploadId);
+    Lock lock = uploadLocks.get(uploadId);
+    lock.lock();
+    try {
+      if (projectKeyFileForUpload(uploadId).exists()) {
+        checkProjectKey(uploadId, projectKey);
+      }
+      return file.length();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Saves the report assembled from the uploaded chunks, as {@link #save(String, InputStream)} does for reports
+   * uploaded at once.
+   *
+   * @param projectKey the key of the project, including its branch
+   * @throws IllegalArgumentException if the upload belongs to another project
+   * @since 6.1
+   */
+  public void saveUpload(String taskUuid, String uploadId, String projectKey) {
+    File upload = fileForUpload(uploadId);
+    Lock lock = uploadLocks.get(uploadId);
+    lock.lock();
+    try {
+      checkState(upload.exists(), "Upload %s does not exist", uploadId);
+      checkProjectKey(uploadId, projectKey);
+      File file = fileForUuid(taskUuid);
+      FileUtils.forceMkdir(file.getParentFile());
+      Files.move(upload.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      org.sonar.core.util.FileUtils.deleteQuietly(projectKeyFileForUpload(uploadId));
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to move uploaded report %s to file of task %s", uploadId, taskUuid), e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void checkProjectKey(String uploadId, String projectKey) {
+    File projectKeyFile = projectKeyFileForUpload(uploadId);
+    String uploadProjectKey;
+    try {
+      uploadProjectKey = projectKeyFile.exists() ? FileUtils.readFileToString(projectKeyFile, UTF_8) : null;
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to read project of upload: %s", projectKeyFile.getAbsolutePath()), e);
+    }
+    checkArgument(projectKey.equals(uploadProjectKey), "Upload %s does not belong to project %s", uploadId, projectKey);
+  }
+
+  /**
+   * Deletes the uploads that did not receive any chunk for more than {@link #PROPERTY_UPLOAD_MAX_AGE} hours.
+   * The uploads in progress are skipped.
+   */
+  private void purgeAbandonedUploads() {
+    File dir = uploadDir();
+    if (!dir.exists()) {
+      return;
+    }
+    long expiredBefore = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(uploadMaxAge());
+    for (File upload : FileUtils.listFiles(dir, new String[] {ZIP_EXTENSION}, false)) {
+      String uploadId = FilenameUtils.getBaseName(upload.getName());
+      Lock lock = uploadLocks.get(uploadId);
+      if (upload.lastModified() < expiredBefore && lock.tryLock()) {
+        try {
+          org.sonar.core.util.FileUtils.deleteQuietly(upload);
+          org.sonar.core.util.FileUtils.deleteQuietly(projectKeyFileForUpload(uploadId));
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+  private long uploadMaxSize() {
+    return settings.hasKey(PROPERTY_UPLOAD_MAX_SIZE) ? settings.getLong(PROPERTY_UPLOAD_MAX_SIZE) : DEFAULT_UPLOAD_MAX_SIZE;
+  }
+
+  private long uploadMaxAge() {
+    return settings.hasKey(PROPERTY_UPLOAD_MAX_AGE) ? settings.getLong(PROPERTY_UPLOAD_MAX_AGE) : DEFAULT_UPLOAD_MAX_AGE;
+  }
+
   public void deleteIfExists(String taskUuid) {
     org.sonar.core.util.FileUtils.deleteQuietly(fileForUuid(taskUuid));
   }
 
   public void deleteAll() {
-    File dir = reportDir();
+    cleanDirectory(reportDir());
+    cleanDirectory(uploadDir());
+  }
+
+  private static void cleanDirectory(File dir) {
     if (dir.exists()) {
       try {
         org.sonar.core.util.FileUtils.cleanDirectory(dir);
@@ -74,6 +256,23 @@ public class ReportFiles {
     return new File(settings.getString(ProcessProperties.PATH_DATA), "ce/reports");
   }
 
+  private File uploadDir() {
+    return new File(settings.getString(ProcessProperties.PATH_DATA), "ce/uploads");
+  }
+
+  private File fileForUpload(String uploadId) {
+    checkArgument(UPLOAD_ID_PATTERN.matcher(uploadId).matches(), "Invalid upload id: %s", uploadId);
+    return new File(uploadDir(), format("%s.%s", uploadId, ZIP_EXTENSION));
+  }
+
+  /**
+   * File containing the key of the project that the upload belongs to. The upload id must have been
+   * validated by {@link #fileForUpload(String)}.
+   */
+  private File projectKeyFileForUpload(String uploadId) {
+    return new File(uploadDir(), format("%s.%s", uploadId, PROJECT_KEY_EXTENSION));
+  }
+
   /**
    * The analysis report to be processed. Can't be null
    * but may no exist on file system.
@@ -20,6 +20,7 @@
 package org.sonar.ce.queue.report;
 
 import java.io.InputStream;
+import java.util.function.Consumer;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
@@ -38,6 +39,7 @@ import org.sonar.server.component.NewComponent;
 import org.sonar.server.permission.PermissionService;
 import org.sonar.server.user.UserSession;
 
+import static org.sonar.core.permission.GlobalPermissions.PROVISIONING;
 import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
 import static org.sonar.server.user.AbstractUserSession.insufficientPrivilegesException;
 
@@ -62,6 +64,46 @@ public class ReportSubmitter {
   }
 
   public CeTask submit(String projectKey, @Nullable String projectBranch, @Nullable String projectName, InputStream reportInput) {
+    return submit(projectKey, projectBranch, projectName, taskUuid -> reportFiles.save(taskUuid, reportInput));
+  }
+
+  /**
+   * Submits the report assembled from the chunks uploaded with {@link ReportFiles#appendChunk(String, String, long, InputStream)}.
+   *
+   * @since 6.1
+   */
+  public CeTask submitUpload(String projectKey, @Nullable String projectBranch, @Nullable String projectName, String uploadId) {
+    String effectiveProjectKey = ComponentKeys.createKey(projectKey, projectBranch);
+    return submit(projectKey, projectBranch, projectName, taskUuid -> reportFiles.saveUpload(taskUuid, uploadId, effectiveProjectKey));
+  }
+
+  /**
+   * Checks that the current user is allowed to submit a report of the project, without creating the project.
+   * As for {@link #submit(String, String, String, InputStream)}, a project that does not exist yet requires
+   * the permission to provision projects.
+   *
+   * @since 6.1
+   */
+  public void checkSubmitPermission(String projectKey, @Nullable String projectBranch) {
+    String effectiveProjectKey = ComponentKeys.createKey(projectKey, projectBranch);
+    if (componentService.getNullableByKey(effectiveProjectKey) != null) {
+      userSession.checkComponentPermission(SCAN_EXECUTION, projectKey);
+      return;
+    }
+    userSession.checkPermission(PROVISIONING);
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      boolean wouldCurrentUserHaveScanPermission = permissionService.wouldCurrentUserHavePermissionWithDefaultTemplate(dbSession, SCAN_EXECUTION, projectBranch, projectKey,
+        Qualifiers.PROJECT);
+      if (!wouldCurrentUserHaveScanPermission) {
+        throw insufficientPrivilegesException();
+      }
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  private CeTask submit(String projectKey, @Nullable String projectBranch, @Nullable String projectName, Consumer<String> reportSaver) {
     String effectiveProjectKey = ComponentKeys.createKey(projectKey, projectBranch);
     ComponentDto project = componentService.getNullableByKey(effectiveProjectKey);
     if (project == null) {
@@ -70,7 +112,7 @@ public class ReportSubmitter {
 
     userSession.checkComponentPermission(SCAN_EXECUTION, projectKey);
 
-    return submitReport(reportInput, project);
+    return submitReport(reportSaver, project);
   }
 
   @CheckForNull
@@ -95,10 +137,10 @@ public class ReportSubmitter {
     }
   }
 
-  private CeTask submitReport(InputStream reportInput, ComponentDto project) {
+  private CeTask submitReport(Consumer<String> reportSaver, ComponentDto project) {
     // the report file must be saved before submitting the task
     CeTaskSubmit.Builder submit = queue.prepareSubmit();
-    reportFiles.save(submit.getUuid(), reportInput);
+    reportSaver.accept(submit.getUuid());
 
     submit.setType(CeTaskTypes.REPORT);
     submit.setComponentUuid(project.uuid());
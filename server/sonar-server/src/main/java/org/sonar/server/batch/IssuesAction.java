@@ -21,6 +21,7 @@ package org.sonar.server.batch;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +47,7 @@ import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 public class IssuesAction implements BatchWsAction {
 
   private static final String PARAM_KEY = "key";
+  private static final String PARAM_CHANGED_SINCE = "changedSince";
 
   private final DbClient dbClient;
   private final IssueIndex issueIndex;
@@ -73,11 +75,20 @@ public class IssuesAction implements BatchWsAction {
       .setRequired(true)
       .setDescription("Project, module or file key")
       .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+
+    action
+      .createParam(PARAM_CHANGED_SINCE)
+      .setSince("6.1")
+      .setDescription("Timestamp in milliseconds. If set, only the issues updated since this date are returned, including closed ones, " +
+        "so that a copy of the issues can be updated")
+      .setExampleValue("1472479200000");
   }
 
   @Override
   public void handle(Request request, Response response) throws Exception {
     String componentKey = request.mandatoryParam(PARAM_KEY);
+    Long changedSinceParam = request.paramAsLong(PARAM_CHANGED_SINCE);
+    Date changedSince = changedSinceParam == null ? null : new Date(changedSinceParam);
     userSession.checkComponentPermission(USER, componentKey);
 
     response.stream().setMediaType(MediaTypes.PROTOBUF);
@@ -87,7 +98,7 @@ public class IssuesAction implements BatchWsAction {
       Map<String, String> keysByUUid = keysByUUid(session, component);
 
       ScannerInput.ServerIssue.Builder issueBuilder = ScannerInput.ServerIssue.newBuilder();
-      for (Iterator<IssueDoc> issueDocIterator = issueIndex.selectIssuesForBatch(component); issueDocIterator.hasNext();) {
+      for (Iterator<IssueDoc> issueDocIterator = issueIndex.selectIssuesForBatch(component, changedSince); issueDocIterator.hasNext();) {
         handleIssue(issueDocIterator.next(), issueBuilder, keysByUUid, response.stream().output());
       }
     } finally {
@@ -128,6 +139,10 @@ public class IssuesAction implements BatchWsAction {
       issueBuilder.setResolution(resolution);
     }
     issueBuilder.setCreationDate(issue.creationDate().getTime());
+    Date updatedAt = issue.getTechnicalUpdateDate();
+    if (updatedAt != null) {
+      issueBuilder.setUpdatedAt(updatedAt.getTime());
+    }
     try {
       issueBuilder.build().writeDelimitedTo(out);
     } catch (IOException e) {
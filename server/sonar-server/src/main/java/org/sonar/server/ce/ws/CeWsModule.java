@@ -34,6 +34,7 @@ public class CeWsModule extends Module {
       LogsAction.class,
       ComponentAction.class,
       SubmitAction.class,
+      UploadReportAction.class,
       TaskFormatter.class,
       TaskAction.class,
       TaskTypesAction.class);
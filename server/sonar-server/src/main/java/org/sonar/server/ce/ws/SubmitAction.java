@@ -26,15 +26,19 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.report.ReportSubmitter;
+import org.sonar.core.util.Uuids;
 import org.sonar.server.ws.WsUtils;
 import org.sonarqube.ws.WsCe;
 
+import static org.sonar.server.ws.WsUtils.checkRequest;
+
 public class SubmitAction implements CeWsAction {
 
   public static final String PARAM_PROJECT_KEY = "projectKey";
   public static final String PARAM_PROJECT_BRANCH = "projectBranch";
   public static final String PARAM_PROJECT_NAME = "projectName";
   public static final String PARAM_REPORT_DATA = "report";
+  public static final String PARAM_UPLOAD_ID = "uploadId";
 
   private final ReportSubmitter reportSubmitter;
 
@@ -72,8 +76,14 @@ public class SubmitAction implements CeWsAction {
 
     action
       .createParam(PARAM_REPORT_DATA)
-      .setRequired(true)
-      .setDescription("Report file. Format is not an API, it changes among SonarQube versions.");
+      .setDescription("Report file. Format is not an API, it changes among SonarQube versions. " +
+        "Required if parameter '" + PARAM_UPLOAD_ID + "' is not set.");
+
+    action
+      .createParam(PARAM_UPLOAD_ID)
+      .setDescription("Id of a report uploaded by chunks with api/ce/upload_report. Required if parameter '" + PARAM_REPORT_DATA + "' is not set.")
+      .setSince("6.1")
+      .setExampleValue(Uuids.UUID_EXAMPLE_01);
   }
 
   @Override
@@ -81,9 +91,16 @@ public class SubmitAction implements CeWsAction {
     String projectKey = wsRequest.mandatoryParam(PARAM_PROJECT_KEY);
     String projectBranch = wsRequest.param(PARAM_PROJECT_BRANCH);
     String projectName = StringUtils.defaultIfBlank(wsRequest.param(PARAM_PROJECT_NAME), projectKey);
-    InputStream reportInput = wsRequest.paramAsInputStream(PARAM_REPORT_DATA);
+    String uploadId = wsRequest.param(PARAM_UPLOAD_ID);
 
-    CeTask task = reportSubmitter.submit(projectKey, projectBranch, projectName, reportInput);
+    CeTask task;
+    if (uploadId != null) {
+      task = reportSubmitter.submitUpload(projectKey, projectBranch, projectName, uploadId);
+    } else {
+      InputStream reportInput = wsRequest.paramAsInputStream(PARAM_REPORT_DATA);
+      checkRequest(reportInput != null, "Either parameter '%s' or '%s' must be set", PARAM_REPORT_DATA, PARAM_UPLOAD_ID);
+      task = reportSubmitter.submit(projectKey, projectBranch, projectName, reportInput);
+    }
 
     WsCe.SubmitResponse submitResponse = WsCe.SubmitResponse.newBuilder()
       .setTaskId(task.getUuid())
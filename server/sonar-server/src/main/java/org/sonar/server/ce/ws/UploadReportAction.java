@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ce.ws;
+
+import java.io.InputStream;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.ce.queue.report.ReportFiles;
+import org.sonar.ce.queue.report.ReportSubmitter;
+import org.sonar.core.component.ComponentKeys;
+import org.sonar.core.util.Uuids;
+import org.sonar.server.ws.WsUtils;
+import org.sonarqube.ws.WsCe;
+
+import static org.sonar.server.ce.ws.SubmitAction.PARAM_PROJECT_BRANCH;
+import static org.sonar.server.ce.ws.SubmitAction.PARAM_PROJECT_KEY;
+import static org.sonar.server.ce.ws.SubmitAction.PARAM_UPLOAD_ID;
+import static org.sonar.server.ws.WsUtils.checkRequest;
+
+/**
+ * Receives a scanner report in several chunks, so that a failure of the network only requires the last chunk
+ * to be sent again. The report is then submitted with the parameter {@link SubmitAction#PARAM_UPLOAD_ID} of api/ce/submit.
+ */
+public class UploadReportAction implements CeWsAction {
+
+  public static final String PARAM_OFFSET = "offset";
+  public static final String PARAM_CHUNK = "chunk";
+
+  private final ReportSubmitter reportSubmitter;
+  private final ReportFiles reportFiles;
+
+  public UploadReportAction(ReportSubmitter reportSubmitter, ReportFiles reportFiles) {
+    this.reportSubmitter = reportSubmitter;
+    this.reportFiles = reportFiles;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    WebService.NewAction action = controller.createAction("upload_report")
+      .setDescription("Uploads a chunk of a scanner report. The number of bytes received so far is returned, so that an interrupted " +
+        "upload can be resumed. When parameter '" + PARAM_CHUNK + "' is not set, nothing is written. " +
+        "Requires analysis permission. If the project does not exist, then the provisioning permission is also required.")
+      .setPost(true)
+      .setInternal(true)
+      .setSince("6.1")
+      .setHandler(this)
+      .setResponseExample(getClass().getResource("upload_report-example.json"));
+
+    action
+      .createParam(PARAM_PROJECT_KEY)
+      .setRequired(true)
+      .setDescription("Key of project")
+      .setExampleValue("my_project");
+
+    action
+      .createParam(PARAM_PROJECT_BRANCH)
+      .setDescription("Optional branch of project")
+      .setExampleValue("branch-1.x");
+
+    action
+      .createParam(PARAM_UPLOAD_ID)
+      .setRequired(true)
+      .setDescription("Id of the upload, generated by the client. Allowed characters are letters, digits, '-' and '_'.")
+      .setExampleValue(Uuids.UUID_EXAMPLE_01);
+
+    action
+      .createParam(PARAM_OFFSET)
+      .setDescription("Position of the chunk in the report. Required if parameter '" + PARAM_CHUNK + "' is set.")
+      .setExampleValue("10485760");
+
+    action
+      .createParam(PARAM_CHUNK)
+      .setDescription("Chunk of the report file");
+  }
+
+  @Override
+  public void handle(Request wsRequest, Response wsResponse) throws Exception {
+    String projectKey = wsRequest.mandatoryParam(PARAM_PROJECT_KEY);
+    String projectBranch = wsRequest.param(PARAM_PROJECT_BRANCH);
+    String uploadId = wsRequest.mandatoryParam(PARAM_UPLOAD_ID);
+    reportSubmitter.checkSubmitPermission(projectKey, projectBranch);
+    String effectiveProjectKey = ComponentKeys.createKey(projectKey, projectBranch);
+
+    long uploadedBytes;
+    InputStream chunk = wsRequest.paramAsInputStream(PARAM_CHUNK);
+    if (chunk == null) {
+      uploadedBytes = reportFiles.uploadedBytes(uploadId, effectiveProjectKey);
+    } else {
+      Long offset = wsRequest.paramAsLong(PARAM_OFFSET);
+      checkRequest(offset != null, "Parameter '%s' is required when a chunk is uploaded", PARAM_OFFSET);
+      uploadedBytes = reportFiles.appendChunk(uploadId, effectiveProjectKey, offset, chunk);
+    }
+
+    WsCe.UploadReportWsResponse response = WsCe.UploadReportWsResponse.newBuilder()
+      .setUploadedBytes(uploadedBytes)
+      .build();
+    WsUtils.writeProtobuf(response, wsRequest, wsResponse);
+  }
+}
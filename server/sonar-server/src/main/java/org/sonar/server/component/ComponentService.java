@@ -43,6 +43,7 @@ import org.sonar.core.util.Uuids;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.user.UserSession;
@@ -60,13 +61,16 @@ public class ComponentService {
   private final UserSession userSession;
   private final System2 system2;
   private final ComponentFinder componentFinder;
+  private final ComponentIndexer componentIndexer;
 
-  public ComponentService(DbClient dbClient, I18n i18n, UserSession userSession, System2 system2, ComponentFinder componentFinder) {
+  public ComponentService(DbClient dbClient, I18n i18n, UserSession userSession, System2 system2, ComponentFinder componentFinder,
+    ComponentIndexer componentIndexer) {
     this.dbClient = dbClient;
     this.i18n = i18n;
     this.userSession = userSession;
     this.system2 = system2;
     this.componentFinder = componentFinder;
+    this.componentIndexer = componentIndexer;
   }
 
   public ComponentDto getByKey(String key) {
@@ -116,6 +120,7 @@ public class ComponentService {
       session.commit();
 
       session.commit();
+      componentIndexer.index(projectOrModule.projectUuid());
     } finally {
       session.close();
     }
@@ -140,6 +145,7 @@ public class ComponentService {
       userSession.checkComponentUuidPermission(UserRole.ADMIN, project.projectUuid());
       dbClient.resourceKeyUpdaterDao().bulkUpdateKey(session, project.uuid(), stringToReplace, replacementString);
       session.commit();
+      componentIndexer.index(project.projectUuid());
     } finally {
       session.close();
     }
@@ -200,6 +206,7 @@ public class ComponentService {
     dbClient.componentDao().insert(session, component);
     dbClient.componentIndexDao().indexResource(session, component.uuid());
     session.commit();
+    componentIndexer.index(component.uuid());
     return component;
   }
 
@@ -215,6 +222,9 @@ public class ComponentService {
       dbClient.componentDao().delete(session, duplicated.get(i).getId());
     }
     session.commit();
+    for (int i = 1; i < duplicated.size(); i++) {
+      componentIndexer.deleteProject(duplicated.get(i).uuid());
+    }
   }
 
   public Collection<String> componentUuids(@Nullable Collection<String> componentKeys) {
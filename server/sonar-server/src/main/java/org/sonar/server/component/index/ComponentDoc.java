@@ -0,0 +1,127 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.component.index;
+
+import com.google.common.collect.Maps;
+import java.util.Date;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.es.BaseDoc;
+
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_KEY;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_LANGUAGE;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_NAME;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_PROJECT_UUID;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_QUALIFIER;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_UPDATED_AT;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_UUID;
+
+public class ComponentDoc extends BaseDoc {
+
+  public ComponentDoc(Map<String, Object> fields) {
+    super(fields);
+  }
+
+  public ComponentDoc() {
+    this(Maps.<String, Object>newHashMapWithExpectedSize(7));
+  }
+
+  @Override
+  public String getId() {
+    return uuid();
+  }
+
+  @Override
+  public String getRouting() {
+    return projectUuid();
+  }
+
+  @Override
+  public String getParent() {
+    return null;
+  }
+
+  public String uuid() {
+    return getField(FIELD_UUID);
+  }
+
+  public ComponentDoc setUuid(String s) {
+    setField(FIELD_UUID, s);
+    return this;
+  }
+
+  public String projectUuid() {
+    return getField(FIELD_PROJECT_UUID);
+  }
+
+  public ComponentDoc setProjectUuid(String s) {
+    setField(FIELD_PROJECT_UUID, s);
+    return this;
+  }
+
+  public String key() {
+    return getField(FIELD_KEY);
+  }
+
+  public ComponentDoc setKey(String s) {
+    setField(FIELD_KEY, s);
+    return this;
+  }
+
+  @CheckForNull
+  public String name() {
+    return getNullableField(FIELD_NAME);
+  }
+
+  public ComponentDoc setName(@Nullable String s) {
+    setField(FIELD_NAME, s);
+    return this;
+  }
+
+  public String qualifier() {
+    return getField(FIELD_QUALIFIER);
+  }
+
+  public ComponentDoc setQualifier(String s) {
+    setField(FIELD_QUALIFIER, s);
+    return this;
+  }
+
+  @CheckForNull
+  public String language() {
+    return getNullableField(FIELD_LANGUAGE);
+  }
+
+  public ComponentDoc setLanguage(@Nullable String s) {
+    setField(FIELD_LANGUAGE, s);
+    return this;
+  }
+
+  @CheckForNull
+  public Date updatedAt() {
+    return getNullableFieldAsDate(FIELD_UPDATED_AT);
+  }
+
+  public ComponentDoc setUpdatedAt(@Nullable Date d) {
+    setField(FIELD_UPDATED_AT, d);
+    return this;
+  }
+}
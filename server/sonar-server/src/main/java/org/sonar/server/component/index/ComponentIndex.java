@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.component.index;
+
+import com.google.common.base.Functions;
+import java.util.Collection;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.sonar.server.es.BaseIndex;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.es.SearchIdResult;
+import org.sonar.server.es.SearchOptions;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.elasticsearch.index.query.QueryBuilders.prefixQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_KEY;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_LANGUAGE;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_NAME;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_QUALIFIER;
+import static org.sonar.server.component.index.ComponentIndexDefinition.INDEX;
+import static org.sonar.server.component.index.ComponentIndexDefinition.TYPE_COMPONENT;
+
+public class ComponentIndex extends BaseIndex {
+
+  public ComponentIndex(EsClient client) {
+    super(client);
+  }
+
+  /**
+   * Search for the uuids of components whose key is exactly the given text, or whose name or key
+   * starts with it, or contains words starting with the words of the text. Results are sorted by
+   * relevance, then by name.
+   */
+  public SearchIdResult<String> search(String nameOrKeyQuery, Collection<String> qualifiers, @Nullable String language, SearchOptions options) {
+    BoolQueryBuilder filter = boolQuery().must(termsQuery(FIELD_QUALIFIER, qualifiers));
+    if (language != null) {
+      filter.must(termQuery(FIELD_LANGUAGE, language));
+    }
+
+    SearchRequestBuilder request = getClient().prepareSearch(INDEX)
+      .setTypes(TYPE_COMPONENT)
+      .setQuery(boolQuery().must(createTextQuery(nameOrKeyQuery)).filter(filter))
+      .addSort("_score", SortOrder.DESC)
+      .addSort(FIELD_NAME + "." + SORT_SUFFIX, SortOrder.ASC)
+      .setFetchSource(false)
+      .setFrom(options.getOffset())
+      .setSize(options.getLimit());
+
+    return new SearchIdResult<>(request.get(), Functions.<String>identity());
+  }
+
+  private static QueryBuilder createTextQuery(String text) {
+    String lowerCaseText = text.trim().toLowerCase(Locale.ENGLISH);
+    return boolQuery()
+      .should(termQuery(FIELD_KEY, text).boost(10f))
+      .should(prefixQuery(FIELD_KEY + "." + SORT_SUFFIX, lowerCaseText).boost(5f))
+      .should(prefixQuery(FIELD_NAME + "." + SORT_SUFFIX, lowerCaseText).boost(5f))
+      .should(matchQuery(FIELD_KEY + "." + SEARCH_PARTIAL_SUFFIX, text).operator(MatchQueryBuilder.Operator.AND))
+      .should(matchQuery(FIELD_NAME + "." + SEARCH_PARTIAL_SUFFIX, text).operator(MatchQueryBuilder.Operator.AND))
+      .minimumNumberShouldMatch(1);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.component.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.sonar.api.config.Settings;
+import org.sonar.server.es.IndexDefinition;
+import org.sonar.server.es.NewIndex;
+
+/**
+ * Definition of ES index "components", used to search for components by name or key.
+ * Names and keys are indexed with edge n-grams, so that prefixes of words match.
+ */
+public class ComponentIndexDefinition implements IndexDefinition {
+
+  public static final String INDEX = "components";
+
+  public static final String TYPE_COMPONENT = "component";
+
+  public static final String FIELD_UUID = "uuid";
+  public static final String FIELD_PROJECT_UUID = "projectUuid";
+  public static final String FIELD_KEY = "key";
+  public static final String FIELD_NAME = "name";
+  public static final String FIELD_QUALIFIER = "qualifier";
+  public static final String FIELD_LANGUAGE = "language";
+  public static final String FIELD_UPDATED_AT = "updatedAt";
+
+  private final Settings settings;
+
+  public ComponentIndexDefinition(Settings settings) {
+    this.settings = settings;
+  }
+
+  @Override
+  public void define(IndexDefinitionContext context) {
+    NewIndex index = context.create(INDEX);
+
+    index.refreshHandledByIndexer();
+    index.configureShards(settings);
+
+    // type "component"
+    NewIndex.NewIndexType mapping = index.createType(TYPE_COMPONENT);
+    mapping.setAttribute("_routing", ImmutableMap.of("required", true));
+    mapping.stringFieldBuilder(FIELD_UUID).disableNorms().build();
+    mapping.stringFieldBuilder(FIELD_PROJECT_UUID).disableNorms().build();
+    mapping.stringFieldBuilder(FIELD_KEY).enableGramSearch().enableSorting().build();
+    mapping.stringFieldBuilder(FIELD_NAME).enableGramSearch().enableSorting().build();
+    mapping.stringFieldBuilder(FIELD_QUALIFIER).disableNorms().build();
+    mapping.stringFieldBuilder(FIELD_LANGUAGE).disableNorms().build();
+    mapping.createDateTimeField(FIELD_UPDATED_AT);
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.component.index;
+
+import javax.annotation.Nullable;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.server.es.BaseIndexer;
+import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.EsClient;
+
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_PROJECT_UUID;
+import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_UPDATED_AT;
+import static org.sonar.server.component.index.ComponentIndexDefinition.INDEX;
+import static org.sonar.server.component.index.ComponentIndexDefinition.TYPE_COMPONENT;
+
+public class ComponentIndexer extends BaseIndexer {
+
+  private final DbClient dbClient;
+
+  public ComponentIndexer(DbClient dbClient, EsClient esClient) {
+    super(esClient, 300, INDEX, TYPE_COMPONENT, FIELD_UPDATED_AT);
+    this.dbClient = dbClient;
+  }
+
+  /**
+   * Index all the enabled components if the index is empty (only used on startup), otherwise the
+   * components created or analysed since the last indexing, for example new views and sub-views.
+   */
+  @Override
+  protected long doIndex(long lastUpdatedAt) {
+    long count = esClient.prepareCount(INDEX).setTypes(TYPE_COMPONENT).get().getCount();
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX);
+    if (count == 0) {
+      bulk.setLarge(true);
+      return doIndex(bulk, 0L, null);
+    }
+    return doIndex(bulk, lastUpdatedAt, null);
+  }
+
+  /**
+   * Index the components of a project or of a root view, for example at the end of an analysis, after
+   * a change of key or after the refresh of a view. Disabled components are removed from index.
+   * Indexing is executed in the calling thread.
+   */
+  public void index(String projectUuid) {
+    doIndex(new BulkIndexer(esClient, INDEX), 0L, projectUuid);
+  }
+
+  private long doIndex(BulkIndexer bulk, long lastUpdatedAt, @Nullable String projectUuid) {
+    long maxUpdatedAt = 0L;
+    try (DbSession dbSession = dbClient.openSession(false);
+      ComponentResultSetIterator rowIt = ComponentResultSetIterator.create(dbClient, dbSession, lastUpdatedAt, projectUuid)) {
+      bulk.start();
+      while (rowIt.hasNext()) {
+        ComponentResultSetIterator.Row row = rowIt.next();
+        ComponentDoc doc = row.getDoc();
+        if (row.isEnabled()) {
+          bulk.add(new IndexRequest(INDEX, TYPE_COMPONENT, doc.getId())
+            .routing(doc.getRouting())
+            .source(doc.getFields()));
+        } else {
+          bulk.add(new DeleteRequest(INDEX, TYPE_COMPONENT, doc.getId())
+            .routing(doc.getRouting()));
+        }
+        maxUpdatedAt = Math.max(maxUpdatedAt, row.getUpdatedAt());
+      }
+      bulk.stop();
+    }
+    return maxUpdatedAt;
+  }
+
+  public void deleteProject(String projectUuid) {
+    SearchRequestBuilder searchRequest = esClient.prepareSearch(INDEX)
+      .setRouting(projectUuid)
+      .setTypes(TYPE_COMPONENT)
+      .setQuery(termQuery(FIELD_PROJECT_UUID, projectUuid));
+    BulkIndexer.delete(esClient, INDEX, searchRequest);
+  }
+}
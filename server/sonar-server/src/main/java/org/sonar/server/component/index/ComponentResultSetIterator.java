@@ -0,0 +1,146 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.component.index;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ResultSetIterator;
+
+/**
+ * Scrolls over table PROJECTS and reads documents to populate the components index.
+ * Only the components that can be searched by name are read: projects, modules, views,
+ * sub-views and files. Copies of projects in views are ignored.
+ * <p/>
+ * Table PROJECTS has no technical date of update. The date of update of a component is the
+ * most recent of its date of creation and of the date of the last analysis of its project (or of
+ * the last refresh of its root view). This date can only be later than the date of the latest
+ * change of the component, so it's enough to detect the components to be re-indexed.
+ */
+class ComponentResultSetIterator extends ResultSetIterator<ComponentResultSetIterator.Row> {
+
+  private static final String[] FIELDS = {
+    "p.uuid",
+    "p.project_uuid",
+    "p.kee",
+    "p.name",
+    "p.qualifier",
+    "p.language",
+    "p.enabled",
+    "p.created_at",
+    "s.created_at"
+  };
+
+  private static final String[] QUALIFIERS = {Qualifiers.PROJECT, Qualifiers.MODULE, Qualifiers.VIEW, Qualifiers.SUBVIEW, Qualifiers.FILE,
+    Qualifiers.UNIT_TEST_FILE};
+
+  private static final String SQL_ALL = "select " + StringUtils.join(FIELDS, ",") + " from projects p " +
+    "left outer join snapshots s on s.component_uuid=p.project_uuid and s.islast=? " +
+    "where p.copy_component_uuid is null and p.qualifier in ('" + StringUtils.join(QUALIFIERS, "','") + "')";
+
+  private static final String ENABLED_FILTER = " and p.enabled=?";
+
+  private static final String DATE_FILTER = " and (p.created_at>? or s.created_at>?)";
+
+  private static final String PROJECT_FILTER = " and p.project_uuid=?";
+
+  private ComponentResultSetIterator(PreparedStatement stmt) throws SQLException {
+    super(stmt);
+  }
+
+  /**
+   * @param afterDate   if greater than zero, then only the components updated after this date are returned,
+   *                    including the disabled ones. Ignored if {@code projectUuid} is set.
+   * @param projectUuid if null, then the enabled components of all projects are returned. Otherwise
+   *                    all the components of the project are returned, including the disabled ones.
+   */
+  static ComponentResultSetIterator create(DbClient dbClient, DbSession session, long afterDate, @Nullable String projectUuid) {
+    try {
+      String sql;
+      if (projectUuid != null) {
+        sql = SQL_ALL + PROJECT_FILTER;
+      } else if (afterDate > 0L) {
+        sql = SQL_ALL + DATE_FILTER;
+      } else {
+        sql = SQL_ALL + ENABLED_FILTER;
+      }
+      PreparedStatement stmt = dbClient.getMyBatis().newScrollingSelectStatement(session, sql);
+      stmt.setBoolean(1, true);
+      if (projectUuid != null) {
+        stmt.setString(2, projectUuid);
+      } else if (afterDate > 0L) {
+        stmt.setTimestamp(2, new Timestamp(afterDate));
+        stmt.setLong(3, afterDate);
+      } else {
+        stmt.setBoolean(2, true);
+      }
+      return new ComponentResultSetIterator(stmt);
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to prepare SQL request to select components", e);
+    }
+  }
+
+  @Override
+  protected Row read(ResultSet rs) throws SQLException {
+    ComponentDoc doc = new ComponentDoc()
+      .setUuid(rs.getString(1))
+      .setProjectUuid(rs.getString(2))
+      .setKey(rs.getString(3))
+      .setName(rs.getString(4))
+      .setQualifier(rs.getString(5))
+      .setLanguage(rs.getString(6));
+    Timestamp createdAt = rs.getTimestamp(8);
+    // date of last analysis is 0 if the project has never been analysed
+    long updatedAt = Math.max(createdAt == null ? 0L : createdAt.getTime(), rs.getLong(9));
+    doc.setUpdatedAt(updatedAt == 0L ? null : new Date(updatedAt));
+    return new Row(doc, rs.getBoolean(7), updatedAt);
+  }
+
+  static class Row {
+    private final ComponentDoc doc;
+    private final boolean enabled;
+    private final long updatedAt;
+
+    Row(ComponentDoc doc, boolean enabled, long updatedAt) {
+      this.doc = doc;
+      this.enabled = enabled;
+      this.updatedAt = updatedAt;
+    }
+
+    ComponentDoc getDoc() {
+      return doc;
+    }
+
+    boolean isEnabled() {
+      return enabled;
+    }
+
+    long getUpdatedAt() {
+      return updatedAt;
+    }
+  }
+}
@@ -27,6 +27,7 @@ import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_LAN
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_QUALIFIERS;
 
 import com.google.common.base.Function;
+import com.google.common.collect.Ordering;
 import java.util.List;
 import javax.annotation.Nonnull;
 import org.sonar.api.i18n.I18n;
@@ -42,6 +43,9 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentQuery;
+import org.sonar.server.component.index.ComponentIndex;
+import org.sonar.server.es.SearchIdResult;
+import org.sonar.server.es.SearchOptions;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.WsComponents;
 import org.sonarqube.ws.WsComponents.SearchWsResponse;
@@ -53,13 +57,16 @@ public class SearchAction implements ComponentsWsAction {
   private final I18n i18n;
   private final UserSession userSession;
   private final Languages languages;
+  private final ComponentIndex componentIndex;
 
-  public SearchAction(DbClient dbClient, ResourceTypes resourceTypes, I18n i18n, UserSession userSession, Languages languages) {
+  public SearchAction(DbClient dbClient, ResourceTypes resourceTypes, I18n i18n, UserSession userSession, Languages languages,
+    ComponentIndex componentIndex) {
     this.dbClient = dbClient;
     this.resourceTypes = resourceTypes;
     this.i18n = i18n;
     this.userSession = userSession;
     this.languages = languages;
+    this.componentIndex = componentIndex;
   }
 
   @Override
@@ -95,6 +102,9 @@ public class SearchAction implements ComponentsWsAction {
 
     DbSession dbSession = dbClient.openSession(false);
     try {
+      if (request.getQuery() != null) {
+        return searchComponentsInIndex(dbSession, request);
+      }
       ComponentQuery query = buildQuery(request);
       Paging paging = buildPaging(dbSession, request, query);
       List<ComponentDto> components = searchComponents(dbSession, query, paging);
@@ -121,6 +131,22 @@ public class SearchAction implements ComponentsWsAction {
       paging.pageSize());
   }
 
+  /**
+   * Search by name or key is served by the index "components", then components are loaded from db
+   * in the order of relevance.
+   */
+  private SearchWsResponse searchComponentsInIndex(DbSession dbSession, SearchWsRequest request) {
+    SearchOptions options = new SearchOptions().setPage(request.getPage(), request.getPageSize());
+    SearchIdResult<String> result = componentIndex.search(request.getQuery(), request.getQualifiers(), request.getLanguage(), options);
+    List<String> uuids = result.getIds();
+    List<ComponentDto> components = Ordering.explicit(uuids).onResultOf(ComponentDto::uuid)
+      .immutableSortedCopy(dbClient.componentDao().selectByUuids(dbSession, uuids));
+    Paging paging = Paging.forPageIndex(request.getPage())
+      .withPageSize(request.getPageSize())
+      .andTotal((int) result.getTotal());
+    return buildResponse(components, paging);
+  }
+
   private static SearchWsResponse buildResponse(List<ComponentDto> components, Paging paging) {
     WsComponents.SearchWsResponse.Builder responseBuilder = SearchWsResponse.newBuilder();
     responseBuilder.getPagingBuilder()
@@ -21,6 +21,8 @@ package org.sonar.server.computation.task.projectanalysis.component;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.CheckForNull;
@@ -114,6 +116,14 @@ public class ComponentImpl implements Component {
 
   public static final class Builder {
 
+    /**
+     * Languages and versions are shared by many components, but each of them is read in a new {@link String} from
+     * the report. Interning them keeps a single instance for the whole tree. The same goes for the {@link FileAttributes},
+     * which only vary by language and test flag.
+     */
+    private static final Interner<String> SHARED_VALUES = Interners.newWeakInterner();
+    private static final Interner<FileAttributes> FILE_ATTRIBUTES = Interners.newWeakInterner();
+
     private final Type type;
     private final ReportAttributes reportAttributes;
     private String uuid;
@@ -158,7 +168,7 @@ public class ComponentImpl implements Component {
 
     private static ReportAttributes createBatchAttributes(ScannerReport.Component component) {
       return ReportAttributes.newBuilder(component.getRef())
-        .setVersion(trimToNull(component.getVersion()))
+        .setVersion(intern(trimToNull(component.getVersion())))
         .setPath(trimToNull(component.getPath()))
         .build();
     }
@@ -169,9 +179,14 @@ public class ComponentImpl implements Component {
         return null;
       }
 
-      return new FileAttributes(
+      return FILE_ATTRIBUTES.intern(new FileAttributes(
         component.getIsTest(),
-        trimToNull(component.getLanguage()));
+        intern(trimToNull(component.getLanguage()))));
+    }
+
+    @CheckForNull
+    private static String intern(@Nullable String s) {
+      return s == null ? null : SHARED_VALUES.intern(s);
     }
 
     @VisibleForTesting
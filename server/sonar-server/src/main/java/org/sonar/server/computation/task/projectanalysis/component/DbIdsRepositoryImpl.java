@@ -19,32 +19,56 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.String.format;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
 
 /**
  * Cache of persisted component (component id and snapshot id) that can be used in the persistence steps
+ * <p/>
+ * Report components are referenced by consecutive numbers from 1, so component ids are stored in an array indexed
+ * by ref instead of a map, which avoids an entry and two boxed numbers per component.
  */
 public class DbIdsRepositoryImpl implements MutableDbIdsRepository {
 
-  private final MapBasedDbIdsRepository<Integer> delegate = new MapBasedDbIdsRepository<>(toReportRef());
+  private static final int INITIAL_CAPACITY = 1_024;
+
+  private final MapBasedDbIdsRepository<Integer> developersDelegate = new MapBasedDbIdsRepository<>(toReportRef());
+  private long[] componentIdsByRef = new long[INITIAL_CAPACITY];
+  private final BitSet registeredRefs = new BitSet();
 
   @Override
   public DbIdsRepository setComponentId(Component component, long componentId) {
-    return delegate.setComponentId(component, componentId);
+    int ref = component.getReportAttributes().getRef();
+    if (registeredRefs.get(ref)) {
+      throw new IllegalStateException(format("Component id '%s' is already registered in repository for Component '%s', can not set new id '%s'",
+        componentIdsByRef[ref], component.getKey(), componentId));
+    }
+    if (ref >= componentIdsByRef.length) {
+      componentIdsByRef = Arrays.copyOf(componentIdsByRef, Math.max(ref + 1, componentIdsByRef.length * 2));
+    }
+    componentIdsByRef[ref] = componentId;
+    registeredRefs.set(ref);
+    return this;
   }
 
   @Override
   public long getComponentId(Component component) {
-    return delegate.getComponentId(component);
+    int ref = component.getReportAttributes().getRef();
+    checkState(registeredRefs.get(ref), format("No component id registered in repository for Component '%s'", component.getKey()));
+    return componentIdsByRef[ref];
   }
 
   @Override
   public DbIdsRepository setDeveloperId(Developer developer, long developerId) {
-    return delegate.setDeveloperId(developer, developerId);
+    return developersDelegate.setDeveloperId(developer, developerId);
   }
 
   @Override
   public long getDeveloperId(Developer developer) {
-    return delegate.getDeveloperId(developer);
+    return developersDelegate.getDeveloperId(developer);
   }
 }
@@ -20,6 +20,8 @@
 package org.sonar.server.computation.task.projectanalysis.component;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 
@@ -32,8 +34,11 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Holds the reference to the root of the {@link Component} tree for the current CE run.
  */
 public class TreeRootHolderImpl implements MutableTreeRootHolder {
+  /**
+   * Report components by ref. Refs are consecutive numbers starting at 1.
+   */
   @CheckForNull
-  private Map<Integer, Component> componentsByRef;
+  private Component[] componentsByRef;
   @CheckForNull
   private Map<String, Component> componentsByKey;
 
@@ -56,7 +61,7 @@ public class TreeRootHolderImpl implements MutableTreeRootHolder {
   public Component getComponentByRef(int ref) {
     checkInitialized();
     ensureComponentByRefIsPopulated();
-    Component component = componentsByRef.get(ref);
+    Component component = ref >= 0 && ref < componentsByRef.length ? componentsByRef[ref] : null;
     checkArgument(component != null, "Component with ref '%s' can't be found", ref);
     return component;
   }
@@ -66,15 +71,25 @@ public class TreeRootHolderImpl implements MutableTreeRootHolder {
       return;
     }
 
-    final ImmutableMap.Builder<Integer, Component> builder = ImmutableMap.builder();
+    final List<Component> components = new ArrayList<>();
     new DepthTraversalTypeAwareCrawler(
       new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
         @Override
         public void visitAny(Component component) {
-          builder.put(component.getReportAttributes().getRef(), component);
+          components.add(component);
         }
       }).visit(this.root);
-    this.componentsByRef = builder.build();
+    int maxRef = 0;
+    for (Component component : components) {
+      maxRef = Math.max(maxRef, component.getReportAttributes().getRef());
+    }
+    Component[] array = new Component[maxRef + 1];
+    for (Component component : components) {
+      int ref = component.getReportAttributes().getRef();
+      checkState(array[ref] == null, "Component with ref '%s' is present twice in the tree", ref);
+      array[ref] = component;
+    }
+    this.componentsByRef = array;
   }
 
   @Override
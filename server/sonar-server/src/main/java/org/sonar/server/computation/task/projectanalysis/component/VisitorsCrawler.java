@@ -19,41 +19,76 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
-import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
 
-import static com.google.common.collect.FluentIterable.from;
-import static com.google.common.collect.Iterables.concat;
-import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * This crawler make any number of {@link TypeAwareVisitor} or {@link PathAwareVisitor} defined in a list visit a component tree, component per component, in the order of the list
+ * <p/>
+ * The visitors to execute on each type of component are computed once, when the crawler is created, so that
+ * visiting a component does not allocate any object, unless visitors are logged at level TRACE.
  */
 public class VisitorsCrawler implements ComponentCrawler {
 
-  private final Map<ComponentVisitor, VisitorDuration> visitorCumulativeDurations;
-  private final List<VisitorWrapper> preOrderVisitorWrappers;
-  private final List<VisitorWrapper> postOrderVisitorWrappers;
+  private final Map<ComponentVisitor, VisitorDuration> visitorCumulativeDurations = new LinkedHashMap<>();
+  /**
+   * Pre-order visitors that must visit a component, by ordinal of its {@link Component.Type}
+   */
+  private final VisitorExecution[][] preOrderVisitorsByType;
+  /**
+   * Post-order visitors that must visit a component, by ordinal of its {@link Component.Type}
+   */
+  private final VisitorExecution[][] postOrderVisitorsByType;
 
   public VisitorsCrawler(Iterable<ComponentVisitor> visitors) {
-    List<VisitorWrapper> visitorWrappers = from(visitors).transform(ToVisitorWrapper.INSTANCE).toList();
-    this.preOrderVisitorWrappers = from(visitorWrappers).filter(MathPreOrderVisitor.INSTANCE).toList();
-    this.postOrderVisitorWrappers = from(visitorWrappers).filter(MatchPostOrderVisitor.INSTANCE).toList();
-    this.visitorCumulativeDurations = from(visitors).toMap(VisitorWrapperToInitialDuration.INSTANCE);
+    List<VisitorExecution> visitorExecutions = new ArrayList<>();
+    for (ComponentVisitor visitor : visitors) {
+      VisitorDuration duration = visitorCumulativeDurations.computeIfAbsent(visitor, v -> new VisitorDuration());
+      visitorExecutions.add(new VisitorExecution(toVisitorWrapper(visitor), Loggers.get(visitor.getClass()), duration));
+    }
+    Component.Type[] types = Component.Type.values();
+    this.preOrderVisitorsByType = new VisitorExecution[types.length][];
+    this.postOrderVisitorsByType = new VisitorExecution[types.length][];
+    for (Component.Type type : types) {
+      preOrderVisitorsByType[type.ordinal()] = select(visitorExecutions, ComponentVisitor.Order.PRE_ORDER, type);
+      postOrderVisitorsByType[type.ordinal()] = select(visitorExecutions, ComponentVisitor.Order.POST_ORDER, type);
+    }
+  }
+
+  private static VisitorWrapper toVisitorWrapper(ComponentVisitor componentVisitor) {
+    if (componentVisitor instanceof TypeAwareVisitor) {
+      return new TypeAwareVisitorWrapper((TypeAwareVisitor) componentVisitor);
+    } else if (componentVisitor instanceof PathAwareVisitor) {
+      return new PathAwareVisitorWrapper((PathAwareVisitor) componentVisitor);
+    } else {
+      throw new IllegalArgumentException("Only TypeAwareVisitor and PathAwareVisitor can be used");
+    }
+  }
+
+  private static VisitorExecution[] select(List<VisitorExecution> visitorExecutions, ComponentVisitor.Order order, Component.Type type) {
+    return visitorExecutions.stream()
+      .filter(execution -> execution.wrapper.getOrder() == order)
+      .filter(execution -> {
+        CrawlerDepthLimit maxDepth = execution.wrapper.getMaxDepth();
+        return maxDepth.isSameAs(type) || maxDepth.isDeeperThan(type);
+      })
+      .toArray(VisitorExecution[]::new);
   }
 
   public Map<ComponentVisitor, Long> getCumulativeDurations() {
-    return ImmutableMap.copyOf(
-      Maps.transformValues(this.visitorCumulativeDurations, VisitorDurationToDuration.INSTANCE)
-      );
+    ImmutableMap.Builder<ComponentVisitor, Long> builder = ImmutableMap.builder();
+    for (Map.Entry<ComponentVisitor, VisitorDuration> entry : visitorCumulativeDurations.entrySet()) {
+      builder.put(entry.getKey(), NANOSECONDS.toMillis(entry.getValue().duration));
+    }
+    return builder.build();
   }
 
   @Override
@@ -69,41 +104,58 @@ public class VisitorsCrawler implements ComponentCrawler {
   }
 
   private void visitImpl(Component component) {
-    MatchVisitorMaxDepth visitorMaxDepth = MatchVisitorMaxDepth.forComponent(component);
-    List<VisitorWrapper> preOrderVisitorWrappersToExecute = from(preOrderVisitorWrappers).filter(visitorMaxDepth).toList();
-    List<VisitorWrapper> postOrderVisitorWrappersToExecute = from(postOrderVisitorWrappers).filter(visitorMaxDepth).toList();
-    if (preOrderVisitorWrappersToExecute.isEmpty() && postOrderVisitorWrappersToExecute.isEmpty()) {
+    int typeOrdinal = component.getType().ordinal();
+    VisitorExecution[] preOrderVisitors = preOrderVisitorsByType[typeOrdinal];
+    VisitorExecution[] postOrderVisitors = postOrderVisitorsByType[typeOrdinal];
+    if (preOrderVisitors.length == 0 && postOrderVisitors.length == 0) {
       return;
     }
 
-    for (VisitorWrapper visitorWrapper : concat(preOrderVisitorWrappers, postOrderVisitorWrappers)) {
-      visitorWrapper.beforeComponent(component);
+    for (VisitorExecution visitor : preOrderVisitors) {
+      visitor.wrapper.beforeComponent(component);
+    }
+    for (VisitorExecution visitor : postOrderVisitors) {
+      visitor.wrapper.beforeComponent(component);
     }
 
-    for (VisitorWrapper visitorWrapper : preOrderVisitorWrappersToExecute) {
-      visitNode(component, visitorWrapper);
+    for (VisitorExecution visitor : preOrderVisitors) {
+      visitNode(component, visitor);
     }
 
     visitChildren(component);
 
-    for (VisitorWrapper visitorWrapper : postOrderVisitorWrappersToExecute) {
-      visitNode(component, visitorWrapper);
+    for (VisitorExecution visitor : postOrderVisitors) {
+      visitNode(component, visitor);
     }
 
-    for (VisitorWrapper visitorWrapper : concat(preOrderVisitorWrappersToExecute, postOrderVisitorWrappersToExecute)) {
-      visitorWrapper.afterComponent(component);
+    for (VisitorExecution visitor : preOrderVisitors) {
+      visitor.wrapper.afterComponent(component);
+    }
+    for (VisitorExecution visitor : postOrderVisitors) {
+      visitor.wrapper.afterComponent(component);
     }
   }
 
   private void visitChildren(Component component) {
-    for (Component child : component.getChildren()) {
-      visit(child);
+    List<Component> children = component.getChildren();
+    for (int i = 0; i < children.size(); i++) {
+      visit(children.get(i));
     }
   }
 
-  private void visitNode(Component component, VisitorWrapper visitor) {
-    Profiler profiler = Profiler.create(Loggers.get(visitor.getWrappedVisitor().getClass()))
-      .startTrace("Visiting component {}", component.getKey());
+  private static void visitNode(Component component, VisitorExecution visitor) {
+    long start = System.nanoTime();
+    if (visitor.logger.isTraceEnabled()) {
+      Profiler profiler = Profiler.create(visitor.logger).startTrace("Visiting component {}", component.getKey());
+      visitNode(component, visitor.wrapper);
+      profiler.stopTrace();
+    } else {
+      visitNode(component, visitor.wrapper);
+    }
+    visitor.duration.increment(System.nanoTime() - start);
+  }
+
+  private static void visitNode(Component component, VisitorWrapper visitor) {
     visitor.visitAny(component);
     switch (component.getType()) {
       case PROJECT:
@@ -130,71 +182,17 @@ public class VisitorsCrawler implements ComponentCrawler {
       default:
         throw new IllegalStateException(String.format("Unknown type %s", component.getType().name()));
     }
-    long duration = profiler.stopTrace();
-    incrementDuration(visitor, duration);
-  }
-
-  private void incrementDuration(VisitorWrapper visitorWrapper, long duration) {
-    visitorCumulativeDurations.get(visitorWrapper.getWrappedVisitor()).increment(duration);
-  }
-
-  private enum ToVisitorWrapper implements Function<ComponentVisitor, VisitorWrapper> {
-    INSTANCE;
-
-    @Override
-    public VisitorWrapper apply(@Nonnull ComponentVisitor componentVisitor) {
-      if (componentVisitor instanceof TypeAwareVisitor) {
-        return new TypeAwareVisitorWrapper((TypeAwareVisitor) componentVisitor);
-      } else if (componentVisitor instanceof PathAwareVisitor) {
-        return new PathAwareVisitorWrapper((PathAwareVisitor) componentVisitor);
-      } else {
-        throw new IllegalArgumentException("Only TypeAwareVisitor and PathAwareVisitor can be used");
-      }
-    }
-  }
-
-  private static class MatchVisitorMaxDepth implements Predicate<VisitorWrapper> {
-    private static final Map<Component.Type, MatchVisitorMaxDepth> INSTANCES = buildInstances();
-    private final Component.Type type;
-
-    private MatchVisitorMaxDepth(Component.Type type) {
-      this.type = requireNonNull(type);
-    }
-
-    private static Map<Component.Type, MatchVisitorMaxDepth> buildInstances() {
-      ImmutableMap.Builder<Component.Type, MatchVisitorMaxDepth> builder = ImmutableMap.builder();
-      for (Component.Type type : Component.Type.values()) {
-        builder.put(type, new MatchVisitorMaxDepth(type));
-      }
-      return builder.build();
-    }
-
-    public static MatchVisitorMaxDepth forComponent(Component component) {
-      return INSTANCES.get(component.getType());
-    }
-
-    @Override
-    public boolean apply(@Nonnull VisitorWrapper visitorWrapper) {
-      CrawlerDepthLimit maxDepth = visitorWrapper.getMaxDepth();
-      return maxDepth.isSameAs(type) || maxDepth.isDeeperThan(type);
-    }
-  }
-
-  private enum MathPreOrderVisitor implements Predicate<VisitorWrapper> {
-    INSTANCE;
-
-    @Override
-    public boolean apply(@Nonnull VisitorWrapper visitorWrapper) {
-      return visitorWrapper.getOrder() == ComponentVisitor.Order.PRE_ORDER;
-    }
   }
 
-  private enum MatchPostOrderVisitor implements Predicate<VisitorWrapper> {
-    INSTANCE;
+  private static final class VisitorExecution {
+    private final VisitorWrapper wrapper;
+    private final Logger logger;
+    private final VisitorDuration duration;
 
-    @Override
-    public boolean apply(@Nonnull VisitorWrapper visitorWrapper) {
-      return visitorWrapper.getOrder() == ComponentVisitor.Order.POST_ORDER;
+    private VisitorExecution(VisitorWrapper wrapper, Logger logger, VisitorDuration duration) {
+      this.wrapper = wrapper;
+      this.logger = logger;
+      this.duration = duration;
     }
   }
 
@@ -204,29 +202,5 @@ public class VisitorsCrawler implements ComponentCrawler {
     public void increment(long duration) {
       this.duration += duration;
     }
-
-    public long getDuration() {
-      return duration;
-    }
-  }
-
-  private enum VisitorWrapperToInitialDuration implements Function<ComponentVisitor, VisitorDuration> {
-    INSTANCE;
-
-    @Override
-    @Nonnull
-    public VisitorDuration apply(@Nonnull ComponentVisitor visitorWrapper) {
-      return new VisitorDuration();
-    }
-  }
-
-  private enum VisitorDurationToDuration implements Function<VisitorDuration, Long> {
-    INSTANCE;
-
-    @Nullable
-    @Override
-    public Long apply(VisitorDuration input) {
-      return input.getDuration();
-    }
   }
 }
@@ -60,6 +60,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.LoadComponentUuid
 import org.sonar.server.computation.task.projectanalysis.issue.MovedIssueVisitor;
 import org.sonar.server.computation.task.projectanalysis.issue.NewEffortAggregator;
 import org.sonar.server.computation.task.projectanalysis.issue.NewEffortCalculator;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesHolder;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTagsCopier;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleTypeCopier;
@@ -99,7 +100,15 @@ import org.sonar.server.computation.task.projectanalysis.source.SourceHashReposi
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryImpl;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 import org.sonar.server.computation.task.step.ComputationSteps;
+import org.sonar.server.computation.task.projectanalysis.step.CommentMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.ComplexityMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.CoverageMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.DuplicationMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.LanguageDistributionMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.NewCoverageMeasuresStep;
 import org.sonar.server.computation.task.projectanalysis.step.ReportComputationSteps;
+import org.sonar.server.computation.task.projectanalysis.step.SizeMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.UnitTestMeasuresStep;
 import org.sonar.server.computation.taskprocessor.MutableTaskResultHolderImpl;
 import org.sonar.server.view.index.ViewIndex;
 
@@ -156,6 +165,16 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
 
       BatchReportReaderImpl.class,
 
+      // steps providing the formulas executed by ComputeFormulaMeasuresStep
+      SizeMeasuresStep.class,
+      NewCoverageMeasuresStep.class,
+      CoverageMeasuresStep.class,
+      CommentMeasuresStep.class,
+      DuplicationMeasuresStep.class,
+      LanguageDistributionMeasuresStep.class,
+      UnitTestMeasuresStep.class,
+      ComplexityMeasuresStep.class,
+
       // repositories
       LanguageRepositoryImpl.class,
       MeasureRepositoryImpl.class,
@@ -175,6 +194,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       ScmAccountToUserLoader.class,
       ScmAccountToUser.class,
       IssueCache.class,
+      PersistedIssuesHolder.class,
       DefaultAssignee.class,
       IssueVisitors.class,
       IssueLifecycle.class,
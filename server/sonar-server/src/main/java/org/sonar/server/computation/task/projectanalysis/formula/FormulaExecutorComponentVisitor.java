@@ -21,9 +21,10 @@ package org.sonar.server.computation.task.projectanalysis.formula;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.CheckForNull;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
@@ -39,38 +40,30 @@ import org.sonar.server.computation.task.projectanalysis.period.PeriodsHolder;
 import static java.util.Objects.requireNonNull;
 
 public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<FormulaExecutorComponentVisitor.Counters> {
-  private static final SimpleStackElementFactory<Counters> COUNTERS_FACTORY = new SimpleStackElementFactory<Counters>() {
-
-    @Override
-    public Counters createForAny(Component component) {
-      return new Counters();
-    }
-
-    @Override
-    public Counters createForFile(Component component) {
-      // No need to create a counter on leaf levels
-      return null;
-    }
-
-    @Override
-    public Counters createForProjectView(Component projectView) {
-      // No need to create a counter on leaf levels
-      return null;
-    }
-  };
 
   @CheckForNull
   private final PeriodsHolder periodsHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
   private final List<Formula> formulas;
-
-  private FormulaExecutorComponentVisitor(Builder builder, Iterable<Formula> formulas) {
-    super(CrawlerDepthLimit.LEAVES, ComponentVisitor.Order.POST_ORDER, COUNTERS_FACTORY);
+  /**
+   * Output metrics of each formula, in the same order as {@link #formulas}. Metrics are loaded on first use, so that
+   * the visitor can be created before the {@link MetricRepository} is populated.
+   */
+  private final Metric[][] outputMetrics;
+  /**
+   * Cumulative execution time, in nanoseconds, of each formula, in the same order as {@link #formulas}
+   */
+  private final long[] durations;
+
+  private FormulaExecutorComponentVisitor(Builder builder, List<Formula> formulas) {
+    super(CrawlerDepthLimit.LEAVES, ComponentVisitor.Order.POST_ORDER, new CountersFactory(formulas.size()));
     this.periodsHolder = builder.periodsHolder;
     this.measureRepository = builder.measureRepository;
     this.metricRepository = builder.metricRepository;
-    this.formulas = ImmutableList.copyOf(formulas);
+    this.formulas = formulas;
+    this.outputMetrics = new Metric[formulas.size()][];
+    this.durations = new long[formulas.size()];
   }
 
   public static Builder newBuilder(MetricRepository metricRepository, MeasureRepository measureRepository) {
@@ -98,7 +91,7 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
     }
 
     public FormulaExecutorComponentVisitor buildFor(Iterable<Formula> formulas) {
-      return new FormulaExecutorComponentVisitor(this, formulas);
+      return new FormulaExecutorComponentVisitor(this, ImmutableList.copyOf(formulas));
     }
   }
 
@@ -146,46 +139,73 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
   }
 
   private void processNotLeaf(Component component, Path<FormulaExecutorComponentVisitor.Counters> path) {
-    for (Formula formula : formulas) {
-      Counter counter = path.current().getCounter(formula);
+    for (int i = 0; i < formulas.size(); i++) {
+      Counter counter = path.current().getCounter(i);
       // If there were no file under this node, the counter won't be initialized
       if (counter != null) {
-        for (String metricKey : formula.getOutputMetricKeys()) {
-          addNewMeasure(component, metricKey, formula, counter);
-        }
-        aggregateToParent(path, formula, counter);
+        long start = System.nanoTime();
+        addNewMeasures(component, i, counter);
+        aggregateToParent(path, i, counter);
+        durations[i] += System.nanoTime() - start;
       }
     }
   }
 
   private void processLeaf(Component file, Path<FormulaExecutorComponentVisitor.Counters> path) {
     CounterInitializationContext counterContext = new CounterInitializationContextImpl(file);
-    for (Formula formula : formulas) {
-      Counter counter = formula.createNewCounter();
+    for (int i = 0; i < formulas.size(); i++) {
+      long start = System.nanoTime();
+      Counter counter = formulas.get(i).createNewCounter();
       counter.initialize(counterContext);
-      for (String metricKey : formula.getOutputMetricKeys()) {
-        addNewMeasure(file, metricKey, formula, counter);
-      }
-      aggregateToParent(path, formula, counter);
+      addNewMeasures(file, i, counter);
+      aggregateToParent(path, i, counter);
+      durations[i] += System.nanoTime() - start;
     }
   }
 
-  private void addNewMeasure(Component component, String metricKey, Formula formula, Counter counter) {
+  private void addNewMeasures(Component component, int formulaIndex, Counter counter) {
     // no new measure can be created by formulas for PROJECT_VIEW components, their measures are the copy
     if (component.getType() == Component.Type.PROJECT_VIEW) {
       return;
     }
-    Metric metric = metricRepository.getByKey(metricKey);
-    Optional<Measure> measure = formula.createMeasure(counter, new CreateMeasureContextImpl(component, metric));
-    if (measure.isPresent()) {
-      measureRepository.add(component, metric, measure.get());
+    Formula formula = formulas.get(formulaIndex);
+    for (Metric metric : getOutputMetrics(formulaIndex)) {
+      Optional<Measure> measure = formula.createMeasure(counter, new CreateMeasureContextImpl(component, metric));
+      if (measure.isPresent()) {
+        measureRepository.add(component, metric, measure.get());
+      }
+    }
+  }
+
+  private Metric[] getOutputMetrics(int formulaIndex) {
+    Metric[] metrics = outputMetrics[formulaIndex];
+    if (metrics == null) {
+      String[] metricKeys = formulas.get(formulaIndex).getOutputMetricKeys();
+      metrics = new Metric[metricKeys.length];
+      for (int i = 0; i < metricKeys.length; i++) {
+        metrics[i] = metricRepository.getByKey(metricKeys[i]);
+      }
+      outputMetrics[formulaIndex] = metrics;
     }
+    return metrics;
   }
 
-  private static void aggregateToParent(Path<FormulaExecutorComponentVisitor.Counters> path, Formula formula, Counter currentCounter) {
+  private static void aggregateToParent(Path<FormulaExecutorComponentVisitor.Counters> path, int formulaIndex, Counter currentCounter) {
     if (!path.isRoot()) {
-      path.parent().aggregate(formula, currentCounter);
+      path.parent().aggregate(formulaIndex, currentCounter);
+    }
+  }
+
+  /**
+   * Cumulative execution time, in milliseconds, of each formula since the creation of this visitor, in the order
+   * of the formulas the visitor was built for.
+   */
+  public Map<Formula, Long> getCumulativeDurations() {
+    Map<Formula, Long> res = new LinkedHashMap<>();
+    for (int i = 0; i < formulas.size(); i++) {
+      res.put(formulas.get(i), TimeUnit.NANOSECONDS.toMillis(durations[i]));
     }
+    return res;
   }
 
   private class CounterInitializationContextImpl implements CounterInitializationContext {
@@ -211,13 +231,20 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
     }
   }
 
+  /**
+   * Counters of a component, indexed by the position of their formula in the list of formulas of the visitor
+   */
   public static class Counters {
-    Map<Formula, Counter> countersByFormula = new HashMap<>();
+    private final Counter[] countersByFormula;
+
+    private Counters(int formulaCount) {
+      this.countersByFormula = new Counter[formulaCount];
+    }
 
-    public void aggregate(Formula formula, Counter childCounter) {
-      Counter counter = countersByFormula.get(formula);
+    public void aggregate(int formulaIndex, Counter childCounter) {
+      Counter counter = countersByFormula[formulaIndex];
       if (counter == null) {
-        countersByFormula.put(formula, childCounter);
+        countersByFormula[formulaIndex] = childCounter;
       } else {
         counter.aggregate(childCounter);
       }
@@ -227,8 +254,33 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
      * Counter can be null on a level when it has not been fed by children levels
      */
     @CheckForNull
-    public Counter getCounter(Formula formula) {
-      return countersByFormula.get(formula);
+    public Counter getCounter(int formulaIndex) {
+      return countersByFormula[formulaIndex];
+    }
+  }
+
+  private static class CountersFactory extends SimpleStackElementFactory<Counters> {
+    private final int formulaCount;
+
+    private CountersFactory(int formulaCount) {
+      this.formulaCount = formulaCount;
+    }
+
+    @Override
+    public Counters createForAny(Component component) {
+      return new Counters(formulaCount);
+    }
+
+    @Override
+    public Counters createForFile(Component component) {
+      // No need to create a counter on leaf levels
+      return null;
+    }
+
+    @Override
+    public Counters createForProjectView(Component projectView) {
+      // No need to create a counter on leaf levels
+      return null;
     }
   }
 
@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.core.issue.DefaultIssue;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Keeps what is needed to index the issues of {@link IssueCache} without reading them again from database:
+ * the technical date of persistence and the issues which have been merged with concurrent changes
+ * of end-users (see {@link UpdateConflictResolver}).
+ */
+public class PersistedIssuesHolder {
+
+  private long persistedAt = -1L;
+  private final Map<String, DefaultIssue> mergedIssuesByKey = new HashMap<>();
+
+  public void setPersistedAt(long persistedAt) {
+    this.persistedAt = persistedAt;
+  }
+
+  public long getPersistedAt() {
+    checkState(persistedAt >= 0L, "Issues have not been persisted yet");
+    return persistedAt;
+  }
+
+  public void addMergedIssue(DefaultIssue issue) {
+    mergedIssuesByKey.put(issue.key(), issue);
+  }
+
+  /**
+   * The issue as it has been updated in database after resolution of a conflict, otherwise {@code null}.
+   */
+  @CheckForNull
+  public DefaultIssue getMergedIssue(String issueKey) {
+    return mergedIssuesByKey.get(issueKey);
+  }
+}
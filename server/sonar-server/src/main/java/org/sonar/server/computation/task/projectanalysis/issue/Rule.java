@@ -45,4 +45,10 @@ public interface Rule {
 
   @CheckForNull
   DebtRemediationFunction getRemediationFunction();
+
+  /**
+   * Key of the language, null on rules that are not bound to a language.
+   */
+  @CheckForNull
+  String getLanguage();
 }
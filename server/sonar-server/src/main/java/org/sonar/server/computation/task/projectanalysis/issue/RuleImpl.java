@@ -43,6 +43,7 @@ public class RuleImpl implements Rule {
   private final Set<String> tags;
   private final DebtRemediationFunction remediationFunction;
   private final RuleType type;
+  private final String language;
 
   public RuleImpl(RuleDto dto) {
     this.id = dto.getId();
@@ -52,6 +53,7 @@ public class RuleImpl implements Rule {
     this.tags = union(dto.getSystemTags(), dto.getTags());
     this.remediationFunction = effectiveRemediationFunction(dto);
     this.type = RuleType.valueOf(dto.getType());
+    this.language = dto.getLanguage();
   }
 
   @Override
@@ -89,6 +91,11 @@ public class RuleImpl implements Rule {
     return type;
   }
 
+  @Override
+  public String getLanguage() {
+    return language;
+  }
+
   @Override
   public boolean equals(@Nullable Object o) {
     if (this == o) {
@@ -20,12 +20,18 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
 
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+
 /**
  * Support concurrent modifications on issues made by analysis and users at the same time
  * See https://jira.sonarsource.com/browse/SONAR-4309
@@ -35,15 +41,33 @@ public class UpdateConflictResolver {
   private static final Logger LOG = Loggers.get(UpdateConflictResolver.class);
 
   public void resolve(DefaultIssue issue, IssueMapper mapper) {
-    LOG.debug("Resolve conflict on issue {}", issue.key());
-
     IssueDto dbIssue = mapper.selectByKey(issue.key());
     if (dbIssue != null) {
-      mergeFields(dbIssue, issue);
-      mapper.update(IssueDto.toDtoForUpdate(issue, System.currentTimeMillis()));
+      resolve(issue, dbIssue, mapper);
+    }
+  }
+
+  /**
+   * Same as {@link #resolve(DefaultIssue, IssueMapper)} for many issues at once. Issues are reloaded
+   * by partitions of keys rather than one by one.
+   */
+  public void resolve(Collection<DefaultIssue> issues, IssueMapper mapper) {
+    Map<String, DefaultIssue> issuesByKey = new HashMap<>(issues.size());
+    for (DefaultIssue issue : issues) {
+      issuesByKey.put(issue.key(), issue);
+    }
+    List<IssueDto> dbIssues = executeLargeInputs(issuesByKey.keySet(), mapper::selectByKeys);
+    for (IssueDto dbIssue : dbIssues) {
+      resolve(issuesByKey.get(dbIssue.getKey()), dbIssue, mapper);
     }
   }
 
+  private void resolve(DefaultIssue issue, IssueDto dbIssue, IssueMapper mapper) {
+    LOG.debug("Resolve conflict on issue {}", issue.key());
+    mergeFields(dbIssue, issue);
+    mapper.update(IssueDto.toDtoForUpdate(issue, System.currentTimeMillis()));
+  }
+
   @VisibleForTesting
   void mergeFields(IssueDto dbIssue, DefaultIssue issue) {
     resolveAssignee(dbIssue, issue);
@@ -0,0 +1,423 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of MeasureRepository which supports only raw measures and stores them by columns: each Metric has
+ * its own arrays of values, indexed by a dense index of the components. {@link Measure} objects are not retained,
+ * they are re-created each time they are read.
+ * <p>
+ * Measures of developers are rare and are stored in a {@link MapBasedRawMeasureRepository}.
+ * </p>
+ *
+ * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
+ */
+public final class ColumnarRawMeasureRepository<T> implements MeasureRepository {
+  private static final Measure.ValueType[] VALUE_TYPES = Measure.ValueType.values();
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int VARIATION_COUNT = 5;
+
+  private final Function<Component, T> componentToKey;
+  private final Map<T, Integer> componentIndexes = new HashMap<>();
+  private final Map<String, Column> columnsByMetricKey = new LinkedHashMap<>();
+  private final MapBasedRawMeasureRepository<T> developerMeasures;
+
+  public ColumnarRawMeasureRepository(Function<Component, T> componentToKey) {
+    this.componentToKey = requireNonNull(componentToKey);
+    this.developerMeasures = new MapBasedRawMeasureRepository<>(componentToKey);
+  }
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    Column column = columnsByMetricKey.get(metric.getKey());
+    int componentIndex = getComponentIndex(component);
+    if (column == null || componentIndex < 0 || !column.isPresent(componentIndex)) {
+      return Optional.absent();
+    }
+    return Optional.of(column.toMeasure(componentIndex));
+  }
+
+  private boolean hasRawMeasure(Component component, Metric metric) {
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return false;
+    }
+    int componentIndex = getComponentIndex(component);
+    return componentIndex >= 0 && column.isPresent(componentIndex);
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    if (measure.getDeveloper() != null) {
+      developerMeasures.add(component, metric, measure);
+      return;
+    }
+    checkValueTypeConsistency(metric, measure);
+
+    if (hasRawMeasure(component, metric)) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    if (measure.getDeveloper() != null) {
+      developerMeasures.update(component, metric, measure);
+      return;
+    }
+    checkValueTypeConsistency(metric, measure);
+
+    if (!hasRawMeasure(component, metric)) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+    Set<Measure> measuresOfDevelopers = developerMeasures.getRawMeasures(component, metric);
+    Optional<Measure> measure = getRawMeasure(component, metric);
+    if (!measure.isPresent()) {
+      return measuresOfDevelopers;
+    }
+    return ImmutableSet.<Measure>builder().add(measure.get()).addAll(measuresOfDevelopers).build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int componentIndex = getComponentIndex(component);
+    SetMultimap<String, Measure> measuresOfDevelopers = developerMeasures.getRawMeasures(component);
+    if (componentIndex < 0) {
+      return measuresOfDevelopers;
+    }
+
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    for (Map.Entry<String, Column> entry : columnsByMetricKey.entrySet()) {
+      Column column = entry.getValue();
+      if (column.isPresent(componentIndex)) {
+        builder.put(entry.getKey(), column.toMeasure(componentIndex));
+      }
+    }
+    return builder.putAll(measuresOfDevelopers).build();
+  }
+
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    if (measure.getDeveloper() != null) {
+      developerMeasures.add(component, metric, measure, overridePolicy);
+      return;
+    }
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      column = new Column();
+      columnsByMetricKey.put(metric.getKey(), column);
+    }
+    int componentIndex = getOrCreateComponentIndex(component);
+    if (!column.isPresent(componentIndex) || overridePolicy == OverridePolicy.OVERRIDE) {
+      column.set(componentIndex, measure);
+    }
+  }
+
+  /**
+   * @return the index of the component, or -1 if no measure has been added to the component yet
+   */
+  private int getComponentIndex(Component component) {
+    Integer index = componentIndexes.get(componentToKey.apply(component));
+    return index == null ? -1 : index;
+  }
+
+  private int getOrCreateComponentIndex(Component component) {
+    T componentKey = componentToKey.apply(component);
+    Integer index = componentIndexes.get(componentKey);
+    if (index == null) {
+      index = componentIndexes.size();
+      componentIndexes.put(componentKey, index);
+    }
+    return index;
+  }
+
+  /**
+   * Measures of a single Metric. Values of the most common value types (boolean, int, long and double) are stored
+   * in an array of primitives. The other attributes of measures are rare and the structures storing them are created
+   * on first use.
+   * <p>
+   * The column starts sparse: measures are stored in rows allocated in order of addition, whatever the index of their
+   * component, so that a metric set only on a few components, such as the project, does not cost an entry per component.
+   * It becomes dense, rows being then the indexes of components, as soon as at least one component out of
+   * {@link #DENSE_RATIO} has a measure.
+   * </p>
+   */
+  private static final class Column {
+    private static final int DENSE_RATIO = 8;
+
+    /**
+     * Row of each component index while the column is sparse, {@code null} once it is dense
+     */
+    @CheckForNull
+    private Map<Integer, Integer> sparseRows = new HashMap<>();
+    private final BitSet present = new BitSet();
+    private byte[] valueTypes = new byte[0];
+    private double[] values = new double[0];
+    @CheckForNull
+    private String[] data;
+    /**
+     * Slot of the variations of each row, plus one, 0 when the measure of the row has no variation
+     */
+    @CheckForNull
+    private int[] variationSlots;
+    /**
+     * Variations of the measures, {@link #VARIATION_COUNT} per slot, {@link Double#NaN} when a variation is not set
+     */
+    private double[] variations = new double[0];
+    private int variationSlotCount = 0;
+    private final Map<Integer, Measure.Level> levels = new HashMap<>();
+    private final Map<Integer, String> descriptions = new HashMap<>();
+    private final Map<Integer, QualityGateStatus> qualityGateStatuses = new HashMap<>();
+
+    boolean isPresent(int index) {
+      return present.get(index);
+    }
+
+    void set(int index, Measure measure) {
+      int row = getOrCreateRow(index);
+      present.set(index);
+      Measure.ValueType valueType = measure.getValueType();
+      valueTypes[row] = (byte) valueType.ordinal();
+      values[row] = toDouble(measure);
+      setData(row, measure.getData());
+      setSparse(levels, index, valueType == Measure.ValueType.LEVEL ? measure.getLevelValue() : null);
+      setSparse(descriptions, index, measure.getDescription());
+      setSparse(qualityGateStatuses, index, measure.hasQualityGateStatus() ? measure.getQualityGateStatus() : null);
+      setVariations(row, measure);
+    }
+
+    Measure toMeasure(int index) {
+      int row = sparseRows == null ? index : sparseRows.get(index);
+      Measure.ValueType valueType = VALUE_TYPES[valueTypes[row]];
+      return new Measure(valueType, null,
+        hasNumericValue(valueType) ? values[row] : null,
+        data == null ? null : data[row],
+        levels.get(index),
+        descriptions.get(index),
+        qualityGateStatuses.get(index),
+        getVariations(row));
+    }
+
+    private int getOrCreateRow(int index) {
+      if (sparseRows == null) {
+        ensureCapacity(index + 1);
+        return index;
+      }
+      Integer row = sparseRows.get(index);
+      if (row != null) {
+        return row;
+      }
+      int componentCount = Math.max(present.length(), index + 1);
+      if ((sparseRows.size() + 1) * DENSE_RATIO >= componentCount) {
+        toDense(componentCount);
+        return index;
+      }
+      int newRow = sparseRows.size();
+      sparseRows.put(index, newRow);
+      ensureCapacity(newRow + 1);
+      return newRow;
+    }
+
+    private void toDense(int capacity) {
+      byte[] denseValueTypes = new byte[capacity];
+      double[] denseValues = new double[capacity];
+      String[] denseData = data == null ? null : new String[capacity];
+      int[] denseVariationSlots = variationSlots == null ? null : new int[capacity];
+      for (Map.Entry<Integer, Integer> entry : sparseRows.entrySet()) {
+        int index = entry.getKey();
+        int row = entry.getValue();
+        denseValueTypes[index] = valueTypes[row];
+        denseValues[index] = values[row];
+        if (denseData != null) {
+          denseData[index] = data[row];
+        }
+        if (denseVariationSlots != null) {
+          denseVariationSlots[index] = variationSlots[row];
+        }
+      }
+      this.valueTypes = denseValueTypes;
+      this.values = denseValues;
+      this.data = denseData;
+      this.variationSlots = denseVariationSlots;
+      this.sparseRows = null;
+    }
+
+    private static boolean hasNumericValue(Measure.ValueType valueType) {
+      switch (valueType) {
+        case BOOLEAN:
+        case INT:
+        case LONG:
+        case DOUBLE:
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    private static double toDouble(Measure measure) {
+      switch (measure.getValueType()) {
+        case BOOLEAN:
+          return measure.getBooleanValue() ? 1.0d : 0.0d;
+        case INT:
+          return measure.getIntValue();
+        case LONG:
+          return measure.getLongValue();
+        case DOUBLE:
+          return measure.getDoubleValue();
+        default:
+          return 0d;
+      }
+    }
+
+    private void setData(int row, @Nullable String value) {
+      if (value != null && data == null) {
+        data = new String[values.length];
+      }
+      if (data != null) {
+        data[row] = value;
+      }
+    }
+
+    private static <V> void setSparse(Map<Integer, V> map, int index, @Nullable V value) {
+      if (value == null) {
+        map.remove(index);
+      } else {
+        map.put(index, value);
+      }
+    }
+
+    private void setVariations(int row, Measure measure) {
+      if (!measure.hasVariations()) {
+        if (variationSlots != null) {
+          variationSlots[row] = 0;
+        }
+        return;
+      }
+      if (variationSlots == null) {
+        variationSlots = new int[values.length];
+      }
+      int slot = variationSlots[row] - 1;
+      if (slot < 0) {
+        slot = variationSlotCount;
+        variationSlotCount++;
+        if (variationSlotCount * VARIATION_COUNT > variations.length) {
+          variations = Arrays.copyOf(variations, Math.max(INITIAL_CAPACITY, variationSlotCount * 2) * VARIATION_COUNT);
+        }
+        variationSlots[row] = slot + 1;
+      }
+      MeasureVariations measureVariations = measure.getVariations();
+      for (int i = 0; i < VARIATION_COUNT; i++) {
+        int periodIndex = i + 1;
+        variations[slot * VARIATION_COUNT + i] = measureVariations.hasVariation(periodIndex) ? measureVariations.getVariation(periodIndex) : Double.NaN;
+      }
+    }
+
+    @CheckForNull
+    private MeasureVariations getVariations(int row) {
+      if (variationSlots == null || variationSlots[row] == 0) {
+        return null;
+      }
+      int slot = variationSlots[row] - 1;
+      Double[] res = new Double[VARIATION_COUNT];
+      for (int i = 0; i < VARIATION_COUNT; i++) {
+        double variation = variations[slot * VARIATION_COUNT + i];
+        res[i] = Double.isNaN(variation) ? null : variation;
+      }
+      return new MeasureVariations(res);
+    }
+
+    private void ensureCapacity(int size) {
+      if (size <= values.length) {
+        return;
+      }
+      int capacity = Math.max(size, Math.max(INITIAL_CAPACITY, values.length * 2));
+      valueTypes = Arrays.copyOf(valueTypes, capacity);
+      values = Arrays.copyOf(values, capacity);
+      if (data != null) {
+        data = Arrays.copyOf(data, capacity);
+      }
+      if (variationSlots != null) {
+        variationSlots = Arrays.copyOf(variationSlots, capacity);
+      }
+    }
+  }
+}
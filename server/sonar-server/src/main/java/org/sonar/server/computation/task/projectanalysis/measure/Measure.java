@@ -82,7 +82,11 @@ public final class Measure {
   @CheckForNull
   private final MeasureVariations variations;
 
-  private Measure(ValueType valueType, @Nullable Developer developer,
+  /**
+   * Visible for {@link ColumnarRawMeasureRepository}, which re-creates the measures from their stored columns.
+   * Other classes must use {@link #newMeasureBuilder()} or {@link #updatedMeasureBuilder(Measure)}.
+   */
+  Measure(ValueType valueType, @Nullable Developer developer,
     @Nullable Double value, @Nullable String data, @Nullable Level dataLevel,
     @Nullable String description, @Nullable QualityGateStatus qualityGateStatus, @Nullable MeasureVariations variations) {
     this.valueType = valueType;
@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.scm;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +62,37 @@ class DbScmInfo implements ScmInfo {
     return Optional.<ScmInfo>of(new DbScmInfo(new ScmInfoImpl(lineChangesets)));
   }
 
+  /**
+   * Same as {@link #create(Component, Iterable)} but from the content of column FILE_SOURCES.SCM_DATA
+   */
+  static Optional<ScmInfo> create(Component component, DbFileSources.Scm scm) {
+    Changeset[] changesets = new Changeset[scm.getChangesetCount()];
+    Changeset.Builder builder = Changeset.newChangesetBuilder();
+    for (int i = 0; i < changesets.length; i++) {
+      DbFileSources.Scm.Changeset changeset = scm.getChangeset(i);
+      changesets[i] = builder
+        .setRevision(changeset.getRevision())
+        .setAuthor(changeset.hasAuthor() ? changeset.getAuthor() : null)
+        .setDate(changeset.getDate())
+        .build();
+    }
+    boolean encounteredLineWithoutScmInfo = false;
+    List<Changeset> lineChangesets = new ArrayList<>(scm.getLineChangesetCount());
+    for (int index : scm.getLineChangesetList()) {
+      if (index < 0) {
+        encounteredLineWithoutScmInfo = true;
+      } else {
+        lineChangesets.add(changesets[index]);
+      }
+    }
+    if (lineChangesets.isEmpty()) {
+      return Optional.absent();
+    }
+    checkState(!encounteredLineWithoutScmInfo,
+      format("Partial scm information stored in DB for component '%s'. Not all lines have SCM info. Can not proceed", component));
+    return Optional.<ScmInfo>of(new DbScmInfo(new ScmInfoImpl(lineChangesets)));
+  }
+
   @Override
   public Changeset getLatestChangeset() {
     return delegate.getLatestChangeset();
@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.scm;
 import com.google.common.base.Optional;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
@@ -31,6 +32,7 @@ import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 
 import static java.util.Objects.requireNonNull;
@@ -43,14 +45,24 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final DbClient dbClient;
   private final SourceHashRepository sourceHashRepository;
+  private final TreeRootHolder treeRootHolder;
 
   private final Map<Component, ScmInfo> scmInfoCache = new HashMap<>();
 
-  public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient, SourceHashRepository sourceHashRepository) {
+  /**
+   * Content of column FILE_SOURCES.SCM_DATA by file UUID, loaded at once for the whole project when the SCM
+   * information of a first file must be read from DB. Entries are removed when consumed.
+   */
+  @CheckForNull
+  private Map<String, FileSourceDto> scmDataByFileUuid;
+
+  public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient,
+    SourceHashRepository sourceHashRepository, TreeRootHolder treeRootHolder) {
     this.batchReportReader = batchReportReader;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.dbClient = dbClient;
     this.sourceHashRepository = sourceHashRepository;
+    this.treeRootHolder = treeRootHolder;
   }
 
   @Override
@@ -98,6 +110,15 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     }
 
     LOGGER.trace("Reading SCM info from db for file '{}'", file.getKey());
+    FileSourceDto scmDto = getScmDataByFileUuid().remove(file.getUuid());
+    if (scmDto != null) {
+      if (!sourceHashRepository.getRawSourceHash(file).equals(scmDto.getSrcHash())) {
+        return NoScmInfo.INSTANCE;
+      }
+      return DbScmInfo.create(file, FileSourceDto.decodeScmData(scmDto.getScmData())).or(NoScmInfo.INSTANCE);
+    }
+
+    // column SCM_DATA is not populated on sources persisted before version 6.1
     DbSession dbSession = dbClient.openSession(false);
     try {
       FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, file.getUuid());
@@ -110,6 +131,20 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     }
   }
 
+  private Map<String, FileSourceDto> getScmDataByFileUuid() {
+    if (scmDataByFileUuid == null) {
+      Map<String, FileSourceDto> result = new HashMap<>();
+      DbSession dbSession = dbClient.openSession(false);
+      try {
+        dbClient.fileSourceDao().scrollScmDataByProjectUuid(dbSession, treeRootHolder.getRoot().getUuid(), dto -> result.put(dto.getFileUuid(), dto));
+      } finally {
+        dbClient.closeSession(dbSession);
+      }
+      scmDataByFileUuid = result;
+    }
+    return scmDataByFileUuid;
+  }
+
   private static ScmInfo getScmInfoFromReport(Component file, ScannerReport.Changesets changesets) {
     LOGGER.trace("Reading SCM info from report for file '{}'", file.getKey());
     return new ReportScmInfo(changesets);
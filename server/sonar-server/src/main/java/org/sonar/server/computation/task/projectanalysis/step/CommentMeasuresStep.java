@@ -73,6 +73,10 @@ public class CommentMeasuresStep implements ComputationStep {
         .visit(treeRootHolder.getRoot());
   }
 
+  ImmutableList<Formula> getFormulas() {
+    return formulas;
+  }
+
   private class CommentDensityFormula implements Formula<IntSumCounter> {
 
     private final Metric nclocMetric;
@@ -86,6 +86,10 @@ public class ComplexityMeasuresStep implements ComputationStep {
       .visit(treeRootHolder.getRoot());
   }
 
+  ImmutableList<Formula> getFormulas() {
+    return FORMULAS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute complexity measures";
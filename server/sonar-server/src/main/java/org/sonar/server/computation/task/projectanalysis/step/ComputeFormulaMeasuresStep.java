@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.Map;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
+import org.sonar.server.computation.task.projectanalysis.formula.Formula;
+import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutorComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
+import org.sonar.server.computation.task.projectanalysis.period.PeriodsHolder;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+import static com.google.common.collect.Iterables.concat;
+
+/**
+ * Executes the formulas of the measure steps (size, coverage, comments, duplications, language distribution,
+ * tests and complexity) in a single traversal of the component tree, instead of one traversal per step.
+ * <p>
+ * On each component, formulas are executed in the order of the steps they belong to, so a formula can still rely
+ * on the measures of the same component computed by the formulas of a previous step (for example comment density
+ * requires ncloc, duplication density requires lines, ncloc and comment lines).
+ * </p>
+ */
+public class ComputeFormulaMeasuresStep implements ComputationStep {
+
+  private static final Logger LOGGER = Loggers.get(ComputeFormulaMeasuresStep.class);
+
+  private final TreeRootHolder treeRootHolder;
+  private final MetricRepository metricRepository;
+  private final MeasureRepository measureRepository;
+  private final PeriodsHolder periodsHolder;
+  private final SizeMeasuresStep sizeMeasuresStep;
+  private final NewCoverageMeasuresStep newCoverageMeasuresStep;
+  private final CoverageMeasuresStep coverageMeasuresStep;
+  private final CommentMeasuresStep commentMeasuresStep;
+  private final DuplicationMeasuresStep duplicationMeasuresStep;
+  private final LanguageDistributionMeasuresStep languageDistributionMeasuresStep;
+  private final UnitTestMeasuresStep unitTestMeasuresStep;
+  private final ComplexityMeasuresStep complexityMeasuresStep;
+
+  public ComputeFormulaMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository,
+    PeriodsHolder periodsHolder, SizeMeasuresStep sizeMeasuresStep, NewCoverageMeasuresStep newCoverageMeasuresStep,
+    CoverageMeasuresStep coverageMeasuresStep, CommentMeasuresStep commentMeasuresStep, DuplicationMeasuresStep duplicationMeasuresStep,
+    LanguageDistributionMeasuresStep languageDistributionMeasuresStep, UnitTestMeasuresStep unitTestMeasuresStep,
+    ComplexityMeasuresStep complexityMeasuresStep) {
+    this.treeRootHolder = treeRootHolder;
+    this.metricRepository = metricRepository;
+    this.measureRepository = measureRepository;
+    this.periodsHolder = periodsHolder;
+    this.sizeMeasuresStep = sizeMeasuresStep;
+    this.newCoverageMeasuresStep = newCoverageMeasuresStep;
+    this.coverageMeasuresStep = coverageMeasuresStep;
+    this.commentMeasuresStep = commentMeasuresStep;
+    this.duplicationMeasuresStep = duplicationMeasuresStep;
+    this.languageDistributionMeasuresStep = languageDistributionMeasuresStep;
+    this.unitTestMeasuresStep = unitTestMeasuresStep;
+    this.complexityMeasuresStep = complexityMeasuresStep;
+  }
+
+  @Override
+  public void execute() {
+    FormulaExecutorComponentVisitor formulaExecutor = FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
+      .withVariationSupport(periodsHolder)
+      .buildFor(concat(
+        sizeMeasuresStep.getFormulas(),
+        newCoverageMeasuresStep.getFormulas(),
+        coverageMeasuresStep.getFormulas(),
+        commentMeasuresStep.getFormulas(),
+        duplicationMeasuresStep.getFormulas(),
+        languageDistributionMeasuresStep.getFormulas(),
+        unitTestMeasuresStep.getFormulas(),
+        complexityMeasuresStep.getFormulas()));
+
+    // files and directories must be counted before the complexity formulas, which compute averages by file
+    new VisitorsCrawler(ImmutableList.<ComponentVisitor>of(sizeMeasuresStep.createFileAndDirectoryMeasureVisitor(), formulaExecutor))
+      .visit(treeRootHolder.getRoot());
+    logFormulaExecutionDurations(formulaExecutor);
+  }
+
+  private static void logFormulaExecutionDurations(FormulaExecutorComponentVisitor formulaExecutor) {
+    LOGGER.info("  Execution time for each formula:");
+    for (Map.Entry<Formula, Long> entry : formulaExecutor.getCumulativeDurations().entrySet()) {
+      Formula formula = entry.getKey();
+      LOGGER.info("  - {} {} | time={}ms", formula.getClass().getSimpleName(), Arrays.toString(formula.getOutputMetricKeys()), entry.getValue());
+    }
+  }
+
+  @Override
+  public String getDescription() {
+    return "Compute size, coverage, comment, duplication, language distribution, test and complexity measures";
+  }
+}
@@ -98,10 +98,14 @@ public class CoverageMeasuresStep implements ComputationStep {
   @Override
   public void execute() {
     new PathAwareCrawler<>(
-      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(COVERAGE_FORMULAS))
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(getFormulas()))
         .visit(treeRootHolder.getRoot());
   }
 
+  ImmutableList<Formula> getFormulas() {
+    return COVERAGE_FORMULAS;
+  }
+
   private static class CodeCoverageFormula extends LinesAndConditionsWithUncoveredFormula {
     public CodeCoverageFormula() {
       super(
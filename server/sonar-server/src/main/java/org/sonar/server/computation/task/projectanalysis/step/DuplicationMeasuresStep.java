@@ -95,6 +95,10 @@ public class DuplicationMeasuresStep implements ComputationStep {
       .visit(treeRootHolder.getRoot());
   }
 
+  ImmutableList<Formula> getFormulas() {
+    return formulas;
+  }
+
   private static class DuplicationCounter implements Counter<DuplicationCounter> {
     @CheckForNull
     private final DuplicationRepository duplicationRepository;
@@ -20,25 +20,44 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import org.sonar.db.component.ResourceIndexDao;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
- * Components are currently indexed in db table RESOURCE_INDEX, not in Elasticsearch
+ * Components are indexed in Elasticsearch index "components", which is used by the search of components by name or key
+ * of api/components/search.
+ * <p/>
+ * They must still be indexed in db table RESOURCE_INDEX, because the following SQL requests combine the search by
+ * name or key with joins, sorting and paging on other tables, and can't be replaced by a query of the Elasticsearch
+ * index without loading all the matching UUIDs in memory first:
+ * <ul>
+ *   <li>ComponentMapper#selectByQuery and #countByQuery, used by the searches of projects of permissions,
+ *   of "my projects" and of the activity of the Compute Engine</li>
+ *   <li>the filters of the tree of components (ComponentMapper "sqlTreeFilters"), used by api/components/tree and
+ *   api/measures/component_tree</li>
+ *   <li>the association of projects to quality gates (ProjectQgateAssociationMapper)</li>
+ *   <li>the filter on resource name of {@link org.sonar.server.measure.MeasureFilterSql}</li>
+ * </ul>
+ * The table can be dropped, and this step reduced to the indexing in Elasticsearch, once these requests are migrated.
  */
 public class IndexComponentsStep implements ComputationStep {
 
   private final ResourceIndexDao resourceIndexDao;
+  private final ComponentIndexer componentIndexer;
   private final TreeRootHolder treeRootHolder;
 
-  public IndexComponentsStep(ResourceIndexDao resourceIndexDao, TreeRootHolder treeRootHolder) {
+  public IndexComponentsStep(ResourceIndexDao resourceIndexDao, ComponentIndexer componentIndexer, TreeRootHolder treeRootHolder) {
     this.resourceIndexDao = resourceIndexDao;
+    this.componentIndexer = componentIndexer;
     this.treeRootHolder = treeRootHolder;
   }
 
   @Override
   public void execute() {
-    resourceIndexDao.indexProject(treeRootHolder.getRoot().getUuid());
+    String rootUuid = treeRootHolder.getRoot().getUuid();
+    resourceIndexDao.indexProject(rootUuid);
+    componentIndexer.index(rootUuid);
   }
 
   @Override
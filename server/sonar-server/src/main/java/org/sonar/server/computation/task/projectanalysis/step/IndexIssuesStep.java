@@ -19,23 +19,115 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.utils.KeyValueFormat;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesHolder;
+import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.issue.index.IssueDoc;
 import org.sonar.server.issue.index.IssueIndexer;
 
+import static com.google.common.base.Preconditions.checkState;
+import static org.sonar.server.issue.index.IssueDocPaths.extractDirPath;
+import static org.sonar.server.issue.index.IssueDocPaths.extractFilePath;
+import static org.sonar.server.issue.index.IssueDocPaths.extractModule;
+
+/**
+ * Indexes the issues created or updated by {@link PersistIssuesStep}. Documents are built from {@link IssueCache},
+ * so the issues are not read again from database. Only the components of the project are loaded, once.
+ */
 public class IndexIssuesStep implements ComputationStep {
 
   private final IssueIndexer indexer;
   private final TreeRootHolder treeRootHolder;
+  private final DbClient dbClient;
+  private final IssueCache issueCache;
+  private final RuleRepository ruleRepository;
+  private final PersistedIssuesHolder persistedIssuesHolder;
 
-  public IndexIssuesStep(IssueIndexer indexer, TreeRootHolder treeRootHolder) {
+  public IndexIssuesStep(IssueIndexer indexer, TreeRootHolder treeRootHolder, DbClient dbClient, IssueCache issueCache,
+    RuleRepository ruleRepository, PersistedIssuesHolder persistedIssuesHolder) {
     this.indexer = indexer;
     this.treeRootHolder = treeRootHolder;
+    this.dbClient = dbClient;
+    this.issueCache = issueCache;
+    this.ruleRepository = ruleRepository;
+    this.persistedIssuesHolder = persistedIssuesHolder;
   }
 
   @Override
   public void execute() {
-    indexer.index(treeRootHolder.getRoot().getUuid());
+    String projectUuid = treeRootHolder.getRoot().getUuid();
+    Map<String, ComponentDto> componentsByUuid = loadComponents(projectUuid);
+    Date technicalUpdateDate = new Date(persistedIssuesHolder.getPersistedAt());
+
+    try (CloseableIterator<DefaultIssue> issues = issueCache.traverse()) {
+      indexer.index(Iterators.transform(
+        Iterators.filter(issues, issue -> issue.isNew() || issue.isChanged()),
+        issue -> toDoc(issue, projectUuid, technicalUpdateDate, componentsByUuid)));
+    }
+  }
+
+  private Map<String, ComponentDto> loadComponents(String projectUuid) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      List<ComponentDto> components = dbClient.componentDao().selectByProjectUuid(projectUuid, dbSession);
+      Map<String, ComponentDto> result = Maps.newHashMapWithExpectedSize(components.size());
+      components.forEach(component -> result.put(component.uuid(), component));
+      return result;
+    }
+  }
+
+  private IssueDoc toDoc(DefaultIssue cachedIssue, String projectUuid, Date technicalUpdateDate, Map<String, ComponentDto> componentsByUuid) {
+    DefaultIssue mergedIssue = persistedIssuesHolder.getMergedIssue(cachedIssue.key());
+    DefaultIssue issue = mergedIssue == null ? cachedIssue : mergedIssue;
+    ComponentDto component = componentsByUuid.get(issue.componentUuid());
+    checkState(component != null, "Component with uuid '%s' of issue '%s' is not persisted", issue.componentUuid(), issue.key());
+
+    IssueDoc doc = new IssueDoc(Maps.newHashMapWithExpectedSize(30));
+    // all the fields must be present, even if value is null
+    doc.setKey(issue.key());
+    doc.setProjectUuid(projectUuid);
+    doc.setTechnicalUpdateDate(technicalUpdateDate);
+    doc.setAssignee(issue.assignee());
+    doc.setGap(issue.gap());
+    doc.setAttributes(KeyValueFormat.format(issue.attributes()));
+    doc.setLine(issue.line());
+    doc.setMessage(issue.message());
+    doc.setResolution(issue.resolution());
+    doc.setSeverity(issue.severity());
+    doc.setManualSeverity(issue.manualSeverity());
+    doc.setChecksum(issue.checksum());
+    doc.setStatus(issue.status());
+    doc.setEffort(issue.effortInMinutes());
+    doc.setAuthorLogin(issue.authorLogin());
+    doc.setFuncCloseDate(issue.closeDate());
+    doc.setFuncCreationDate(issue.creationDate());
+    doc.setFuncUpdateDate(issue.updateDate());
+    doc.setRuleKey(issue.ruleKey().toString());
+    doc.setLanguage(ruleRepository.getByKey(issue.ruleKey()).getLanguage());
+    doc.setComponentUuid(component.uuid());
+    String moduleUuidPath = component.moduleUuidPath();
+    doc.setModuleUuid(extractModule(moduleUuidPath));
+    doc.setModuleUuidPath(moduleUuidPath);
+    String scope = component.scope();
+    String filePath = extractFilePath(component.path(), scope);
+    doc.setFilePath(filePath);
+    doc.setDirectoryPath(extractDirPath(filePath, scope));
+    doc.setTags(ImmutableList.copyOf(issue.tags()));
+    doc.setType(issue.type());
+    return doc;
   }
 
   @Override
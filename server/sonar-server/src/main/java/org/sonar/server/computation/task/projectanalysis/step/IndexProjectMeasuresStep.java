@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
+
+/**
+ * Indexes the measures of the analysis in Elasticsearch index "projectmeasures". It must be executed
+ * once the analysis is flagged as the last one of the project.
+ */
+public class IndexProjectMeasuresStep implements ComputationStep {
+
+  private final ProjectMeasuresIndexer projectMeasuresIndexer;
+  private final TreeRootHolder treeRootHolder;
+
+  public IndexProjectMeasuresStep(ProjectMeasuresIndexer projectMeasuresIndexer, TreeRootHolder treeRootHolder) {
+    this.projectMeasuresIndexer = projectMeasuresIndexer;
+    this.treeRootHolder = treeRootHolder;
+  }
+
+  @Override
+  public void execute() {
+    projectMeasuresIndexer.index(treeRootHolder.getRoot().getUuid());
+  }
+
+  @Override
+  public String getDescription() {
+    return "Index project measures";
+  }
+}
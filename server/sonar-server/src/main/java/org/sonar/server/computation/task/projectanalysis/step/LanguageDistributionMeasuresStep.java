@@ -73,6 +73,10 @@ public class LanguageDistributionMeasuresStep implements ComputationStep {
       .visit(treeRootHolder.getRoot());
   }
 
+  ImmutableList<Formula> getFormulas() {
+    return FORMULAS;
+  }
+
   private static class LanguageDistributionFormula implements Formula<LanguageDistributionCounter> {
 
     @Override
@@ -114,15 +114,21 @@ public class NewCoverageMeasuresStep implements ComputationStep {
     new PathAwareCrawler<>(
       FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
         .withVariationSupport(periodsHolder)
-        .buildFor(
-          Iterables.concat(
-            NewLinesAndConditionsCoverageFormula.from(scmInfoRepository),
-            NewItLinesAndConditionsCoverageFormula.from(scmInfoRepository),
-            NewOverallLinesAndConditionsCoverageFormula.from(scmInfoRepository),
-            FORMULAS)))
+        .buildFor(getFormulas()))
       .visit(treeRootHolder.getRoot());
   }
 
+  /**
+   * Formulas of this step, which require the variation support of {@link FormulaExecutorComponentVisitor}
+   */
+  Iterable<Formula> getFormulas() {
+    return Iterables.concat(
+      NewLinesAndConditionsCoverageFormula.from(scmInfoRepository),
+      NewItLinesAndConditionsCoverageFormula.from(scmInfoRepository),
+      NewOverallLinesAndConditionsCoverageFormula.from(scmInfoRepository),
+      FORMULAS);
+  }
+
   @Override
   public String getDescription() {
     return "Compute new coverage";
@@ -143,6 +143,7 @@ public class PersistFileSourcesStep implements ComputationStep {
       DbFileSources.Data fileData = fileSourceData.getFileSourceData();
 
       byte[] data = FileSourceDto.encodeSourceData(fileData);
+      byte[] scmData = encodeScmData(fileData);
       String dataHash = DigestUtils.md5Hex(data);
       String srcHash = fileSourceData.getSrcHash();
       String lineHashes = fileSourceData.getLineHashes();
@@ -154,6 +155,7 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setFileUuid(componentUuid)
           .setDataType(Type.SOURCE)
           .setBinaryData(data)
+          .setScmData(scmData)
           .setSrcHash(srcHash)
           .setDataHash(dataHash)
           .setLineHashes(lineHashes)
@@ -171,6 +173,7 @@ public class PersistFileSourcesStep implements ComputationStep {
         if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
           previousDto
             .setBinaryData(data)
+            .setScmData(scmData)
             .setDataHash(dataHash)
             .setSrcHash(srcHash)
             .setLineHashes(lineHashes)
@@ -191,6 +194,34 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
   }
 
+  /**
+   * Copy of the SCM information of lines, which can be read by {@link org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository}
+   * without decoding the whole file.
+   */
+  private static byte[] encodeScmData(DbFileSources.Data fileData) {
+    DbFileSources.Scm.Builder scm = DbFileSources.Scm.newBuilder();
+    Map<String, Integer> changesetIndexByRevision = new HashMap<>();
+    for (DbFileSources.Line line : fileData.getLinesList()) {
+      if (line.hasScmRevision() && line.hasScmDate()) {
+        Integer index = changesetIndexByRevision.get(line.getScmRevision());
+        if (index == null) {
+          index = scm.getChangesetCount();
+          DbFileSources.Scm.Changeset.Builder changeset = scm.addChangesetBuilder()
+            .setRevision(line.getScmRevision())
+            .setDate(line.getScmDate());
+          if (line.hasScmAuthor()) {
+            changeset.setAuthor(line.getScmAuthor());
+          }
+          changesetIndexByRevision.put(line.getScmRevision(), index);
+        }
+        scm.addLineChangeset(index);
+      } else {
+        scm.addLineChangeset(-1);
+      }
+    }
+    return FileSourceDto.encodeScmData(scm.build());
+  }
+
   private static class LineReaders {
     private final List<LineReader> readers = new ArrayList<>();
     private final List<CloseableIterator<?>> closeables = new ArrayList<>();
@@ -19,91 +19,264 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.apache.ibatis.executor.BatchResult;
 import org.sonar.api.issue.IssueComment;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.MyBatis;
 import org.sonar.db.issue.IssueChangeDto;
 import org.sonar.db.issue.IssueChangeMapper;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
-import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
-import org.sonar.db.DbSession;
-import org.sonar.db.MyBatis;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesHolder;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
-import org.sonar.db.DbClient;
-import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+/**
+ * Issues are written by batches of {@link #DEFAULT_BATCH_SIZE}, each batch being committed on its own, so that
+ * neither the JDBC batch nor the transaction grows with the number of issues. Comments and changelogs are
+ * written to table ISSUE_CHANGES by a second thread, with its own session, while the next batch of issues is written.
+ * <p/>
+ * A batch that is committed before a failure of the step is not rolled back. The issues are then known by key
+ * to the next analysis of the project, which tracks them as existing issues.
+ */
 public class PersistIssuesStep implements ComputationStep {
 
+  private static final Logger LOG = Loggers.get(PersistIssuesStep.class);
+
+  static final int DEFAULT_BATCH_SIZE = 1_000;
+  private static final String UPDATE_STATEMENT_ID = IssueMapper.class.getName() + ".updateIfBeforeSelectedDate";
+  private static final long CHANGES_WRITER_TERMINATION_TIMEOUT_IN_SECONDS = 60;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final UpdateConflictResolver conflictResolver;
   private final RuleRepository ruleRepository;
   private final IssueCache issueCache;
+  private final PersistedIssuesHolder persistedIssuesHolder;
+  private final int batchSize;
 
   public PersistIssuesStep(DbClient dbClient, System2 system2, UpdateConflictResolver conflictResolver,
-    RuleRepository ruleRepository, IssueCache issueCache) {
+    RuleRepository ruleRepository, IssueCache issueCache, PersistedIssuesHolder persistedIssuesHolder) {
+    this(dbClient, system2, conflictResolver, ruleRepository, issueCache, persistedIssuesHolder, DEFAULT_BATCH_SIZE);
+  }
+
+  @VisibleForTesting
+  PersistIssuesStep(DbClient dbClient, System2 system2, UpdateConflictResolver conflictResolver,
+    RuleRepository ruleRepository, IssueCache issueCache, PersistedIssuesHolder persistedIssuesHolder, int batchSize) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.conflictResolver = conflictResolver;
     this.ruleRepository = ruleRepository;
     this.issueCache = issueCache;
+    this.persistedIssuesHolder = persistedIssuesHolder;
+    this.batchSize = batchSize;
   }
 
   @Override
   public void execute() {
-    DbSession session = dbClient.openSession(true);
-    IssueMapper mapper = session.getMapper(IssueMapper.class);
-    IssueChangeMapper changeMapper = session.getMapper(IssueChangeMapper.class);
+    // same technical date for all the issues, so that they can be indexed from the cache with the date stored in db
+    long now = system2.now();
+    persistedIssuesHolder.setPersistedAt(now);
 
+    long start = System.currentTimeMillis();
+    ExecutorService changesExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("CE_issue_changes_writer-%d")
+      .setDaemon(true)
+      .build());
+    DbSession session = dbClient.openSession(true);
+    ChangesWriter changesWriter = new ChangesWriter(changesExecutor, dbClient.openSession(true));
     CloseableIterator<DefaultIssue> issues = issueCache.traverse();
     try {
+      IssuesWriter issuesWriter = new IssuesWriter(session, changesWriter, now);
       while (issues.hasNext()) {
-        DefaultIssue issue = issues.next();
-        boolean saved = false;
-        if (issue.isNew()) {
-          Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
-          IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now());
-          mapper.insert(dto);
-          saved = true;
-        } else if (issue.isChanged()) {
-          IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
-          int updateCount = mapper.updateIfBeforeSelectedDate(dto);
-          if (updateCount == 0) {
-            // End-user and scan changed the issue at the same time.
-            // See https://jira.sonarsource.com/browse/SONAR-4309
-            conflictResolver.resolve(issue, mapper);
-          }
-          saved = true;
-        }
-        if (saved) {
-          insertChanges(changeMapper, issue);
-        }
+        issuesWriter.write(issues.next());
       }
-      session.flushStatements();
-      session.commit();
+      issuesWriter.commit();
+      changesWriter.awaitPendingWrite();
+      logStatistics(issuesWriter.count, changesWriter.count, System.currentTimeMillis() - start);
     } finally {
+      changesWriter.close();
       MyBatis.closeQuietly(session);
       issues.close();
     }
   }
 
-  private static void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
+  private static void logStatistics(int issueCount, int changeCount, long durationInMs) {
+    LOG.info("{} issues and {} issue changes persisted | time={}ms | rows/s={}",
+      issueCount, changeCount, durationInMs, rowsPerSecond(issueCount + changeCount, durationInMs));
+  }
+
+  private static long rowsPerSecond(int rows, long durationInMs) {
+    return durationInMs == 0 ? rows : (rows * 1_000L / durationInMs);
+  }
+
+  private class IssuesWriter {
+    private final DbSession session;
+    private final IssueMapper mapper;
+    private final ChangesWriter changesWriter;
+    private final long now;
+    private final Map<String, DefaultIssue> updatedIssuesByKey = new HashMap<>();
+    private List<IssueChangeDto> changes = new ArrayList<>();
+    private int uncommittedCount = 0;
+    private int count = 0;
+
+    private IssuesWriter(DbSession session, ChangesWriter changesWriter, long now) {
+      this.session = session;
+      this.mapper = session.getMapper(IssueMapper.class);
+      this.changesWriter = changesWriter;
+      this.now = now;
+    }
+
+    private void write(DefaultIssue issue) {
+      if (issue.isNew()) {
+        Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
+        mapper.insert(IssueDto.toDtoForComputationInsert(issue, ruleId, now));
+      } else if (issue.isChanged()) {
+        // conflicts are detected on the results of the JDBC batch, see #commit()
+        mapper.updateIfBeforeSelectedDate(IssueDto.toDtoForUpdate(issue, now));
+        updatedIssuesByKey.put(issue.key(), issue);
+      } else {
+        return;
+      }
+      addChanges(changes, issue);
+      count++;
+      uncommittedCount++;
+      if (uncommittedCount >= batchSize) {
+        commit();
+      }
+    }
+
+    private void commit() {
+      List<DefaultIssue> conflicts = selectConflicts(session.flushStatements());
+      if (!conflicts.isEmpty()) {
+        // End-user and scan changed the issues at the same time.
+        // See https://jira.sonarsource.com/browse/SONAR-4309
+        conflictResolver.resolve(conflicts, mapper);
+        conflicts.forEach(persistedIssuesHolder::addMergedIssue);
+      }
+      session.commit();
+      changesWriter.write(changes);
+      changes = new ArrayList<>();
+      updatedIssuesByKey.clear();
+      uncommittedCount = 0;
+    }
+
+    /**
+     * Issues that have not been updated because they have been changed by an end-user since the
+     * beginning of the analysis
+     */
+    private List<DefaultIssue> selectConflicts(List<BatchResult> batchResults) {
+      List<DefaultIssue> conflicts = new ArrayList<>();
+      for (BatchResult batchResult : batchResults) {
+        if (UPDATE_STATEMENT_ID.equals(batchResult.getMappedStatement().getId())) {
+          int[] updateCounts = batchResult.getUpdateCounts();
+          List<Object> dtos = batchResult.getParameterObjects();
+          for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+              conflicts.add(updatedIssuesByKey.get(((IssueDto) dtos.get(i)).getKey()));
+            }
+          }
+        }
+      }
+      return conflicts;
+    }
+  }
+
+  private static void addChanges(List<IssueChangeDto> changes, DefaultIssue issue) {
     for (IssueComment comment : issue.comments()) {
       DefaultIssueComment c = (DefaultIssueComment) comment;
       if (c.isNew()) {
-        IssueChangeDto changeDto = IssueChangeDto.of(c);
-        mapper.insert(changeDto);
+        changes.add(IssueChangeDto.of(c));
       }
     }
     FieldDiffs diffs = issue.currentChange();
     if (!issue.isNew() && diffs != null) {
-      IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
-      mapper.insert(changeDto);
+      changes.add(IssueChangeDto.of(issue.key(), diffs));
+    }
+  }
+
+  /**
+   * Inserts the changes of a batch of issues in background. At most one batch is pending, so that memory
+   * does not grow if the database is slower to write changes than issues.
+   * <p/>
+   * The session is closed by the writer thread itself, after the pending batch, so that it's never closed while
+   * being used. Changes of a pending batch belong to issues which are already committed, so the batch is not
+   * cancelled when the step fails.
+   */
+  private static class ChangesWriter {
+    private final ExecutorService executor;
+    private final DbSession session;
+    @CheckForNull
+    private Future<?> pendingWrite;
+    private int count = 0;
+
+    private ChangesWriter(ExecutorService executor, DbSession session) {
+      this.executor = executor;
+      this.session = session;
+    }
+
+    private void write(List<IssueChangeDto> changes) {
+      awaitPendingWrite();
+      if (changes.isEmpty()) {
+        return;
+      }
+      pendingWrite = executor.submit(() -> {
+        IssueChangeMapper mapper = session.getMapper(IssueChangeMapper.class);
+        changes.forEach(mapper::insert);
+        session.commit();
+      });
+      count += changes.size();
+    }
+
+    private void close() {
+      executor.execute(() -> MyBatis.closeQuietly(session));
+      executor.shutdown();
+      try {
+        if (!executor.awaitTermination(CHANGES_WRITER_TERMINATION_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+          LOG.warn("Issue changes are still being persisted after {}s. The step ends without waiting for them.",
+            CHANGES_WRITER_TERMINATION_TIMEOUT_IN_SECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void awaitPendingWrite() {
+      if (pendingWrite == null) {
+        return;
+      }
+      try {
+        pendingWrite.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while persisting issue changes", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Fail to persist issue changes", e.getCause());
+      } finally {
+        pendingWrite = null;
+      }
     }
   }
 
@@ -58,16 +58,11 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     LoadCrossProjectDuplicationsRepositoryStep.class,
 
     // data computation
-    SizeMeasuresStep.class,
-    NewCoverageMeasuresStep.class,
-    CoverageMeasuresStep.class,
-    CommentMeasuresStep.class,
     CustomMeasuresCopyStep.class,
-    DuplicationMeasuresStep.class,
     DuplicationDataMeasuresStep.class,
-    LanguageDistributionMeasuresStep.class,
-    UnitTestMeasuresStep.class,
-    ComplexityMeasuresStep.class,
+    // Executes the formulas of size, coverage, comment, duplication, language distribution, test and complexity
+    // measures in a single traversal of the component tree
+    ComputeFormulaMeasuresStep.class,
 
     LoadMeasureComputersStep.class,
     ExecuteVisitorsStep.class,
@@ -106,6 +101,7 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     // ES indexing is done after all db changes
     IndexIssuesStep.class,
     IndexTestsStep.class,
+    IndexProjectMeasuresStep.class,
 
     // notifications are sent at the end, so that webapp displays up-to-date information
     SendIssueNotificationsStep.class,
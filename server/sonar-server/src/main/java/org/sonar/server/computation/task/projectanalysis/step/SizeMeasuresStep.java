@@ -26,6 +26,7 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.formula.Formula;
@@ -75,16 +76,27 @@ public class SizeMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    Metric fileMetric = metricRepository.getByKey(CoreMetrics.FILES_KEY);
-    Metric directoryMetric = metricRepository.getByKey(CoreMetrics.DIRECTORIES_KEY);
-
-    new PathAwareCrawler<>(new FileAndDirectoryMeasureVisitor(directoryMetric, fileMetric))
+    new PathAwareCrawler<>(createFileAndDirectoryMeasureVisitor())
       .visit(treeRootHolder.getRoot());
     new PathAwareCrawler<>(FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
-      .buildFor(AGGREGATED_SIZE_MEASURE_FORMULAS))
+      .buildFor(getFormulas()))
         .visit(treeRootHolder.getRoot());
   }
 
+  /**
+   * Visitor computing the {@link CoreMetrics#FILES} and {@link CoreMetrics#DIRECTORIES} measures, which are not
+   * computed by formulas.
+   */
+  PathAwareVisitor<?> createFileAndDirectoryMeasureVisitor() {
+    Metric fileMetric = metricRepository.getByKey(CoreMetrics.FILES_KEY);
+    Metric directoryMetric = metricRepository.getByKey(CoreMetrics.DIRECTORIES_KEY);
+    return new FileAndDirectoryMeasureVisitor(directoryMetric, fileMetric);
+  }
+
+  List<Formula> getFormulas() {
+    return AGGREGATED_SIZE_MEASURE_FORMULAS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute size measures";
@@ -74,6 +74,10 @@ public class UnitTestMeasuresStep implements ComputationStep {
         .visit(treeRootHolder.getRoot());
   }
 
+  ImmutableList<Formula> getFormulas() {
+    return FORMULAS;
+  }
+
   private static class UnitTestsFormula implements Formula<UnitTestsCounter> {
 
     @Override
@@ -20,6 +20,8 @@
 package org.sonar.server.computation.taskprocessor;
 
 import com.google.common.base.Optional;
+import java.util.List;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.log.CeLogging;
@@ -27,7 +29,10 @@ import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.taskprocessor.CeTaskProcessor;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.db.DbClient;
 import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.db.profiling.StatementStatistics;
 import org.sonar.server.computation.queue.InternalCeQueue;
 
 import static java.lang.String.format;
@@ -35,15 +40,18 @@ import static java.lang.String.format;
 public class CeWorkerCallableImpl implements CeWorkerCallable {
 
   private static final Logger LOG = Loggers.get(CeWorkerCallableImpl.class);
+  private static final int MAX_LOGGED_SQL_STATEMENTS = 10;
 
   private final InternalCeQueue queue;
   private final CeLogging ceLogging;
   private final CeTaskProcessorRepository taskProcessorRepository;
+  private final DbClient dbClient;
 
-  public CeWorkerCallableImpl(InternalCeQueue queue, CeLogging ceLogging, CeTaskProcessorRepository taskProcessorRepository) {
+  public CeWorkerCallableImpl(InternalCeQueue queue, CeLogging ceLogging, CeTaskProcessorRepository taskProcessorRepository, DbClient dbClient) {
     this.queue = queue;
     this.ceLogging = ceLogging;
     this.taskProcessorRepository = taskProcessorRepository;
+    this.dbClient = dbClient;
   }
 
   @Override
@@ -71,6 +79,8 @@ public class CeWorkerCallableImpl implements CeWorkerCallable {
     Profiler regularProfiler = startProfiler(task);
     ceLogging.initForTask(task);
     Profiler ceProfiler = startProfiler(task);
+    SqlStatistics sqlStatistics = dbClient.getMyBatis().getSqlStatistics();
+    sqlStatistics.startRecordingForCurrentThread();
 
     CeActivityDto.Status status = CeActivityDto.Status.FAILED;
     CeTaskResult process = null;
@@ -88,6 +98,7 @@ public class CeWorkerCallableImpl implements CeWorkerCallable {
       LOG.error(format("Failed to execute task %s", task.getUuid()), e);
     } finally {
       queue.remove(task, status, process);
+      logSqlStatistics(sqlStatistics.stopRecordingForCurrentThread());
       // logging twice: once in sonar.log and once in CE appender
       stopProfiler(ceProfiler, task, status);
       ceLogging.clearForTask();
@@ -95,6 +106,19 @@ public class CeWorkerCallableImpl implements CeWorkerCallable {
     }
   }
 
+  /**
+   * Logs the most time-consuming SQL statements executed by the task, in the log of the task
+   */
+  private static void logSqlStatistics(@Nullable SqlStatistics taskStatistics) {
+    if (taskStatistics == null) {
+      return;
+    }
+    List<StatementStatistics> statements = taskStatistics.getAll();
+    for (StatementStatistics statement : statements.subList(0, Math.min(statements.size(), MAX_LOGGED_SQL_STATEMENTS))) {
+      LOG.info("SQL {} | {}", statement.getStatementId(), statement.format());
+    }
+  }
+
   private static Profiler startProfiler(CeTask task) {
     Profiler profiler = Profiler.create(LOG);
     addContext(profiler, task);
@@ -23,8 +23,10 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.server.activity.index.ActivityIndexer;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 import org.sonar.server.test.index.TestIndexer;
 import org.sonar.server.user.index.UserIndexer;
 import org.sonar.server.view.index.ViewIndexer;
@@ -39,6 +41,8 @@ public class IndexerStartupTask {
   private final UserIndexer userIndexer;
   private final ViewIndexer viewIndexer;
   private final ActivityIndexer activityIndexer;
+  private final ComponentIndexer componentIndexer;
+  private final ProjectMeasuresIndexer projectMeasuresIndexer;
   private final Settings settings;
 
   /**
@@ -47,14 +51,16 @@ public class IndexerStartupTask {
    * {@link org.sonar.server.issue.index.IssueIndexer}
    */
   public IndexerStartupTask(TestIndexer testIndexer, IssueAuthorizationIndexer issueAuthorizationIndexer, IssueIndexer issueIndexer,
-    UserIndexer userIndexer, ViewIndexer viewIndexer, ActivityIndexer activityIndexer,
-    Settings settings) {
+    UserIndexer userIndexer, ViewIndexer viewIndexer, ActivityIndexer activityIndexer, ComponentIndexer componentIndexer,
+    ProjectMeasuresIndexer projectMeasuresIndexer, Settings settings) {
     this.testIndexer = testIndexer;
     this.issueAuthorizationIndexer = issueAuthorizationIndexer;
     this.issueIndexer = issueIndexer;
     this.userIndexer = userIndexer;
     this.viewIndexer = viewIndexer;
     this.activityIndexer = activityIndexer;
+    this.componentIndexer = componentIndexer;
+    this.projectMeasuresIndexer = projectMeasuresIndexer;
     this.settings = settings;
   }
 
@@ -75,6 +81,12 @@ public class IndexerStartupTask {
 
       LOG.info("Index views");
       viewIndexer.setEnabled(true).index();
+
+      LOG.info("Index components");
+      componentIndexer.setEnabled(true).index();
+
+      LOG.info("Index project measures");
+      projectMeasuresIndexer.setEnabled(true).index();
     }
   }
 
@@ -0,0 +1,173 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
+import org.sonar.api.utils.System2;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsUtils;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.sonar.server.es.EsUtils.SCROLL_TIME_IN_MINUTES;
+
+/**
+ * UUIDs of the projects that a user can browse, as defined by the documents of type
+ * {@link IssueIndexDefinition#TYPE_AUTHORIZATION}. They are loaded once per user and groups, so that
+ * searches of issues filter on project UUIDs instead of joining issues with their parent authorization document.
+ * <p/>
+ * Entries are dropped when {@link IssueAuthorizationIndexer} of the same process updates the index. As authorizations
+ * are also indexed by the Compute Engine, which runs in another process, the number of authorization documents and
+ * their latest date of update are checked too, but at most once every {@link #VERSION_CHECK_PERIOD_MS} milliseconds.
+ * Changes made by another process may then take a few seconds to be visible.
+ * <p/>
+ * Each entry records the generation of the cache it was loaded in. The generation is increased on every
+ * invalidation, so that a load that was in progress during an invalidation can not keep stale projects in cache.
+ */
+public class IssueAuthorizationCache {
+
+  static final long VERSION_CHECK_PERIOD_MS = 5_000L;
+  private static final int MAX_ENTRIES = 1_000;
+  private static final String MAX_UPDATED_AT = "maxUpdatedAt";
+
+  private final EsClient esClient;
+  private final System2 system;
+  private final Cache<List<Object>, Entry> projectUuidsByUser = CacheBuilder.newBuilder()
+    .maximumSize(MAX_ENTRIES)
+    .build();
+  private final AtomicLong generation = new AtomicLong();
+
+  @CheckForNull
+  private volatile String loadedVersion;
+  private volatile long versionCheckedAt;
+
+  public IssueAuthorizationCache(EsClient esClient, System2 system) {
+    this.esClient = esClient;
+    this.system = system;
+  }
+
+  public Set<String> getAuthorizedProjectUuids(@Nullable String userLogin, Set<String> userGroups) {
+    checkVersion();
+    List<Object> key = Arrays.asList(userLogin, ImmutableSortedSet.copyOf(userGroups));
+    while (true) {
+      long currentGeneration = generation.get();
+      Entry entry = getOrLoad(key, currentGeneration, userLogin, userGroups);
+      if (entry.generation >= currentGeneration) {
+        return entry.projectUuids;
+      }
+      // loaded before the latest invalidation
+      projectUuidsByUser.asMap().remove(key, entry);
+    }
+  }
+
+  public void invalidate() {
+    invalidateAll();
+    loadedVersion = null;
+  }
+
+  private Entry getOrLoad(List<Object> key, long currentGeneration, @Nullable String userLogin, Set<String> userGroups) {
+    try {
+      return projectUuidsByUser.get(key, () -> new Entry(currentGeneration, loadAuthorizedProjectUuids(userLogin, userGroups)));
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private void invalidateAll() {
+    generation.incrementAndGet();
+    projectUuidsByUser.invalidateAll();
+  }
+
+  private void checkVersion() {
+    long now = system.now();
+    if (loadedVersion != null && now - versionCheckedAt < VERSION_CHECK_PERIOD_MS) {
+      return;
+    }
+    String version = loadVersion();
+    if (!version.equals(loadedVersion)) {
+      invalidateAll();
+      loadedVersion = version;
+    }
+    versionCheckedAt = now;
+  }
+
+  private String loadVersion() {
+    SearchResponse response = esClient.prepareSearch(IssueIndexDefinition.INDEX)
+      .setTypes(IssueIndexDefinition.TYPE_AUTHORIZATION)
+      .setSize(0)
+      .addAggregation(AggregationBuilders.max(MAX_UPDATED_AT).field(IssueIndexDefinition.FIELD_AUTHORIZATION_UPDATED_AT))
+      .get();
+    Max maxUpdatedAt = response.getAggregations().get(MAX_UPDATED_AT);
+    return response.getHits().getTotalHits() + "/" + maxUpdatedAt.getValue();
+  }
+
+  Set<String> loadAuthorizedProjectUuids(@Nullable String userLogin, Set<String> userGroups) {
+    BoolQueryBuilder groupsAndUser = boolQuery();
+    if (userLogin != null) {
+      groupsAndUser.should(termQuery(IssueIndexDefinition.FIELD_AUTHORIZATION_USERS, userLogin));
+    }
+    for (String group : userGroups) {
+      groupsAndUser.should(termQuery(IssueIndexDefinition.FIELD_AUTHORIZATION_GROUPS, group));
+    }
+    if (!groupsAndUser.hasClauses()) {
+      return ImmutableSet.of();
+    }
+
+    SearchResponse response = esClient.prepareSearch(IssueIndexDefinition.INDEX)
+      .setTypes(IssueIndexDefinition.TYPE_AUTHORIZATION)
+      .setSearchType(SearchType.SCAN)
+      .setScroll(TimeValue.timeValueMinutes(SCROLL_TIME_IN_MINUTES))
+      .setSize(1_000)
+      .setFetchSource(false)
+      .setQuery(boolQuery().filter(groupsAndUser))
+      .get();
+    Iterator<String> projectUuids = EsUtils.scrollIds(esClient, response.getScrollId(), Functions.<String>identity());
+    return ImmutableSet.copyOf(projectUuids);
+  }
+
+  private static class Entry {
+    private final long generation;
+    private final Set<String> projectUuids;
+
+    private Entry(long generation, Set<String> projectUuids) {
+      this.generation = generation;
+      this.projectUuids = projectUuids;
+    }
+  }
+}
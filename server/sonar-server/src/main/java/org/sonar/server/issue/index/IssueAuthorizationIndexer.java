@@ -43,10 +43,12 @@ import java.util.Map;
 public class IssueAuthorizationIndexer extends BaseIndexer {
 
   private final DbClient dbClient;
+  private final IssueAuthorizationCache authorizationCache;
 
-  public IssueAuthorizationIndexer(DbClient dbClient, EsClient esClient) {
+  public IssueAuthorizationIndexer(DbClient dbClient, EsClient esClient, IssueAuthorizationCache authorizationCache) {
     super(esClient, 0L, IssueIndexDefinition.INDEX, IssueIndexDefinition.TYPE_AUTHORIZATION, IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT);
     this.dbClient = dbClient;
+    this.authorizationCache = authorizationCache;
   }
 
   @Override
@@ -76,6 +78,7 @@ public class IssueAuthorizationIndexer extends BaseIndexer {
       maxDate = Math.max(maxDate, authorization.getUpdatedAt());
     }
     bulk.stop();
+    authorizationCache.invalidate();
     return maxDate;
   }
 
@@ -85,6 +88,7 @@ public class IssueAuthorizationIndexer extends BaseIndexer {
       .setRefresh(refresh)
       .setRouting(uuid)
       .get();
+    authorizationCache.invalidate();
   }
 
   private static ActionRequest newUpdateRequest(IssueAuthorizationDao.Dto dto) {
@@ -144,6 +144,8 @@ public class IssueIndex extends BaseIndex {
   private static final Order EFFORT_AGGREGATION_ORDER = Order.aggregation(FACET_MODE_EFFORT, false);
 
   private static final int DEFAULT_FACET_SIZE = 15;
+  private static final int MAX_ROUTED_PROJECTS = 10;
+  private static final int MAX_FILTERED_PROJECTS = 1_024;
   private static final Duration TWENTY_DAYS = Duration.standardDays(20L);
   private static final Duration TWENTY_WEEKS = Duration.standardDays(20L * 7L);
   private static final Duration TWENTY_MONTHS = Duration.standardDays(20L * 30L);
@@ -162,12 +164,14 @@ public class IssueIndex extends BaseIndex {
   private final Sorting sorting;
   private final System2 system;
   private final UserSession userSession;
+  private final IssueAuthorizationCache authorizationCache;
 
-  public IssueIndex(EsClient client, System2 system, UserSession userSession) {
+  public IssueIndex(EsClient client, System2 system, UserSession userSession, IssueAuthorizationCache authorizationCache) {
     super(client);
 
     this.system = system;
     this.userSession = userSession;
+    this.authorizationCache = authorizationCache;
     this.sorting = new Sorting();
     this.sorting.add(IssueQuery.SORT_BY_ASSIGNEE, IssueIndexDefinition.FIELD_ISSUE_ASSIGNEE);
     this.sorting.add(IssueQuery.SORT_BY_STATUS, IssueIndexDefinition.FIELD_ISSUE_STATUS);
@@ -218,10 +222,12 @@ public class IssueIndex extends BaseIndex {
 
     configureSorting(query, requestBuilder);
     configurePagination(options, requestBuilder);
+    Set<String> authorizedProjectUuids = getAuthorizedProjectUuids(query);
+    configureRouting(authorizedProjectUuids, requestBuilder);
 
     QueryBuilder esQuery = matchAllQuery();
     BoolQueryBuilder esFilter = boolQuery();
-    Map<String, QueryBuilder> filters = createFilters(query);
+    Map<String, QueryBuilder> filters = createFilters(query, authorizedProjectUuids);
     for (QueryBuilder filter : filters.values()) {
       if (filter != null) {
         esFilter.must(filter);
@@ -251,9 +257,27 @@ public class IssueIndex extends BaseIndex {
     esSearch.setFrom(options.getOffset()).setSize(options.getLimit());
   }
 
-  private Map<String, QueryBuilder> createFilters(IssueQuery query) {
+  /**
+   * Issues are routed by project. When user can browse only a few projects, only the shards
+   * containing these projects are requested.
+   */
+  private static void configureRouting(@Nullable Set<String> authorizedProjectUuids, SearchRequestBuilder esSearch) {
+    if (authorizedProjectUuids != null && !authorizedProjectUuids.isEmpty() && authorizedProjectUuids.size() <= MAX_ROUTED_PROJECTS) {
+      esSearch.setRouting(authorizedProjectUuids.toArray(new String[authorizedProjectUuids.size()]));
+    }
+  }
+
+  @CheckForNull
+  private Set<String> getAuthorizedProjectUuids(IssueQuery query) {
+    if (query.checkAuthorization()) {
+      return authorizationCache.getAuthorizedProjectUuids(query.userLogin(), query.userGroups());
+    }
+    return null;
+  }
+
+  private Map<String, QueryBuilder> createFilters(IssueQuery query, @Nullable Set<String> authorizedProjectUuids) {
     Map<String, QueryBuilder> filters = new HashMap<>();
-    filters.put("__authorization", createAuthorizationFilter(query.checkAuthorization(), query.userLogin(), query.userGroups()));
+    filters.put("__authorization", createAuthorizationFilter(query.userLogin(), query.userGroups(), authorizedProjectUuids));
 
     // Issue is assigned Filter
     if (BooleanUtils.isTrue(query.assigned())) {
@@ -332,19 +356,28 @@ public class IssueIndex extends BaseIndex {
     return viewsFilter;
   }
 
-  private static QueryBuilder createAuthorizationFilter(boolean checkAuthorization, @Nullable String userLogin, Set<String> userGroups) {
-    if (checkAuthorization) {
-      BoolQueryBuilder groupsAndUser = boolQuery();
-      if (userLogin != null) {
-        groupsAndUser.should(termQuery(IssueIndexDefinition.FIELD_AUTHORIZATION_USERS, userLogin));
-      }
-      for (String group : userGroups) {
-        groupsAndUser.should(termQuery(IssueIndexDefinition.FIELD_AUTHORIZATION_GROUPS, group));
-      }
-      return QueryBuilders.hasParentQuery(IssueIndexDefinition.TYPE_AUTHORIZATION,
-        QueryBuilders.boolQuery().must(matchAllQuery()).filter(groupsAndUser));
+  /**
+   * Issues are filtered on the UUIDs of the projects that can be browsed. When there are too many of them,
+   * for example for administrators, issues are joined with their parent authorization document instead.
+   *
+   * @param authorizedProjectUuids the projects that can be browsed, or {@code null} if authorization is not checked
+   */
+  private static QueryBuilder createAuthorizationFilter(@Nullable String userLogin, Set<String> userGroups, @Nullable Set<String> authorizedProjectUuids) {
+    if (authorizedProjectUuids == null) {
+      return matchAllQuery();
+    }
+    if (authorizedProjectUuids.size() <= MAX_FILTERED_PROJECTS) {
+      return termsQuery(IssueIndexDefinition.FIELD_ISSUE_PROJECT_UUID, authorizedProjectUuids);
     }
-    return matchAllQuery();
+    BoolQueryBuilder groupsAndUser = boolQuery();
+    if (userLogin != null) {
+      groupsAndUser.should(termQuery(IssueIndexDefinition.FIELD_AUTHORIZATION_USERS, userLogin));
+    }
+    for (String group : userGroups) {
+      groupsAndUser.should(termQuery(IssueIndexDefinition.FIELD_AUTHORIZATION_GROUPS, group));
+    }
+    return QueryBuilders.hasParentQuery(IssueIndexDefinition.TYPE_AUTHORIZATION,
+      QueryBuilders.boolQuery().must(matchAllQuery()).filter(groupsAndUser));
   }
 
   private void addDatesFilter(Map<String, QueryBuilder> filters, IssueQuery query) {
@@ -673,7 +706,7 @@ public class IssueIndex extends BaseIndex {
 
   private BoolQueryBuilder createBoolFilter(IssueQuery query) {
     BoolQueryBuilder boolQuery = boolQuery();
-    for (QueryBuilder filter : createFilters(query).values()) {
+    for (QueryBuilder filter : createFilters(query, getAuthorizedProjectUuids(query)).values()) {
       if (filter != null) {
         boolQuery.must(filter);
       }
@@ -686,9 +719,22 @@ public class IssueIndex extends BaseIndex {
    * Only fields needed for the batch are returned.
    */
   public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component) {
+    return selectIssuesForBatch(component, null);
+  }
+
+  /**
+   * When {@code changedSince} is set, only the issues updated since this date are returned, including the closed ones,
+   * so that the scanner can update its local copy of issues.
+   */
+  public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component, @Nullable Date changedSince) {
     BoolQueryBuilder filter = boolQuery()
-      .must(createAuthorizationFilter(true, userSession.getLogin(), userSession.getUserGroups()))
-      .mustNot(termsQuery(IssueIndexDefinition.FIELD_ISSUE_STATUS, Issue.STATUS_CLOSED));
+      .must(createAuthorizationFilter(userSession.getLogin(), userSession.getUserGroups(),
+        authorizationCache.getAuthorizedProjectUuids(userSession.getLogin(), userSession.getUserGroups())));
+    if (changedSince == null) {
+      filter.mustNot(termsQuery(IssueIndexDefinition.FIELD_ISSUE_STATUS, Issue.STATUS_CLOSED));
+    } else {
+      filter.must(QueryBuilders.rangeQuery(IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT).gte(changedSince));
+    }
 
     switch (component.scope()) {
       case Scopes.PROJECT:
@@ -704,6 +750,7 @@ public class IssueIndex extends BaseIndex {
     SearchRequestBuilder requestBuilder = getClient()
       .prepareSearch(IssueIndexDefinition.INDEX)
       .setTypes(IssueIndexDefinition.TYPE_ISSUE)
+      .setRouting(component.projectUuid())
       .setSearchType(SearchType.SCAN)
       .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
       .setSize(10_000)
@@ -712,7 +759,7 @@ public class IssueIndex extends BaseIndex {
           IssueIndexDefinition.FIELD_ISSUE_FILE_PATH, IssueIndexDefinition.FIELD_ISSUE_SEVERITY, IssueIndexDefinition.FIELD_ISSUE_MANUAL_SEVERITY,
           IssueIndexDefinition.FIELD_ISSUE_RESOLUTION, IssueIndexDefinition.FIELD_ISSUE_STATUS, IssueIndexDefinition.FIELD_ISSUE_ASSIGNEE,
           IssueIndexDefinition.FIELD_ISSUE_LINE, IssueIndexDefinition.FIELD_ISSUE_MESSAGE, IssueIndexDefinition.FIELD_ISSUE_CHECKSUM,
-          IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT},
+          IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT, IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT},
         null)
       .setQuery(boolQuery().must(matchAllQuery()).filter(filter));
     SearchResponse response = requestBuilder.get();
@@ -66,7 +66,9 @@ public class IssueIndexer extends BaseIndexer {
   }
 
   /**
-   * For benchmarks
+   * Indexes the given documents in the calling thread. Contrary to {@link #index(String)}, the request
+   * is not queued in the executor of the indexer, so that the Compute Engine can index the issues
+   * of different projects at the same time. Also used by benchmarks.
    */
   public void index(Iterator<IssueDoc> issues) {
     doIndex(createBulkIndexer(false), issues);
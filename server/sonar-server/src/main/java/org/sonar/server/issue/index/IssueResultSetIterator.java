@@ -19,19 +19,15 @@
  */
 package org.sonar.server.issue.index;
 
-import com.google.common.base.CharMatcher;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Date;
-import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
-import org.sonar.api.resources.Scopes;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rules.RuleType;
 import org.sonar.db.DatabaseUtils;
@@ -41,6 +37,9 @@ import org.sonar.db.ResultSetIterator;
 
 import static org.sonar.api.utils.DateUtils.longToDate;
 import static org.sonar.db.DatabaseUtils.getLong;
+import static org.sonar.server.issue.index.IssueDocPaths.extractDirPath;
+import static org.sonar.server.issue.index.IssueDocPaths.extractFilePath;
+import static org.sonar.server.issue.index.IssueDocPaths.extractModule;
 
 /**
  * Scrolls over table ISSUES and reads documents to populate
@@ -94,8 +93,6 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
 
   private static final Splitter TAGS_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
 
-  private static final Splitter MODULE_PATH_SPLITTER = Splitter.on('.').trimResults().omitEmptyStrings();
-
   private IssueResultSetIterator(PreparedStatement stmt) throws SQLException {
     super(stmt);
   }
@@ -119,36 +116,6 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
     }
   }
 
-  @CheckForNull
-  private static String extractDirPath(@Nullable String filePath, String scope) {
-    if (filePath != null) {
-      if (Scopes.DIRECTORY.equals(scope)) {
-        return filePath;
-      }
-      int lastSlashIndex = CharMatcher.anyOf("/").lastIndexIn(filePath);
-      if (lastSlashIndex > 0) {
-        return filePath.substring(0, lastSlashIndex);
-      }
-      return "/";
-    }
-    return null;
-  }
-
-  @CheckForNull
-  private static String extractFilePath(@Nullable String filePath, String scope) {
-    // On modules, the path contains the relative path of the module starting from its parent, and in E/S we're only interested in the path
-    // of files and directories.
-    // That's why the file path should be null on modules and projects.
-    if (filePath != null && !Scopes.PROJECT.equals(scope)) {
-      return filePath;
-    }
-    return null;
-  }
-
-  private static String extractModule(String moduleUuidPath) {
-    return Iterators.getLast(MODULE_PATH_SPLITTER.split(moduleUuidPath).iterator());
-  }
-
   @Override
   protected IssueDoc read(ResultSet rs) throws SQLException {
     IssueDoc doc = new IssueDoc(Maps.newHashMapWithExpectedSize(30));
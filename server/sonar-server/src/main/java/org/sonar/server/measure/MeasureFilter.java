@@ -53,6 +53,10 @@ public class MeasureFilter {
   // sort
   private MeasureFilterSort sort = new MeasureFilterSort();
 
+  // pagination, all results are returned if page size is not set
+  private int pageIndex = 1;
+  private Integer pageSize = null;
+
   public String getBaseResourceKey() {
     return baseResourceKey;
   }
@@ -171,6 +175,21 @@ public class MeasureFilter {
     return sort;
   }
 
+  public MeasureFilter setPage(int pageIndex, @Nullable Integer pageSize) {
+    this.pageIndex = pageIndex;
+    this.pageSize = pageSize;
+    return this;
+  }
+
+  public int getPageIndex() {
+    return pageIndex;
+  }
+
+  @CheckForNull
+  public Integer getPageSize() {
+    return pageSize;
+  }
+
   public boolean isEmpty() {
     return resourceQualifiers.isEmpty() && resourceScopes.isEmpty() && StringUtils.isEmpty(baseResourceKey) && !userFavourites;
   }
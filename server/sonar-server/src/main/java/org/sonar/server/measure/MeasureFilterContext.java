@@ -29,6 +29,7 @@ class MeasureFilterContext {
   private ComponentDto baseComponent = null;
   private String sql;
   private String data;
+  private Long total = null;
 
   Long getUserId() {
     return userId;
@@ -66,6 +67,18 @@ class MeasureFilterContext {
     return this;
   }
 
+  /**
+   * Total number of results when they are paginated by {@link MeasureFilterExecutor}, else {@code null}
+   */
+  Long getTotal() {
+    return total;
+  }
+
+  MeasureFilterContext setTotal(@Nullable Long total) {
+    this.total = total;
+    return this;
+  }
+
   @Override
   public String toString() {
     return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
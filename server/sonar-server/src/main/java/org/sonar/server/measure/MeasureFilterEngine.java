@@ -54,6 +54,7 @@ public class MeasureFilterEngine {
       MeasureFilter filter = factory.create(filterMap);
       List<MeasureFilterRow> rows = executor.execute(filter, context);
       result.setRows(rows);
+      result.setTotal(context.getTotal());
 
     } catch (NumberFormatException e) {
       result.setError(MeasureFilterResult.Error.VALUE_SHOULD_BE_A_NUMBER);
@@ -23,15 +23,28 @@ import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import org.apache.commons.dbutils.DbUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.resources.Scopes;
 import org.sonar.api.server.ServerSide;
+import org.sonar.api.web.UserRole;
 import org.sonar.db.Database;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.user.AuthorizationDao;
+import org.sonar.server.es.SearchIdResult;
+import org.sonar.server.es.SearchOptions;
+import org.sonar.server.measure.index.ProjectMeasuresIndex;
+import org.sonar.server.measure.index.ProjectMeasuresQuery;
+
+import static java.util.Collections.singletonList;
 
 @ServerSide
 public class MeasureFilterExecutor {
@@ -39,17 +52,25 @@ public class MeasureFilterExecutor {
   private MyBatis mybatis;
   private Database database;
   private ComponentDao componentDao;
+  private ProjectMeasuresIndex projectMeasuresIndex;
+  private AuthorizationDao authorizationDao;
 
-  public MeasureFilterExecutor(MyBatis mybatis, Database database, ComponentDao componentDao) {
+  public MeasureFilterExecutor(MyBatis mybatis, Database database, ComponentDao componentDao, ProjectMeasuresIndex projectMeasuresIndex,
+    AuthorizationDao authorizationDao) {
     this.mybatis = mybatis;
     this.database = database;
     this.componentDao = componentDao;
+    this.projectMeasuresIndex = projectMeasuresIndex;
+    this.authorizationDao = authorizationDao;
   }
 
   public List<MeasureFilterRow> execute(MeasureFilter filter, MeasureFilterContext context) throws SQLException {
     if (filter.isEmpty()) {
       return Collections.emptyList();
     }
+    if (isSupportedByIndex(filter)) {
+      return executeOnIndex(filter, context);
+    }
 
     List<MeasureFilterRow> rows;
     DbSession session = null;
@@ -75,6 +96,30 @@ public class MeasureFilterExecutor {
     return rows;
   }
 
+  /**
+   * When a page is requested, the projects that can not be browsed by the user are excluded by the index, so
+   * that the index paginates the results. The total number of results is then set on the context.
+   */
+  private List<MeasureFilterRow> executeOnIndex(MeasureFilter filter, MeasureFilterContext context) {
+    ProjectMeasuresQuery query = toProjectMeasuresQuery(filter);
+    Integer pageSize = filter.getPageSize();
+    List<String> projectUuids;
+    if (pageSize != null && pageSize <= SearchOptions.MAX_LIMIT) {
+      Long userId = context.getUserId();
+      query.setProjectUuids(new HashSet<>(authorizationDao.selectAuthorizedRootProjectsUuids(userId == null ? null : userId.intValue(), UserRole.USER)));
+      SearchIdResult<String> result = projectMeasuresIndex.search(query, new SearchOptions().setPage(filter.getPageIndex(), pageSize));
+      projectUuids = result.getIds();
+      context.setTotal(result.getTotal());
+    } else {
+      projectUuids = projectMeasuresIndex.searchAllUuids(query);
+    }
+    List<MeasureFilterRow> rows = new ArrayList<>(projectUuids.size());
+    for (String projectUuid : projectUuids) {
+      rows.add(new MeasureFilterRow(projectUuid, projectUuid));
+    }
+    return rows;
+  }
+
   private void prepareContext(MeasureFilterContext context, MeasureFilter filter, DbSession session) {
     if (filter.getBaseResourceKey() != null) {
       Optional<ComponentDto> component = componentDao.selectByKey(session, filter.getBaseResourceKey());
@@ -116,4 +161,77 @@ public class MeasureFilterExecutor {
     }
     return valid;
   }
+
+  /**
+   * Filters on the last analysis of projects, without conditions on variations or on text measures, are
+   * evaluated on the index "projectmeasures". Other filters are executed in database.
+   */
+  static boolean isSupportedByIndex(MeasureFilter filter) {
+    boolean supported = Strings.isNullOrEmpty(filter.getBaseResourceKey()) && !filter.isOnFavourites();
+    supported &= filter.getResourceQualifiers().equals(singletonList(Qualifiers.PROJECT));
+    supported &= filter.getResourceScopes().isEmpty() || filter.getResourceScopes().equals(singletonList(Scopes.PROJECT));
+    supported &= StringUtils.isBlank(filter.getResourceKey()) && StringUtils.isBlank(filter.getResourceName());
+    for (MeasureFilterCondition condition : filter.getMeasureConditions()) {
+      supported &= condition.metric() != null && condition.period() == null && condition.textValue() == null
+        && condition.operator() != MeasureFilterCondition.Operator.IN;
+    }
+    return supported && isSortSupportedByIndex(filter.sort());
+  }
+
+  private static boolean isSortSupportedByIndex(MeasureFilterSort sort) {
+    switch (sort.field()) {
+      case KEY:
+      case NAME:
+      case SHORT_NAME:
+      case DATE:
+        return true;
+      case METRIC:
+        return sort.isOnNumericMeasure() && sort.period() == null;
+      default:
+        return false;
+    }
+  }
+
+  private static ProjectMeasuresQuery toProjectMeasuresQuery(MeasureFilter filter) {
+    ProjectMeasuresQuery query = new ProjectMeasuresQuery()
+      .setAnalysedAfter(filter.getFromDate())
+      .setAnalysedBefore(filter.getToDate())
+      .setAsc(filter.sort().isAsc());
+    for (MeasureFilterCondition condition : filter.getMeasureConditions()) {
+      query.addMetricCriterion(condition.metric().getKey(), toOperator(condition.operator()), condition.value());
+    }
+    MeasureFilterSort sort = filter.sort();
+    switch (sort.field()) {
+      case KEY:
+        query.setSort(ProjectMeasuresQuery.SortField.KEY);
+        break;
+      case DATE:
+        query.setSort(ProjectMeasuresQuery.SortField.ANALYSED_AT);
+        break;
+      case METRIC:
+        query.setSortOnMetric(sort.metric().getKey());
+        break;
+      default:
+        query.setSort(ProjectMeasuresQuery.SortField.NAME);
+        break;
+    }
+    return query;
+  }
+
+  private static ProjectMeasuresQuery.Operator toOperator(MeasureFilterCondition.Operator operator) {
+    switch (operator) {
+      case EQUALS:
+        return ProjectMeasuresQuery.Operator.EQ;
+      case GREATER:
+        return ProjectMeasuresQuery.Operator.GT;
+      case GREATER_OR_EQUALS:
+        return ProjectMeasuresQuery.Operator.GTE;
+      case LESS:
+        return ProjectMeasuresQuery.Operator.LT;
+      case LESS_OR_EQUALS:
+        return ProjectMeasuresQuery.Operator.LTE;
+      default:
+        throw new IllegalArgumentException("Unsupported operator: " + operator);
+    }
+  }
 }
@@ -31,6 +31,7 @@ import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.MetricFinder;
@@ -75,6 +76,7 @@ public class MeasureFilterFactory {
     fillDateConditions(filter, properties);
     fillSorting(filter, properties);
     fillMeasureConditions(properties, filter);
+    fillPagination(filter, properties);
     return filter;
   }
 
@@ -127,6 +129,14 @@ public class MeasureFilterFactory {
     }
   }
 
+  private static void fillPagination(MeasureFilter filter, Map<String, Object> properties) {
+    int pageSize = NumberUtils.toInt(toString(properties.get("pageSize")), 0);
+    if (pageSize > 0) {
+      int pageIndex = NumberUtils.toInt(toString(properties.get("page")), 1);
+      filter.setPage(Math.max(pageIndex, 1), pageSize);
+    }
+  }
+
   private static List<String> sortFieldLabels() {
     return newArrayList(Iterables.transform(Arrays.asList(MeasureFilterSort.Field.values()), FieldToName.INSTANCE));
   }
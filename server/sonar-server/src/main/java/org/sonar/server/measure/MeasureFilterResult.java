@@ -31,6 +31,7 @@ public class MeasureFilterResult {
 
   private List<MeasureFilterRow> rows = null;
   private Error error = null;
+  private Long total = null;
 
   MeasureFilterResult() {
   }
@@ -43,11 +44,23 @@ public class MeasureFilterResult {
     return error;
   }
 
+  /**
+   * Total number of results when {@link #getRows()} is a single page of results, else {@code null}
+   */
+  public Long getTotal() {
+    return total;
+  }
+
   MeasureFilterResult setRows(@Nullable List<MeasureFilterRow> rows) {
     this.rows = rows;
     return this;
   }
 
+  MeasureFilterResult setTotal(@Nullable Long total) {
+    this.total = total;
+    return this;
+  }
+
   MeasureFilterResult setError(@Nullable Error err) {
     this.error = err;
     return this;
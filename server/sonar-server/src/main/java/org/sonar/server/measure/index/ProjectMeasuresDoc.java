@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.es.BaseDoc;
+
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ANALYSED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_KEY;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_KEY;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_NAME;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_QUALITY_GATE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_UUID;
+
+public class ProjectMeasuresDoc extends BaseDoc {
+
+  public ProjectMeasuresDoc(Map<String, Object> fields) {
+    super(fields);
+  }
+
+  public ProjectMeasuresDoc() {
+    this(Maps.<String, Object>newHashMapWithExpectedSize(6));
+    setField(FIELD_QUALITY_GATE, null);
+    setField(FIELD_MEASURES, new ArrayList<Map<String, Object>>());
+  }
+
+  @Override
+  public String getId() {
+    return uuid();
+  }
+
+  @Override
+  public String getRouting() {
+    return null;
+  }
+
+  @Override
+  public String getParent() {
+    return null;
+  }
+
+  public String uuid() {
+    return getField(FIELD_UUID);
+  }
+
+  public ProjectMeasuresDoc setUuid(String s) {
+    setField(FIELD_UUID, s);
+    return this;
+  }
+
+  public String key() {
+    return getField(FIELD_KEY);
+  }
+
+  public ProjectMeasuresDoc setKey(String s) {
+    setField(FIELD_KEY, s);
+    return this;
+  }
+
+  @CheckForNull
+  public String name() {
+    return getNullableField(FIELD_NAME);
+  }
+
+  public ProjectMeasuresDoc setName(@Nullable String s) {
+    setField(FIELD_NAME, s);
+    return this;
+  }
+
+  @CheckForNull
+  public Date analysedAt() {
+    return getNullableFieldAsDate(FIELD_ANALYSED_AT);
+  }
+
+  public ProjectMeasuresDoc setAnalysedAt(@Nullable Date d) {
+    setField(FIELD_ANALYSED_AT, d);
+    return this;
+  }
+
+  @CheckForNull
+  public String qualityGate() {
+    return getNullableField(FIELD_QUALITY_GATE);
+  }
+
+  public ProjectMeasuresDoc setQualityGate(@Nullable String s) {
+    setField(FIELD_QUALITY_GATE, s);
+    return this;
+  }
+
+  /**
+   * Numeric measures of the project, as a list of maps with fields {@link ProjectMeasuresIndexDefinition#FIELD_MEASURES_KEY}
+   * and {@link ProjectMeasuresIndexDefinition#FIELD_MEASURES_VALUE}
+   */
+  public List<Map<String, Object>> measures() {
+    return getField(FIELD_MEASURES);
+  }
+
+  public ProjectMeasuresDoc addMeasure(String metricKey, double value) {
+    measures().add(ImmutableMap.<String, Object>of(FIELD_MEASURES_KEY, metricKey, FIELD_MEASURES_VALUE, value));
+    return this;
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import com.google.common.base.Functions;
+import java.util.ArrayList;
+import java.util.List;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.sonar.server.es.BaseIndex;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.es.SearchIdResult;
+import org.sonar.server.es.SearchOptions;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.nestedQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+import static org.sonar.server.es.EsUtils.SCROLL_TIME_IN_MINUTES;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ANALYSED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_KEY;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_KEY;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_NAME;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_QUALITY_GATE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_UUID;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.TYPE_PROJECT_MEASURES;
+
+public class ProjectMeasuresIndex extends BaseIndex {
+
+  private static final int SCROLL_SIZE = 500;
+
+  private static final String MEASURES_KEY = FIELD_MEASURES + "." + FIELD_MEASURES_KEY;
+  private static final String MEASURES_VALUE = FIELD_MEASURES + "." + FIELD_MEASURES_VALUE;
+
+  public ProjectMeasuresIndex(EsClient client) {
+    super(client);
+  }
+
+  /**
+   * Search for a page of projects
+   */
+  public SearchIdResult<String> search(ProjectMeasuresQuery query, SearchOptions options) {
+    SearchRequestBuilder request = prepareSearch(query)
+      .setFrom(options.getOffset())
+      .setSize(options.getLimit());
+    return new SearchIdResult<>(request.get(), Functions.<String>identity());
+  }
+
+  /**
+   * Uuids of all the projects matching the query, in the requested order. Results are not paginated,
+   * so only ids are loaded.
+   */
+  public List<String> searchAllUuids(ProjectMeasuresQuery query) {
+    SearchResponse response = prepareSearch(query)
+      .setSize(SCROLL_SIZE)
+      .setScroll(TimeValue.timeValueMinutes(SCROLL_TIME_IN_MINUTES))
+      .get();
+    List<String> uuids = new ArrayList<>((int) response.getHits().getTotalHits());
+    String scrollId = response.getScrollId();
+    try {
+      while (response.getHits().getHits().length > 0) {
+        for (SearchHit hit : response.getHits().getHits()) {
+          uuids.add(hit.getId());
+        }
+        response = getClient().prepareSearchScroll(scrollId)
+          .setScroll(TimeValue.timeValueMinutes(SCROLL_TIME_IN_MINUTES))
+          .get();
+        scrollId = response.getScrollId();
+      }
+    } finally {
+      getClient().nativeClient().prepareClearScroll().addScrollId(scrollId).get();
+    }
+    return uuids;
+  }
+
+  private SearchRequestBuilder prepareSearch(ProjectMeasuresQuery query) {
+    SearchRequestBuilder request = getClient().prepareSearch(INDEX)
+      .setTypes(TYPE_PROJECT_MEASURES)
+      .setFetchSource(false)
+      .setQuery(boolQuery().must(matchAllQuery()).filter(createFilter(query)));
+    addSort(request, query);
+    return request;
+  }
+
+  private static QueryBuilder createFilter(ProjectMeasuresQuery query) {
+    BoolQueryBuilder filter = boolQuery();
+    for (ProjectMeasuresQuery.MetricCriterion criterion : query.getMetricCriteria()) {
+      filter.must(nestedQuery(FIELD_MEASURES, boolQuery()
+        .filter(termQuery(MEASURES_KEY, criterion.getMetricKey()))
+        .filter(createValueQuery(criterion))));
+    }
+    if (query.getAnalysedAfter() != null) {
+      filter.must(rangeQuery(FIELD_ANALYSED_AT).gte(query.getAnalysedAfter()));
+    }
+    if (query.getAnalysedBefore() != null) {
+      filter.must(rangeQuery(FIELD_ANALYSED_AT).lte(query.getAnalysedBefore()));
+    }
+    if (query.getQualityGate() != null) {
+      filter.must(termQuery(FIELD_QUALITY_GATE, query.getQualityGate()));
+    }
+    if (query.getProjectUuids() != null) {
+      filter.must(termsQuery(FIELD_UUID, query.getProjectUuids()));
+    }
+    return filter;
+  }
+
+  private static QueryBuilder createValueQuery(ProjectMeasuresQuery.MetricCriterion criterion) {
+    RangeQueryBuilder range = rangeQuery(MEASURES_VALUE);
+    double value = criterion.getValue();
+    switch (criterion.getOperator()) {
+      case LT:
+        return range.lt(value);
+      case LTE:
+        return range.lte(value);
+      case GT:
+        return range.gt(value);
+      case GTE:
+        return range.gte(value);
+      case EQ:
+        return termQuery(MEASURES_VALUE, value);
+      default:
+        throw new IllegalStateException("Unsupported operator: " + criterion.getOperator());
+    }
+  }
+
+  private static void addSort(SearchRequestBuilder request, ProjectMeasuresQuery query) {
+    SortOrder order = query.isAsc() ? SortOrder.ASC : SortOrder.DESC;
+    switch (query.getSortField()) {
+      case KEY:
+        request.addSort(FIELD_KEY + "." + SORT_SUFFIX, order);
+        return;
+      case ANALYSED_AT:
+        request.addSort(FIELD_ANALYSED_AT, order);
+        break;
+      case METRIC:
+        // projects without measure are always returned last
+        request.addSort(SortBuilders.fieldSort(MEASURES_VALUE)
+          .setNestedPath(FIELD_MEASURES)
+          .setNestedFilter(termQuery(MEASURES_KEY, query.getSortMetricKey()))
+          .missing("_last")
+          .order(order));
+        break;
+      case NAME:
+        request.addSort(FIELD_NAME + "." + SORT_SUFFIX, order);
+        break;
+      default:
+        throw new IllegalStateException("Unsupported sort: " + query.getSortField());
+    }
+    // sort is made stable for equal values
+    request.addSort(FIELD_KEY + "." + SORT_SUFFIX, SortOrder.ASC);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import javax.annotation.Nullable;
+import org.elasticsearch.action.index.IndexRequest;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.server.es.BaseIndexer;
+import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.EsClient;
+
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_ANALYSED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.TYPE_PROJECT_MEASURES;
+
+public class ProjectMeasuresIndexer extends BaseIndexer {
+
+  private final DbClient dbClient;
+
+  public ProjectMeasuresIndexer(DbClient dbClient, EsClient esClient) {
+    super(esClient, 300, INDEX, TYPE_PROJECT_MEASURES, FIELD_ANALYSED_AT);
+    this.dbClient = dbClient;
+  }
+
+  /**
+   * Index the projects analysed since the latest indexed analysis, for example on startup.
+   */
+  @Override
+  protected long doIndex(long lastUpdatedAt) {
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX);
+    bulk.setLarge(lastUpdatedAt == 0L);
+    return doIndex(bulk, lastUpdatedAt, null);
+  }
+
+  /**
+   * Index the measures of the last analysis of a project. It is executed by the Compute Engine
+   * once the analysis is enabled. Indexing is executed in the calling thread.
+   */
+  public void index(String projectUuid) {
+    doIndex(new BulkIndexer(esClient, INDEX), 0L, projectUuid);
+  }
+
+  private long doIndex(BulkIndexer bulk, long lastUpdatedAt, @Nullable String projectUuid) {
+    try (DbSession dbSession = dbClient.openSession(false);
+      ProjectMeasuresResultSetIterator docs = ProjectMeasuresResultSetIterator.create(dbClient, dbSession, lastUpdatedAt, projectUuid)) {
+      long maxAnalysedAt = 0L;
+      bulk.start();
+      while (docs.hasNext()) {
+        ProjectMeasuresDoc doc = docs.next();
+        bulk.add(new IndexRequest(INDEX, TYPE_PROJECT_MEASURES, doc.getId()).source(doc.getFields()));
+        maxAnalysedAt = Math.max(maxAnalysedAt, doc.analysedAt().getTime());
+      }
+      bulk.stop();
+      return maxAnalysedAt;
+    }
+  }
+
+  public void deleteProject(String projectUuid) {
+    esClient
+      .prepareDelete(INDEX, TYPE_PROJECT_MEASURES, projectUuid)
+      .setRefresh(true)
+      .get();
+  }
+}
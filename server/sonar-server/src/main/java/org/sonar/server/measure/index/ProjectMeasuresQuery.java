@@ -0,0 +1,172 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Criteria of search of projects in {@link ProjectMeasuresIndex}. Conditions are evaluated on the
+ * measures of the last analysis of projects.
+ */
+public class ProjectMeasuresQuery {
+
+  public enum Operator {
+    LT, LTE, GT, GTE, EQ
+  }
+
+  public enum SortField {
+    NAME, KEY, ANALYSED_AT, METRIC
+  }
+
+  private final List<MetricCriterion> metricCriteria = new ArrayList<>();
+  private Date analysedAfter = null;
+  private Date analysedBefore = null;
+  private String qualityGate = null;
+  private Set<String> projectUuids = null;
+  private SortField sortField = SortField.NAME;
+  private String sortMetricKey = null;
+  private boolean asc = true;
+
+  public ProjectMeasuresQuery addMetricCriterion(String metricKey, Operator operator, double value) {
+    metricCriteria.add(new MetricCriterion(metricKey, operator, value));
+    return this;
+  }
+
+  public List<MetricCriterion> getMetricCriteria() {
+    return metricCriteria;
+  }
+
+  /**
+   * Inclusive lower bound of the date of last analysis
+   */
+  public ProjectMeasuresQuery setAnalysedAfter(@Nullable Date d) {
+    this.analysedAfter = d;
+    return this;
+  }
+
+  @CheckForNull
+  public Date getAnalysedAfter() {
+    return analysedAfter;
+  }
+
+  /**
+   * Inclusive upper bound of the date of last analysis
+   */
+  public ProjectMeasuresQuery setAnalysedBefore(@Nullable Date d) {
+    this.analysedBefore = d;
+    return this;
+  }
+
+  @CheckForNull
+  public Date getAnalysedBefore() {
+    return analysedBefore;
+  }
+
+  public ProjectMeasuresQuery setQualityGate(@Nullable String s) {
+    this.qualityGate = s;
+    return this;
+  }
+
+  @CheckForNull
+  public String getQualityGate() {
+    return qualityGate;
+  }
+
+  /**
+   * Restricts the search to the given projects, for example the projects that the user can browse
+   */
+  public ProjectMeasuresQuery setProjectUuids(@Nullable Set<String> projectUuids) {
+    this.projectUuids = projectUuids;
+    return this;
+  }
+
+  @CheckForNull
+  public Set<String> getProjectUuids() {
+    return projectUuids;
+  }
+
+  public ProjectMeasuresQuery setSort(SortField field) {
+    requireNonNull(field, "Sort field cannot be null");
+    if (field == SortField.METRIC) {
+      throw new IllegalArgumentException("Use setSortOnMetric() to sort on a metric");
+    }
+    this.sortField = field;
+    this.sortMetricKey = null;
+    return this;
+  }
+
+  public ProjectMeasuresQuery setSortOnMetric(String metricKey) {
+    this.sortField = SortField.METRIC;
+    this.sortMetricKey = requireNonNull(metricKey, "Metric key cannot be null");
+    return this;
+  }
+
+  public SortField getSortField() {
+    return sortField;
+  }
+
+  /**
+   * Key of the metric to sort on, when sort field is {@link SortField#METRIC}
+   */
+  @CheckForNull
+  public String getSortMetricKey() {
+    return sortMetricKey;
+  }
+
+  public ProjectMeasuresQuery setAsc(boolean b) {
+    this.asc = b;
+    return this;
+  }
+
+  public boolean isAsc() {
+    return asc;
+  }
+
+  public static class MetricCriterion {
+    private final String metricKey;
+    private final Operator operator;
+    private final double value;
+
+    private MetricCriterion(String metricKey, Operator operator, double value) {
+      this.metricKey = requireNonNull(metricKey, "Metric key cannot be null");
+      this.operator = requireNonNull(operator, "Operator cannot be null");
+      this.value = value;
+    }
+
+    public String getMetricKey() {
+      return metricKey;
+    }
+
+    public Operator getOperator() {
+      return operator;
+    }
+
+    public double getValue() {
+      return value;
+    }
+  }
+}
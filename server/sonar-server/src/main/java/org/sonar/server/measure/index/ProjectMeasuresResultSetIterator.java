@@ -0,0 +1,182 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import java.io.Closeable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.Iterator;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.api.resources.Scopes;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ResultSetIterator;
+
+import static org.sonar.api.measures.CoreMetrics.ALERT_STATUS_KEY;
+
+/**
+ * Scrolls over the last analyses of projects and reads their measures to populate the project measures index.
+ * The SQL request returns one row per measure, sorted by project, so rows are grouped in a single document
+ * per project while scrolling. Measures of developers are ignored.
+ */
+class ProjectMeasuresResultSetIterator implements Iterator<ProjectMeasuresDoc>, Closeable {
+
+  private static final String[] FIELDS = {
+    "p.uuid",
+    "p.kee",
+    "p.name",
+    "s.created_at",
+    "m.name",
+    "pm.value",
+    "pm.text_value"
+  };
+
+  private static final String SQL_ALL = "select " + StringUtils.join(FIELDS, ",") + " from projects p " +
+    "inner join snapshots s on s.component_uuid=p.uuid " +
+    "left outer join project_measures pm on pm.analysis_uuid=s.uuid and pm.component_uuid=p.uuid and pm.person_id is null " +
+    "left outer join metrics m on m.id=pm.metric_id " +
+    "where s.islast=? and p.enabled=? and p.copy_component_uuid is null " +
+    "and p.scope='" + Scopes.PROJECT + "' and p.qualifier='" + Qualifiers.PROJECT + "'";
+
+  private static final String DATE_FILTER = " and s.created_at>?";
+
+  private static final String PROJECT_FILTER = " and p.uuid=?";
+
+  private static final String ORDER_BY = " order by p.uuid";
+
+  private final RowIterator rowIterator;
+  private final PeekingIterator<Row> rows;
+
+  private ProjectMeasuresResultSetIterator(RowIterator rowIterator) {
+    this.rowIterator = rowIterator;
+    this.rows = Iterators.peekingIterator(rowIterator);
+  }
+
+  /**
+   * @param afterDate only the projects analysed after this date are returned. All projects are returned if zero.
+   * @param projectUuid if null, then the last analyses of all projects are returned
+   */
+  static ProjectMeasuresResultSetIterator create(DbClient dbClient, DbSession session, long afterDate, @Nullable String projectUuid) {
+    try {
+      String sql = SQL_ALL + (afterDate > 0L ? DATE_FILTER : "") + (projectUuid == null ? "" : PROJECT_FILTER) + ORDER_BY;
+      PreparedStatement stmt = dbClient.getMyBatis().newScrollingSelectStatement(session, sql);
+      int index = 1;
+      stmt.setBoolean(index++, true);
+      stmt.setBoolean(index++, true);
+      if (afterDate > 0L) {
+        stmt.setLong(index++, afterDate);
+      }
+      if (projectUuid != null) {
+        stmt.setString(index, projectUuid);
+      }
+      return new ProjectMeasuresResultSetIterator(new RowIterator(stmt));
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to prepare SQL request to select measures of projects", e);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    return rows.hasNext();
+  }
+
+  @Override
+  public ProjectMeasuresDoc next() {
+    Row row = rows.next();
+    ProjectMeasuresDoc doc = new ProjectMeasuresDoc()
+      .setUuid(row.projectUuid)
+      .setKey(row.projectKey)
+      .setName(row.projectName)
+      .setAnalysedAt(new Date(row.analysedAt));
+    row.addTo(doc);
+    while (rows.hasNext() && rows.peek().projectUuid.equals(row.projectUuid)) {
+      rows.next().addTo(doc);
+    }
+    return doc;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void close() {
+    rowIterator.close();
+  }
+
+  private static class RowIterator extends ResultSetIterator<Row> {
+    RowIterator(PreparedStatement stmt) throws SQLException {
+      super(stmt);
+    }
+
+    @Override
+    protected Row read(ResultSet rs) throws SQLException {
+      Row row = new Row(rs.getString(1), rs.getString(2), rs.getString(3), rs.getLong(4));
+      row.metricKey = rs.getString(5);
+      double value = rs.getDouble(6);
+      if (!rs.wasNull()) {
+        row.value = value;
+      }
+      row.textValue = rs.getString(7);
+      return row;
+    }
+  }
+
+  private static class Row {
+    private final String projectUuid;
+    private final String projectKey;
+    private final String projectName;
+    private final long analysedAt;
+    @CheckForNull
+    private String metricKey;
+    @CheckForNull
+    private Double value;
+    @CheckForNull
+    private String textValue;
+
+    Row(String projectUuid, String projectKey, @Nullable String projectName, long analysedAt) {
+      this.projectUuid = projectUuid;
+      this.projectKey = projectKey;
+      this.projectName = projectName;
+      this.analysedAt = analysedAt;
+    }
+
+    void addTo(ProjectMeasuresDoc doc) {
+      if (metricKey == null) {
+        // project without measures
+        return;
+      }
+      if (value != null) {
+        doc.addMeasure(metricKey, value);
+      }
+      if (ALERT_STATUS_KEY.equals(metricKey)) {
+        doc.setQualityGate(textValue);
+      }
+    }
+  }
+}
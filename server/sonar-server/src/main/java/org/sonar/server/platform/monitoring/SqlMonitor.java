@@ -0,0 +1,90 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.db.DbClient;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.db.profiling.StatementStatistics;
+
+/**
+ * Latency, number of calls and number of rows of the MyBatis statements executed by the web server
+ */
+public class SqlMonitor extends BaseMonitorMBean implements SqlMonitorMBean {
+
+  private final DbClient dbClient;
+
+  public SqlMonitor(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public String name() {
+    return "SQL Statements";
+  }
+
+  @Override
+  public long getCalls() {
+    long calls = 0L;
+    for (StatementStatistics statement : statistics().getAll()) {
+      calls += statement.getCalls();
+    }
+    return calls;
+  }
+
+  @Override
+  public long getTotalTimeMillis() {
+    long time = 0L;
+    for (StatementStatistics statement : statistics().getAll()) {
+      time += statement.getTotalTimeMillis();
+    }
+    return time;
+  }
+
+  @Override
+  public String[] getStatements() {
+    List<StatementStatistics> all = statistics().getAll();
+    String[] result = new String[all.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = all.get(i).getStatementId() + " | " + all.get(i).format();
+    }
+    return result;
+  }
+
+  @Override
+  public void reset() {
+    statistics().reset();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    for (StatementStatistics statement : statistics().getAll()) {
+      attributes.put(statement.getStatementId(), statement.format());
+    }
+    return attributes;
+  }
+
+  private SqlStatistics statistics() {
+    return dbClient.getMyBatis().getSqlStatistics();
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+import static org.sonar.server.source.HtmlTextDecorator.AMPERSAND;
+import static org.sonar.server.source.HtmlTextDecorator.CR_END_OF_LINE;
+import static org.sonar.server.source.HtmlTextDecorator.ENCODED_AMPERSAND;
+import static org.sonar.server.source.HtmlTextDecorator.ENCODED_HTML_CLOSING;
+import static org.sonar.server.source.HtmlTextDecorator.ENCODED_HTML_OPENING;
+import static org.sonar.server.source.HtmlTextDecorator.HTML_CLOSING;
+import static org.sonar.server.source.HtmlTextDecorator.HTML_OPENING;
+import static org.sonar.server.source.HtmlTextDecorator.LF_END_OF_LINE;
+
+/**
+ * Decorates a single line of source, ie. a text without any end of line character, with the same output as
+ * {@link HtmlTextDecorator}. Decorations are parsed into arrays of offsets, the CSS classes are copied from the
+ * highlighting and symbols strings without intermediate objects, and the HTML is written in a single
+ * {@link StringBuilder}.
+ */
+class HtmlLineDecorator {
+
+  private static final char ENTITY_SEPARATOR = ';';
+  private static final char FIELD_SEPARATOR = ',';
+  private static final String SYMBOL_PREFIX = "sym-";
+  private static final String SYMBOL_SUFFIX = " sym";
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final String highlighting;
+  private final String symbols;
+
+  /**
+   * Opening tags sorted by offset, tags with the same offset being kept in order of declaration, highlighting first.
+   * A tag refers either to the CSS class at {@code [openingClassStarts, openingClassEnds)} in {@link #highlighting},
+   * or to a symbol, in which case {@code openingClassStarts} is -1 and {@code openingClassEnds} is the id of the symbol.
+   */
+  private int[] openingOffsets = new int[INITIAL_CAPACITY];
+  private int[] openingClassStarts = new int[INITIAL_CAPACITY];
+  private int[] openingClassEnds = new int[INITIAL_CAPACITY];
+  private int openingCount = 0;
+  private int[] closingOffsets = new int[INITIAL_CAPACITY];
+  private int closingCount = 0;
+
+  private HtmlLineDecorator(@Nullable String highlighting, @Nullable String symbols) {
+    this.highlighting = highlighting;
+    this.symbols = symbols;
+  }
+
+  static boolean isSingleLine(String text) {
+    return text.indexOf(LF_END_OF_LINE) < 0 && text.indexOf(CR_END_OF_LINE) < 0;
+  }
+
+  /**
+   * @param line must be a single line, see {@link #isSingleLine(String)}
+   * @param highlighting syntax highlighting rules, or {@code null} if the line has no highlighting
+   * @param symbols symbol references of the line, or {@code null} if the line has no symbol
+   * @throws IllegalArgumentException if highlighting or symbols are malformed
+   */
+  static String decorate(String line, @Nullable String highlighting, @Nullable String symbols) {
+    HtmlLineDecorator decorator = new HtmlLineDecorator(highlighting, symbols);
+    if (highlighting != null) {
+      decorator.loadSyntaxHighlightingData();
+    }
+    if (symbols != null) {
+      decorator.loadLineSymbolReferences();
+    }
+    return decorator.toHtml(line);
+  }
+
+  private void loadSyntaxHighlightingData() {
+    int ruleStart = 0;
+    while (ruleStart < highlighting.length() && !isTrailingSeparators(highlighting, ruleStart)) {
+      int ruleEnd = indexOf(highlighting, ENTITY_SEPARATOR, ruleStart, highlighting.length());
+      int endOffsetStart = nextField(highlighting, ruleStart, ruleEnd);
+      int cssClassStart = nextField(highlighting, endOffsetStart, ruleEnd);
+      int cssClassEnd = indexOf(highlighting, FIELD_SEPARATOR, cssClassStart, ruleEnd);
+      int startOffset = parseInt(highlighting, ruleStart, endOffsetStart - 1);
+      int endOffset = parseInt(highlighting, endOffsetStart, cssClassStart - 1);
+      if (startOffset < endOffset) {
+        addOpeningTag(startOffset, cssClassStart, cssClassEnd);
+        addClosingTag(endOffset);
+      }
+      ruleStart = ruleEnd + 1;
+    }
+  }
+
+  private void loadLineSymbolReferences() {
+    int symbolStart = 0;
+    while (symbolStart < symbols.length() && !isTrailingSeparators(symbols, symbolStart)) {
+      int symbolEnd = indexOf(symbols, ENTITY_SEPARATOR, symbolStart, symbols.length());
+      int endOffsetStart = nextField(symbols, symbolStart, symbolEnd);
+      int idStart = nextField(symbols, endOffsetStart, symbolEnd);
+      int idEnd = indexOf(symbols, FIELD_SEPARATOR, idStart, symbolEnd);
+      int startOffset = parseInt(symbols, symbolStart, endOffsetStart - 1);
+      int endOffset = parseInt(symbols, endOffsetStart, idStart - 1);
+      int symbolId = parseInt(symbols, idStart, idEnd);
+      addOpeningTag(startOffset, -1, symbolId);
+      addClosingTag(endOffset);
+      symbolStart = symbolEnd + 1;
+    }
+  }
+
+  private String toHtml(String line) {
+    StringBuilder html = new StringBuilder(line.length() + 32 * openingCount);
+    int openingIndex = 0;
+    int closingIndex = 0;
+    int openTags = 0;
+    for (int currentIndex = 0; currentIndex < line.length(); currentIndex++) {
+      while (closingIndex < closingCount && closingOffsets[closingIndex] == currentIndex) {
+        if (openTags == 0) {
+          throw new IllegalArgumentException("A tag is closed at offset " + currentIndex + " before being opened");
+        }
+        html.append("</span>");
+        openTags--;
+        closingIndex++;
+      }
+      while (openingIndex < openingCount && openingOffsets[openingIndex] == currentIndex) {
+        appendOpeningTag(html, openingIndex);
+        openTags++;
+        openingIndex++;
+      }
+      appendChar(html, line.charAt(currentIndex));
+    }
+    for (int i = 0; i < openTags; i++) {
+      html.append("</span>");
+    }
+    return html.toString();
+  }
+
+  private void appendOpeningTag(StringBuilder html, int openingIndex) {
+    html.append("<span class=\"");
+    int classStart = openingClassStarts[openingIndex];
+    if (classStart >= 0) {
+      html.append(highlighting, classStart, openingClassEnds[openingIndex]);
+    } else {
+      html.append(SYMBOL_PREFIX).append(openingClassEnds[openingIndex]).append(SYMBOL_SUFFIX);
+    }
+    html.append("\">");
+  }
+
+  private static void appendChar(StringBuilder html, char c) {
+    if (c == HTML_OPENING) {
+      html.append(ENCODED_HTML_OPENING);
+    } else if (c == HTML_CLOSING) {
+      html.append(ENCODED_HTML_CLOSING);
+    } else if (c == AMPERSAND) {
+      html.append(ENCODED_AMPERSAND);
+    } else {
+      html.append(c);
+    }
+  }
+
+  /**
+   * Inserts the tag after the tags with the same or a lower offset
+   */
+  private void addOpeningTag(int offset, int classStart, int classEnd) {
+    if (openingCount == openingOffsets.length) {
+      int capacity = openingCount * 2;
+      openingOffsets = Arrays.copyOf(openingOffsets, capacity);
+      openingClassStarts = Arrays.copyOf(openingClassStarts, capacity);
+      openingClassEnds = Arrays.copyOf(openingClassEnds, capacity);
+    }
+    int insertionIndex = openingCount;
+    while (insertionIndex > 0 && openingOffsets[insertionIndex - 1] > offset) {
+      openingOffsets[insertionIndex] = openingOffsets[insertionIndex - 1];
+      openingClassStarts[insertionIndex] = openingClassStarts[insertionIndex - 1];
+      openingClassEnds[insertionIndex] = openingClassEnds[insertionIndex - 1];
+      insertionIndex--;
+    }
+    openingOffsets[insertionIndex] = offset;
+    openingClassStarts[insertionIndex] = classStart;
+    openingClassEnds[insertionIndex] = classEnd;
+    openingCount++;
+  }
+
+  private void addClosingTag(int offset) {
+    if (closingCount == closingOffsets.length) {
+      closingOffsets = Arrays.copyOf(closingOffsets, closingCount * 2);
+    }
+    int insertionIndex = closingCount;
+    while (insertionIndex > 0 && closingOffsets[insertionIndex - 1] > offset) {
+      closingOffsets[insertionIndex] = closingOffsets[insertionIndex - 1];
+      insertionIndex--;
+    }
+    closingOffsets[insertionIndex] = offset;
+    closingCount++;
+  }
+
+  private static int indexOf(String s, char c, int from, int limit) {
+    int index = s.indexOf(c, from);
+    return index < 0 || index > limit ? limit : index;
+  }
+
+  /**
+   * @return the start of the field following the field starting at {@code fieldStart}
+   * @throws IllegalArgumentException if there is no such field before {@code entryEnd}
+   */
+  private static int nextField(String s, int fieldStart, int entryEnd) {
+    int fieldEnd = indexOf(s, FIELD_SEPARATOR, fieldStart, entryEnd);
+    if (fieldEnd == entryEnd) {
+      throw new IllegalArgumentException("Missing field in decoration data: " + s.substring(fieldStart, entryEnd));
+    }
+    return fieldEnd + 1;
+  }
+
+  /**
+   * Empty entries at the end of the string are ignored, like by {@link String#split(String)}
+   */
+  private static boolean isTrailingSeparators(String s, int from) {
+    for (int i = from; i < s.length(); i++) {
+      if (s.charAt(i) != ENTITY_SEPARATOR) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Same as {@link Integer#parseInt(String)} on {@code s.substring(start, end)}, without creating the substring
+   */
+  private static int parseInt(String s, int start, int end) {
+    if (start >= end) {
+      throw new NumberFormatException("For input string: \"\"");
+    }
+    int index = start;
+    boolean negative = false;
+    char first = s.charAt(index);
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      index++;
+      if (index == end) {
+        throw new NumberFormatException("For input string: \"" + s.substring(start, end) + "\"");
+      }
+    }
+    long result = 0;
+    for (; index < end; index++) {
+      int digit = Character.digit(s.charAt(index), 10);
+      result = result * 10 + digit;
+      if (digit < 0 || result > (long) Integer.MAX_VALUE + 1) {
+        throw new NumberFormatException("For input string: \"" + s.substring(start, end) + "\"");
+      }
+    }
+    result = negative ? -result : result;
+    if (result > Integer.MAX_VALUE) {
+      throw new NumberFormatException("For input string: \"" + s.substring(start, end) + "\"");
+    }
+    return (int) result;
+  }
+}
@@ -19,23 +19,79 @@
  */
 package org.sonar.server.source;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
+import org.sonar.db.protobuf.DbFileSources;
 
 public class HtmlSourceDecorator {
 
+  /**
+   * Maximum number of characters of the cached lines, that is about 8 MB of heap
+   */
+  private static final long MAX_CACHED_CHARS = 4L * 1024 * 1024;
+
+  /**
+   * Decorated lines, by data hash of their file source and line number. The data hash changes
+   * as soon as the source, the highlighting or the symbols of any line of the file change.
+   * Lines are weighed by their length, as a few very long lines (minified files for instance)
+   * use as much heap as thousands of usual lines.
+   */
+  private final Cache<List<Object>, String> decoratedLines = CacheBuilder.newBuilder()
+    .maximumWeight(MAX_CACHED_CHARS)
+    .weigher((List<Object> key, String decoratedLine) -> decoratedLine.length())
+    .build();
+
+  /**
+   * Same as {@link #getDecoratedSourceAsHtml(String, String, String)} for a line of a file source. The result is
+   * cached, so that lines of popular files are not decorated on each request.
+   *
+   * @param dataHash the data hash of the file source the line belongs to. Result is not cached if {@code null}.
+   */
+  @CheckForNull
+  public String getDecoratedSourceAsHtml(@Nullable String dataHash, DbFileSources.Line line) {
+    if (dataHash == null) {
+      return getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols());
+    }
+    List<Object> key = Arrays.asList(dataHash, line.getLine());
+    String decoratedLine = decoratedLines.getIfPresent(key);
+    if (decoratedLine == null) {
+      decoratedLine = getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols());
+      if (decoratedLine != null) {
+        decoratedLines.put(key, decoratedLine);
+      }
+    }
+    return decoratedLine;
+  }
+
   @CheckForNull
   public String getDecoratedSourceAsHtml(@Nullable String sourceLine, @Nullable String highlighting, @Nullable String symbols) {
     if (sourceLine == null) {
       return null;
     }
+    String lineHighlighting = StringUtils.isNotBlank(highlighting) ? highlighting : null;
+    String lineSymbols = StringUtils.isNotBlank(symbols) ? symbols : null;
+    if (HtmlLineDecorator.isSingleLine(sourceLine)) {
+      try {
+        return HtmlLineDecorator.decorate(sourceLine, lineHighlighting, lineSymbols);
+      } catch (IllegalArgumentException e) {
+        // malformed decoration data, HtmlTextDecorator returns the same result or fails the same way as before
+      }
+    }
+    return decorateWithTextDecorator(sourceLine, lineHighlighting, lineSymbols);
+  }
+
+  @CheckForNull
+  private static String decorateWithTextDecorator(String sourceLine, @Nullable String highlighting, @Nullable String symbols) {
     DecorationDataHolder decorationDataHolder = new DecorationDataHolder();
-    if (StringUtils.isNotBlank(highlighting)) {
+    if (highlighting != null) {
       decorationDataHolder.loadSyntaxHighlightingData(highlighting);
     }
-    if (StringUtils.isNotBlank(symbols)) {
+    if (symbols != null) {
       decorationDataHolder.loadLineSymbolReferences(symbols);
     }
     HtmlTextDecorator textDecorator = new HtmlTextDecorator();
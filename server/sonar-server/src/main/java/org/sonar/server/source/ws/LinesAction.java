@@ -23,6 +23,8 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Optional;
 import com.google.common.io.Resources;
 import java.util.Date;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
@@ -121,7 +123,8 @@ public class LinesAction implements SourcesWsAction {
       int from = request.mandatoryParamAsInt(PARAM_FROM);
       int to = MoreObjects.firstNonNull(request.paramAsInt(PARAM_TO), Integer.MAX_VALUE);
 
-      Optional<Iterable<DbFileSources.Line>> lines = sourceService.getLines(dbSession, file.uuid(), from, to);
+      Optional<Iterable<DecoratedLine>> lines = sourceService.getLines(dbSession, file.uuid(), from, to,
+        (dataHash, line) -> new DecoratedLine(line, htmlSourceDecorator.getDecoratedSourceAsHtml(dataHash, line)));
       if (!lines.isPresent()) {
         throw new NotFoundException();
       }
@@ -134,12 +137,13 @@ public class LinesAction implements SourcesWsAction {
     }
   }
 
-  private void writeSource(Iterable<DbFileSources.Line> lines, JsonWriter json) {
+  private static void writeSource(Iterable<DecoratedLine> decoratedLines, JsonWriter json) {
     json.name("sources").beginArray();
-    for (DbFileSources.Line line : lines) {
+    for (DecoratedLine decoratedLine : decoratedLines) {
+      DbFileSources.Line line = decoratedLine.line;
       json.beginObject()
         .prop("line", line.getLine())
-        .prop("code", htmlSourceDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols()))
+        .prop("code", decoratedLine.html)
         .prop("scmAuthor", line.getScmAuthor())
         .prop("scmRevision", line.getScmRevision());
       if (line.hasScmDate()) {
@@ -169,4 +173,15 @@ public class LinesAction implements SourcesWsAction {
     json.endArray();
   }
 
+  private static class DecoratedLine {
+    private final DbFileSources.Line line;
+    @CheckForNull
+    private final String html;
+
+    private DecoratedLine(DbFileSources.Line line, @Nullable String html) {
+      this.line = line;
+      this.html = html;
+    }
+  }
+
 }
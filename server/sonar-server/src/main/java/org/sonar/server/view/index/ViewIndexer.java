@@ -26,6 +26,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.UuidWithProjectUuidDto;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.es.BaseIndexer;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.EsClient;
@@ -35,10 +36,12 @@ import static com.google.common.collect.Maps.newHashMap;
 public class ViewIndexer extends BaseIndexer {
 
   private final DbClient dbClient;
+  private final ComponentIndexer componentIndexer;
 
-  public ViewIndexer(DbClient dbClient, EsClient esClient) {
+  public ViewIndexer(DbClient dbClient, EsClient esClient, ComponentIndexer componentIndexer) {
     super(esClient, 300, ViewIndexDefinition.INDEX, ViewIndexDefinition.TYPE_VIEW, "updatedAt");
     this.dbClient = dbClient;
+    this.componentIndexer = componentIndexer;
   }
 
   /**
@@ -70,6 +73,7 @@ public class ViewIndexer extends BaseIndexer {
   /**
    * Index a root view : it will load projects on each sub views and index it.
    * Used by the compute engine to reindex a root view.
+   * The root view and its sub views are also indexed in the index of components, so that they can be searched by name.
    * <p/>
    * The views lookup cache will be cleared
    */
@@ -84,6 +88,7 @@ public class ViewIndexer extends BaseIndexer {
     } finally {
       dbSession.close();
     }
+    componentIndexer.index(rootViewUuid);
   }
 
   /**
@@ -45,6 +45,7 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -95,6 +96,53 @@ public class ReportSubmitterTest {
     }));
   }
 
+  @Test
+  public void submit_a_report_uploaded_by_chunks() {
+    userSession.setGlobalPermissions(SCAN_EXECUTION);
+
+    when(queue.prepareSubmit()).thenReturn(new CeTaskSubmit.Builder(TASK_UUID));
+    when(componentService.getNullableByKey(PROJECT_KEY)).thenReturn(new ComponentDto().setUuid(PROJECT_UUID));
+
+    underTest.submitUpload(PROJECT_KEY, null, PROJECT_NAME, "UPLOAD_1");
+
+    verify(reportFiles).saveUpload(TASK_UUID, "UPLOAD_1", PROJECT_KEY);
+    verify(queue).submit(any(CeTaskSubmit.class));
+  }
+
+  @Test
+  public void check_submit_permission_on_new_project_does_not_create_it() {
+    userSession.setGlobalPermissions(PROVISIONING);
+    when(componentService.getNullableByKey(PROJECT_KEY)).thenReturn(null);
+    when(permissionService.wouldCurrentUserHavePermissionWithDefaultTemplate(any(DbSession.class), eq(SCAN_EXECUTION), anyString(), eq(PROJECT_KEY), eq(Qualifiers.PROJECT)))
+      .thenReturn(true);
+
+    underTest.checkSubmitPermission(PROJECT_KEY, null);
+
+    verify(componentService, never()).create(any(DbSession.class), any(NewComponent.class));
+  }
+
+  @Test
+  public void check_submit_permission_fails_on_new_project_if_not_in_default_template() {
+    userSession.setGlobalPermissions(PROVISIONING);
+    when(componentService.getNullableByKey(PROJECT_KEY)).thenReturn(null);
+    when(permissionService.wouldCurrentUserHavePermissionWithDefaultTemplate(any(DbSession.class), eq(SCAN_EXECUTION), anyString(), eq(PROJECT_KEY), eq(Qualifiers.PROJECT)))
+      .thenReturn(false);
+
+    thrown.expect(ForbiddenException.class);
+    underTest.checkSubmitPermission(PROJECT_KEY, null);
+  }
+
+  @Test
+  public void check_submit_permission_fails_on_new_project_without_provisioning_permission() {
+    userSession.setGlobalPermissions(SCAN_EXECUTION);
+    when(componentService.getNullableByKey(PROJECT_KEY)).thenReturn(null);
+    when(permissionService.wouldCurrentUserHavePermissionWithDefaultTemplate(any(DbSession.class), eq(SCAN_EXECUTION), anyString(), eq(PROJECT_KEY), eq(Qualifiers.PROJECT)))
+      .thenReturn(true);
+
+    thrown.expect(ForbiddenException.class);
+    underTest.checkSubmitPermission(PROJECT_KEY, null);
+  }
+
   @Test
   public void provision_project_if_does_not_exist() throws Exception {
     userSession.setGlobalPermissions(SCAN_EXECUTION, PROVISIONING);
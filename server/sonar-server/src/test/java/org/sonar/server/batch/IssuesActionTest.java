@@ -21,6 +21,7 @@ package org.sonar.server.batch;
 
 import java.io.ByteArrayInputStream;
 import java.util.Arrays;
+import java.util.Date;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Rule;
@@ -40,6 +41,7 @@ import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.issue.IssueTesting;
 import org.sonar.server.issue.index.IssueAuthorizationDao;
+import org.sonar.server.issue.index.IssueAuthorizationCache;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueDoc;
 import org.sonar.server.issue.index.IssueIndex;
@@ -87,9 +89,10 @@ public class IssuesActionTest {
 
   @Before
   public void before() {
-    issueIndex = new IssueIndex(es.client(), System2.INSTANCE, userSessionRule);
+    IssueAuthorizationCache authorizationCache = new IssueAuthorizationCache(es.client(), System2.INSTANCE);
+    issueIndex = new IssueIndex(es.client(), System2.INSTANCE, userSessionRule, authorizationCache);
     issueIndexer = new IssueIndexer(null, es.client());
-    issueAuthorizationIndexer = new IssueAuthorizationIndexer(null, es.client());
+    issueAuthorizationIndexer = new IssueAuthorizationIndexer(null, es.client(), authorizationCache);
     issuesAction = new IssuesAction(db.getDbClient(), issueIndex, userSessionRule, new ComponentFinder(db.getDbClient()));
 
     tester = new WsTester(new BatchWs(new BatchIndex(fs), issuesAction));
@@ -171,6 +174,28 @@ public class IssuesActionTest {
     assertThat(serverIssue.getAssigneeLogin()).isEqualTo("john");
   }
 
+  @Test
+  public void issues_changed_since_date() throws Exception {
+    ComponentDto project = ComponentTesting.newProjectDto(PROJECT_UUID).setKey(PROJECT_KEY);
+    ComponentDto file = ComponentTesting.newFileDto(project, FILE_UUID).setKey(FILE_KEY).setPath("src/org/struts/Action.java");
+    db.getDbClient().componentDao().insert(db.getSession(), project, file);
+    db.getSession().commit();
+
+    indexIssues(
+      IssueTesting.newDoc("OLD", file).setTechnicalUpdateDate(new Date(1_000L)),
+      IssueTesting.newDoc("CLOSED", file).setStatus("CLOSED").setResolution("FIXED").setTechnicalUpdateDate(new Date(2_000L)));
+
+    addBrowsePermissionOnComponent(PROJECT_KEY);
+    WsTester.TestRequest request = tester.newGetRequest("batch", "issues").setParam("key", PROJECT_KEY).setParam("changedSince", "1500");
+
+    ByteArrayInputStream input = new ByteArrayInputStream(request.execute().output());
+    ServerIssue serverIssue = ServerIssue.parseDelimitedFrom(input);
+    assertThat(serverIssue.getKey()).isEqualTo("CLOSED");
+    assertThat(serverIssue.getStatus()).isEqualTo("CLOSED");
+    assertThat(serverIssue.getUpdatedAt()).isEqualTo(2_000L);
+    assertThat(ServerIssue.parseDelimitedFrom(input)).isNull();
+  }
+
   @Test
   public void issues_from_module() throws Exception {
     ComponentDto project = ComponentTesting.newProjectDto(PROJECT_UUID).setKey(PROJECT_KEY);
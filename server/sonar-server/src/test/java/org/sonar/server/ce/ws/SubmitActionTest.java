@@ -20,12 +20,15 @@
 package org.sonar.server.ce.ws;
 
 import java.io.InputStream;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.mockito.Matchers;
 import org.sonar.core.util.Protobuf;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.report.ReportSubmitter;
+import org.sonar.server.exceptions.BadRequestException;
 import org.sonarqube.ws.MediaTypes;
 import org.sonar.server.ws.TestResponse;
 import org.sonar.server.ws.WsActionTester;
@@ -34,13 +37,18 @@ import org.sonarqube.ws.WsCe;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SubmitActionTest {
 
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
   ReportSubmitter reportSubmitter = mock(ReportSubmitter.class);
   SubmitAction underTest = new SubmitAction(reportSubmitter);
   WsActionTester tester = new WsActionTester(underTest);
@@ -99,4 +107,35 @@ public class SubmitActionTest {
     verify(reportSubmitter).submit(eq("my_project"), Matchers.isNull(String.class), eq("my_project"), any(InputStream.class));
 
   }
+
+  @Test
+  public void submit_report_uploaded_by_chunks() {
+    CeTask task = new CeTask.Builder().setUuid("TASK_1").setType(CeTaskTypes.REPORT).setComponentUuid("PROJECT_1").setSubmitterLogin("robert").build();
+    when(reportSubmitter.submitUpload("my_project", null, "My Project", "UPLOAD_1")).thenReturn(task);
+
+    TestResponse wsResponse = tester.newRequest()
+      .setParam("projectKey", "my_project")
+      .setParam("projectName", "My Project")
+      .setParam("uploadId", "UPLOAD_1")
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setMethod("POST")
+      .execute();
+
+    verify(reportSubmitter).submitUpload("my_project", null, "My Project", "UPLOAD_1");
+    verify(reportSubmitter, never()).submit(anyString(), anyString(), anyString(), any(InputStream.class));
+    WsCe.SubmitResponse submitResponse = Protobuf.read(wsResponse.getInputStream(), WsCe.SubmitResponse.PARSER);
+    assertThat(submitResponse.getTaskId()).isEqualTo("TASK_1");
+  }
+
+  @Test
+  public void fail_if_neither_report_nor_upload_id_is_set() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Either parameter 'report' or 'uploadId' must be set");
+
+    tester.newRequest()
+      .setParam("projectKey", "my_project")
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setMethod("POST")
+      .execute();
+  }
 }
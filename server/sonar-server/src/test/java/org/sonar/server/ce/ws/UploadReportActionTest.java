@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ce.ws;
+
+import java.io.InputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.ce.queue.report.ReportFiles;
+import org.sonar.ce.queue.report.ReportSubmitter;
+import org.sonar.core.util.Protobuf;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.ws.TestResponse;
+import org.sonar.server.ws.WsActionTester;
+import org.sonarqube.ws.MediaTypes;
+import org.sonarqube.ws.WsCe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UploadReportActionTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  ReportSubmitter reportSubmitter = mock(ReportSubmitter.class);
+  ReportFiles reportFiles = mock(ReportFiles.class);
+  WsActionTester tester = new WsActionTester(new UploadReportAction(reportSubmitter, reportFiles));
+
+  @Test
+  public void append_chunk_to_upload() {
+    when(reportFiles.appendChunk(eq("UPLOAD_1"), eq("my_project"), eq(10L), any(InputStream.class))).thenReturn(18L);
+
+    TestResponse wsResponse = tester.newRequest()
+      .setParam("projectKey", "my_project")
+      .setParam("uploadId", "UPLOAD_1")
+      .setParam("offset", "10")
+      .setParam("chunk", "{binary}")
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setMethod("POST")
+      .execute();
+
+    verify(reportSubmitter).checkSubmitPermission("my_project", null);
+    WsCe.UploadReportWsResponse response = Protobuf.read(wsResponse.getInputStream(), WsCe.UploadReportWsResponse.PARSER);
+    assertThat(response.getUploadedBytes()).isEqualTo(18L);
+  }
+
+  @Test
+  public void return_uploaded_bytes_when_no_chunk_is_sent() {
+    when(reportFiles.uploadedBytes("UPLOAD_1", "my_project")).thenReturn(42L);
+
+    TestResponse wsResponse = tester.newRequest()
+      .setParam("projectKey", "my_project")
+      .setParam("uploadId", "UPLOAD_1")
+      .setMediaType(MediaTypes.PROTOBUF)
+      .setMethod("POST")
+      .execute();
+
+    WsCe.UploadReportWsResponse response = Protobuf.read(wsResponse.getInputStream(), WsCe.UploadReportWsResponse.PARSER);
+    assertThat(response.getUploadedBytes()).isEqualTo(42L);
+    verify(reportFiles, never()).appendChunk(anyString(), anyString(), anyLong(), any(InputStream.class));
+  }
+
+  @Test
+  public void fail_if_offset_is_missing() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Parameter 'offset' is required when a chunk is uploaded");
+
+    tester.newRequest()
+      .setParam("projectKey", "my_project")
+      .setParam("uploadId", "UPLOAD_1")
+      .setParam("chunk", "{binary}")
+      .setMethod("POST")
+      .execute();
+  }
+
+  @Test
+  public void fail_if_not_allowed_to_submit_report() {
+    doThrow(new ForbiddenException("Insufficient privileges")).when(reportSubmitter).checkSubmitPermission("my_project", null);
+
+    expectedException.expect(ForbiddenException.class);
+
+    tester.newRequest()
+      .setParam("projectKey", "my_project")
+      .setParam("uploadId", "UPLOAD_1")
+      .setParam("offset", "0")
+      .setParam("chunk", "{binary}")
+      .setMethod("POST")
+      .execute();
+  }
+}
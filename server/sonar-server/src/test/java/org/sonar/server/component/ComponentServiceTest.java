@@ -40,6 +40,7 @@ import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.component.ResourceIndexDao;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
@@ -71,12 +72,13 @@ public class ComponentServiceTest {
   DbClient dbClient = dbTester.getDbClient();
   DbSession session = dbTester.getSession();
   I18n i18n = mock(I18n.class);
+  ComponentIndexer componentIndexer = mock(ComponentIndexer.class);
   ComponentService service;
 
   @Before
   public void setUp() {
     when(i18n.message(Locale.getDefault(), "qualifier.TRK", "Project")).thenReturn("Project");
-    service = new ComponentService(dbClient, i18n, userSessionRule, System2.INSTANCE, new ComponentFinder(dbClient));
+    service = new ComponentService(dbClient, i18n, userSessionRule, System2.INSTANCE, new ComponentFinder(dbClient), componentIndexer);
   }
 
   @Test
@@ -167,6 +169,7 @@ public class ComponentServiceTest {
     // Check project key has been updated
     assertThat(service.getNullableByKey(provisionedProject.key())).isNull();
     assertThat(service.getNullableByKey("provisionedProject2")).isNotNull();
+    verify(componentIndexer).index(provisionedProject.uuid());
   }
 
   @Test(expected = ForbiddenException.class)
@@ -290,6 +293,7 @@ public class ComponentServiceTest {
     assertThat(project.scope()).isEqualTo("PRJ");
     assertThat(project.qualifier()).isEqualTo("TRK");
     assertThat(project.getCreatedAt()).isNotNull();
+    verify(componentIndexer).index(project.uuid());
   }
 
   @Test
@@ -416,7 +420,7 @@ public class ComponentServiceTest {
       ComponentTesting.newProjectDto().setId(3L).setKey(projectKey)
     ));
 
-    service = new ComponentService(dbClient, i18n, userSessionRule, System2.INSTANCE, new ComponentFinder(dbClient));
+    service = new ComponentService(dbClient, i18n, userSessionRule, System2.INSTANCE, new ComponentFinder(dbClient), componentIndexer);
     service.create(NewComponent.create(projectKey, projectKey));
 
     verify(componentDao).delete(session, 2L);
@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.component.index;
+
+import java.util.Date;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.server.es.EsTester;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.component.ComponentTesting.newDirectory;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.db.component.ComponentTesting.newProjectDto;
+import static org.sonar.db.component.ComponentTesting.newSubView;
+import static org.sonar.db.component.ComponentTesting.newView;
+import static org.sonar.db.component.SnapshotTesting.newAnalysis;
+import static org.sonar.server.component.index.ComponentIndexDefinition.INDEX;
+import static org.sonar.server.component.index.ComponentIndexDefinition.TYPE_COMPONENT;
+
+public class ComponentIndexerTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public EsTester es = new EsTester(new ComponentIndexDefinition(new Settings()));
+
+  ComponentDbTester componentDb = new ComponentDbTester(db);
+  ComponentIndexer underTest = new ComponentIndexer(db.getDbClient(), es.client());
+
+  @Test
+  public void index_nothing() {
+    underTest.index();
+
+    assertThat(es.countDocuments(INDEX, TYPE_COMPONENT)).isEqualTo(0L);
+  }
+
+  @Test
+  public void index_all_enabled_projects_and_files_on_startup() {
+    ComponentDto project = componentDb.insertComponent(newProjectDto());
+    componentDb.insertComponent(newDirectory(project, "src"));
+    ComponentDto file = componentDb.insertComponent(newFileDto(project).setName("StringUtils.java").setLanguage("java"));
+    componentDb.insertComponent(newFileDto(project).setEnabled(false));
+
+    underTest.setEnabled(true).index();
+
+    assertThat(es.getIds(INDEX, TYPE_COMPONENT)).containsOnly(project.uuid(), file.uuid());
+    ComponentDoc doc = es.getDocuments(INDEX, TYPE_COMPONENT, ComponentDoc.class).stream()
+      .filter(d -> d.uuid().equals(file.uuid()))
+      .findFirst().get();
+    assertThat(doc.projectUuid()).isEqualTo(project.uuid());
+    assertThat(doc.key()).isEqualTo(file.key());
+    assertThat(doc.name()).isEqualTo("StringUtils.java");
+    assertThat(doc.language()).isEqualTo("java");
+  }
+
+  @Test
+  public void index_components_created_or_analysed_since_last_indexing() {
+    ComponentDto project = componentDb.insertComponent(newProjectDto().setCreatedAt(new Date(1_000L)));
+    underTest.setEnabled(true).index();
+
+    ComponentDto view = componentDb.insertComponent(newView().setCreatedAt(new Date(2_000L)));
+    ComponentDto subView = componentDb.insertComponent(newSubView(view, "SUB_VIEW", "sub-view-key").setCreatedAt(new Date(2_000L)));
+    ComponentDto analysedProject = componentDb.insertComponent(newProjectDto().setCreatedAt(new Date(500L)));
+    db.getDbClient().snapshotDao().insert(db.getSession(), newAnalysis(analysedProject).setCreatedAt(3_000L));
+    db.commit();
+    underTest.index();
+
+    assertThat(es.getIds(INDEX, TYPE_COMPONENT)).containsOnly(project.uuid(), view.uuid(), subView.uuid(), analysedProject.uuid());
+    ComponentDoc doc = es.getDocuments(INDEX, TYPE_COMPONENT, ComponentDoc.class).stream()
+      .filter(d -> d.uuid().equals(analysedProject.uuid()))
+      .findFirst().get();
+    assertThat(doc.updatedAt()).isEqualTo(new Date(3_000L));
+  }
+
+  @Test
+  public void index_project_removes_disabled_components() {
+    ComponentDto project = componentDb.insertComponent(newProjectDto());
+    ComponentDto file = componentDb.insertComponent(newFileDto(project));
+    underTest.index(project.uuid());
+    assertThat(es.getIds(INDEX, TYPE_COMPONENT)).containsOnly(project.uuid(), file.uuid());
+
+    db.getDbClient().componentDao().updateBEnabledToFalse(db.getSession(), singletonList(file.uuid()));
+    db.getDbClient().componentDao().applyBChangesForRootComponentUuid(db.getSession(), project.uuid());
+    db.commit();
+    underTest.index(project.uuid());
+
+    assertThat(es.getIds(INDEX, TYPE_COMPONENT)).containsOnly(project.uuid());
+  }
+
+  @Test
+  public void delete_project() {
+    ComponentDto project1 = componentDb.insertComponent(newProjectDto());
+    componentDb.insertComponent(newFileDto(project1));
+    ComponentDto project2 = componentDb.insertComponent(newProjectDto());
+    underTest.index(project1.uuid());
+    underTest.index(project2.uuid());
+
+    underTest.deleteProject(project1.uuid());
+
+    assertThat(es.getIds(INDEX, TYPE_COMPONENT)).containsOnly(project2.uuid());
+  }
+}
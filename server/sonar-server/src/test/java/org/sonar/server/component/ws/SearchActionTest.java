@@ -28,6 +28,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.resources.Language;
 import org.sonar.api.resources.Languages;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.utils.System2;
@@ -36,6 +37,10 @@ import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ResourceTypesRule;
+import org.sonar.server.component.index.ComponentIndex;
+import org.sonar.server.component.index.ComponentIndexDefinition;
+import org.sonar.server.component.index.ComponentIndexer;
+import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.UnauthorizedException;
 import org.sonar.server.i18n.I18nRule;
@@ -64,6 +69,8 @@ public class SearchActionTest {
   public UserSessionRule userSession = UserSessionRule.standalone();
   @Rule
   public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public EsTester es = new EsTester(new ComponentIndexDefinition(new Settings()));
   ComponentDbTester componentDb = new ComponentDbTester(db);
   I18nRule i18n = new I18nRule();
 
@@ -78,7 +85,7 @@ public class SearchActionTest {
     languages = mock(Languages.class);
     when(languages.all()).thenReturn(javaLanguage());
 
-    ws = new WsActionTester(new SearchAction(db.getDbClient(), resourceTypes, i18n, userSession, languages));
+    ws = new WsActionTester(new SearchAction(db.getDbClient(), resourceTypes, i18n, userSession, languages, new ComponentIndex(es.client())));
   }
 
   @Test
@@ -137,6 +144,7 @@ public class SearchActionTest {
     componentDb.insertComponent(newProjectDto().setKey("project-_%-key"));
     componentDb.insertComponent(newProjectDto().setKey("project-key-without-escaped-characters"));
     db.commit();
+    indexComponents();
 
     InputStream responseStream = newRequest(Qualifiers.PROJECT)
       .setParam(Param.TEXT_QUERY, "project-_%-key")
@@ -147,6 +155,31 @@ public class SearchActionTest {
     assertThat(response.getComponentsList()).extracting("key").containsExactly("project-_%-key");
   }
 
+  @Test
+  public void search_with_name_query() throws IOException {
+    ComponentDto project = componentDb.insertComponent(newProjectDto().setName("Apache Commons Lang"));
+    componentDb.insertComponent(newFileDto(project).setName("StringUtils.java"));
+    componentDb.insertComponent(newProjectDto().setName("Sonar"));
+    db.commit();
+    indexComponents();
+
+    SearchWsResponse response = SearchWsResponse.parseFrom(newRequest(Qualifiers.PROJECT, Qualifiers.FILE)
+      .setParam(Param.TEXT_QUERY, "comm")
+      .execute().getInputStream());
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(project.uuid());
+    assertThat(response.getPaging().getTotal()).isEqualTo(1);
+
+    response = SearchWsResponse.parseFrom(newRequest(Qualifiers.PROJECT, Qualifiers.FILE)
+      .setParam(Param.TEXT_QUERY, "stringutils")
+      .execute().getInputStream());
+    assertThat(response.getComponentsList()).extracting("name").containsExactly("StringUtils.java");
+
+    response = SearchWsResponse.parseFrom(newRequest(Qualifiers.PROJECT)
+      .setParam(Param.TEXT_QUERY, "stringutils")
+      .execute().getInputStream());
+    assertThat(response.getComponentsCount()).isEqualTo(0);
+  }
+
   @Test
   public void search_with_language() throws IOException {
     componentDb.insertComponent(newProjectDto().setKey("java-project").setLanguage("java"));
@@ -186,6 +219,10 @@ public class SearchActionTest {
     newRequest(Qualifiers.PROJECT).execute();
   }
 
+  private void indexComponents() {
+    new ComponentIndexer(db.getDbClient(), es.client()).setEnabled(true).index();
+  }
+
   private TestRequest newRequest(String... qualifiers) {
     return ws.newRequest()
       .setMediaType(MediaTypes.PROTOBUF)
@@ -21,24 +21,31 @@ package org.sonar.server.computation;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 import org.h2.util.IOUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.config.Settings;
 import org.sonar.process.ProcessProperties;
 import org.sonar.ce.queue.report.ReportFiles;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 public class ReportFilesTest {
 
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
 
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
   File reportDir;
+  File uploadDir;
   Settings settings = new Settings();
   ReportFiles underTest = new ReportFiles(settings);
 
@@ -46,6 +53,7 @@ public class ReportFilesTest {
   public void setUp() throws IOException {
     File dataDir = temp.newFolder();
     reportDir = new File(dataDir, "ce/reports");
+    uploadDir = new File(dataDir, "ce/uploads");
     settings.setProperty(ProcessProperties.PATH_DATA, dataDir.getCanonicalPath());
   }
 
@@ -57,6 +65,99 @@ public class ReportFilesTest {
 
   }
 
+  @Test
+  public void save_report_uploaded_by_chunks() throws IOException {
+    assertThat(underTest.uploadedBytes("UPLOAD_1", "PROJECT_1")).isEqualTo(0L);
+    assertThat(underTest.appendChunk("UPLOAD_1", "PROJECT_1", 0L, IOUtils.getInputStreamFromString("{bin"))).isEqualTo(4L);
+    // chunk sent again after a network failure
+    assertThat(underTest.appendChunk("UPLOAD_1", "PROJECT_1", 2L, IOUtils.getInputStreamFromString("inary"))).isEqualTo(7L);
+    assertThat(underTest.appendChunk("UPLOAD_1", "PROJECT_1", 7L, IOUtils.getInputStreamFromString("}"))).isEqualTo(8L);
+    assertThat(underTest.uploadedBytes("UPLOAD_1", "PROJECT_1")).isEqualTo(8L);
+
+    underTest.saveUpload("TASK_1", "UPLOAD_1", "PROJECT_1");
+
+    assertThat(FileUtils.readFileToString(new File(reportDir, "TASK_1.zip"))).isEqualTo("{binary}");
+    assertThat(underTest.uploadedBytes("UPLOAD_1", "PROJECT_1")).isEqualTo(0L);
+  }
+
+  @Test
+  public void fail_to_append_chunk_of_another_project() {
+    underTest.appendChunk("UPLOAD_1", "PROJECT_1", 0L, IOUtils.getInputStreamFromString("{bin"));
+
+    try {
+      underTest.appendChunk("UPLOAD_1", "PROJECT_2", 0L, IOUtils.getInputStreamFromString("{other"));
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Upload UPLOAD_1 does not belong to project PROJECT_2");
+    }
+
+    // upload is not modified
+    assertThat(underTest.uploadedBytes("UPLOAD_1", "PROJECT_1")).isEqualTo(4L);
+  }
+
+  @Test
+  public void fail_to_save_upload_of_another_project() {
+    underTest.appendChunk("UPLOAD_1", "PROJECT_1", 0L, IOUtils.getInputStreamFromString("{binary}"));
+
+    try {
+      underTest.saveUpload("TASK_1", "UPLOAD_1", "PROJECT_2");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Upload UPLOAD_1 does not belong to project PROJECT_2");
+    }
+
+    assertThat(new File(reportDir, "TASK_1.zip")).doesNotExist();
+    assertThat(underTest.uploadedBytes("UPLOAD_1", "PROJECT_1")).isEqualTo(8L);
+  }
+
+  @Test
+  public void fail_to_append_chunk_after_end_of_upload() {
+    underTest.appendChunk("UPLOAD_1", "PROJECT_1", 0L, IOUtils.getInputStreamFromString("{bin"));
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Upload UPLOAD_1 has 4 bytes, can not write chunk at offset 5");
+
+    underTest.appendChunk("UPLOAD_1", "PROJECT_1", 5L, IOUtils.getInputStreamFromString("ary}"));
+  }
+
+  @Test
+  public void fail_to_append_chunk_if_upload_exceeds_max_size() {
+    settings.setProperty(ReportFiles.PROPERTY_UPLOAD_MAX_SIZE, 6L);
+    underTest.appendChunk("UPLOAD_1", "PROJECT_1", 0L, IOUtils.getInputStreamFromString("{bin"));
+
+    try {
+      underTest.appendChunk("UPLOAD_1", "PROJECT_1", 4L, IOUtils.getInputStreamFromString("ary}"));
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Upload UPLOAD_1 exceeds the maximum size of 6 bytes");
+    }
+
+    // chunk is discarded
+    assertThat(underTest.uploadedBytes("UPLOAD_1", "PROJECT_1")).isEqualTo(4L);
+  }
+
+  @Test
+  public void delete_abandoned_uploads_when_a_new_upload_starts() {
+    underTest.appendChunk("UPLOAD_1", "PROJECT_1", 0L, IOUtils.getInputStreamFromString("{bin"));
+    underTest.appendChunk("UPLOAD_2", "PROJECT_1", 0L, IOUtils.getInputStreamFromString("{bin"));
+    File abandoned = new File(uploadDir, "UPLOAD_1.zip");
+    assertThat(abandoned.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(25))).isTrue();
+
+    underTest.appendChunk("UPLOAD_3", "PROJECT_1", 0L, IOUtils.getInputStreamFromString("{bin"));
+
+    assertThat(underTest.uploadedBytes("UPLOAD_1", "PROJECT_1")).isEqualTo(0L);
+    assertThat(underTest.uploadedBytes("UPLOAD_2", "PROJECT_1")).isEqualTo(4L);
+    assertThat(underTest.uploadedBytes("UPLOAD_3", "PROJECT_1")).isEqualTo(4L);
+  }
+
+  @Test
+  public void fail_if_upload_id_is_not_a_file_name() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Invalid upload id: ../TASK_1");
+
+    underTest.uploadedBytes("../TASK_1", "PROJECT_1");
+  }
+
   @Test
   public void deleteIfExists_uuid_does_not_exist() {
     // do not fail, does nothing
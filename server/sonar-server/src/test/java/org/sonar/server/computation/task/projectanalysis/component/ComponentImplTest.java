@@ -130,6 +130,16 @@ public class ComponentImplTest {
     assertThat(component.getFileAttributes().getLanguageKey()).isEqualTo(languageKey);
   }
 
+  @Test
+  public void files_with_same_language_and_test_flag_share_FileAttributes() {
+    ComponentImpl file1 = buildSimpleComponent(ScannerReport.Component.newBuilder().setType(FILE).setLanguage("java").build());
+    ComponentImpl file2 = buildSimpleComponent(ScannerReport.Component.newBuilder().setType(FILE).setLanguage("java").build());
+    ComponentImpl testFile = buildSimpleComponent(ScannerReport.Component.newBuilder().setType(FILE).setLanguage("java").setIsTest(true).build());
+
+    assertThat(file1.getFileAttributes()).isSameAs(file2.getFileAttributes());
+    assertThat(testFile.getFileAttributes()).isNotSameAs(file1.getFileAttributes());
+  }
+
   @Test
   public void build_with_child() throws Exception {
     ComponentImpl child = builder(ScannerReport.Component.newBuilder().setType(FILE).build())
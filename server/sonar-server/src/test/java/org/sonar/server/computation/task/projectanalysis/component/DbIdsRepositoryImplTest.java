@@ -43,6 +43,18 @@ public class DbIdsRepositoryImplTest {
     assertThat(cache.getComponentId(SOME_COMPONENT)).isEqualTo(10L);
   }
 
+  @Test
+  public void add_and_get_component_ids_of_many_components() {
+    DbIdsRepositoryImpl cache = new DbIdsRepositoryImpl();
+    for (int ref = 1; ref <= 5_000; ref += 7) {
+      cache.setComponentId(ReportComponent.builder(PROJECT, ref).build(), 10_000L + ref);
+    }
+
+    for (int ref = 1; ref <= 5_000; ref += 7) {
+      assertThat(cache.getComponentId(ReportComponent.builder(PROJECT, ref).build())).isEqualTo(10_000L + ref);
+    }
+  }
+
   @Test
   public void fail_to_get_component_id_on_unknown_ref() {
     thrown.expect(IllegalStateException.class);
@@ -19,12 +19,15 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.inOrder;
@@ -102,6 +105,26 @@ public class ReportVisitorsCrawlerTest {
     inOrder.verify(spyPostOrderTypeAwareVisitor).visitProject(COMPONENT_TREE);
   }
 
+  @Test
+  public void path_of_visitor_is_not_altered_by_components_deeper_than_its_max_depth() throws Exception {
+    final List<Integer> currentElements = new ArrayList<>();
+    TestPathAwareVisitor directoryVisitor = new TestPathAwareVisitor(CrawlerDepthLimit.DIRECTORY, POST_ORDER) {
+      @Override
+      public void visitDirectory(Component directory, Path<Integer> path) {
+        currentElements.add(path.current());
+      }
+
+      @Override
+      public void visitModule(Component module, Path<Integer> path) {
+        currentElements.add(path.current());
+      }
+    };
+    VisitorsCrawler underTest = new VisitorsCrawler(Arrays.<ComponentVisitor>asList(spyPreOrderTypeAwareVisitor, directoryVisitor));
+    underTest.visit(COMPONENT_TREE);
+
+    assertThat(currentElements).containsExactly(4, 3, 2);
+  }
+
   @Test
   public void fail_with_IAE_when_visitor_is_not_path_aware_or_type_aware() throws Exception {
     thrown.expect(IllegalArgumentException.class);
@@ -109,6 +109,18 @@ public class TreeRootHolderImplTest {
     underTest.getComponentByRef(6);
   }
 
+  @Test
+  public void getComponentByRef_throws_ISE_if_tree_contains_twice_the_same_ref() {
+    underTest.setRoot(ReportComponent.builder(PROJECT, 1)
+      .addChildren(ReportComponent.builder(MODULE, 2).build(), ReportComponent.builder(MODULE, 2).build())
+      .build());
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Component with ref '2' is present twice in the tree");
+
+    underTest.getComponentByRef(1);
+  }
+
   @Test
   public void getComponentByRef_throws_IAE_if_holder_contains_View_tree() {
     underTest.setRoot(SOME_VIEWS_COMPONENT_TREE);
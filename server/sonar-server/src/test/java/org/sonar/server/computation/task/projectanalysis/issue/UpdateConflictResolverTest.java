@@ -30,8 +30,11 @@ import org.sonar.core.issue.DefaultIssue;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -72,6 +75,42 @@ public class UpdateConflictResolverTest {
     assertThat(updatedIssue.getAssignee()).isEqualTo("arthur");
   }
 
+  @Test
+  public void should_reload_issues_by_keys_and_resolve_conflicts() {
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ABCDE")
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(RuleKey.of("squid", "AvoidCycles"))
+      .setNew(false)
+      .setStatus(Issue.STATUS_OPEN);
+    DefaultIssue deletedIssue = new DefaultIssue()
+      .setKey("FGHIJ")
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(RuleKey.of("squid", "AvoidCycles"))
+      .setNew(false)
+      .setStatus(Issue.STATUS_OPEN);
+
+    IssueMapper mapper = mock(IssueMapper.class);
+    when(mapper.selectByKeys(asList("ABCDE", "FGHIJ"))).thenReturn(asList(
+      new IssueDto()
+        .setKee("ABCDE")
+        .setType(RuleType.CODE_SMELL)
+        .setRuleId(10)
+        .setRuleKey("squid", "AvoidCycles")
+        .setStatus(Issue.STATUS_OPEN)
+
+        // field changed by user
+        .setAssignee("arthur")));
+
+    new UpdateConflictResolver().resolve(asList(issue, deletedIssue), mapper);
+
+    ArgumentCaptor<IssueDto> argument = ArgumentCaptor.forClass(IssueDto.class);
+    verify(mapper).update(argument.capture());
+    assertThat(argument.getValue().getKee()).isEqualTo("ABCDE");
+    assertThat(argument.getValue().getAssignee()).isEqualTo("arthur");
+    verify(mapper, never()).selectByKey(anyString());
+  }
+
   @Test
   public void should_keep_changes_made_by_user() {
     DefaultIssue issue = new DefaultIssue()
@@ -0,0 +1,225 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.component.DumbDeveloper;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.guava.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+public class ColumnarRawMeasureRepositoryTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey("file cpt key").build();
+  private static final ReportComponent OTHER_COMPONENT = ReportComponent.builder(Component.Type.FILE, 2).setKey("some other key").build();
+
+  private static final Metric INT_METRIC = new MetricImpl(1, "int", "int", Metric.MetricType.INT);
+  private static final Metric DOUBLE_METRIC = new MetricImpl(2, "double", "double", Metric.MetricType.FLOAT, 1, null, false);
+  private static final Metric STRING_METRIC = new MetricImpl(3, "string", "string", Metric.MetricType.STRING);
+  private static final Metric LEVEL_METRIC = new MetricImpl(4, "level", "level", Metric.MetricType.LEVEL);
+  private static final Metric LONG_METRIC = new MetricImpl(5, "long", "long", Metric.MetricType.WORK_DUR);
+  private static final Metric BOOLEAN_METRIC = new MetricImpl(6, "boolean", "boolean", Metric.MetricType.BOOL);
+
+  private static final Developer SOME_DEVELOPER = new DumbDeveloper("DEV1");
+
+  private ColumnarRawMeasureRepository<Integer> underTest = new ColumnarRawMeasureRepository<>(new Function<Component, Integer>() {
+    @Override
+    public Integer apply(Component component) {
+      return component.getReportAttributes().getRef();
+    }
+  });
+
+  @Test
+  public void getRawMeasure_returns_absent_if_repository_is_empty() {
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC)).isAbsent();
+  }
+
+  @Test
+  public void getRawMeasure_restores_value_and_data_of_each_value_type() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12, "int data"));
+    underTest.add(FILE_COMPONENT, DOUBLE_METRIC, newMeasureBuilder().create(3.14d, 2));
+    underTest.add(FILE_COMPONENT, STRING_METRIC, newMeasureBuilder().create("some value"));
+    underTest.add(FILE_COMPONENT, LEVEL_METRIC, newMeasureBuilder().create(Measure.Level.WARN));
+    underTest.add(FILE_COMPONENT, LONG_METRIC, newMeasureBuilder().create(Long.MAX_VALUE / 1024));
+    underTest.add(FILE_COMPONENT, BOOLEAN_METRIC, newMeasureBuilder().create(true));
+
+    Measure intMeasure = underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get();
+    assertThat(intMeasure.getIntValue()).isEqualTo(12);
+    assertThat(intMeasure.getData()).isEqualTo("int data");
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, DOUBLE_METRIC).get().getDoubleValue()).isEqualTo(3.14d);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, STRING_METRIC).get().getStringValue()).isEqualTo("some value");
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, LEVEL_METRIC).get().getLevelValue()).isEqualTo(Measure.Level.WARN);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, LONG_METRIC).get().getLongValue()).isEqualTo(Long.MAX_VALUE / 1024);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, BOOLEAN_METRIC).get().getBooleanValue()).isTrue();
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC)).isAbsent();
+  }
+
+  @Test
+  public void getRawMeasure_restores_NO_VALUE_measure() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().createNoValue());
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getValueType()).isEqualTo(Measure.ValueType.NO_VALUE);
+  }
+
+  @Test
+  public void getRawMeasure_restores_description_quality_gate_status_and_variations() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder()
+      .setDescription("some description")
+      .setQualityGateStatus(new QualityGateStatus(Measure.Level.ERROR, "some text"))
+      .setVariations(new MeasureVariations(null, 2d, null, null, -5d))
+      .create(12));
+
+    Measure measure = underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get();
+    assertThat(measure.getDescription()).isEqualTo("some description");
+    assertThat(measure.getQualityGateStatus().getStatus()).isEqualTo(Measure.Level.ERROR);
+    assertThat(measure.getQualityGateStatus().getText()).isEqualTo("some text");
+    assertThat(measure.getVariations().hasVariation1()).isFalse();
+    assertThat(measure.getVariations().getVariation2()).isEqualTo(2d);
+    assertThat(measure.getVariations().hasVariation3()).isFalse();
+    assertThat(measure.getVariations().hasVariation4()).isFalse();
+    assertThat(measure.getVariations().getVariation5()).isEqualTo(-5d);
+  }
+
+  @Test
+  public void update_replaces_all_attributes_of_the_stored_measure() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder()
+      .setDescription("some description")
+      .setVariations(new MeasureVariations(1d))
+      .create(12, "some data"));
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(15));
+
+    Measure measure = underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get();
+    assertThat(measure.getIntValue()).isEqualTo(15);
+    assertThat(measure.getData()).isNull();
+    assertThat(measure.getDescription()).isNull();
+    assertThat(measure.hasVariations()).isFalse();
+  }
+
+  @Test
+  public void add_throws_UOE_if_measure_already_exists() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12));
+
+    expectedException.expect(UnsupportedOperationException.class);
+    expectedException.expectMessage("a measure can be set only once for a specific Component (key=file cpt key), Metric (key=int). Use update method");
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(15));
+  }
+
+  @Test
+  public void update_throws_UOE_if_measure_does_not_exist() {
+    underTest.add(FILE_COMPONENT, DOUBLE_METRIC, newMeasureBuilder().create(1d, 1));
+
+    expectedException.expect(UnsupportedOperationException.class);
+    expectedException.expectMessage("a measure can be updated only if one already exists for a specific Component (key=file cpt key), Metric (key=int). Use add method");
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(15));
+  }
+
+  @Test
+  public void add_does_not_override_existing_measure_with_DO_NOT_OVERRIDE_policy() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(15), OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(12);
+  }
+
+  @Test
+  public void getRawMeasures_returns_measures_of_component_and_of_its_developers() {
+    Measure devMeasure = newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create(3);
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, INT_METRIC, devMeasure);
+    underTest.add(FILE_COMPONENT, STRING_METRIC, newMeasureBuilder().create("some value"));
+    underTest.add(OTHER_COMPONENT, LEVEL_METRIC, newMeasureBuilder().create(Measure.Level.OK));
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(12);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, INT_METRIC)).extracting(Measure::getIntValue).containsOnly(12, 3);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT).keySet()).containsOnly(INT_METRIC.getKey(), STRING_METRIC.getKey());
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT).get(INT_METRIC.getKey())).hasSize(2);
+    assertThat(underTest.getRawMeasures(OTHER_COMPONENT).keySet()).containsOnly(LEVEL_METRIC.getKey());
+  }
+
+  @Test
+  public void stores_measures_of_many_components() {
+    for (int ref = 1; ref <= 1_000; ref++) {
+      ReportComponent component = ReportComponent.builder(Component.Type.FILE, ref).build();
+      underTest.add(component, INT_METRIC, newMeasureBuilder().setVariations(new MeasureVariations((double) -ref)).create(ref));
+      if (ref % 2 == 0) {
+        underTest.add(component, STRING_METRIC, newMeasureBuilder().create("value " + ref));
+      }
+    }
+
+    for (int ref = 1; ref <= 1_000; ref++) {
+      ReportComponent component = ReportComponent.builder(Component.Type.FILE, ref).build();
+      Measure measure = underTest.getRawMeasure(component, INT_METRIC).get();
+      assertThat(measure.getIntValue()).isEqualTo(ref);
+      assertThat(measure.getVariations().getVariation1()).isEqualTo((double) -ref);
+      Optional<Measure> stringMeasure = underTest.getRawMeasure(component, STRING_METRIC);
+      if (ref % 2 == 0) {
+        assertThat(stringMeasure.get().getStringValue()).isEqualTo("value " + ref);
+      } else {
+        assertThat(stringMeasure).isAbsent();
+      }
+    }
+  }
+
+  @Test
+  public void stores_measures_of_metrics_set_on_few_components_then_on_many() {
+    for (int ref = 1; ref <= 1_000; ref++) {
+      underTest.add(ReportComponent.builder(Component.Type.FILE, ref).build(), INT_METRIC, newMeasureBuilder().create(ref));
+    }
+    // measures of the last components are added first, the column of the metric starts sparse then becomes dense
+    for (int ref = 1_000; ref >= 1; ref -= 3) {
+      Measure.NewMeasureBuilder builder = newMeasureBuilder();
+      if (ref % 2 == 0) {
+        builder.setVariations(new MeasureVariations(null, (double) ref));
+      }
+      underTest.add(ReportComponent.builder(Component.Type.FILE, ref).build(), STRING_METRIC, builder.create("value " + ref));
+    }
+
+    for (int ref = 1; ref <= 1_000; ref++) {
+      ReportComponent component = ReportComponent.builder(Component.Type.FILE, ref).build();
+      assertThat(underTest.getRawMeasure(component, INT_METRIC).get().getIntValue()).isEqualTo(ref);
+      Optional<Measure> stringMeasure = underTest.getRawMeasure(component, STRING_METRIC);
+      if ((1_000 - ref) % 3 != 0) {
+        assertThat(stringMeasure).isAbsent();
+      } else if (ref % 2 == 0) {
+        assertThat(stringMeasure.get().getStringValue()).isEqualTo("value " + ref);
+        assertThat(stringMeasure.get().getVariations().getVariation2()).isEqualTo((double) ref);
+      } else {
+        assertThat(stringMeasure.get().getStringValue()).isEqualTo("value " + ref);
+        assertThat(stringMeasure.get().hasVariations()).isFalse();
+      }
+    }
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
@@ -46,6 +47,8 @@ import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
@@ -63,6 +66,7 @@ public class ScmInfoRepositoryImplTest {
 
   static final int FILE_REF = 1;
   static final Component FILE = builder(Component.Type.FILE, FILE_REF).setKey("FILE_KEY").setUuid("FILE_UUID").build();
+  static final Component PROJECT = builder(Component.Type.PROJECT, 2).setKey("PROJECT_KEY").setUuid("PROJECT_UUID").addChildren(FILE).build();
   static final long DATE_1 = 123456789L;
   static final long DATE_2 = 1234567810L;
 
@@ -82,11 +86,13 @@ public class ScmInfoRepositoryImplTest {
   public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
   @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule().setRoot(PROJECT);
 
   DbClient dbClient = dbTester.getDbClient();
 
   ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(reportReader, analysisMetadataHolder, dbClient,
-    new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)));
+    new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)), treeRootHolder);
 
   @Test
   public void read_from_report() throws Exception {
@@ -122,6 +128,44 @@ public class ScmInfoRepositoryImplTest {
     assertThat(logTester.logs(TRACE)).containsOnly("Reading SCM info from db for file 'FILE_KEY'");
   }
 
+  @Test
+  public void getScmInfo_returns_ScmInfo_from_column_SCM_DATA_when_CopyFromPrevious_is_true() throws Exception {
+    analysisMetadataHolder.setBaseProjectSnapshot(baseProjectAnalysis);
+    addFileSourceWithScmDataInDb(computeSourceHash(2), 0, 1);
+    addFileSourceInReport(2);
+    addCopyFromPreviousChangesetInReport();
+
+    ScmInfo scmInfo = underTest.getScmInfo(FILE).get();
+
+    assertThat(scmInfo.getChangesetForLine(1).getAuthor()).isEqualTo("henry");
+    assertThat(scmInfo.getChangesetForLine(2).getRevision()).isEqualTo("rev-2");
+    assertThat(scmInfo.getChangesetForLine(2).getAuthor()).isNull();
+    assertThat(scmInfo.getLatestChangeset().getDate()).isEqualTo(DATE_2);
+  }
+
+  @Test
+  public void getScmInfo_returns_absent_when_column_SCM_DATA_has_hash_different_from_report() throws Exception {
+    analysisMetadataHolder.setBaseProjectSnapshot(baseProjectAnalysis);
+    addFileSourceWithScmDataInDb(computeSourceHash(2) + "_different", 0, 1);
+    addFileSourceInReport(2);
+    addCopyFromPreviousChangesetInReport();
+
+    assertThat(underTest.getScmInfo(FILE)).isAbsent();
+  }
+
+  @Test
+  public void getScmInfo_fails_when_column_SCM_DATA_is_partial() throws Exception {
+    analysisMetadataHolder.setBaseProjectSnapshot(baseProjectAnalysis);
+    addFileSourceWithScmDataInDb(computeSourceHash(2), 0, -1);
+    addFileSourceInReport(2);
+    addCopyFromPreviousChangesetInReport();
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Partial scm information stored in DB");
+
+    underTest.getScmInfo(FILE);
+  }
+
   @Test
   public void getScmInfo_returns_absent_when_CopyFromPrevious_is_true_but_hashes_are_not_the_same() throws Exception {
     analysisMetadataHolder.setBaseProjectSnapshot(baseProjectAnalysis);
@@ -210,11 +254,12 @@ public class ScmInfoRepositoryImplTest {
     AnalysisMetadataHolder analysisMetadataHolder = mock(AnalysisMetadataHolder.class);
     DbClient dbClient = mock(DbClient.class);
     SourceHashRepository sourceHashRepository = mock(SourceHashRepository.class);
-    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository);
+    TreeRootHolder treeRootHolder = mock(TreeRootHolder.class);
+    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository, treeRootHolder);
 
     assertThat(underTest.getScmInfo(component)).isAbsent();
 
-    verifyNoMoreInteractions(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository);
+    verifyNoMoreInteractions(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository, treeRootHolder);
   }
 
   @Test
@@ -262,6 +307,20 @@ public class ScmInfoRepositoryImplTest {
       .setSrcHash(srcHash));
   }
 
+  private void addFileSourceWithScmDataInDb(String srcHash, Integer... lineChangesets) {
+    DbFileSources.Scm scm = DbFileSources.Scm.newBuilder()
+      .addChangeset(DbFileSources.Scm.Changeset.newBuilder().setRevision("rev-1").setAuthor("henry").setDate(DATE_1))
+      .addChangeset(DbFileSources.Scm.Changeset.newBuilder().setRevision("rev-2").setDate(DATE_2))
+      .addAllLineChangeset(Arrays.asList(lineChangesets))
+      .build();
+    dbTester.getDbClient().fileSourceDao().insert(new FileSourceDto()
+      .setFileUuid(FILE.getUuid())
+      .setProjectUuid(PROJECT.getUuid())
+      .setSourceData(DbFileSources.Data.getDefaultInstance())
+      .setScmData(FileSourceDto.encodeScmData(scm))
+      .setSrcHash(srcHash));
+  }
+
   private void addCopyFromPreviousChangesetInReport() {
     reportReader.putChangesets(ScannerReport.Changesets.newBuilder()
       .setComponentRef(FILE_REF)
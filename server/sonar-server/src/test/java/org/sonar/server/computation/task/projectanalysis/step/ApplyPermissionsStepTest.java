@@ -45,6 +45,7 @@ import org.sonar.server.computation.task.projectanalysis.component.ReportCompone
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.EsTester;
+import org.sonar.server.issue.index.IssueAuthorizationCache;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueIndexDefinition;
 
@@ -87,7 +88,7 @@ public class ApplyPermissionsStepTest extends BaseStepTest {
   public void setUp() {
     dbSession = dbClient.openSession(false);
 
-    issueAuthorizationIndexer = new IssueAuthorizationIndexer(dbClient, esTester.client());
+    issueAuthorizationIndexer = new IssueAuthorizationIndexer(dbClient, esTester.client(), new IssueAuthorizationCache(esTester.client(), System2.INSTANCE));
     issueAuthorizationIndexer.setEnabled(true);
 
     step = new ApplyPermissionsStep(dbClient, dbIdsRepository, issueAuthorizationIndexer, new PermissionRepository(dbClient, settings), treeRootHolder);
@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.db.component.ResourceIndexDao;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -45,7 +46,8 @@ public class IndexComponentsStepTest extends BaseStepTest {
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
 
   ResourceIndexDao resourceIndexDao = mock(ResourceIndexDao.class);
-  IndexComponentsStep underTest = new IndexComponentsStep(resourceIndexDao, treeRootHolder);
+  ComponentIndexer componentIndexer = mock(ComponentIndexer.class);
+  IndexComponentsStep underTest = new IndexComponentsStep(resourceIndexDao, componentIndexer, treeRootHolder);
 
   @Test
   public void call_indexProject_of_dao_for_project() {
@@ -55,6 +57,7 @@ public class IndexComponentsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(resourceIndexDao).indexProject(PROJECT_UUID);
+    verify(componentIndexer).index(PROJECT_UUID);
   }
 
   @Test
@@ -65,6 +68,7 @@ public class IndexComponentsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(resourceIndexDao).indexProject(PROJECT_UUID);
+    verify(componentIndexer).index(PROJECT_UUID);
   }
 
   @Override
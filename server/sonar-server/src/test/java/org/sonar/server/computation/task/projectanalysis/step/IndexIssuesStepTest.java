@@ -19,31 +19,138 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesHolder;
+import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryRule;
+import org.sonar.server.issue.index.IssueDoc;
 import org.sonar.server.issue.index.IssueIndexer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.*;
-import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.*;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
 
 public class IndexIssuesStepTest {
 
-  static String PROJECT_UUID = "PROJECT_UUID";
+  static final long NOW = 1_500_000_000_000L;
+  static final RuleKey RULE_KEY = RuleKey.of("xoo", "S01");
 
   @Rule
-  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
-    .setRoot(builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey("PROJECT_KEY").build());
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public RuleRepositoryRule ruleRepository = new RuleRepositoryRule();
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+
+  ComponentDto project = ComponentTesting.newProjectDto();
+  ComponentDto file = ComponentTesting.newFileDto(project).setPath("src/main/xoo/Foo.xoo");
+  IssueIndexer issueIndexer = mock(IssueIndexer.class);
+  PersistedIssuesHolder persistedIssuesHolder = new PersistedIssuesHolder();
+  List<IssueDoc> indexedDocs = new ArrayList<>();
+  IssueCache issueCache;
+  IndexIssuesStep underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    dbTester.getDbClient().componentDao().insert(dbTester.getSession(), project, file);
+    dbTester.getSession().commit();
+    treeRootHolder.setRoot(builder(PROJECT, 1).setUuid(project.uuid()).setKey(project.key()).build());
+    ruleRepository.add(RULE_KEY).setLanguage("xoo");
+    persistedIssuesHolder.setPersistedAt(NOW);
+    issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
+
+    doAnswer(invocation -> {
+      Iterator<IssueDoc> docs = (Iterator<IssueDoc>) invocation.getArguments()[0];
+      docs.forEachRemaining(indexedDocs::add);
+      return null;
+    }).when(issueIndexer).index(any(Iterator.class));
+    underTest = new IndexIssuesStep(issueIndexer, treeRootHolder, dbTester.getDbClient(), issueCache, ruleRepository, persistedIssuesHolder);
+  }
+
+  @Test
+  public void index_new_and_changed_issues_from_cache() {
+    issueCache.newAppender()
+      .append(newIssue("NEW").setNew(true))
+      .append(newIssue("CHANGED").setNew(false).setChanged(true))
+      .append(newIssue("UNCHANGED").setNew(false).setChanged(false))
+      .close();
+
+    underTest.execute();
+
+    verify(issueIndexer, never()).index(project.uuid());
+    assertThat(indexedDocs).extracting(IssueDoc::key).containsOnly("NEW", "CHANGED");
+    IssueDoc doc = indexedDocs.get(0);
+    assertThat(doc.projectUuid()).isEqualTo(project.uuid());
+    assertThat(doc.componentUuid()).isEqualTo(file.uuid());
+    assertThat(doc.moduleUuid()).isEqualTo(project.uuid());
+    assertThat(doc.modulePath()).isEqualTo(file.moduleUuidPath());
+    assertThat(doc.filePath()).isEqualTo("src/main/xoo/Foo.xoo");
+    assertThat(doc.directoryPath()).isEqualTo("src/main/xoo");
+    assertThat(doc.ruleKey()).isEqualTo(RULE_KEY);
+    assertThat(doc.language()).isEqualTo("xoo");
+    assertThat(doc.severity()).isEqualTo(Severity.MAJOR);
+    assertThat(doc.type()).isEqualTo(RuleType.BUG);
+    assertThat(doc.getTechnicalUpdateDate()).isEqualTo(new Date(NOW));
+  }
+
+  @Test
+  public void index_issue_as_merged_during_persistence() {
+    DefaultIssue issue = newIssue("CONFLICT").setNew(false).setChanged(true);
+    issueCache.newAppender().append(issue).close();
+    persistedIssuesHolder.addMergedIssue(issue.setAssignee("john"));
+
+    underTest.execute();
+
+    assertThat(indexedDocs).hasSize(1);
+    assertThat(indexedDocs.get(0).assignee()).isEqualTo("john");
+  }
 
   @Test
-  public void call_indexers() {
-    IssueIndexer issueIndexer = mock(IssueIndexer.class);
-    IndexIssuesStep underTest = new IndexIssuesStep(issueIndexer, treeRootHolder);
+  public void index_nothing_when_no_issues_changed() {
+    issueCache.newAppender().append(newIssue("UNCHANGED").setNew(false).setChanged(false)).close();
 
     underTest.execute();
 
-    verify(issueIndexer).index(PROJECT_UUID);
+    assertThat(indexedDocs).isEmpty();
+  }
+
+  private DefaultIssue newIssue(String key) {
+    return new DefaultIssue()
+      .setKey(key)
+      .setType(RuleType.BUG)
+      .setRuleKey(RULE_KEY)
+      .setComponentUuid(file.uuid())
+      .setProjectUuid(project.uuid())
+      .setSeverity(Severity.MAJOR)
+      .setStatus(Issue.STATUS_OPEN)
+      .setCreationDate(new Date(NOW))
+      .setUpdateDate(new Date(NOW));
   }
 }
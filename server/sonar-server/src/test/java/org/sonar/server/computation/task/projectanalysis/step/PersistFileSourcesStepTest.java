@@ -187,6 +187,13 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(data.getLines(0).getScmAuthor()).isEqualTo("john");
     assertThat(data.getLines(0).getScmDate()).isEqualTo(123456789L);
     assertThat(data.getLines(0).getScmRevision()).isEqualTo("rev-1");
+
+    DbFileSources.Scm scm = FileSourceDto.decodeScmData(fileSourceDto.getScmData());
+    assertThat(scm.getChangesetList()).hasSize(1);
+    assertThat(scm.getChangeset(0).getAuthor()).isEqualTo("john");
+    assertThat(scm.getChangeset(0).getDate()).isEqualTo(123456789L);
+    assertThat(scm.getChangeset(0).getRevision()).isEqualTo("rev-1");
+    assertThat(scm.getLineChangesetList()).containsExactly(0);
   }
 
   @Test
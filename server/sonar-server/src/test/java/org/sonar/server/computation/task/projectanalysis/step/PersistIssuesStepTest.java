@@ -43,11 +43,14 @@ import org.sonar.db.rule.RuleTesting;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.computation.task.projectanalysis.issue.PersistedIssuesHolder;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.util.cache.DiskCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -72,8 +75,14 @@ public class PersistIssuesStepTest extends BaseStepTest {
 
   IssueCache issueCache;
 
+  PersistedIssuesHolder persistedIssuesHolder = new PersistedIssuesHolder();
+
   ComputationStep step;
 
+  ComponentDto file;
+
+  int appendedIssues = 0;
+
   @Override
   protected ComputationStep step() {
     return step;
@@ -86,7 +95,7 @@ public class PersistIssuesStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(NOW);
     reportReader.setMetadata(ScannerReport.Metadata.getDefaultInstance());
 
-    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache);
+    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache, persistedIssuesHolder);
   }
 
   @After
@@ -126,6 +135,9 @@ public class PersistIssuesStepTest extends BaseStepTest {
     assertThat(result.getSeverity()).isEqualTo(Severity.BLOCKER);
     assertThat(result.getStatus()).isEqualTo(Issue.STATUS_OPEN);
     assertThat(result.getType()).isEqualTo(RuleType.BUG.getDbConstant());
+    assertThat(result.getUpdatedAt()).isEqualTo(NOW);
+    assertThat(persistedIssuesHolder.getPersistedAt()).isEqualTo(NOW);
+    assertThat(persistedIssuesHolder.getMergedIssue("ISSUE")).isNull();
   }
 
   @Test
@@ -207,4 +219,98 @@ public class PersistIssuesStepTest extends BaseStepTest {
     dbTester.assertDbUnit(getClass(), "add_change-result.xml", new String[] {"id", "created_at", "updated_at"}, "issue_changes");
   }
 
+  @Test
+  public void resolve_conflict_when_issue_has_been_changed_by_user_during_analysis() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    issueCache.newAppender().append(new DefaultIssue()
+      .setKey("ISSUE")
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(RuleKey.of("xoo", "S01"))
+      .setComponentUuid("COMPONENT")
+      .setProjectUuid("PROJECT")
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(Issue.STATUS_CLOSED)
+      .setResolution(Issue.RESOLUTION_FIXED)
+      // issue has been updated in db after the beginning of analysis
+      .setSelectedAt(1200000000000L)
+      .setNew(false)
+      .setChanged(true)
+      ).close();
+
+    step.execute();
+
+    IssueDto result = dbClient.issueDao().selectOrFailByKey(session, "ISSUE");
+    assertThat(result.getStatus()).isEqualTo(Issue.STATUS_OPEN);
+    assertThat(result.getResolution()).isNull();
+    assertThat(persistedIssuesHolder.getMergedIssue("ISSUE")).isNotNull();
+  }
+
+  @Test
+  public void commit_issues_and_changes_by_batches() {
+    RuleDto rule = insertRuleAndFile();
+    appendNewIssuesWithComment(rule.getKey(), 5);
+
+    new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache, persistedIssuesHolder, 2)
+      .execute();
+
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(5);
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(5);
+  }
+
+  @Test
+  public void batches_committed_before_a_failure_are_kept() {
+    RuleDto rule = insertRuleAndFile();
+    appendNewIssuesWithComment(rule.getKey(), 4);
+    // rule does not exist, so the third batch fails
+    appendNewIssuesWithComment(RuleKey.of("xoo", "UNKNOWN"), 1);
+
+    try {
+      new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache, persistedIssuesHolder, 2)
+        .execute();
+      fail("An IllegalArgumentException should have been raised");
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Can not find rule for key xoo:UNKNOWN. This rule does not exist in DB");
+    }
+
+    assertThat(dbTester.select("select kee as \"key\" from issues")).extracting(row -> row.get("key"))
+      .containsOnly("ISSUE_0", "ISSUE_1", "ISSUE_2", "ISSUE_3");
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(4);
+  }
+
+  private RuleDto insertRuleAndFile() {
+    RuleDto rule = RuleTesting.newDto(RuleKey.of("xoo", "S01"));
+    dbClient.ruleDao().insert(session, rule);
+    ComponentDto project = ComponentTesting.newProjectDto();
+    dbClient.componentDao().insert(session, project);
+    file = ComponentTesting.newFileDto(project);
+    dbClient.componentDao().insert(session, file);
+    session.commit();
+    return rule;
+  }
+
+  private void appendNewIssuesWithComment(RuleKey ruleKey, int count) {
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < count; i++) {
+      String key = "ISSUE_" + appendedIssues;
+      appender.append(new DefaultIssue()
+        .setKey(key)
+        .setType(RuleType.BUG)
+        .setRuleKey(ruleKey)
+        .setComponentUuid(file.uuid())
+        .setProjectUuid(file.projectUuid())
+        .setSeverity(Severity.BLOCKER)
+        .setStatus(Issue.STATUS_OPEN)
+        .setNew(true)
+        .addComment(new DefaultIssueComment()
+          .setKey("COMMENT_" + appendedIssues)
+          .setIssueKey(key)
+          .setUserLogin("john")
+          .setMarkdownText("Some text")
+          .setNew(true)));
+      appendedIssues++;
+    }
+    appender.close();
+  }
+
 }
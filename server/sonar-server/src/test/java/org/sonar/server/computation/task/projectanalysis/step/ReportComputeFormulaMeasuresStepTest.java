@@ -0,0 +1,153 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.period.PeriodsHolderRule;
+import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_DENSITY_KEY;
+import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_KEY;
+import static org.sonar.api.measures.CoreMetrics.COMPLEXITY_KEY;
+import static org.sonar.api.measures.CoreMetrics.FILES_KEY;
+import static org.sonar.api.measures.CoreMetrics.FILE_COMPLEXITY_KEY;
+import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+public class ReportComputeFormulaMeasuresStepTest {
+
+  private static final int ROOT_REF = 1;
+  private static final int MODULE_REF = 12;
+  private static final int DIRECTORY_REF = 123;
+  private static final int FILE_1_REF = 1231;
+  private static final int FILE_2_REF = 1232;
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+
+  @Rule
+  public MetricRepositoryRule metricRepository = createMetricRepositoryWithCoreMetrics();
+
+  @Rule
+  public MeasureRepositoryRule measureRepository = MeasureRepositoryRule.create(treeRootHolder, metricRepository);
+
+  @Rule
+  public PeriodsHolderRule periodsHolder = new PeriodsHolderRule().setPeriods();
+
+  @Rule
+  public ScmInfoRepositoryRule scmInfoRepository = new ScmInfoRepositoryRule();
+
+  @Rule
+  public DuplicationRepositoryRule duplicationRepository = DuplicationRepositoryRule.create(treeRootHolder);
+
+  private ComputeFormulaMeasuresStep underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    treeRootHolder.setRoot(
+      builder(PROJECT, ROOT_REF)
+        .addChildren(
+          builder(MODULE, MODULE_REF)
+            .addChildren(
+              builder(DIRECTORY, DIRECTORY_REF)
+                .addChildren(
+                  builder(FILE, FILE_1_REF).build(),
+                  builder(FILE, FILE_2_REF).build())
+                .build())
+            .build())
+        .build());
+
+    underTest = new ComputeFormulaMeasuresStep(treeRootHolder, metricRepository, measureRepository, periodsHolder,
+      new SizeMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new NewCoverageMeasuresStep(treeRootHolder, periodsHolder, measureRepository, metricRepository, scmInfoRepository),
+      new CoverageMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new CommentMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new DuplicationMeasuresStep(treeRootHolder, metricRepository, measureRepository, duplicationRepository),
+      new LanguageDistributionMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new UnitTestMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new ComplexityMeasuresStep(treeRootHolder, metricRepository, measureRepository));
+  }
+
+  @Test
+  public void compute_comment_density_with_ncloc_aggregated_during_the_same_traversal() {
+    measureRepository.addRawMeasure(FILE_1_REF, NCLOC_KEY, newMeasureBuilder().create(100));
+    measureRepository.addRawMeasure(FILE_1_REF, COMMENT_LINES_KEY, newMeasureBuilder().create(150));
+    measureRepository.addRawMeasure(FILE_2_REF, NCLOC_KEY, newMeasureBuilder().create(200));
+    measureRepository.addRawMeasure(FILE_2_REF, COMMENT_LINES_KEY, newMeasureBuilder().create(50));
+
+    underTest.execute();
+
+    assertThat(measureRepository.getAddedRawMeasure(DIRECTORY_REF, NCLOC_KEY).get().getIntValue()).isEqualTo(300);
+    assertThat(measureRepository.getAddedRawMeasure(FILE_1_REF, COMMENT_LINES_DENSITY_KEY).get().getDoubleValue()).isEqualTo(60d);
+    assertThat(measureRepository.getAddedRawMeasure(FILE_2_REF, COMMENT_LINES_DENSITY_KEY).get().getDoubleValue()).isEqualTo(20d);
+    assertThat(measureRepository.getAddedRawMeasure(DIRECTORY_REF, COMMENT_LINES_DENSITY_KEY).get().getDoubleValue()).isEqualTo(40d);
+    assertThat(measureRepository.getAddedRawMeasure(MODULE_REF, COMMENT_LINES_DENSITY_KEY).get().getDoubleValue()).isEqualTo(40d);
+    assertThat(measureRepository.getAddedRawMeasure(ROOT_REF, COMMENT_LINES_DENSITY_KEY).get().getDoubleValue()).isEqualTo(40d);
+  }
+
+  @Test
+  public void compute_file_complexity_with_files_counted_during_the_same_traversal() {
+    measureRepository.addRawMeasure(FILE_1_REF, COMPLEXITY_KEY, newMeasureBuilder().create(10));
+    measureRepository.addRawMeasure(FILE_2_REF, COMPLEXITY_KEY, newMeasureBuilder().create(20));
+
+    underTest.execute();
+
+    assertThat(measureRepository.getAddedRawMeasure(DIRECTORY_REF, FILES_KEY).get().getIntValue()).isEqualTo(2);
+    assertThat(measureRepository.getAddedRawMeasure(DIRECTORY_REF, COMPLEXITY_KEY).get().getIntValue()).isEqualTo(30);
+    assertThat(measureRepository.getAddedRawMeasure(DIRECTORY_REF, FILE_COMPLEXITY_KEY).get().getDoubleValue()).isEqualTo(15d);
+    assertThat(measureRepository.getAddedRawMeasure(ROOT_REF, FILE_COMPLEXITY_KEY).get().getDoubleValue()).isEqualTo(15d);
+  }
+
+  @Test
+  public void log_execution_time_of_each_formula() {
+    underTest.execute();
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("  Execution time for each formula:");
+    assertThat(logTester.logs(LoggerLevel.INFO).stream().anyMatch(log -> log.startsWith("  - IntSumFormula [ncloc] | time="))).isTrue();
+  }
+
+  private static MetricRepositoryRule createMetricRepositoryWithCoreMetrics() {
+    MetricRepositoryRule res = new MetricRepositoryRule();
+    int id = 1;
+    for (org.sonar.api.measures.Metric<?> metric : CoreMetrics.getMetrics()) {
+      res.add(id, metric);
+      id++;
+    }
+    return res;
+  }
+}
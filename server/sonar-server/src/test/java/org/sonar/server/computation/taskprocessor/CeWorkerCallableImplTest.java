@@ -30,8 +30,11 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.log.CeLogging;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.db.DbClient;
+import org.sonar.db.MyBatis;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.profiling.SqlStatistics;
 import org.sonar.server.computation.queue.InternalCeQueue;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
 
@@ -51,7 +54,9 @@ public class CeWorkerCallableImplTest {
   InternalCeQueue queue = mock(InternalCeQueue.class);
   ReportTaskProcessor taskProcessor = mock(ReportTaskProcessor.class);
   CeLogging ceLogging = mock(CeLogging.class);
-  CeWorkerCallable underTest = new CeWorkerCallableImpl(queue, ceLogging, taskProcessorRepository);
+  SqlStatistics sqlStatistics = new SqlStatistics();
+  DbClient dbClient = mockDbClient(sqlStatistics);
+  CeWorkerCallable underTest = new CeWorkerCallableImpl(queue, ceLogging, taskProcessorRepository, dbClient);
   InOrder inOrder = Mockito.inOrder(ceLogging, taskProcessor, queue);
 
   @Test
@@ -105,6 +110,32 @@ public class CeWorkerCallableImplTest {
     inOrder.verify(ceLogging).clearForTask();
   }
 
+  @Test
+  public void log_sql_statements_executed_by_task() throws Exception {
+    CeTask task = createCeTask(null);
+    taskProcessorRepository.setProcessorForTask(task.getType(), taskProcessor);
+    when(taskProcessor.process(task)).thenAnswer(invocation -> {
+      sqlStatistics.record("org.sonar.db.issue.IssueMapper.insert", 2_000_000L, 1);
+      return null;
+    });
+    when(queue.peek()).thenReturn(Optional.of(task));
+    sqlStatistics.record("org.sonar.db.rule.RuleMapper.selectAll", 2_000_000L, 10);
+
+    underTest.call();
+
+    assertThat(logTester.logs(LoggerLevel.INFO))
+      .contains("SQL org.sonar.db.issue.IssueMapper.insert | calls=1 | rows=1 | time=2ms | max=2ms | histogram=<5ms:1")
+      .doesNotContain("SQL org.sonar.db.rule.RuleMapper.selectAll | calls=1 | rows=10 | time=2ms | max=2ms | histogram=<5ms:1");
+  }
+
+  private static DbClient mockDbClient(SqlStatistics sqlStatistics) {
+    DbClient dbClient = mock(DbClient.class);
+    MyBatis myBatis = mock(MyBatis.class);
+    when(dbClient.getMyBatis()).thenReturn(myBatis);
+    when(myBatis.getSqlStatistics()).thenReturn(sqlStatistics);
+    return dbClient;
+  }
+
   private void makeTaskProcessorFail(CeTask task) {
     doThrow(new IllegalStateException("simulate exception thrown by TaskProcessor#process")).when(taskProcessor).process(task);
   }
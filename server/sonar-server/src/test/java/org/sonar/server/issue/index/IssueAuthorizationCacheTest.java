@@ -0,0 +1,134 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.server.es.EsTester;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueAuthorizationCacheTest {
+
+  @Rule
+  public EsTester esTester = new EsTester(new IssueIndexDefinition(new Settings()));
+
+  System2 system = mock(System2.class);
+
+  IssueAuthorizationCache underTest = new IssueAuthorizationCache(esTester.client(), system);
+
+  IssueAuthorizationIndexer indexer = new IssueAuthorizationIndexer(null, esTester.client(), underTest);
+
+  @Test
+  public void get_projects_authorized_to_user_or_groups() {
+    indexer.index(asList(
+      new IssueAuthorizationDao.Dto("P1", 1_000L).addUser("john"),
+      new IssueAuthorizationDao.Dto("P2", 1_000L).addGroup("sonar-users"),
+      new IssueAuthorizationDao.Dto("P3", 1_000L).addGroup("sonar-administrators"),
+      new IssueAuthorizationDao.Dto("P4", 1_000L).addGroup("Anyone")));
+
+    assertThat(underTest.getAuthorizedProjectUuids("john", newHashSet("sonar-users", "Anyone"))).containsOnly("P1", "P2", "P4");
+    assertThat(underTest.getAuthorizedProjectUuids("other", newHashSet("sonar-administrators"))).containsOnly("P3");
+    assertThat(underTest.getAuthorizedProjectUuids(null, newHashSet("Anyone"))).containsOnly("P4");
+    assertThat(underTest.getAuthorizedProjectUuids(null, Collections.emptySet())).isEmpty();
+  }
+
+  @Test
+  public void reload_projects_when_authorizations_are_indexed() {
+    indexer.index(asList(new IssueAuthorizationDao.Dto("P1", 1_000L).addUser("john")));
+    assertThat(underTest.getAuthorizedProjectUuids("john", Collections.emptySet())).containsOnly("P1");
+
+    indexer.index(asList(new IssueAuthorizationDao.Dto("P2", 2_000L).addUser("john")));
+    assertThat(underTest.getAuthorizedProjectUuids("john", Collections.emptySet())).containsOnly("P1", "P2");
+
+    indexer.deleteProject("P1", true);
+    assertThat(underTest.getAuthorizedProjectUuids("john", Collections.emptySet())).containsOnly("P2");
+  }
+
+  @Test
+  public void reload_projects_when_authorizations_are_changed_by_another_process() {
+    when(system.now()).thenReturn(1_000L);
+    indexer.index(asList(new IssueAuthorizationDao.Dto("P1", 1_000L).addUser("john")));
+    assertThat(underTest.getAuthorizedProjectUuids("john", Collections.emptySet())).containsOnly("P1");
+
+    // indexer of another process, with its own cache
+    IssueAuthorizationIndexer otherIndexer = new IssueAuthorizationIndexer(null, esTester.client(), new IssueAuthorizationCache(esTester.client(), system));
+    otherIndexer.index(asList(new IssueAuthorizationDao.Dto("P1", 2_000L).addUser("smith")));
+
+    // index is not checked again before the end of the period
+    when(system.now()).thenReturn(1_000L + IssueAuthorizationCache.VERSION_CHECK_PERIOD_MS - 1);
+    assertThat(underTest.getAuthorizedProjectUuids("john", Collections.emptySet())).containsOnly("P1");
+
+    when(system.now()).thenReturn(1_000L + IssueAuthorizationCache.VERSION_CHECK_PERIOD_MS);
+    assertThat(underTest.getAuthorizedProjectUuids("john", Collections.emptySet())).isEmpty();
+    assertThat(underTest.getAuthorizedProjectUuids("smith", Collections.emptySet())).containsOnly("P1");
+  }
+
+  @Test
+  public void do_not_keep_projects_loaded_before_invalidation() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch invalidated = new CountDownLatch(1);
+    IssueAuthorizationCache cache = new IssueAuthorizationCache(esTester.client(), system) {
+      @Override
+      Set<String> loadAuthorizedProjectUuids(String userLogin, Set<String> userGroups) {
+        Set<String> projectUuids = super.loadAuthorizedProjectUuids(userLogin, userGroups);
+        if ("john".equals(userLogin) && loading.getCount() > 0) {
+          loading.countDown();
+          try {
+            invalidated.await();
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+        return projectUuids;
+      }
+    };
+    IssueAuthorizationIndexer cacheIndexer = new IssueAuthorizationIndexer(null, esTester.client(), cache);
+    cacheIndexer.index(asList(new IssueAuthorizationDao.Dto("P1", 1_000L).addUser("john")));
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Set<String>> inFlight = executor.submit(() -> cache.getAuthorizedProjectUuids("john", Collections.emptySet()));
+      loading.await();
+
+      cacheIndexer.index(asList(new IssueAuthorizationDao.Dto("P2", 2_000L).addUser("john")));
+      // version of index is checked again by another request before the end of the load
+      assertThat(cache.getAuthorizedProjectUuids("smith", Collections.emptySet())).isEmpty();
+      invalidated.countDown();
+
+      assertThat(inFlight.get()).containsOnly("P1");
+      assertThat(cache.getAuthorizedProjectUuids("john", Collections.emptySet())).containsOnly("P1", "P2");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -99,6 +99,6 @@ public class IssueAuthorizationIndexerTest {
   }
 
   private IssueAuthorizationIndexer createIndexer() {
-    return new IssueAuthorizationIndexer(new DbClient(dbTester.database(), dbTester.myBatis()), esTester.client());
+    return new IssueAuthorizationIndexer(new DbClient(dbTester.database(), dbTester.myBatis()), esTester.client(), new IssueAuthorizationCache(esTester.client(), System2.INSTANCE));
   }
 }
@@ -69,13 +69,15 @@ public class IssueIndexDebtTest {
 
   @Before
   public void setUp() {
-    issueIndexer = new IssueIndexer(null, tester.client());
-    issueAuthorizationIndexer = new IssueAuthorizationIndexer(null, tester.client());
-    viewIndexer = new ViewIndexer(null, tester.client());
     System2 system = mock(System2.class);
     when(system.getDefaultTimeZone()).thenReturn(TimeZone.getTimeZone("+01:00"));
     when(system.now()).thenReturn(System.currentTimeMillis());
-    index = new IssueIndex(tester.client(), system, userSessionRule);
+    IssueAuthorizationCache authorizationCache = new IssueAuthorizationCache(tester.client(), system);
+
+    issueIndexer = new IssueIndexer(null, tester.client());
+    issueAuthorizationIndexer = new IssueAuthorizationIndexer(null, tester.client(), authorizationCache);
+    viewIndexer = new ViewIndexer(null, tester.client(), null);
+    index = new IssueIndex(tester.client(), system, userSessionRule, authorizationCache);
   }
 
   @Test
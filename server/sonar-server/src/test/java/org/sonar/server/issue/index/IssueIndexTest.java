@@ -22,8 +22,10 @@ package org.sonar.server.issue.index;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
@@ -82,14 +84,15 @@ public class IssueIndexTest {
 
   @Before
   public void setUp() {
-    issueIndexer = new IssueIndexer(null, tester.client());
-    issueAuthorizationIndexer = new IssueAuthorizationIndexer(null, tester.client());
-    viewIndexer = new ViewIndexer(null, tester.client());
     System2 system = mock(System2.class);
     when(system.getDefaultTimeZone()).thenReturn(TimeZone.getTimeZone("GMT-1:00"));
     when(system.now()).thenReturn(System.currentTimeMillis());
+    IssueAuthorizationCache authorizationCache = new IssueAuthorizationCache(tester.client(), system);
 
-    underTest = new IssueIndex(tester.client(), system, userSessionRule);
+    issueIndexer = new IssueIndexer(null, tester.client());
+    issueAuthorizationIndexer = new IssueAuthorizationIndexer(null, tester.client(), authorizationCache);
+    viewIndexer = new ViewIndexer(null, tester.client(), null);
+    underTest = new IssueIndex(tester.client(), system, userSessionRule, authorizationCache);
   }
 
   @Test
@@ -1245,6 +1248,31 @@ public class IssueIndexTest {
     assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(ComponentTesting.newProjectDto()))).isEmpty();
   }
 
+  @Test
+  public void search_issues_for_batch_changed_since_date() {
+    ComponentDto project = ComponentTesting.newProjectDto();
+    ComponentDto file = ComponentTesting.newFileDto(project);
+
+    indexIssues(
+      IssueTesting.newDoc("OLD", file).setTechnicalUpdateDate(parseDateTime("2014-09-03T10:00:00+0000")),
+      IssueTesting.newDoc("UPDATED", file).setTechnicalUpdateDate(parseDateTime("2014-09-05T10:00:00+0000")),
+      // closed issues are returned so that they can be removed from the copy of the scanner
+      IssueTesting.newDoc("CLOSED", file).setStatus(Issue.STATUS_CLOSED).setResolution(Issue.RESOLUTION_FIXED)
+        .setTechnicalUpdateDate(parseDateTime("2014-09-05T10:00:00+0000")));
+
+    assertThat(keys(underTest.selectIssuesForBatch(project, parseDateTime("2014-09-04T10:00:00+0000")))).containsOnly("UPDATED", "CLOSED");
+    assertThat(keys(underTest.selectIssuesForBatch(project, parseDateTime("2014-09-05T10:00:00+0000")))).containsOnly("UPDATED", "CLOSED");
+    assertThat(keys(underTest.selectIssuesForBatch(project, null))).containsOnly("OLD", "UPDATED");
+  }
+
+  private static List<String> keys(Iterator<IssueDoc> issues) {
+    List<String> keys = new ArrayList<>();
+    while (issues.hasNext()) {
+      keys.add(issues.next().key());
+    }
+    return keys;
+  }
+
   @Test
   public void fail_to_search_issues_for_batch_on_not_allowed_scope() {
     try {
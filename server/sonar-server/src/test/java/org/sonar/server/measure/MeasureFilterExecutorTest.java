@@ -25,13 +25,20 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.config.Settings;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.user.GroupRoleDto;
+import org.sonar.server.es.EsTester;
+import org.sonar.server.measure.index.ProjectMeasuresIndex;
+import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
@@ -51,11 +58,14 @@ public class MeasureFilterExecutorTest {
   private static final Metric METRIC_UNKNOWN = new Metric.Builder("unknown", "Unknown", Metric.ValueType.FLOAT).create().setId(4);
   @Rule
   public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public EsTester es = new EsTester(new ProjectMeasuresIndexDefinition(new Settings()));
   private MeasureFilterExecutor executor;
 
   @Before
   public void before() {
-    executor = new MeasureFilterExecutor(db.myBatis(), db.database(), new ComponentDao());
+    executor = new MeasureFilterExecutor(db.myBatis(), db.database(), new ComponentDao(), new ProjectMeasuresIndex(es.client()),
+      db.getDbClient().authorizationDao());
   }
 
   @Test
@@ -116,6 +126,7 @@ public class MeasureFilterExecutorTest {
   @Test
   public void projects_without_measure_conditions() throws SQLException {
     db.prepareDbUnit(getClass(), "shared.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOn(MeasureFilterSort.Field.DATE);
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext());
 
@@ -124,6 +135,23 @@ public class MeasureFilterExecutorTest {
     verifyPhpProject(rows.get(1));
   }
 
+  @Test
+  public void paginate_projects_that_can_be_browsed() throws SQLException {
+    db.prepareDbUnit(getClass(), "shared.xml");
+    indexProjectMeasures();
+    // only PHP project can be browsed by anonymous users
+    db.getDbClient().roleDao().insertGroupRole(db.getSession(), new GroupRoleDto().setGroupId(null).setResourceId(10L).setRole(UserRole.USER));
+    db.commit();
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOn(MeasureFilterSort.Field.DATE).setPage(1, 10);
+    MeasureFilterContext context = new MeasureFilterContext();
+
+    List<MeasureFilterRow> rows = executor.execute(filter, context);
+
+    assertThat(rows).hasSize(1);
+    verifyPhpProject(rows.get(0));
+    assertThat(context.getTotal()).isEqualTo(1L);
+  }
+
   @Test
   public void should_prevent_sql_injection_through_parameters() throws SQLException {
     db.prepareDbUnit(getClass(), "shared.xml");
@@ -256,6 +284,7 @@ public class MeasureFilterExecutorTest {
   @Test
   public void null_measures_are_ordered_after_descending_numeric_measures() throws SQLException {
     db.prepareDbUnit(getClass(), "shared.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK"))
       .setSortOnMetric(METRIC_COVERAGE).setSortAsc(false);
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext());
@@ -269,6 +298,7 @@ public class MeasureFilterExecutorTest {
   @Test
   public void null_measures_are_ordered_after_ascending_numeric_measures() throws SQLException {
     db.prepareDbUnit(getClass(), "shared.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK"))
       .setSortOnMetric(METRIC_COVERAGE).setSortAsc(true);
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext());
@@ -316,6 +346,7 @@ public class MeasureFilterExecutorTest {
   @Test
   public void sort_by_ascending_date() throws SQLException {
     db.prepareDbUnit(getClass(), "shared.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOn(MeasureFilterSort.Field.DATE);
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext());
 
@@ -326,6 +357,7 @@ public class MeasureFilterExecutorTest {
   @Test
   public void sort_by_descending_date() throws SQLException {
     db.prepareDbUnit(getClass(), "shared.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOn(MeasureFilterSort.Field.DATE).setSortAsc(false);
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext());
 
@@ -427,6 +459,7 @@ public class MeasureFilterExecutorTest {
   @Test
   public void filter_by_min_date() throws SQLException {
     db.prepareDbUnit(getClass(), "shared.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setFromDate(DateUtils.parseDateTime("2012-12-13T00:00:00+0000"));
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext());
 
@@ -438,6 +471,7 @@ public class MeasureFilterExecutorTest {
   @Test
   public void filter_by_range_of_dates() throws SQLException {
     db.prepareDbUnit(getClass(), "shared.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK"))
       .setFromDate(DateUtils.parseDate("2007-01-01"))
       .setToDate(DateUtils.parseDate("2010-01-01"));
@@ -539,8 +573,9 @@ public class MeasureFilterExecutorTest {
   @Test
   public void ignore_person_measures_in_condition() throws Exception {
     db.prepareDbUnit(getClass(), "ignore_person_measures.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).addCondition(
-      new MeasureFilterCondition(new Metric("ncloc").setId(1), MeasureFilterCondition.Operator.GREATER, 0.0)
+      new MeasureFilterCondition(new Metric("lines").setId(1), MeasureFilterCondition.Operator.GREATER, 0.0)
       );
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext().setUserId(50L));
 
@@ -551,7 +586,8 @@ public class MeasureFilterExecutorTest {
   @Test
   public void ignore_person_measures_in_sort() throws Exception {
     db.prepareDbUnit(getClass(), "ignore_person_measures.xml");
-    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOnMetric(new Metric("ncloc").setId(1));
+    indexProjectMeasures();
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOnMetric(new Metric("lines").setId(1));
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext().setUserId(50L));
 
     assertThat(rows).hasSize(1);
@@ -561,8 +597,9 @@ public class MeasureFilterExecutorTest {
   @Test
   public void ignore_quality_model_measures_in_condition() throws Exception {
     db.prepareDbUnit(getClass(), "ignore_quality_model_measures.xml");
+    indexProjectMeasures();
     MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).addCondition(
-      new MeasureFilterCondition(new Metric("ncloc").setId(1), MeasureFilterCondition.Operator.GREATER, 0.0)
+      new MeasureFilterCondition(new Metric("lines").setId(1), MeasureFilterCondition.Operator.GREATER, 0.0)
       );
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext().setUserId(50L));
 
@@ -573,13 +610,34 @@ public class MeasureFilterExecutorTest {
   @Test
   public void ignore_quality_model_measures_in_sort() throws Exception {
     db.prepareDbUnit(getClass(), "ignore_quality_model_measures.xml");
-    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOnMetric(new Metric("ncloc").setId(1));
+    indexProjectMeasures();
+    MeasureFilter filter = new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOnMetric(new Metric("lines").setId(1));
     List<MeasureFilterRow> rows = executor.execute(filter, new MeasureFilterContext().setUserId(50L));
 
     assertThat(rows).hasSize(1);
     assertThat(rows.get(0).getComponentUuid()).isEqualTo(JAVA_PROJECT_UUID);
   }
 
+  @Test
+  public void filters_on_last_analysis_of_projects_are_supported_by_index() {
+    assertThat(MeasureFilterExecutor.isSupportedByIndex(new MeasureFilter().setResourceQualifiers(asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.GREATER, 200))
+      .setSortOnMetric(METRIC_COVERAGE))).isTrue();
+    assertThat(MeasureFilterExecutor.isSupportedByIndex(new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOn(MeasureFilterSort.Field.DATE))).isTrue();
+
+    assertThat(MeasureFilterExecutor.isSupportedByIndex(new MeasureFilter().setResourceQualifiers(asList("FIL")))).isFalse();
+    assertThat(MeasureFilterExecutor.isSupportedByIndex(new MeasureFilter().setResourceQualifiers(asList("TRK")).setUserFavourites(true))).isFalse();
+    assertThat(MeasureFilterExecutor.isSupportedByIndex(new MeasureFilter().setResourceQualifiers(asList("TRK")).setResourceName("PHP"))).isFalse();
+    assertThat(MeasureFilterExecutor.isSupportedByIndex(new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOnMetric(METRIC_PROFILE))).isFalse();
+    assertThat(MeasureFilterExecutor.isSupportedByIndex(new MeasureFilter().setResourceQualifiers(asList("TRK")).setSortOnMetric(METRIC_LINES).setSortOnPeriod(5))).isFalse();
+    assertThat(MeasureFilterExecutor.isSupportedByIndex(new MeasureFilter().setResourceQualifiers(asList("TRK"))
+      .addCondition(new MeasureFilterCondition(METRIC_LINES, MeasureFilterCondition.Operator.GREATER, 1000).setPeriod(5)))).isFalse();
+  }
+
+  private void indexProjectMeasures() {
+    new ProjectMeasuresIndexer(db.getDbClient(), es.client()).setEnabled(true).index();
+  }
+
   private void verifyJavaProject(MeasureFilterRow row) {
     verifyComponent(row, JAVA_PROJECT_UUID, JAVA_PROJECT_UUID);
   }
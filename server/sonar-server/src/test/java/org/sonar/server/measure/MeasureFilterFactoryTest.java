@@ -43,6 +43,22 @@ public class MeasureFilterFactoryTest {
 
   System2 system = mock(System2.class);
 
+  @Test
+  public void paginate_if_page_size_is_set() {
+    MeasureFilterFactory factory = new MeasureFilterFactory(newMetricFinder(), system);
+
+    MeasureFilter filter = factory.create(ImmutableMap.of("page", "3", "pageSize", 100L));
+    assertThat(filter.getPageIndex()).isEqualTo(3);
+    assertThat(filter.getPageSize()).isEqualTo(100);
+
+    filter = factory.create(ImmutableMap.of("pageSize", "20"));
+    assertThat(filter.getPageIndex()).isEqualTo(1);
+    assertThat(filter.getPageSize()).isEqualTo(20);
+
+    filter = factory.create(ImmutableMap.of("page", "2"));
+    assertThat(filter.getPageSize()).isNull();
+  }
+
   @Test
   public void sort_on_measure_value() {
     MeasureFilterFactory factory = new MeasureFilterFactory(newMetricFinder(), system);
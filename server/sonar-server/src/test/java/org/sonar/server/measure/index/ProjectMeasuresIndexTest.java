@@ -0,0 +1,142 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import java.util.Collections;
+import java.util.Date;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.server.es.EsTester;
+import org.sonar.server.es.SearchIdResult;
+import org.sonar.server.es.SearchOptions;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.api.utils.DateUtils.parseDateTime;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.TYPE_PROJECT_MEASURES;
+import static org.sonar.server.measure.index.ProjectMeasuresQuery.Operator.EQ;
+import static org.sonar.server.measure.index.ProjectMeasuresQuery.Operator.GT;
+import static org.sonar.server.measure.index.ProjectMeasuresQuery.Operator.LTE;
+import static org.sonar.server.measure.index.ProjectMeasuresQuery.SortField.ANALYSED_AT;
+import static org.sonar.server.measure.index.ProjectMeasuresQuery.SortField.KEY;
+
+public class ProjectMeasuresIndexTest {
+
+  private static final Date DATE_1 = parseDateTime("2016-01-01T10:00:00+0000");
+  private static final Date DATE_2 = parseDateTime("2016-05-01T10:00:00+0000");
+  private static final Date DATE_3 = parseDateTime("2016-09-01T10:00:00+0000");
+
+  @Rule
+  public EsTester es = new EsTester(new ProjectMeasuresIndexDefinition(new Settings()));
+
+  ProjectMeasuresIndex underTest = new ProjectMeasuresIndex(es.client());
+
+  @Test
+  public void sort_by_name_by_default() throws Exception {
+    index(newDoc("P1", "key1", "Struts", DATE_1), newDoc("P2", "key2", "apache", DATE_2), newDoc("P3", "key3", "Sonar", DATE_3));
+
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery())).containsExactly("P2", "P3", "P1");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setAsc(false))).containsExactly("P1", "P3", "P2");
+  }
+
+  @Test
+  public void sort_by_key_or_analysis_date() throws Exception {
+    index(newDoc("P1", "key2", "Struts", DATE_3), newDoc("P2", "key3", "Apache", DATE_1), newDoc("P3", "key1", "Sonar", DATE_2));
+
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setSort(KEY))).containsExactly("P3", "P1", "P2");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setSort(ANALYSED_AT))).containsExactly("P2", "P3", "P1");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setSort(ANALYSED_AT).setAsc(false))).containsExactly("P1", "P3", "P2");
+  }
+
+  @Test
+  public void sort_by_metric_with_missing_measures_last() throws Exception {
+    index(
+      newDoc("P1", "key1", "Struts", DATE_1).addMeasure("ncloc", 500d),
+      newDoc("P2", "key2", "Apache", DATE_1).addMeasure("coverage", 80d),
+      newDoc("P3", "key3", "Sonar", DATE_1).addMeasure("ncloc", 20d).addMeasure("coverage", 90d));
+
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setSortOnMetric("ncloc"))).containsExactly("P3", "P1", "P2");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setSortOnMetric("ncloc").setAsc(false))).containsExactly("P1", "P3", "P2");
+  }
+
+  @Test
+  public void filter_on_measures() throws Exception {
+    index(
+      newDoc("P1", "key1", "Struts", DATE_1).addMeasure("ncloc", 500d).addMeasure("coverage", 70d),
+      newDoc("P2", "key2", "Apache", DATE_1).addMeasure("ncloc", 1_000d).addMeasure("coverage", 50d),
+      newDoc("P3", "key3", "Sonar", DATE_1).addMeasure("coverage", 90d));
+
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().addMetricCriterion("ncloc", GT, 500d))).containsExactly("P2");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().addMetricCriterion("ncloc", LTE, 500d))).containsExactly("P1");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().addMetricCriterion("coverage", EQ, 90d))).containsExactly("P3");
+    // both criteria must match the measures of the same project, but not necessarily the same measure
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery()
+      .addMetricCriterion("ncloc", GT, 100d)
+      .addMetricCriterion("coverage", GT, 60d))).containsExactly("P1");
+    // value of "coverage" must not match criterion on "ncloc"
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().addMetricCriterion("ncloc", GT, 60d))).containsExactly("P2", "P1");
+  }
+
+  @Test
+  public void filter_on_analysis_date_and_quality_gate() throws Exception {
+    index(
+      newDoc("P1", "key1", "Struts", DATE_1).setQualityGate("OK"),
+      newDoc("P2", "key2", "Apache", DATE_2).setQualityGate("ERROR"),
+      newDoc("P3", "key3", "Sonar", DATE_3).setQualityGate("OK"));
+
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setAnalysedAfter(DATE_2))).containsExactly("P2", "P3");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setAnalysedBefore(DATE_2))).containsExactly("P2", "P1");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setQualityGate("OK"))).containsExactly("P3", "P1");
+  }
+
+  @Test
+  public void paginate_results() throws Exception {
+    index(
+      newDoc("P1", "key1", "A", DATE_1),
+      newDoc("P2", "key2", "B", DATE_1),
+      newDoc("P3", "key3", "C", DATE_1));
+
+    SearchIdResult<String> result = underTest.search(new ProjectMeasuresQuery(), new SearchOptions().setPage(2, 2));
+
+    assertThat(result.getIds()).containsExactly("P3");
+    assertThat(result.getTotal()).isEqualTo(3L);
+  }
+
+  @Test
+  public void filter_on_project_uuids() throws Exception {
+    index(
+      newDoc("P1", "key1", "A", DATE_1),
+      newDoc("P2", "key2", "B", DATE_1),
+      newDoc("P3", "key3", "C", DATE_1));
+
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setProjectUuids(newHashSet("P1", "P3", "unknown")))).containsExactly("P1", "P3");
+    assertThat(underTest.searchAllUuids(new ProjectMeasuresQuery().setProjectUuids(Collections.emptySet()))).isEmpty();
+  }
+
+  private void index(ProjectMeasuresDoc... docs) throws Exception {
+    es.putDocuments(INDEX, TYPE_PROJECT_MEASURES, docs);
+  }
+
+  private static ProjectMeasuresDoc newDoc(String uuid, String key, String name, Date analysedAt) {
+    return new ProjectMeasuresDoc().setUuid(uuid).setKey(key).setName(name).setAnalysedAt(analysedAt);
+  }
+}
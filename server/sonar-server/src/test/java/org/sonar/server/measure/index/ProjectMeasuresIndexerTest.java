@@ -0,0 +1,169 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.index;
+
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.server.es.EsTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.sonar.api.measures.CoreMetrics.ALERT_STATUS_KEY;
+import static org.sonar.db.component.ComponentTesting.newProjectDto;
+import static org.sonar.db.component.SnapshotTesting.newAnalysis;
+import static org.sonar.db.measure.MeasureTesting.newMeasureDto;
+import static org.sonar.db.metric.MetricTesting.newMetricDto;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_KEY;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_VALUE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.TYPE_PROJECT_MEASURES;
+
+public class ProjectMeasuresIndexerTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public EsTester es = new EsTester(new ProjectMeasuresIndexDefinition(new Settings()));
+
+  ComponentDbTester componentDb = new ComponentDbTester(db);
+  ProjectMeasuresIndexer underTest = new ProjectMeasuresIndexer(db.getDbClient(), es.client());
+
+  @Test
+  public void index_nothing() {
+    underTest.index();
+
+    assertThat(es.countDocuments(INDEX, TYPE_PROJECT_MEASURES)).isEqualTo(0L);
+  }
+
+  @Test
+  public void index_last_analysis_of_all_projects_on_startup() {
+    MetricDto ncloc = insertMetric("ncloc");
+    MetricDto qualityGate = insertMetric(ALERT_STATUS_KEY);
+    ComponentDto project = newProjectDto().setName("Struts");
+    SnapshotDto analysis = componentDb.insertProjectAndSnapshot(project);
+    insertMeasure(ncloc, project, analysis, 1_000d, null);
+    insertMeasure(qualityGate, project, analysis, null, "ERROR");
+    ComponentDto otherProject = newProjectDto();
+    componentDb.insertProjectAndSnapshot(otherProject);
+    // project without analysis is not indexed
+    componentDb.insertComponent(newProjectDto());
+
+    underTest.setEnabled(true).index();
+
+    assertThat(es.getIds(INDEX, TYPE_PROJECT_MEASURES)).containsOnly(project.uuid(), otherProject.uuid());
+    ProjectMeasuresDoc doc = getDoc(project.uuid());
+    assertThat(doc.key()).isEqualTo(project.key());
+    assertThat(doc.name()).isEqualTo("Struts");
+    assertThat(doc.analysedAt().getTime()).isEqualTo(analysis.getCreatedAt());
+    assertThat(doc.qualityGate()).isEqualTo("ERROR");
+    assertThat(doc.measures()).hasSize(1);
+    Map<String, Object> measure = doc.measures().get(0);
+    assertThat(measure).containsOnly(entry(FIELD_MEASURES_KEY, "ncloc"), entry(FIELD_MEASURES_VALUE, 1_000d));
+    assertThat(getDoc(otherProject.uuid()).measures()).isEmpty();
+  }
+
+  @Test
+  public void index_only_projects_analysed_since_last_indexing() {
+    MetricDto ncloc = insertMetric("ncloc");
+    ComponentDto project = newProjectDto();
+    SnapshotDto analysis = insertProjectAndAnalysis(project, 1_000L);
+    underTest.setEnabled(true).index();
+
+    insertMeasure(ncloc, project, analysis, 1_000d, null);
+    ComponentDto otherProject = newProjectDto();
+    insertProjectAndAnalysis(otherProject, 2_000L);
+    underTest.index();
+
+    assertThat(es.getIds(INDEX, TYPE_PROJECT_MEASURES)).containsOnly(project.uuid(), otherProject.uuid());
+    // analysis of project is older than the last indexed one, so it is not indexed again
+    assertThat(getDoc(project.uuid()).measures()).isEmpty();
+  }
+
+  @Test
+  public void ignore_measures_of_developers() {
+    MetricDto ncloc = insertMetric("ncloc");
+    ComponentDto project = newProjectDto();
+    SnapshotDto analysis = componentDb.insertProjectAndSnapshot(project);
+    insertMeasure(ncloc, project, analysis, 1_000d, null);
+    db.getDbClient().measureDao().insert(db.getSession(), newMeasureDto(ncloc, project, analysis).setValue(300d).setDeveloperId(10L));
+    db.commit();
+
+    underTest.index(project.uuid());
+
+    assertThat(getDoc(project.uuid()).measures()).extracting(m -> m.get(FIELD_MEASURES_VALUE)).containsOnly(1_000d);
+  }
+
+  @Test
+  public void index_single_project() {
+    ComponentDto project = newProjectDto();
+    componentDb.insertProjectAndSnapshot(project);
+    componentDb.insertProjectAndSnapshot(newProjectDto());
+
+    underTest.index(project.uuid());
+
+    assertThat(es.getIds(INDEX, TYPE_PROJECT_MEASURES)).containsOnly(project.uuid());
+  }
+
+  @Test
+  public void delete_project() {
+    ComponentDto project = newProjectDto();
+    componentDb.insertProjectAndSnapshot(project);
+    ComponentDto otherProject = newProjectDto();
+    componentDb.insertProjectAndSnapshot(otherProject);
+    underTest.setEnabled(true).index();
+
+    underTest.deleteProject(project.uuid());
+
+    assertThat(es.getIds(INDEX, TYPE_PROJECT_MEASURES)).containsOnly(otherProject.uuid());
+  }
+
+  private ProjectMeasuresDoc getDoc(String projectUuid) {
+    return es.getDocuments(INDEX, TYPE_PROJECT_MEASURES, ProjectMeasuresDoc.class).stream()
+      .filter(d -> d.uuid().equals(projectUuid))
+      .findFirst().get();
+  }
+
+  private SnapshotDto insertProjectAndAnalysis(ComponentDto project, long analysedAt) {
+    componentDb.insertComponent(project);
+    SnapshotDto analysis = db.getDbClient().snapshotDao().insert(db.getSession(), newAnalysis(project).setCreatedAt(analysedAt));
+    db.commit();
+    return analysis;
+  }
+
+  private MetricDto insertMetric(String key) {
+    MetricDto metric = db.getDbClient().metricDao().insert(db.getSession(), newMetricDto().setKey(key));
+    db.commit();
+    return metric;
+  }
+
+  private void insertMeasure(MetricDto metric, ComponentDto project, SnapshotDto analysis, Double value, String textValue) {
+    db.getDbClient().measureDao().insert(db.getSession(), newMeasureDto(metric, project, analysis).setValue(value).setData(textValue));
+    db.commit();
+  }
+}
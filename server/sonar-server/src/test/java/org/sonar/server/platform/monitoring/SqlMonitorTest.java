@@ -0,0 +1,64 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.profiling.SqlStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlMonitorTest {
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  SqlStatistics statistics;
+  SqlMonitor underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new SqlMonitor(dbTester.getDbClient());
+    statistics = dbTester.getDbClient().getMyBatis().getSqlStatistics();
+    statistics.reset();
+  }
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void statements_info() {
+    statistics.record("org.sonar.db.rule.RuleMapper.selectAll", 3_000_000L, 10);
+    statistics.record("org.sonar.db.rule.RuleMapper.selectAll", 1_000_000L, 10);
+
+    assertThat(underTest.getCalls()).isEqualTo(2L);
+    assertThat(underTest.getTotalTimeMillis()).isEqualTo(4L);
+    assertThat(underTest.getStatements()).containsExactly("org.sonar.db.rule.RuleMapper.selectAll | calls=2 | rows=20 | time=4ms | max=3ms | histogram=<5ms:2");
+    assertThat(underTest.attributes()).containsEntry("org.sonar.db.rule.RuleMapper.selectAll", "calls=2 | rows=20 | time=4ms | max=3ms | histogram=<5ms:2");
+
+    underTest.reset();
+    assertThat(underTest.attributes()).isEmpty();
+  }
+}
@@ -42,13 +42,16 @@ import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 import org.sonar.server.component.ComponentCleanerService;
 import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.issue.IssueTesting;
 import org.sonar.server.issue.index.IssueAuthorizationDoc;
+import org.sonar.server.issue.index.IssueAuthorizationCache;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueIndexDefinition;
 import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.measure.index.ProjectMeasuresIndexer;
 import org.sonar.server.test.index.TestDoc;
 import org.sonar.server.test.index.TestIndexDefinition;
 import org.sonar.server.test.index.TestIndexer;
@@ -99,9 +102,11 @@ public class DeleteActionTest {
       new DeleteAction(
         new ComponentCleanerService(
           dbClient,
-          new IssueAuthorizationIndexer(dbClient, es.client()),
+          new IssueAuthorizationIndexer(dbClient, es.client(), new IssueAuthorizationCache(es.client(), System2.INSTANCE)),
           new IssueIndexer(dbClient, es.client()),
           new TestIndexer(dbClient, es.client()),
+          mock(ComponentIndexer.class),
+          mock(ProjectMeasuresIndexer.class),
           mockResourceTypes,
           new ComponentFinder(dbClient)),
         new ComponentFinder(dbClient),
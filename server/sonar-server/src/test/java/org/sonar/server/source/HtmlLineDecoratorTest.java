@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HtmlLineDecoratorTest {
+
+  @Test
+  public void is_single_line() {
+    assertThat(HtmlLineDecorator.isSingleLine("")).isTrue();
+    assertThat(HtmlLineDecorator.isSingleLine("package org.polop;")).isTrue();
+    assertThat(HtmlLineDecorator.isSingleLine("foo\nbar")).isFalse();
+    assertThat(HtmlLineDecorator.isSingleLine("foo\r")).isFalse();
+  }
+
+  @Test
+  public void decorate_highlighting_and_symbols() {
+    assertThat(HtmlLineDecorator.decorate("package org.polop;", "0,7,k", "8,17,42")).isEqualTo(
+      "<span class=\"k\">package</span> <span class=\"sym-42 sym\">org.polop</span>;");
+  }
+
+  @Test
+  public void escape_html_characters() {
+    assertThat(HtmlLineDecorator.decorate("if (a < b && c > d) {", null, null)).isEqualTo("if (a &lt; b &amp;&amp; c &gt; d) {");
+  }
+
+  @Test
+  public void produce_same_html_as_text_decorator() {
+    assertSameHtmlAsTextDecorator("public class HelloWorld {", "0,6,k;7,12,k", "13,23,1");
+    assertSameHtmlAsTextDecorator("  /* a < b */ int i = 0;", "2,13,cppd;14,17,k;22,23,c", "18,19,5;");
+    assertSameHtmlAsTextDecorator("@Deprecated", "0,0,a;0,11,a", "1,11,1");
+    assertSameHtmlAsTextDecorator("abc", "0,5,c", null);
+    assertSameHtmlAsTextDecorator("abcdef", "0,6,a;0,3,b;1,2,c", "2,4,7");
+    assertSameHtmlAsTextDecorator("foo & bar", "0,3,k;;", "6,9,3;;");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fail_on_missing_field() {
+    HtmlLineDecorator.decorate("foo", "0,3", null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fail_on_invalid_offset() {
+    HtmlLineDecorator.decorate("foo", "0,x,k", null);
+  }
+
+  private static void assertSameHtmlAsTextDecorator(String line, @Nullable String highlighting, @Nullable String symbols) {
+    DecorationDataHolder decorationDataHolder = new DecorationDataHolder();
+    if (highlighting != null) {
+      decorationDataHolder.loadSyntaxHighlightingData(highlighting);
+    }
+    if (symbols != null) {
+      decorationDataHolder.loadLineSymbolReferences(symbols);
+    }
+    List<String> expected = new HtmlTextDecorator().decorateTextWithHtml(line, decorationDataHolder, 1, 1);
+
+    assertThat(HtmlLineDecorator.decorate(line, highlighting, symbols)).isEqualTo(expected.isEmpty() ? "" : expected.get(0));
+  }
+}
@@ -21,6 +21,7 @@ package org.sonar.server.source;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.db.protobuf.DbFileSources;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -75,4 +76,23 @@ public class HtmlSourceDecoratorTest {
     assertThat(sourceDecorator.getDecoratedSourceAsHtml(sourceLine, highlighting, symbols)).isEqualTo("<span class=\"a\">@<span class=\"sym-1 sym\">Deprecated</span></span>");
   }
 
+  @Test
+  public void should_cache_decorated_line_by_data_hash() {
+    DbFileSources.Line line = DbFileSources.Line.newBuilder().setLine(1).setSource("package org.polop;").setHighlighting("0,7,k").build();
+    String decoratedLine = sourceDecorator.getDecoratedSourceAsHtml("HASH1", line);
+    assertThat(decoratedLine).isEqualTo("<span class=\"k\">package</span> org.polop;");
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml("HASH1", line)).isSameAs(decoratedLine);
+
+    DbFileSources.Line updatedLine = line.toBuilder().setSource("package org.foo;").build();
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml("HASH2", updatedLine)).isEqualTo("<span class=\"k\">package</span> org.foo;");
+  }
+
+  @Test
+  public void should_not_cache_decorated_line_without_data_hash() {
+    DbFileSources.Line line = DbFileSources.Line.newBuilder().setLine(1).setSource("a < b").build();
+    String decoratedLine = sourceDecorator.getDecoratedSourceAsHtml(null, line);
+    assertThat(decoratedLine).isEqualTo("a &lt; b");
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(null, line)).isNotSameAs(decoratedLine);
+  }
+
 }
@@ -37,11 +37,14 @@ import org.sonar.db.issue.IssueDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 import org.sonar.db.user.GroupRoleDto;
+import org.sonar.server.component.index.ComponentIndexDefinition;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.SearchResult;
 import org.sonar.server.issue.IssueQuery;
 import org.sonar.server.issue.IssueTesting;
+import org.sonar.server.issue.index.IssueAuthorizationCache;
 import org.sonar.server.issue.index.IssueAuthorizationIndexer;
 import org.sonar.server.issue.index.IssueDoc;
 import org.sonar.server.issue.index.IssueIndex;
@@ -59,7 +62,8 @@ public class ViewIndexerTest {
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
 
   @Rule
-  public EsTester esTester = new EsTester(new IssueIndexDefinition(new Settings()), new ViewIndexDefinition(new Settings()));
+  public EsTester esTester = new EsTester(new IssueIndexDefinition(new Settings()), new ViewIndexDefinition(new Settings()),
+    new ComponentIndexDefinition(new Settings()));
 
   @Rule
   public UserSessionRule userSessionRule = UserSessionRule.standalone();
@@ -68,7 +72,7 @@ public class ViewIndexerTest {
 
   DbSession dbSession = dbTester.getSession();
 
-  ViewIndexer indexer = (ViewIndexer) new ViewIndexer(dbClient, esTester.client()).setEnabled(true);
+  ViewIndexer indexer = (ViewIndexer) new ViewIndexer(dbClient, esTester.client(), new ComponentIndexer(dbClient, esTester.client())).setEnabled(true);
 
   @Test
   public void index_nothing() {
@@ -131,6 +135,18 @@ public class ViewIndexerTest {
     assertThat(viewsByUuid.get("FGHI").projects()).containsOnly("JKLM");
   }
 
+  @Test
+  public void index_root_view_and_sub_views_in_components_index() {
+    ComponentDto view = ComponentTesting.newView("ABCD");
+    ComponentDto subView = ComponentTesting.newSubView(view, "BCDE", "sub-view-key");
+    dbClient.componentDao().insert(dbSession, view, subView);
+    dbSession.commit();
+
+    indexer.index("ABCD");
+
+    assertThat(esTester.getIds(ComponentIndexDefinition.INDEX, ComponentIndexDefinition.TYPE_COMPONENT)).containsOnly("ABCD", "BCDE");
+  }
+
   @Test
   public void index_view_doc() {
     indexer.index(new ViewDoc().setUuid("EFGH").setProjects(newArrayList("KLMN", "JKLM")));
@@ -145,9 +161,10 @@ public class ViewIndexerTest {
 
   @Test
   public void clear_views_lookup_cache_on_index_view_uuid() {
-    IssueIndex issueIndex = new IssueIndex(esTester.client(), System2.INSTANCE, userSessionRule);
+    IssueAuthorizationCache authorizationCache = new IssueAuthorizationCache(esTester.client(), System2.INSTANCE);
+    IssueIndex issueIndex = new IssueIndex(esTester.client(), System2.INSTANCE, userSessionRule, authorizationCache);
     IssueIndexer issueIndexer = (IssueIndexer) new IssueIndexer(dbClient, esTester.client()).setEnabled(true);
-    IssueAuthorizationIndexer issueAuthorizationIndexer = (IssueAuthorizationIndexer) new IssueAuthorizationIndexer(dbClient, esTester.client()).setEnabled(true);
+    IssueAuthorizationIndexer issueAuthorizationIndexer = (IssueAuthorizationIndexer) new IssueAuthorizationIndexer(dbClient, esTester.client(), authorizationCache).setEnabled(true);
 
     String viewUuid = "ABCD";
 
@@ -213,7 +213,7 @@ class MeasureFilter < ActiveRecord::Base
       errors.add_to_base(Api::Utils.message("measure_filter.error.#{result.error}"))
     else
       rows = result.getRows()
-      component_uuids = filter_authorized_component_uuids(rows, controller)
+      component_uuids = filter_authorized_component_uuids(rows, result.getTotal(), controller)
       base_project = filter_authorized_base_project(base_resource, controller)
       load_results(component_uuids, base_project)
     end
@@ -245,7 +245,7 @@ class MeasureFilter < ActiveRecord::Base
     controller.has_role?(:user, base_resource) ? base_resource : nil
   end
 
-  def filter_authorized_component_uuids(rows, controller)
+  def filter_authorized_component_uuids(rows, total, controller)
     project_uuids = rows.map { |row| row.getRootComponentUuid() }.compact.uniq
     authorized_project_uuids = controller.select_authorized(:user, project_uuids)
     component_uuids = rows.map { |row| row.getComponentUuid() if authorized_project_uuids.include?(row.getRootComponentUuid()) }.compact
@@ -253,8 +253,14 @@ class MeasureFilter < ActiveRecord::Base
     @pagination = Api::Pagination.new
     @pagination.per_page=(criteria(:pageSize)||999999).to_i
     @pagination.page=(criteria(:page)||1).to_i
-    @pagination.count = component_uuids.size
-    component_uuids[@pagination.offset ... (@pagination.offset+@pagination.limit)] || []
+    if total
+      # rows are already the requested page of authorized components
+      @pagination.count = total
+      component_uuids
+    else
+      @pagination.count = component_uuids.size
+      component_uuids[@pagination.offset ... (@pagination.offset+@pagination.limit)] || []
+    end
   end
 
   def load_results(component_uuids, base_resource)
@@ -62,7 +62,7 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
 
   @Override
   public boolean consume(CodeReader code, HtmlCodeBuilder codeBuilder) {
-    if (code.popTo(matcher, tmpBuilder) > 0) {
+    if (popWord(code) > 0) {
       if (isKeyword(tmpBuilder.toString())) {
         codeBuilder.appendWithoutTransforming(tagBefore);
         codeBuilder.append(tmpBuilder);
@@ -76,6 +76,30 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
     return false;
   }
 
+  /**
+   * The default regular expression is matched without {@link Matcher}, as it is tried on most characters of the code
+   */
+  private int popWord(CodeReader code) {
+    if (!DEFAULT_REGEX.equals(matcher.pattern().pattern())) {
+      return code.popTo(matcher, tmpBuilder);
+    }
+    if (!isWordStart(code.peek())) {
+      return -1;
+    }
+    while (isWordStart(code.peek()) || (code.peek() >= '0' && code.peek() <= '9')) {
+      tmpBuilder.append((char) code.pop());
+    }
+    return tmpBuilder.length();
+  }
+
+  private static boolean isWordStart(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+  }
+
+  Pattern pattern() {
+    return matcher.pattern();
+  }
+
   private boolean isKeyword(String word) {
     if (!caseInsensitive && keywords.contains(word)) {
       return true;
@@ -107,6 +107,17 @@ public class MultilinesDocTokenizer extends Tokenizer {
     }
   }
 
+  boolean startsWith(char c) {
+    return startToken[0] == c;
+  }
+
+  /**
+   * Whether a comment of any instance is not ended on the previous line, so that it continues on the current one
+   */
+  static boolean hasCommentStartedOnPreviousLine(HtmlCodeBuilder codeBuilder) {
+    return codeBuilder.getVariable(COMMENT_TOKENIZER) != null;
+  }
+
   private boolean isCommentStartedOnPreviousLine(HtmlCodeBuilder codeBuilder) {
     Boolean b = (Boolean) codeBuilder.getVariable(COMMENT_STARTED_ON_PREVIOUS_LINE, Boolean.FALSE);
     return (b == Boolean.TRUE) && (this.equals(codeBuilder.getVariable(COMMENT_TOKENIZER)));
@@ -61,6 +61,10 @@ public class RegexpTokenizer extends NotThreadSafeTokenizer {
     return false;
   }
 
+  Pattern pattern() {
+    return matcher.pattern();
+  }
+
   @Override
   public RegexpTokenizer clone() {
     return new RegexpTokenizer(tagBefore, tagAfter, matcher.pattern().pattern());
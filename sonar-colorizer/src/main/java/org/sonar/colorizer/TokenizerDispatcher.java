@@ -22,18 +22,34 @@ package org.sonar.colorizer;
 import org.sonar.channel.Channel;
 import org.sonar.channel.CodeReader;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Tries the tokenizers in the given order at each position of the code. For ASCII characters, only the tokenizers
+ * that may consume a token starting with this character are tried. The tokenizers of this library declare the
+ * characters that can start their tokens, other tokenizers are always tried.
+ */
 public class TokenizerDispatcher {
 
+  private static final int ASCII_SIZE = 128;
+
   private Channel<HtmlCodeBuilder>[] tokenizers;
+  private boolean hasMultilinesDocTokenizer = false;
+
+  // indices of the tokenizers to try, by first ASCII character
+  private final int[][] tokenizersByFirstChar = new int[ASCII_SIZE][];
 
   public TokenizerDispatcher(Channel<HtmlCodeBuilder>... tokenizers) {
     this.tokenizers = tokenizers;
+    indexTokenizers();
   }
 
   public TokenizerDispatcher(List<Channel<HtmlCodeBuilder>> tokenizersArray) {
     this.tokenizers = tokenizersArray.toArray(new Channel[tokenizersArray.size()]);
+    indexTokenizers();
   }
 
   public final String colorize(String code) {
@@ -46,15 +62,81 @@ public class TokenizerDispatcher {
     cloneNotThreadSafeTokenizers();
     nextChar:
     while (code.peek() != -1) {
-      for (Channel<HtmlCodeBuilder> codeTokenizer : tokenizers) {
-        if (codeTokenizer.consume(code, colorizedCode)) {
-          continue nextChar;
+      int c = code.peek();
+      if (c < ASCII_SIZE && !(hasMultilinesDocTokenizer && MultilinesDocTokenizer.hasCommentStartedOnPreviousLine(colorizedCode))) {
+        for (int index : tokenizersByFirstChar[c]) {
+          if (tokenizers[index].consume(code, colorizedCode)) {
+            continue nextChar;
+          }
+        }
+      } else {
+        for (Channel<HtmlCodeBuilder> codeTokenizer : tokenizers) {
+          if (codeTokenizer.consume(code, colorizedCode)) {
+            continue nextChar;
+          }
         }
       }
       colorizedCode.append((char) code.pop());
     }
   }
 
+  private void indexTokenizers() {
+    for (Channel<HtmlCodeBuilder> tokenizer : tokenizers) {
+      hasMultilinesDocTokenizer |= tokenizer instanceof MultilinesDocTokenizer;
+    }
+    for (char c = 0; c < ASCII_SIZE; c++) {
+      List<Integer> indices = new ArrayList<>();
+      for (int i = 0; i < tokenizers.length; i++) {
+        if (mayStartWith(tokenizers[i], c)) {
+          indices.add(i);
+        }
+      }
+      tokenizersByFirstChar[c] = new int[indices.size()];
+      for (int i = 0; i < indices.size(); i++) {
+        tokenizersByFirstChar[c][i] = indices.get(i);
+      }
+    }
+  }
+
+  /**
+   * Only the exact classes of this library are known, as subclasses can override {@link Channel#consume}.
+   * The state of {@link MultilinesDocTokenizer} is handled by {@link #colorize(CodeReader, HtmlCodeBuilder)}.
+   */
+  private static boolean mayStartWith(Channel<HtmlCodeBuilder> tokenizer, char c) {
+    Class<?> type = tokenizer.getClass();
+    if (type == KeywordsTokenizer.class || type == CaseInsensitiveKeywordsTokenizer.class) {
+      return mayStartWith(((KeywordsTokenizer) tokenizer).pattern(), c);
+    }
+    if (type == RegexpTokenizer.class) {
+      return mayStartWith(((RegexpTokenizer) tokenizer).pattern(), c);
+    }
+    if (type == LiteralTokenizer.class || type == StringTokenizer.class) {
+      return c == '\'' || c == '\"';
+    }
+    if (type == CDocTokenizer.class) {
+      return c == '/';
+    }
+    if (type == MultilinesDocTokenizer.class || type == JavadocTokenizer.class || type == CppDocTokenizer.class) {
+      return ((MultilinesDocTokenizer) tokenizer).startsWith(c);
+    }
+    if (type == JavaAnnotationTokenizer.class) {
+      return c == '@';
+    }
+    if (type == JavaConstantTokenizer.class) {
+      return Character.isUpperCase(c);
+    }
+    return true;
+  }
+
+  /**
+   * When the end of the input is not hit while matching the single character, then no longer input
+   * starting with this character can match.
+   */
+  private static boolean mayStartWith(Pattern pattern, char c) {
+    Matcher matcher = pattern.matcher(String.valueOf(c));
+    return matcher.lookingAt() || matcher.hitEnd();
+  }
+
   private void cloneNotThreadSafeTokenizers() {
     for (int i = 0; i < tokenizers.length; i++) {
       if (tokenizers[i] instanceof NotThreadSafeTokenizer) {
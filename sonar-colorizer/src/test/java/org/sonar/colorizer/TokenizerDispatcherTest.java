@@ -19,11 +19,16 @@
  */
 package org.sonar.colorizer;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.sonar.channel.Channel;
 import org.sonar.channel.CodeReader;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -55,6 +60,40 @@ public class TokenizerDispatcherTest {
     assertThat(colorization.colorize("assert(\"message\"); //comment")).isEqualTo("<k>assert</k>(<s>\"message\"</s>); <c>//comment</c>");
   }
 
+  @Test
+  public void testCommentContinuedOnNextLine() {
+    TokenizerDispatcher colorization = newColorizer(new CppDocTokenizer("<c>", "</c>"), new KeywordsTokenizer("<k>", "</k>", JavaKeywords.get()));
+    assertThat(colorization.colorize("/* public\npublic */ public")).isEqualTo("<c>/* public</c>\n<c>public */</c> <k>public</k>");
+  }
+
+  @Test
+  public void testRegexpStartingWithAnyCharacter() {
+    TokenizerDispatcher colorization = newColorizer(new RegexpTokenizer("<n>", "</n>", "(?i)0x[0-9a-f]++|[0-9]++"),
+      new KeywordsTokenizer("<k>", "</k>", JavaKeywords.get()));
+    assertThat(colorization.colorize("int i = 0X1F + 12;")).isEqualTo("<k>int</k> i = <n>0X1F</n> + <n>12</n>;");
+  }
+
+  @Test
+  public void sameColorizationAsTryingAllTokenizers() throws IOException {
+    String code = IOUtils.toString(getClass().getResourceAsStream("/org/sonar/colorizer/samples/Sample.java"), StandardCharsets.UTF_8);
+    List<Channel<HtmlCodeBuilder>> tokenizers = new ArrayList<>();
+    List<Channel<HtmlCodeBuilder>> unknownTokenizers = new ArrayList<>();
+    for (Tokenizer tokenizer : JavaTokenizers.forHtml()) {
+      tokenizers.add(tokenizer);
+      // subclasses are always tried
+      unknownTokenizers.add(new Tokenizer() {
+        @Override
+        public boolean consume(CodeReader code, HtmlCodeBuilder output) {
+          return tokenizer.consume(code, output);
+        }
+      });
+    }
+
+    String colorized = new TokenizerDispatcher(tokenizers).colorize(code);
+    assertThat(colorized).contains("<span class=\"k\">public</span>");
+    assertThat(colorized).isEqualTo(new TokenizerDispatcher(unknownTokenizers).colorize(code));
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testCloneNotThreadSafeTokenizers() {
     NotThreadSafeTokenizer tokenizer = new NotThreadSafeTokenizer() {
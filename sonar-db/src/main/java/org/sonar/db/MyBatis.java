@@ -92,6 +92,8 @@ import org.sonar.db.permission.template.PermissionTemplateCharacteristicDto;
 import org.sonar.db.permission.template.PermissionTemplateCharacteristicMapper;
 import org.sonar.db.property.PropertiesMapper;
 import org.sonar.db.property.PropertyDto;
+import org.sonar.db.profiling.ProfilingMyBatisInterceptor;
+import org.sonar.db.profiling.SqlStatistics;
 import org.sonar.db.purge.IdUuidPair;
 import org.sonar.db.purge.PurgeMapper;
 import org.sonar.db.purge.PurgeableAnalysisDto;
@@ -135,6 +137,7 @@ import org.sonar.db.version.v53.Migration53Mapper;
 public class MyBatis {
 
   private final Database database;
+  private final SqlStatistics sqlStatistics = new SqlStatistics();
   private SqlSessionFactory sessionFactory;
 
   public MyBatis(Database database) {
@@ -238,10 +241,20 @@ public class MyBatis {
     };
     confBuilder.loadMappers(mappers);
 
+    confBuilder.addInterceptor(new ProfilingMyBatisInterceptor(sqlStatistics));
+
     sessionFactory = new SqlSessionFactoryBuilder().build(confBuilder.build());
     return this;
   }
 
+  /**
+   * Latency statistics of the mapped statements executed since startup
+   * @since 6.1
+   */
+  public SqlStatistics getSqlStatistics() {
+    return sqlStatistics;
+  }
+
   public SqlSessionFactory getSessionFactory() {
     return sessionFactory;
   }
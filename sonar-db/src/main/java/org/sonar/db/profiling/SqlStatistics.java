@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+
+/**
+ * Statistics of the MyBatis statements executed since server startup, aggregated by statement id.
+ * They are always collected, at the cost of a few atomic increments per execution.
+ * <p/>
+ * Statistics can also be collected for the current thread only, for example to report the statements
+ * executed by a Compute Engine task, see {@link #startRecordingForCurrentThread()}.
+ */
+public class SqlStatistics {
+
+  private final ConcurrentMap<String, StatementStatistics> byStatementId = new ConcurrentHashMap<>();
+  private final ThreadLocal<SqlStatistics> threadRecording = new ThreadLocal<>();
+
+  public void record(String statementId, long durationNanos, int rows) {
+    doRecord(statementId, durationNanos, rows);
+    SqlStatistics threadStatistics = threadRecording.get();
+    if (threadStatistics != null) {
+      threadStatistics.doRecord(statementId, durationNanos, rows);
+    }
+  }
+
+  private void doRecord(String statementId, long durationNanos, int rows) {
+    StatementStatistics statistics = byStatementId.get(statementId);
+    if (statistics == null) {
+      statistics = byStatementId.computeIfAbsent(statementId, StatementStatistics::new);
+    }
+    statistics.record(durationNanos, rows);
+  }
+
+  /**
+   * Statistics of all statements, the most time-consuming first
+   */
+  public List<StatementStatistics> getAll() {
+    List<StatementStatistics> result = new ArrayList<>(byStatementId.values());
+    result.sort(Comparator.comparingLong(StatementStatistics::getTotalTimeMillis).reversed()
+      .thenComparing(StatementStatistics::getStatementId));
+    return result;
+  }
+
+  public void reset() {
+    byStatementId.clear();
+  }
+
+  /**
+   * Starts collecting, in addition to global statistics, the statistics of the statements executed by the current
+   * thread. Any recording already started on the thread is discarded.
+   */
+  public void startRecordingForCurrentThread() {
+    threadRecording.set(new SqlStatistics());
+  }
+
+  /**
+   * Stops the recording started by {@link #startRecordingForCurrentThread()} and returns the statistics collected
+   * on the current thread, or {@code null} if recording was not started.
+   */
+  @CheckForNull
+  public SqlStatistics stopRecordingForCurrentThread() {
+    SqlStatistics result = threadRecording.get();
+    threadRecording.remove();
+    return result;
+  }
+}
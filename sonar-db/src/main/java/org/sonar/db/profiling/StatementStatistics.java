@@ -0,0 +1,134 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram, number of calls and number of rows of a MyBatis statement.
+ * Thread-safe and lock-free.
+ */
+public class StatementStatistics {
+
+  /**
+   * Upper bounds, in milliseconds, of the buckets of the latency histogram. The last bucket
+   * counts the executions that took more than the last bound.
+   */
+  static final long[] BUCKET_BOUNDS_MS = {1L, 5L, 10L, 50L, 100L, 500L, 1_000L, 5_000L};
+
+  private final String statementId;
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder rows = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+
+  StatementStatistics(String statementId) {
+    this.statementId = statementId;
+  }
+
+  void record(long durationNanos, int rowCount) {
+    calls.increment();
+    totalNanos.add(durationNanos);
+    if (rowCount > 0) {
+      rows.add(rowCount);
+    }
+    long max = maxNanos.get();
+    while (durationNanos > max && !maxNanos.compareAndSet(max, durationNanos)) {
+      max = maxNanos.get();
+    }
+    histogram.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+  }
+
+  private static int bucketOf(long durationMs) {
+    for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+      if (durationMs < BUCKET_BOUNDS_MS[i]) {
+        return i;
+      }
+    }
+    return BUCKET_BOUNDS_MS.length;
+  }
+
+  /**
+   * Id of the MyBatis mapped statement, for example {@code org.sonar.db.issue.IssueMapper.selectByKey}
+   */
+  public String getStatementId() {
+    return statementId;
+  }
+
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  /**
+   * Number of rows returned by queries or affected by updates. Rows of statements executed
+   * in batch mode or consumed by a {@link org.apache.ibatis.session.ResultHandler} are not counted.
+   */
+  public long getRows() {
+    return rows.sum();
+  }
+
+  public long getTotalTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+  }
+
+  public long getMaxTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+  }
+
+  /**
+   * Number of executions per latency bucket, see {@link #BUCKET_BOUNDS_MS}.
+   */
+  public long[] getHistogram() {
+    long[] result = new long[histogram.length()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = histogram.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * Human-readable summary, for example {@code calls=12 | rows=40 | time=35ms | max=10ms | histogram=<1ms:5 <5ms:6 <50ms:1}
+   */
+  public String format() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("calls=").append(getCalls())
+      .append(" | rows=").append(getRows())
+      .append(" | time=").append(getTotalTimeMillis()).append("ms")
+      .append(" | max=").append(getMaxTimeMillis()).append("ms")
+      .append(" | histogram=");
+    long[] counts = getHistogram();
+    boolean first = true;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        if (!first) {
+          sb.append(' ');
+        }
+        sb.append(i < BUCKET_BOUNDS_MS.length ? ("<" + BUCKET_BOUNDS_MS[i]) : (">=" + BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1]))
+          .append("ms:").append(counts[i]);
+        first = false;
+      }
+    }
+    return sb.toString();
+  }
+}
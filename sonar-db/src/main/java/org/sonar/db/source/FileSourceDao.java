@@ -27,6 +27,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.annotation.CheckForNull;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.io.IOUtils;
@@ -102,6 +103,33 @@ public class FileSourceDao implements Dao {
     }
   }
 
+  /**
+   * Streams the column SCM_DATA of all the source files of a project. Files persisted before version 6.1
+   * do not have this column and are ignored. The DTOs passed to the consumer contain only the file UUID, the
+   * source hash and the SCM data.
+   */
+  public void scrollScmDataByProjectUuid(DbSession dbSession, String projectUuid, Consumer<FileSourceDto> consumer) {
+    Connection connection = dbSession.getConnection();
+    PreparedStatement pstmt = null;
+    ResultSet rs = null;
+    try {
+      pstmt = connection.prepareStatement("SELECT file_uuid, src_hash, scm_data FROM file_sources WHERE project_uuid=? AND data_type=? AND scm_data IS NOT NULL");
+      pstmt.setString(1, projectUuid);
+      pstmt.setString(2, Type.SOURCE);
+      rs = pstmt.executeQuery();
+      while (rs.next()) {
+        consumer.accept(new FileSourceDto()
+          .setFileUuid(rs.getString(1))
+          .setSrcHash(rs.getString(2))
+          .setScmData(rs.getBytes(3)));
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to read FILE_SOURCES.SCM_DATA of project " + projectUuid, e);
+    } finally {
+      DbUtils.closeQuietly(connection, pstmt, rs);
+    }
+  }
+
   public void insert(FileSourceDto dto) {
     DbSession session = mybatis.openSession(false);
     try {
@@ -21,8 +21,11 @@ package org.sonar.db.source;
 
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -40,6 +43,8 @@ public class FileSourceDto {
 
   private static final String SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE = "Protocol message was too large.  May be malicious.  " +
     "Use CodedInputStream.setSizeLimit() to increase the size limit.";
+  private static final byte[] CHUNKED_MAGIC = {'S', 'Q', 'C', '1'};
+  static final int LINES_PER_CHUNK = 500;
 
   private Long id;
   private String projectUuid;
@@ -49,6 +54,7 @@ public class FileSourceDto {
   private String lineHashes;
   private String srcHash;
   private byte[] binaryData;
+  private byte[] scmData;
   private String dataType;
   private String dataHash;
   private String revision;
@@ -94,8 +100,20 @@ public class FileSourceDto {
   }
 
   public DbFileSources.Data decodeSourceData(byte[] binaryData) {
+    return decodeSourceData(binaryData, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Decompress and deserialize only the lines {@code from..toInclusive} of the column BINARY_DATA.
+   * When data is stored in chunks (see {@link #encodeSourceData(DbFileSources.Data)}), only the
+   * chunks containing these lines are decompressed.
+   */
+  public DbFileSources.Data decodeSourceData(byte[] binaryData, int from, int toInclusive) {
     try {
-      return decodeRegularSourceData(binaryData);
+      if (isChunked(binaryData)) {
+        return decodeChunkedSourceData(binaryData, from, toInclusive);
+      }
+      return filterLines(decodeRegularSourceData(binaryData), from, toInclusive);
     } catch (IOException e) {
       throw new IllegalStateException(
         format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
@@ -103,6 +121,76 @@ public class FileSourceDto {
     }
   }
 
+  private static boolean isChunked(byte[] binaryData) {
+    if (binaryData.length < CHUNKED_MAGIC.length) {
+      return false;
+    }
+    for (int i = 0; i < CHUNKED_MAGIC.length; i++) {
+      if (binaryData[i] != CHUNKED_MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static DbFileSources.Data decodeChunkedSourceData(byte[] binaryData, int from, int toInclusive) throws IOException {
+    DataInputStream header = new DataInputStream(new ByteArrayInputStream(binaryData, CHUNKED_MAGIC.length, binaryData.length - CHUNKED_MAGIC.length));
+    int chunks = header.readInt();
+    int[] firstLines = new int[chunks];
+    int[] lengths = new int[chunks];
+    for (int i = 0; i < chunks; i++) {
+      firstLines[i] = header.readInt();
+      lengths[i] = header.readInt();
+    }
+
+    DbFileSources.Data.Builder result = DbFileSources.Data.newBuilder();
+    int offset = CHUNKED_MAGIC.length + 4 + chunks * 8;
+    for (int i = 0; i < chunks; i++) {
+      boolean beforeRange = i + 1 < chunks && firstLines[i + 1] <= from;
+      if (firstLines[i] > toInclusive) {
+        break;
+      }
+      if (!beforeRange) {
+        addLines(result, decodeChunk(binaryData, offset, lengths[i]), from, toInclusive);
+      }
+      offset += lengths[i];
+    }
+    return result.build();
+  }
+
+  private static DbFileSources.Data decodeChunk(byte[] binaryData, int offset, int length) throws IOException {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData, offset, length))) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      input.setSizeLimit(Integer.MAX_VALUE);
+      return DbFileSources.Data.parseFrom(input);
+    }
+  }
+
+  private static DbFileSources.Data filterLines(DbFileSources.Data data, int from, int toInclusive) {
+    if (isAllLines(from, toInclusive)) {
+      return data;
+    }
+    DbFileSources.Data.Builder result = DbFileSources.Data.newBuilder();
+    addLines(result, data, from, toInclusive);
+    return result.build();
+  }
+
+  private static void addLines(DbFileSources.Data.Builder result, DbFileSources.Data data, int from, int toInclusive) {
+    if (isAllLines(from, toInclusive)) {
+      result.addAllLines(data.getLinesList());
+      return;
+    }
+    for (DbFileSources.Line line : data.getLinesList()) {
+      if (line.hasLine() && line.getLine() >= from && line.getLine() <= toInclusive) {
+        result.addLines(line);
+      }
+    }
+  }
+
+  private static boolean isAllLines(int from, int toInclusive) {
+    return from == Integer.MIN_VALUE && toInclusive == Integer.MAX_VALUE;
+  }
+
   private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
     try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
       return DbFileSources.Data.parseFrom(lz4Input);
@@ -124,13 +212,49 @@ public class FileSourceDto {
 
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
-   * in the column BINARY_DATA.
+   * in the column BINARY_DATA. Lines are split in chunks of {@link #LINES_PER_CHUNK} lines which are compressed
+   * separately, so that a range of lines can be read without decompressing the whole file.
+   * <p/>
+   * Format is: magic bytes, number of chunks, then for each chunk the number of its first line and its
+   * compressed length, then the compressed chunks. Data written by versions prior to 6.1 is a single
+   * compressed message, which is still supported by {@link #decodeSourceData(byte[])}.
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
+    return encodeSourceData(data, LINES_PER_CHUNK);
+  }
+
+  static byte[] encodeSourceData(DbFileSources.Data data, int linesPerChunk) {
+    List<byte[]> chunks = new ArrayList<>();
+    List<Integer> firstLines = new ArrayList<>();
+    int linesCount = data.getLinesCount();
+    for (int start = 0; start < linesCount; start += linesPerChunk) {
+      List<DbFileSources.Line> lines = data.getLinesList().subList(start, Math.min(start + linesPerChunk, linesCount));
+      firstLines.add(lines.get(0).getLine());
+      chunks.add(compress(DbFileSources.Data.newBuilder().addAllLines(lines).build()));
+    }
+
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(byteOutput)) {
+      output.write(CHUNKED_MAGIC);
+      output.writeInt(chunks.size());
+      for (int i = 0; i < chunks.size(); i++) {
+        output.writeInt(firstLines.get(i));
+        output.writeInt(chunks.get(i).length);
+      }
+      for (byte[] chunk : chunks) {
+        output.write(chunk);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize and compress source data", e);
+    }
+    return byteOutput.toByteArray();
+  }
+
+  private static byte[] compress(Message message) {
     ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
     LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
     try {
-      data.writeTo(compressedOutput);
+      message.writeTo(compressedOutput);
       compressedOutput.close();
       return byteOutput.toByteArray();
     } catch (IOException e) {
@@ -190,6 +314,25 @@ public class FileSourceDto {
     }
   }
 
+  /**
+   * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Scm}
+   * in the column SCM_DATA.
+   */
+  public static byte[] encodeScmData(DbFileSources.Scm scm) {
+    return compress(scm);
+  }
+
+  /**
+   * Decompress and deserialize content of column FILE_SOURCES.SCM_DATA.
+   */
+  public static DbFileSources.Scm decodeScmData(byte[] scmData) {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(scmData))) {
+      return DbFileSources.Scm.parseFrom(lz4Input);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decompress and deserialize SCM data", e);
+    }
+  }
+
   /**
    * Compressed value of serialized protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    */
@@ -212,6 +355,13 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * Lines {@code from..toInclusive} (starting from 1) of the protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
+   */
+  public DbFileSources.Data getSourceData(int from, int toInclusive) {
+    return decodeSourceData(binaryData, from, toInclusive);
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
@@ -231,6 +381,20 @@ public class FileSourceDto {
     return this;
   }
 
+  /**
+   * Compressed value of serialized protobuf message {@link org.sonar.db.protobuf.DbFileSources.Scm}. It is
+   * {@code null} on rows persisted before version 6.1.
+   */
+  @CheckForNull
+  public byte[] getScmData() {
+    return scmData;
+  }
+
+  public FileSourceDto setScmData(@Nullable byte[] scmData) {
+    this.scmData = scmData;
+    return this;
+  }
+
   @CheckForNull
   public String getLineHashes() {
     return lineHashes;
@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.version;
+
+import org.sonar.db.dialect.Dialect;
+import org.sonar.db.dialect.H2;
+import org.sonar.db.dialect.MsSql;
+import org.sonar.db.dialect.MySql;
+import org.sonar.db.dialect.Oracle;
+import org.sonar.db.dialect.PostgreSql;
+
+import static org.sonar.db.version.ColumnDefValidation.validateColumnName;
+
+/**
+ * Used to define BLOB columns
+ */
+public class BlobColumnDef extends AbstractColumnDef {
+  private BlobColumnDef(Builder builder) {
+    super(builder.columnName, builder.isNullable);
+  }
+
+  public static Builder newBlobColumnDefBuilder() {
+    return new Builder();
+  }
+
+  @Override
+  public String generateSqlType(Dialect dialect) {
+    switch (dialect.getId()) {
+      case H2.ID:
+      case Oracle.ID:
+        return "BLOB";
+      case PostgreSql.ID:
+        return "BYTEA";
+      case MsSql.ID:
+        return "VARBINARY(MAX)";
+      case MySql.ID:
+        return "LONGBLOB";
+      default:
+        throw new UnsupportedOperationException(String.format("Unknown dialect '%s'", dialect.getId()));
+    }
+  }
+
+  public static class Builder {
+    private String columnName;
+
+    private boolean isNullable = true;
+
+    public Builder setColumnName(String columnName) {
+      this.columnName = validateColumnName(columnName);
+      return this;
+    }
+
+    public Builder setIsNullable(boolean isNullable) {
+      this.isNullable = isNullable;
+      return this;
+    }
+
+    public BlobColumnDef build() {
+      validateColumnName(columnName);
+      return new BlobColumnDef(this);
+    }
+  }
+
+}
@@ -17,29 +17,28 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-package org.sonar.scanner.issue.tracking;
+package org.sonar.db.version.v61;
 
-import com.persistit.Value;
-import com.persistit.encoding.CoderContext;
-import com.persistit.encoding.ValueCoder;
-import java.io.IOException;
-import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import java.sql.SQLException;
+import org.sonar.db.Database;
+import org.sonar.db.version.AddColumnsBuilder;
+import org.sonar.db.version.DdlChange;
 
-public class ServerIssueValueCoder implements ValueCoder {
+import static org.sonar.db.version.BlobColumnDef.newBlobColumnDefBuilder;
 
-  @Override
-  public void put(Value value, Object object, CoderContext context) {
-    ServerIssue issue = (ServerIssue) object;
-    value.putByteArray(issue.toByteArray());
+public class AddScmDataColumnToFileSources extends DdlChange {
+
+  private static final String TABLE_FILE_SOURCES = "file_sources";
+
+  public AddScmDataColumnToFileSources(Database db) {
+    super(db);
   }
 
   @Override
-  public Object get(Value value, Class<?> clazz, CoderContext context) {
-    try {
-      return ServerIssue.parseFrom(value.getByteArray());
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to read issue from cache", e);
-    }
+  public void execute(Context context) throws SQLException {
+    context.execute(new AddColumnsBuilder(getDialect(), TABLE_FILE_SOURCES)
+      .addColumn(newBlobColumnDefBuilder().setColumnName("scm_data").setIsNullable(true).build())
+      .build());
   }
 
 }
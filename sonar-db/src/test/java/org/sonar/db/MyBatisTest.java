@@ -25,6 +25,7 @@ import org.hamcrest.core.Is;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.sonar.db.profiling.StatementStatistics;
 import org.sonar.db.rule.RuleMapper;
 
 import static org.hamcrest.Matchers.notNullValue;
@@ -68,4 +69,21 @@ public class MyBatisTest {
       session.close();
     }
   }
+
+  @Test
+  public void shouldRecordStatisticsOfMappedStatements() {
+    MyBatis myBatis = new MyBatis(database);
+    myBatis.start();
+
+    SqlSession session = myBatis.openSession(false);
+    try {
+      session.getMapper(RuleMapper.class).selectAll();
+    } finally {
+      session.close();
+    }
+
+    StatementStatistics statistics = myBatis.getSqlStatistics().getAll().get(0);
+    assertThat(statistics.getStatementId(), Is.is("org.sonar.db.rule.RuleMapper.selectAll"));
+    assertThat(statistics.getCalls(), Is.is(1L));
+  }
 }
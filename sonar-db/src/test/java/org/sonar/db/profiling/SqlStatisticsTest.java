@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlStatisticsTest {
+
+  SqlStatistics underTest = new SqlStatistics();
+
+  @Test
+  public void aggregate_by_statement_id() {
+    underTest.record("IssueMapper.selectByKey", TimeUnit.MILLISECONDS.toNanos(2), 1);
+    underTest.record("IssueMapper.selectByKey", TimeUnit.MILLISECONDS.toNanos(20), 3);
+    underTest.record("RuleMapper.selectAll", TimeUnit.MILLISECONDS.toNanos(300), 100);
+
+    List<StatementStatistics> all = underTest.getAll();
+    assertThat(all).extracting("statementId").containsExactly("RuleMapper.selectAll", "IssueMapper.selectByKey");
+
+    StatementStatistics issues = all.get(1);
+    assertThat(issues.getCalls()).isEqualTo(2);
+    assertThat(issues.getRows()).isEqualTo(4);
+    assertThat(issues.getTotalTimeMillis()).isEqualTo(22);
+    assertThat(issues.getMaxTimeMillis()).isEqualTo(20);
+    assertThat(issues.getHistogram()).containsExactly(0, 1, 0, 1, 0, 0, 0, 0, 0);
+    assertThat(issues.format()).isEqualTo("calls=2 | rows=4 | time=22ms | max=20ms | histogram=<5ms:1 <50ms:1");
+  }
+
+  @Test
+  public void reset() {
+    underTest.record("RuleMapper.selectAll", 10L, 1);
+    underTest.reset();
+
+    assertThat(underTest.getAll()).isEmpty();
+  }
+
+  @Test
+  public void record_statements_of_current_thread() {
+    underTest.record("RuleMapper.selectAll", 10L, 1);
+    underTest.startRecordingForCurrentThread();
+    underTest.record("IssueMapper.selectByKey", 10L, 1);
+
+    SqlStatistics threadStatistics = underTest.stopRecordingForCurrentThread();
+    underTest.record("IssueMapper.insert", 10L, 1);
+
+    assertThat(threadStatistics.getAll()).extracting("statementId").containsOnly("IssueMapper.selectByKey");
+    assertThat(underTest.getAll()).hasSize(3);
+    assertThat(underTest.stopRecordingForCurrentThread()).isNull();
+  }
+}
@@ -22,6 +22,8 @@ package org.sonar.db.source;
 import com.google.common.base.Function;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
@@ -88,6 +90,22 @@ public class FileSourceDaoTest {
     assertThat(fn.result).isNull();
   }
 
+  @Test
+  public void scroll_scm_data_of_project() {
+    underTest.insert(session, newSourceDto("PRJ_UUID", "FILE1_UUID").setScmData("FILE1_SCM".getBytes()));
+    underTest.insert(session, newSourceDto("PRJ_UUID", "FILE2_UUID"));
+    underTest.insert(session, newSourceDto("OTHER_PRJ_UUID", "FILE3_UUID").setScmData("FILE3_SCM".getBytes()));
+    session.commit();
+
+    List<FileSourceDto> dtos = new ArrayList<>();
+    underTest.scrollScmDataByProjectUuid(dbTester.getSession(), "PRJ_UUID", dtos::add);
+
+    assertThat(dtos).hasSize(1);
+    assertThat(dtos.get(0).getFileUuid()).isEqualTo("FILE1_UUID");
+    assertThat(dtos.get(0).getSrcHash()).isEqualTo("FILE1_UUID_HASH");
+    assertThat(dtos.get(0).getScmData()).isEqualTo("FILE1_SCM".getBytes());
+  }
+
   @Test
   public void insert() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -139,6 +157,17 @@ public class FileSourceDaoTest {
       "project_uuid", "file_uuid", "data_hash", "line_hashes", "src_hash", "created_at", "updated_at", "data_type", "revision");
   }
 
+  private static FileSourceDto newSourceDto(String projectUuid, String fileUuid) {
+    return new FileSourceDto()
+      .setProjectUuid(projectUuid)
+      .setFileUuid(fileUuid)
+      .setBinaryData(new byte[0])
+      .setSrcHash(fileUuid + "_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000000L);
+  }
+
   private static class ReaderToStringFunction implements Function<Reader, String> {
 
     String result = null;
@@ -19,8 +19,13 @@
  */
 package org.sonar.db.source;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -80,6 +85,77 @@ public class FileSourceDtoTest {
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  @Test
+  public void decode_range_of_lines_from_chunks() {
+    byte[] bytes = FileSourceDto.encodeSourceData(createData(1_000), 100);
+
+    DbFileSources.Data data = new FileSourceDto().decodeSourceData(bytes, 250, 420);
+
+    assertThat(data.getLinesList()).extracting(DbFileSources.Line::getLine).containsExactlyElementsOf(range(250, 420));
+    assertThat(data.getLines(0).getSource()).isEqualTo("line 250");
+  }
+
+  @Test
+  public void decode_range_of_lines_exceeding_end_of_file() {
+    byte[] bytes = FileSourceDto.encodeSourceData(createData(150), 100);
+
+    assertThat(new FileSourceDto().decodeSourceData(bytes, 90, 500).getLinesList()).extracting(DbFileSources.Line::getLine)
+      .containsExactlyElementsOf(range(90, 150));
+    assertThat(new FileSourceDto().decodeSourceData(bytes, 200, 300).getLinesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void encode_and_decode_all_lines() {
+    DbFileSources.Data data = createData(1_001);
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    assertThat(underTest.getSourceData(1, 1_001)).isEqualTo(data);
+  }
+
+  @Test
+  public void encode_and_decode_empty_data() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(DbFileSources.Data.getDefaultInstance());
+
+    assertThat(underTest.getSourceData().getLinesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void decode_data_stored_in_a_single_block_by_previous_versions() throws IOException {
+    DbFileSources.Data data = createData(300);
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      data.writeTo(compressedOutput);
+    }
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(byteOutput.toByteArray());
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    assertThat(underTest.getSourceData(10, 12).getLinesList()).extracting(DbFileSources.Line::getLine).containsExactly(10, 11, 12);
+  }
+
+  @Test
+  public void encode_and_decode_scm_data() {
+    DbFileSources.Scm scm = DbFileSources.Scm.newBuilder()
+      .addChangeset(DbFileSources.Scm.Changeset.newBuilder().setRevision("rev-1").setAuthor("henry").setDate(123456789L))
+      .addAllLineChangeset(Arrays.asList(0, 0, -1))
+      .build();
+
+    assertThat(FileSourceDto.decodeScmData(FileSourceDto.encodeScmData(scm))).isEqualTo(scm);
+  }
+
+  private static DbFileSources.Data createData(int lines) {
+    DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= lines; i++) {
+      dataBuilder.addLinesBuilder().setLine(i).setSource("line " + i);
+    }
+    return dataBuilder.build();
+  }
+
+  private static List<Integer> range(int from, int toInclusive) {
+    return IntStream.rangeClosed(from, toInclusive).boxed().collect(Collectors.toList());
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
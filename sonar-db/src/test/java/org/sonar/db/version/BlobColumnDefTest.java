@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.version;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.db.dialect.Dialect;
+import org.sonar.db.dialect.H2;
+import org.sonar.db.dialect.MsSql;
+import org.sonar.db.dialect.MySql;
+import org.sonar.db.dialect.Oracle;
+import org.sonar.db.dialect.PostgreSql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BlobColumnDefTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  BlobColumnDef underTest = new BlobColumnDef.Builder()
+    .setColumnName("scm_data")
+    .build();
+
+  @Test
+  public void build_column_def() throws Exception {
+    assertThat(underTest.getName()).isEqualTo("scm_data");
+    assertThat(underTest.isNullable()).isTrue();
+  }
+
+  @Test
+  public void generate_sql_type() throws Exception {
+    assertThat(underTest.generateSqlType(new H2())).isEqualTo("BLOB");
+    assertThat(underTest.generateSqlType(new Oracle())).isEqualTo("BLOB");
+    assertThat(underTest.generateSqlType(new PostgreSql())).isEqualTo("BYTEA");
+    assertThat(underTest.generateSqlType(new MsSql())).isEqualTo("VARBINARY(MAX)");
+    assertThat(underTest.generateSqlType(new MySql())).isEqualTo("LONGBLOB");
+  }
+
+  @Test
+  public void fail_with_UOE_to_generate_sql_type_when_unknown_dialect() throws Exception {
+    thrown.expect(UnsupportedOperationException.class);
+    thrown.expectMessage("Unknown dialect 'unknown'");
+
+    Dialect dialect = mock(Dialect.class);
+    when(dialect.getId()).thenReturn("unknown");
+    underTest.generateSqlType(dialect);
+  }
+}
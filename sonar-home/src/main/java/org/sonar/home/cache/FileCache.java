@@ -91,6 +91,27 @@ public class FileCache {
     return targetFile;
   }
 
+  /**
+   * Same as {@link #get(String, String, Downloader)}, except that the directory is identified by a key chosen by
+   * the caller instead of the MD5 checksum of the file. It is used for content that is revalidated by a version
+   * token delivered by the server (for example the date of last change of a Quality profile), so the content
+   * of the downloaded file is not checked.
+   *
+   * @param key must be a valid directory name, for example an hexadecimal hash of the version token
+   * @since 6.1
+   */
+  public File getVersioned(String filename, String key, Downloader downloader) {
+    File keyDir = hashDir(key);
+    File targetFile = new File(keyDir, filename);
+    if (!targetFile.exists()) {
+      File tempFile = newTempFile();
+      download(downloader, filename, tempFile);
+      mkdirQuietly(keyDir);
+      renameQuietly(tempFile, targetFile);
+    }
+    return targetFile;
+  }
+
   private static void download(Downloader downloader, String filename, File tempFile) {
     try {
       downloader.download(filename, tempFile);
@@ -30,6 +30,7 @@ import org.junit.rules.TemporaryFolder;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class FileCacheTest {
@@ -91,6 +92,28 @@ public class FileCacheTest {
     cache.get("sonar-foo-plugin-1.5.jar", "ABCDE", downloader);
   }
 
+  @Test
+  public void download_versioned_file_only_once() throws IOException {
+    FileHashes hashes = mock(FileHashes.class);
+    FileCache cache = new FileCache(tempFolder.newFolder(), hashes, mock(Logger.class));
+    final int[] downloads = {0};
+
+    FileCache.Downloader downloader = new FileCache.Downloader() {
+      public void download(String filename, File toFile) throws IOException {
+        downloads[0]++;
+        FileUtils.write(toFile, "body");
+      }
+    };
+    File cachedFile = cache.getVersioned("active_rules.pb", "ABCDE", downloader);
+    assertThat(cachedFile).isNotNull().exists().isFile();
+    assertThat(cachedFile.getParentFile().getName()).isEqualTo("ABCDE");
+    assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("body");
+
+    assertThat(cache.getVersioned("active_rules.pb", "ABCDE", downloader)).isEqualTo(cachedFile);
+    assertThat(downloads[0]).isEqualTo(1);
+    verifyZeroInteractions(hashes);
+  }
+
   @Test
   public void concurrent_download() throws IOException {
     FileHashes hashes = mock(FileHashes.class);
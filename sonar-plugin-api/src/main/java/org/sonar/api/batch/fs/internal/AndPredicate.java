@@ -83,14 +83,40 @@ class AndPredicate extends AbstractFilePredicate {
     if (predicates.isEmpty()) {
       return index.inputFiles();
     }
-    // Optimization, use get on first predicate then filter with next predicates
-    Iterable<InputFile> result = predicates.get(0).get(index);
-    for (int i = 1; i < predicates.size(); i++) {
-      result = predicates.get(i).filter(result);
+    // Optimization, use get on the most selective predicate then filter with other predicates
+    int selected = selectFirstPredicate(index);
+    Iterable<InputFile> result = predicates.get(selected).get(index);
+    for (int i = 0; i < predicates.size(); i++) {
+      if (i != selected) {
+        result = predicates.get(i).filter(result);
+      }
     }
     return result;
   }
 
+  /**
+   * Predicates using the index by path are sorted first. Otherwise the predicate with the fewest candidates
+   * in the secondary indexes of the cache is selected.
+   */
+  private int selectFirstPredicate(Index index) {
+    if (predicates.get(0).priority() >= USE_INDEX) {
+      return 0;
+    }
+    int selected = 0;
+    int minCandidates = Integer.MAX_VALUE;
+    for (int i = 0; i < predicates.size(); i++) {
+      OptimizedFilePredicate predicate = predicates.get(i);
+      if (predicate instanceof IndexedFilePredicate) {
+        int candidates = ((IndexedFilePredicate) predicate).countCandidates(index);
+        if (candidates < minCandidates) {
+          selected = i;
+          minCandidates = candidates;
+        }
+      }
+    }
+    return selected;
+  }
+
   @VisibleForTesting
   Collection<OptimizedFilePredicate> predicates() {
     return predicates;
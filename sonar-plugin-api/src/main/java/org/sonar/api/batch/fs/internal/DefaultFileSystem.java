@@ -20,14 +20,18 @@
 package org.sonar.api.batch.fs.internal;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.SetMultimap;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -35,6 +39,7 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.apache.commons.io.FilenameUtils;
 import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.FileSystem;
@@ -248,7 +253,25 @@ public class DefaultFileSystem implements FileSystem {
     // nothing to do by default
   }
 
+  /**
+   * Besides the lookup by relative path, files are indexed by language, type, status and extension, so that the
+   * most common predicates do not iterate over all the files of the module. Files of the indexes are sorted by
+   * relative path. Instances of {@link DefaultInputFile} are re-indexed when their language, type or status change.
+   * Lookups return copies of the indexes, so that they can be iterated while files are added by other threads.
+   */
   public abstract static class Cache implements Index {
+    static final Comparator<InputFile> BY_RELATIVE_PATH = new Comparator<InputFile>() {
+      @Override
+      public int compare(InputFile f1, InputFile f2) {
+        return f1.relativePath().compareTo(f2.relativePath());
+      }
+    };
+
+    private final SetMultimap<String, InputFile> filesByLanguage = MultimapBuilder.hashKeys().treeSetValues(BY_RELATIVE_PATH).build();
+    private final SetMultimap<InputFile.Type, InputFile> filesByType = MultimapBuilder.enumKeys(InputFile.Type.class).treeSetValues(BY_RELATIVE_PATH).build();
+    private final SetMultimap<InputFile.Status, InputFile> filesByStatus = MultimapBuilder.enumKeys(InputFile.Status.class).treeSetValues(BY_RELATIVE_PATH).build();
+    private final SetMultimap<String, InputFile> filesByExtension = MultimapBuilder.hashKeys().treeSetValues(BY_RELATIVE_PATH).build();
+
     @Override
     public abstract Iterable<InputFile> inputFiles();
 
@@ -264,8 +287,70 @@ public class DefaultFileSystem implements FileSystem {
 
     protected abstract void doAdd(InputDir inputDir);
 
-    final void add(InputFile inputFile) {
+    final synchronized void add(InputFile inputFile) {
+      InputFile replaced = inputFile(inputFile.relativePath());
+      if (replaced != null) {
+        unindex(replaced);
+        if (replaced instanceof DefaultInputFile) {
+          ((DefaultInputFile) replaced).setCache(null);
+        }
+      }
       doAdd(inputFile);
+      index(inputFile);
+      if (inputFile instanceof DefaultInputFile) {
+        ((DefaultInputFile) inputFile).setCache(this);
+      }
+    }
+
+    /**
+     * Applies a change of the indexed attributes of a file.
+     */
+    final synchronized void update(InputFile inputFile, Runnable change) {
+      unindex(inputFile);
+      change.run();
+      index(inputFile);
+    }
+
+    /**
+     * Files of the given language, sorted by relative path.
+     */
+    synchronized Collection<InputFile> inputFilesByLanguage(String language) {
+      return ImmutableList.copyOf(filesByLanguage.get(language));
+    }
+
+    synchronized Collection<InputFile> inputFilesByType(InputFile.Type type) {
+      return ImmutableList.copyOf(filesByType.get(type));
+    }
+
+    synchronized Collection<InputFile> inputFilesByStatus(InputFile.Status status) {
+      return ImmutableList.copyOf(filesByStatus.get(status));
+    }
+
+    /**
+     * @param extension the case-sensitive extension of file names, without the leading dot
+     */
+    synchronized Collection<InputFile> inputFilesByExtension(String extension) {
+      return ImmutableList.copyOf(filesByExtension.get(extension));
+    }
+
+    private void index(InputFile inputFile) {
+      if (inputFile.language() != null) {
+        filesByLanguage.put(inputFile.language(), inputFile);
+      }
+      if (inputFile.type() != null) {
+        filesByType.put(inputFile.type(), inputFile);
+      }
+      if (inputFile.status() != null) {
+        filesByStatus.put(inputFile.status(), inputFile);
+      }
+      filesByExtension.put(FilenameUtils.getExtension(inputFile.relativePath()), inputFile);
+    }
+
+    private void unindex(InputFile inputFile) {
+      filesByLanguage.remove(inputFile.language(), inputFile);
+      filesByType.remove(inputFile.type(), inputFile);
+      filesByStatus.remove(inputFile.status(), inputFile);
+      filesByExtension.remove(FilenameUtils.getExtension(inputFile.relativePath()), inputFile);
     }
 
     public void add(InputDir inputDir) {
@@ -282,8 +367,8 @@ public class DefaultFileSystem implements FileSystem {
     private final Map<String, InputDir> dirMap = new HashMap<>();
 
     @Override
-    public Iterable<InputFile> inputFiles() {
-      return new ArrayList<>(fileMap.values());
+    public synchronized Iterable<InputFile> inputFiles() {
+      return ImmutableList.copyOf(fileMap.values());
     }
 
     @Override
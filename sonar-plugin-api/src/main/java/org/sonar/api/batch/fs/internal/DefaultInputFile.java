@@ -50,6 +50,8 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
   private String hash;
   private int nonBlankLines;
   private int[] originalLineOffsets;
+  // indexes of the file system the file is added to, which must be updated when language, type or status change
+  private DefaultFileSystem.Cache cache;
 
   public DefaultInputFile(String moduleKey, String relativePath) {
     this.moduleKey = moduleKey;
@@ -134,20 +136,32 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
   }
 
   public DefaultInputFile setLanguage(@Nullable String language) {
-    this.language = language;
+    update(() -> this.language = language);
     return this;
   }
 
   public DefaultInputFile setType(Type type) {
-    this.type = type;
+    update(() -> this.type = type);
     return this;
   }
 
   public DefaultInputFile setStatus(Status status) {
-    this.status = status;
+    update(() -> this.status = status);
     return this;
   }
 
+  void setCache(@Nullable DefaultFileSystem.Cache cache) {
+    this.cache = cache;
+  }
+
+  private void update(Runnable change) {
+    if (cache == null) {
+      change.run();
+    } else {
+      cache.update(this, change);
+    }
+  }
+
   public DefaultInputFile setLines(int lines) {
     this.lines = lines;
     return this;
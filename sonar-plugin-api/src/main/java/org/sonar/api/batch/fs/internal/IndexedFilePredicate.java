@@ -0,0 +1,80 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.Collection;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.FileSystem.Index;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Predicate that can be evaluated with the secondary indexes of {@link DefaultFileSystem.Cache}.
+ * @since 6.1
+ */
+abstract class IndexedFilePredicate extends AbstractFilePredicate {
+
+  /**
+   * Files of the cache that may be valid for this predicate, sorted by relative path. The collection is a copy
+   * of the index and must not be modified.
+   *
+   * @return {@code null} if the predicate can't be evaluated by the indexes of the cache
+   */
+  @CheckForNull
+  abstract Collection<InputFile> candidates(DefaultFileSystem.Cache cache);
+
+  /**
+   * Whether all the {@link #candidates(DefaultFileSystem.Cache)} are valid, so that they don't need to be filtered.
+   */
+  abstract boolean exactCandidates();
+
+  /**
+   * Files of the index that are valid for this predicate, or {@code null} if the secondary indexes can't be used.
+   */
+  @CheckForNull
+  final Iterable<InputFile> getFromCandidates(Index index) {
+    if (!(index instanceof DefaultFileSystem.Cache)) {
+      return null;
+    }
+    Collection<InputFile> candidates = candidates((DefaultFileSystem.Cache) index);
+    if (candidates == null) {
+      return null;
+    }
+    return exactCandidates() ? candidates : filter(candidates);
+  }
+
+  /**
+   * Number of candidates, or {@link Integer#MAX_VALUE} if the secondary indexes can't be used.
+   */
+  final int countCandidates(Index index) {
+    if (index instanceof DefaultFileSystem.Cache) {
+      Collection<InputFile> candidates = candidates((DefaultFileSystem.Cache) index);
+      if (candidates != null) {
+        return candidates.size();
+      }
+    }
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public Iterable<InputFile> get(Index index) {
+    Iterable<InputFile> result = getFromCandidates(index);
+    return result != null ? result : super.get(index);
+  }
+}
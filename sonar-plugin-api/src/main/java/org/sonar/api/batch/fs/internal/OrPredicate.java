@@ -20,18 +20,22 @@
 package org.sonar.api.batch.fs.internal;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
 import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * @since 4.2
  */
 class OrPredicate extends AbstractFilePredicate {
 
-  private final Collection<FilePredicate> predicates = new ArrayList<>();
+  private final List<FilePredicate> predicates = new ArrayList<>();
 
   private OrPredicate() {
   }
@@ -65,9 +69,45 @@ class OrPredicate extends AbstractFilePredicate {
     return false;
   }
 
+  /**
+   * When all the predicates can be evaluated by the secondary indexes of the cache, files are the union of their
+   * results, merged by relative path so that they are returned in the same order as when iterating over the cache.
+   * A file is not returned twice: it's skipped if it's valid for one of the previous predicates.
+   */
+  @Override
+  public Iterable<InputFile> get(Index index) {
+    List<Iterable<InputFile>> results = new ArrayList<>();
+    for (FilePredicate predicate : predicates) {
+      Iterable<InputFile> result = predicate instanceof IndexedFilePredicate ? ((IndexedFilePredicate) predicate).getFromCandidates(index) : null;
+      if (result == null) {
+        return super.get(index);
+      }
+      results.add(Iterables.filter(result, new NotValidForPreviousPredicates(results.size())));
+    }
+    return Iterables.mergeSorted(results, DefaultFileSystem.Cache.BY_RELATIVE_PATH);
+  }
+
   @VisibleForTesting
   Collection<FilePredicate> predicates() {
     return predicates;
   }
 
+  private class NotValidForPreviousPredicates implements Predicate<InputFile> {
+    private final int position;
+
+    private NotValidForPreviousPredicates(int position) {
+      this.position = position;
+    }
+
+    @Override
+    public boolean apply(InputFile f) {
+      for (int i = 0; i < position; i++) {
+        if (predicates.get(i).apply(f)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
 }
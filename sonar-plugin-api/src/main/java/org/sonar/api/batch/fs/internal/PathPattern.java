@@ -19,6 +19,9 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.CheckForNull;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.InputFile;
@@ -26,10 +29,24 @@ import org.sonar.api.utils.WildcardPattern;
 
 public abstract class PathPattern {
 
+  private static final Pattern FILE_EXTENSION_PATTERN = Pattern.compile(".*\\.([^*?/\\\\.]+)");
+
   final WildcardPattern pattern;
+  private final String fileExtension;
 
   PathPattern(String pattern) {
     this.pattern = WildcardPattern.create(pattern);
+    Matcher matcher = FILE_EXTENSION_PATTERN.matcher(pattern);
+    this.fileExtension = matcher.matches() ? matcher.group(1) : null;
+  }
+
+  /**
+   * The extension of all the files matched by this pattern, for example "java" for "**&#47;*.java", when the pattern
+   * ends with a literal extension. Matching is case-sensitive, see {@link #match(InputFile)}.
+   */
+  @CheckForNull
+  String fileExtension() {
+    return fileExtension;
   }
 
   public abstract boolean match(InputFile inputFile);
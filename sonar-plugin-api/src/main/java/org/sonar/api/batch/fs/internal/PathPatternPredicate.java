@@ -19,12 +19,13 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import java.util.Collection;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
  * @since 4.2
  */
-class PathPatternPredicate extends AbstractFilePredicate {
+class PathPatternPredicate extends IndexedFilePredicate {
 
   private final PathPattern pattern;
 
@@ -37,4 +38,15 @@ class PathPatternPredicate extends AbstractFilePredicate {
     return pattern.match(f);
   }
 
+  @Override
+  Collection<InputFile> candidates(DefaultFileSystem.Cache cache) {
+    String extension = pattern.fileExtension();
+    return extension == null ? null : cache.inputFilesByExtension(extension);
+  }
+
+  @Override
+  boolean exactCandidates() {
+    return false;
+  }
+
 }
@@ -0,0 +1,135 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Set of {@link PathPattern}s compiled to find the patterns that match a file without evaluating all of them.
+ * Patterns ending with a literal file extension, like "**&#47;*.java", are grouped by extension, so that only
+ * the patterns of the extension of the file and the patterns without extension are evaluated.
+ * <p/>
+ * Immutable and thread-safe, it can be used by the threads indexing files.
+ *
+ * @since 6.1
+ */
+public class PathPatternSet {
+
+  private static final int[] NO_PATTERNS = new int[0];
+
+  private final PathPattern[] patterns;
+  /**
+   * Indexes in {@link #patterns} of the patterns that can match files of a given lower-case extension, sorted
+   * in the order of the patterns.
+   */
+  private final Map<String, int[]> candidatesByExtension = new HashMap<>();
+  private final int[] candidatesOfOtherExtensions;
+
+  public PathPatternSet(PathPattern... patterns) {
+    this.patterns = patterns;
+    Map<String, List<Integer>> indexesByExtension = new HashMap<>();
+    List<Integer> withoutExtension = new ArrayList<>();
+    for (int i = 0; i < patterns.length; i++) {
+      String extension = patterns[i].fileExtension();
+      if (extension == null) {
+        withoutExtension.add(i);
+      } else {
+        String key = StringUtils.lowerCase(extension);
+        List<Integer> indexes = indexesByExtension.get(key);
+        if (indexes == null) {
+          indexes = new ArrayList<>();
+          indexesByExtension.put(key, indexes);
+        }
+        indexes.add(i);
+      }
+    }
+    this.candidatesOfOtherExtensions = toArray(withoutExtension);
+    for (Map.Entry<String, List<Integer>> entry : indexesByExtension.entrySet()) {
+      int[] candidates = toArray(entry.getValue(), candidatesOfOtherExtensions);
+      Arrays.sort(candidates);
+      candidatesByExtension.put(entry.getKey(), candidates);
+    }
+  }
+
+  public PathPattern[] patterns() {
+    return patterns;
+  }
+
+  public boolean isEmpty() {
+    return patterns.length == 0;
+  }
+
+  /**
+   * Same as {@link PathPattern#match(InputFile)} on each pattern, returns true if at least one of them matches.
+   */
+  public boolean matchesAny(InputFile inputFile) {
+    return matchesAny(inputFile, true);
+  }
+
+  /**
+   * Same as {@link PathPattern#match(InputFile, boolean)} on each pattern, returns true if at least one of them matches.
+   */
+  public boolean matchesAny(InputFile inputFile, boolean caseSensitiveFileExtension) {
+    for (int index : candidates(inputFile)) {
+      if (patterns[index].match(inputFile, caseSensitiveFileExtension)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The patterns that match the file, in the order of the set.
+   */
+  public List<PathPattern> matching(InputFile inputFile, boolean caseSensitiveFileExtension) {
+    List<PathPattern> result = new ArrayList<>(1);
+    for (int index : candidates(inputFile)) {
+      if (patterns[index].match(inputFile, caseSensitiveFileExtension)) {
+        result.add(patterns[index]);
+      }
+    }
+    return result;
+  }
+
+  private int[] candidates(InputFile inputFile) {
+    if (patterns.length == 0) {
+      return NO_PATTERNS;
+    }
+    String extension = StringUtils.lowerCase(FilenameUtils.getExtension(inputFile.relativePath()));
+    int[] candidates = candidatesByExtension.get(extension);
+    return candidates != null ? candidates : candidatesOfOtherExtensions;
+  }
+
+  private static int[] toArray(List<Integer> indexes, int... others) {
+    int[] result = new int[indexes.size() + others.length];
+    for (int i = 0; i < indexes.size(); i++) {
+      result[i] = indexes.get(i);
+    }
+    System.arraycopy(others, 0, result, indexes.size(), others.length);
+    return result;
+  }
+}
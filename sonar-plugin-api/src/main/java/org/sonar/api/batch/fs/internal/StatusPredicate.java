@@ -19,12 +19,13 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import java.util.Collection;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
  * @since 4.2
  */
-class StatusPredicate extends AbstractFilePredicate {
+class StatusPredicate extends IndexedFilePredicate {
 
   private final InputFile.Status status;
 
@@ -37,4 +38,13 @@ class StatusPredicate extends AbstractFilePredicate {
     return status == f.status();
   }
 
+  @Override
+  Collection<InputFile> candidates(DefaultFileSystem.Cache cache) {
+    return status == null ? null : cache.inputFilesByStatus(status);
+  }
+
+  @Override
+  boolean exactCandidates() {
+    return true;
+  }
 }
@@ -19,12 +19,13 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import java.util.Collection;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
  * @since 4.2
  */
-class TypePredicate extends AbstractFilePredicate {
+class TypePredicate extends IndexedFilePredicate {
 
   private final InputFile.Type type;
 
@@ -37,4 +38,13 @@ class TypePredicate extends AbstractFilePredicate {
     return type == f.type();
   }
 
+  @Override
+  Collection<InputFile> candidates(DefaultFileSystem.Cache cache) {
+    return type == null ? null : cache.inputFilesByType(type);
+  }
+
+  @Override
+  boolean exactCandidates() {
+    return true;
+  }
 }
@@ -79,4 +79,15 @@ public interface SensorDescriptor {
    */
   SensorDescriptor requireProperties(String... propertyKeys);
 
+  /**
+   * Declares that this {@link Sensor} can be executed concurrently with other {@link Sensor}s declaring the same.
+   * Such a {@link Sensor} must be thread-safe, must only interact with the platform through the {@link SensorContext}
+   * given to {@link Sensor#execute(SensorContext)}, and must not consume data produced by other sensors.
+   * Ordering constraints declared with {@link org.sonar.api.batch.Phase}, {@link org.sonar.api.batch.DependsUpon}
+   * and {@link org.sonar.api.batch.DependedUpon} are still honored.
+   * Default is to execute the {@link Sensor} alone.
+   * @since 6.1
+   */
+  SensorDescriptor threadSafe();
+
 }
@@ -19,8 +19,8 @@
  */
 package org.sonar.api.utils;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 
@@ -58,7 +58,8 @@ import org.apache.commons.lang.StringUtils;
  */
 public class WildcardPattern {
 
-  private static final Map<String, WildcardPattern> CACHE = new HashMap<>();
+  // patterns are created concurrently, for example by the threads indexing files
+  private static final Map<String, WildcardPattern> CACHE = new ConcurrentHashMap<>();
   private static final String SPECIAL_CHARS = "()[]^$.{}+|";
 
   private Pattern pattern;
@@ -197,8 +198,11 @@ public class WildcardPattern {
     String key = pattern + directorySeparator;
     WildcardPattern wildcardPattern = CACHE.get(key);
     if (wildcardPattern == null) {
-      wildcardPattern = new WildcardPattern(pattern, directorySeparator);
-      CACHE.put(key, wildcardPattern);
+      WildcardPattern created = new WildcardPattern(pattern, directorySeparator);
+      wildcardPattern = CACHE.putIfAbsent(key, created);
+      if (wildcardPattern == null) {
+        wildcardPattern = created;
+      }
     }
     return wildcardPattern;
   }
@@ -33,6 +33,7 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 
 /**
  * @since 1.10
@@ -165,6 +166,18 @@ public final class ZipUtils {
     }
   }
 
+  /**
+   * Compresses the content of a directory into a stream, for example to send it without writing the zip file
+   * on disk. The stream is not closed.
+   *
+   * @since 6.1
+   */
+  public static void zipDir(File dir, OutputStream out) throws IOException {
+    try (ZipOutputStream zout = new ZipOutputStream(new CloseShieldOutputStream(out))) {
+      doZipDir(dir, zout);
+    }
+  }
+
   private static void doZip(String entryName, InputStream in, ZipOutputStream out) throws IOException {
     ZipEntry entry = new ZipEntry(entryName);
     out.putNextEntry(entry);
@@ -24,9 +24,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.InputFile;
 
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.Iterator;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -107,6 +110,71 @@ public class DefaultFileSystemTest {
     assertThat(fs.languages()).containsOnly("java", "php");
   }
 
+  @Test
+  public void search_files_with_secondary_indexes() {
+    DefaultInputFile mainJava = new DefaultInputFile("foo", "src/Foo.java").setLanguage("java").setType(InputFile.Type.MAIN).setStatus(InputFile.Status.ADDED);
+    DefaultInputFile testJava = new DefaultInputFile("foo", "test/FooTest.java").setLanguage("java").setType(InputFile.Type.TEST).setStatus(InputFile.Status.SAME);
+    DefaultInputFile mainJs = new DefaultInputFile("foo", "src/foo.js").setLanguage("js").setType(InputFile.Type.MAIN).setStatus(InputFile.Status.SAME);
+    DefaultInputFile readme = new DefaultInputFile("foo", "README.md").setType(InputFile.Type.MAIN);
+    fs.add(testJava);
+    fs.add(mainJs);
+    fs.add(mainJava);
+    fs.add(readme);
+    FilePredicates p = fs.predicates();
+
+    assertThat(fs.inputFiles(p.hasType(InputFile.Type.MAIN))).containsExactly(readme, mainJava, mainJs);
+    assertThat(fs.inputFiles(p.hasStatus(InputFile.Status.SAME))).containsExactly(mainJs, testJava);
+    assertThat(fs.inputFiles(p.matchesPathPattern("**/*.java"))).containsExactly(mainJava, testJava);
+    assertThat(fs.inputFiles(p.matchesPathPattern("test/**/*.java"))).containsExactly(testJava);
+    assertThat(fs.inputFiles(p.and(p.hasType(InputFile.Type.MAIN), p.hasLanguage("java")))).containsExactly(mainJava);
+    assertThat(fs.inputFiles(p.and(p.hasLanguage("java"), p.hasStatus(InputFile.Status.SAME)))).containsExactly(testJava);
+    // union of indexed predicates is sorted by relative path, like files of the cache
+    assertThat(fs.inputFiles(p.hasLanguages("java", "js"))).containsExactly(mainJava, mainJs, testJava);
+    assertThat(fs.inputFiles(p.or(p.hasLanguage("java"), p.hasType(InputFile.Type.MAIN)))).containsExactly(readme, mainJava, mainJs, testJava);
+    assertThat(fs.inputFiles(p.and(p.hasType(InputFile.Type.MAIN), p.not(p.hasLanguage("js"))))).containsExactly(readme, mainJava);
+    assertThat(fs.inputFiles(p.hasLanguage("cobol"))).isEmpty();
+  }
+
+  @Test
+  public void replaced_file_is_removed_from_secondary_indexes() {
+    fs.add(new DefaultInputFile("foo", "src/Foo.java").setLanguage("java"));
+    DefaultInputFile replacement = new DefaultInputFile("foo", "src/Foo.java").setLanguage("java").setType(InputFile.Type.TEST);
+    fs.add(replacement);
+
+    assertThat(fs.inputFiles(fs.predicates().hasLanguage("java"))).containsExactly(replacement);
+    assertThat(fs.inputFiles(fs.predicates().hasType(InputFile.Type.MAIN))).isEmpty();
+  }
+
+  @Test
+  public void reindex_file_when_its_attributes_change() {
+    DefaultInputFile file = new DefaultInputFile("foo", "src/Foo.java");
+    fs.add(file);
+    FilePredicates p = fs.predicates();
+    assertThat(fs.inputFiles(p.hasType(InputFile.Type.MAIN))).containsExactly(file);
+
+    file.setLanguage("java").setType(InputFile.Type.TEST).setStatus(InputFile.Status.CHANGED);
+
+    assertThat(fs.inputFiles(p.hasLanguage("java"))).containsExactly(file);
+    assertThat(fs.inputFiles(p.hasType(InputFile.Type.TEST))).containsExactly(file);
+    assertThat(fs.inputFiles(p.hasType(InputFile.Type.MAIN))).isEmpty();
+    assertThat(fs.inputFiles(p.hasStatus(InputFile.Status.CHANGED))).containsExactly(file);
+  }
+
+  @Test
+  public void search_results_are_not_affected_by_files_added_later() {
+    DefaultInputFile foo = new DefaultInputFile("foo", "src/Foo.java").setLanguage("java");
+    fs.add(foo);
+    Iterator<InputFile> it = fs.inputFiles(fs.predicates().hasLanguage("java")).iterator();
+    Iterator<InputFile> all = fs.inputFiles().iterator();
+
+    fs.add(new DefaultInputFile("foo", "src/Bar.java").setLanguage("java"));
+
+    assertThat(it.next()).isSameAs(foo);
+    assertThat(it.hasNext()).isFalse();
+    assertThat(all.next()).isSameAs(foo);
+    assertThat(all.hasNext()).isFalse();
+  }
+
   @Test
   public void input_file_returns_null_if_file_not_found() {
     assertThat(fs.inputFile(fs.predicates().hasRelativePath("src/Bar.java"))).isNull();
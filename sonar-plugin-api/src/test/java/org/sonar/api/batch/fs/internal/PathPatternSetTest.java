@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PathPatternSetTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void empty_set_matches_nothing() {
+    PathPatternSet set = new PathPatternSet();
+
+    assertThat(set.isEmpty()).isTrue();
+    assertThat(set.matchesAny(new DefaultInputFile("ABCDE", "src/Foo.java"))).isFalse();
+  }
+
+  @Test
+  public void match_patterns_with_and_without_extension() {
+    PathPattern javaFiles = PathPattern.create("**/*.java");
+    PathPattern generated = PathPattern.create("**/generated/**");
+    PathPattern jsFiles = PathPattern.create("src/**/*.js");
+    PathPatternSet set = new PathPatternSet(javaFiles, generated, jsFiles);
+
+    InputFile generatedJava = new DefaultInputFile("ABCDE", "src/generated/Foo.java");
+    assertThat(set.matchesAny(generatedJava)).isTrue();
+    assertThat(set.matching(generatedJava, true)).containsExactly(javaFiles, generated);
+    assertThat(set.matching(new DefaultInputFile("ABCDE", "src/generated/foo.js"), true)).containsExactly(generated, jsFiles);
+    assertThat(set.matching(new DefaultInputFile("ABCDE", "src/generated/foo.txt"), true)).containsExactly(generated);
+    assertThat(set.matching(new DefaultInputFile("ABCDE", "README"), true)).isEmpty();
+    assertThat(set.matchesAny(new DefaultInputFile("ABCDE", "test/foo.js"))).isFalse();
+  }
+
+  @Test
+  public void match_case_insensitive_file_extension() throws Exception {
+    Path moduleBaseDir = temp.newFolder().toPath();
+    PathPatternSet set = new PathPatternSet(PathPattern.create("**/*.java"));
+    InputFile inputFile = new DefaultInputFile("ABCDE", "src/Foo.JAVA").setModuleBaseDir(moduleBaseDir);
+
+    assertThat(set.matchesAny(inputFile)).isFalse();
+    assertThat(set.matchesAny(inputFile, false)).isTrue();
+  }
+}
@@ -100,4 +100,16 @@ public class PathPatternTest {
     assertThat(patterns[0].toString()).isEqualTo("**/src/main/**Foo.java");
     assertThat(patterns[1].toString()).isEqualTo("file:**/src/main/**Bar.java");
   }
+
+  @Test
+  public void file_extension_of_pattern() {
+    assertThat(PathPattern.create("**/*.java").fileExtension()).isEqualTo("java");
+    assertThat(PathPattern.create("**/*Foo.JAVA").fileExtension()).isEqualTo("JAVA");
+    assertThat(PathPattern.create("file:**/src/main/**Foo.java").fileExtension()).isEqualTo("java");
+    assertThat(PathPattern.create("src/Foo.min.js").fileExtension()).isEqualTo("js");
+
+    assertThat(PathPattern.create("**/*.j*").fileExtension()).isNull();
+    assertThat(PathPattern.create("**/*.java/**").fileExtension()).isNull();
+    assertThat(PathPattern.create("src/**").fileExtension()).isNull();
+  }
 }
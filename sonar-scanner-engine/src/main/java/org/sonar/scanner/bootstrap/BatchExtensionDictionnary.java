@@ -154,6 +154,30 @@ public class BatchExtensionDictionnary {
     return Collections2.filter(sortedList, Predicates.in(extensions));
   }
 
+  /**
+   * Whether an execution order is imposed between the two extensions, either by their {@link Phase} or
+   * by {@link DependsUpon}/{@link DependedUpon} annotations.
+   */
+  public boolean areOrdered(Object extension, Object other) {
+    if (evaluatePhase(extension) != evaluatePhase(other)) {
+      return true;
+    }
+    return dependsUpon(extension, other) || dependsUpon(other, extension);
+  }
+
+  private boolean dependsUpon(Object extension, Object other) {
+    List<Object> dependencies = getDependencies(extension);
+    if (dependencies.contains(other)) {
+      return true;
+    }
+    for (Object generated : getDependents(other)) {
+      if (dependencies.contains(generated)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Extension dependencies
    */
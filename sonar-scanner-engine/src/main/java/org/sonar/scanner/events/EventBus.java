@@ -37,9 +37,10 @@ public class EventBus {
   }
 
   /**
-   * Fires the given event.
+   * Fires the given event. Events fired concurrently, for example by sensors executed in parallel, are
+   * dispatched one at a time.
    */
-  public void fireEvent(BatchEvent event) {
+  public synchronized void fireEvent(BatchEvent event) {
     doFireEvent(event);
   }
 
@@ -34,7 +34,8 @@ import java.util.Set;
 
 /**
  * <p>
- * This cache is not thread-safe, due to direct usage of {@link com.persistit.Exchange}
+ * Accesses to the underlying {@link com.persistit.Exchange} are synchronized, so that the cache can be used
+ * by modules analyzed concurrently. Lazy iterators use their own copy of the exchange.
  * </p>
  */
 public class Cache<V> {
@@ -47,22 +48,22 @@ public class Cache<V> {
     this.exchange = exchange;
   }
 
-  public Cache<V> put(Object key, V value) {
+  public synchronized Cache<V> put(Object key, V value) {
     resetKey(key);
     return doPut(value);
   }
 
-  public Cache<V> put(Object firstKey, Object secondKey, V value) {
+  public synchronized Cache<V> put(Object firstKey, Object secondKey, V value) {
     resetKey(firstKey, secondKey);
     return doPut(value);
   }
 
-  public Cache<V> put(Object firstKey, Object secondKey, Object thirdKey, V value) {
+  public synchronized Cache<V> put(Object firstKey, Object secondKey, Object thirdKey, V value) {
     resetKey(firstKey, secondKey, thirdKey);
     return doPut(value);
   }
 
-  public Cache<V> put(Object[] key, V value) {
+  public synchronized Cache<V> put(Object[] key, V value) {
     resetKey(key);
     return doPut(value);
   }
@@ -80,7 +81,7 @@ public class Cache<V> {
   /**
    * Returns the value object associated with keys, or null if not found.
    */
-  public V get(Object key) {
+  public synchronized V get(Object key) {
     resetKey(key);
     return doGet();
   }
@@ -89,7 +90,7 @@ public class Cache<V> {
    * Returns the value object associated with keys, or null if not found.
    */
   @CheckForNull
-  public V get(Object firstKey, Object secondKey) {
+  public synchronized V get(Object firstKey, Object secondKey) {
     resetKey(firstKey, secondKey);
     return doGet();
   }
@@ -98,7 +99,7 @@ public class Cache<V> {
    * Returns the value object associated with keys, or null if not found.
    */
   @CheckForNull
-  public V get(Object firstKey, Object secondKey, Object thirdKey) {
+  public synchronized V get(Object firstKey, Object secondKey, Object thirdKey) {
     resetKey(firstKey, secondKey, thirdKey);
     return doGet();
   }
@@ -107,7 +108,7 @@ public class Cache<V> {
    * Returns the value object associated with keys, or null if not found.
    */
   @CheckForNull
-  public V get(Object[] key) {
+  public synchronized V get(Object[] key) {
     resetKey(key);
     return doGet();
   }
@@ -127,22 +128,22 @@ public class Cache<V> {
     }
   }
 
-  public boolean containsKey(Object key) {
+  public synchronized boolean containsKey(Object key) {
     resetKey(key);
     return doContainsKey();
   }
 
-  public boolean containsKey(Object firstKey, Object secondKey) {
+  public synchronized boolean containsKey(Object firstKey, Object secondKey) {
     resetKey(firstKey, secondKey);
     return doContainsKey();
   }
 
-  public boolean containsKey(Object firstKey, Object secondKey, Object thirdKey) {
+  public synchronized boolean containsKey(Object firstKey, Object secondKey, Object thirdKey) {
     resetKey(firstKey, secondKey, thirdKey);
     return doContainsKey();
   }
 
-  public boolean containsKey(Object[] key) {
+  public synchronized boolean containsKey(Object[] key) {
     resetKey(key);
     return doContainsKey();
   }
@@ -157,22 +158,22 @@ public class Cache<V> {
     }
   }
 
-  public boolean remove(Object key) {
+  public synchronized boolean remove(Object key) {
     resetKey(key);
     return doRemove();
   }
 
-  public boolean remove(Object firstKey, Object secondKey) {
+  public synchronized boolean remove(Object firstKey, Object secondKey) {
     resetKey(firstKey, secondKey);
     return doRemove();
   }
 
-  public boolean remove(Object firstKey, Object secondKey, Object thirdKey) {
+  public synchronized boolean remove(Object firstKey, Object secondKey, Object thirdKey) {
     resetKey(firstKey, secondKey, thirdKey);
     return doRemove();
   }
 
-  public boolean remove(Object[] key) {
+  public synchronized boolean remove(Object[] key) {
     resetKey(key);
     return doRemove();
   }
@@ -191,22 +192,22 @@ public class Cache<V> {
    *
    * @param group The group name.
    */
-  public Cache<V> clear(Object key) {
+  public synchronized Cache<V> clear(Object key) {
     resetKey(key);
     return doClear();
   }
 
-  public Cache<V> clear(Object firstKey, Object secondKey) {
+  public synchronized Cache<V> clear(Object firstKey, Object secondKey) {
     resetKey(firstKey, secondKey);
     return doClear();
   }
 
-  public Cache<V> clear(Object firstKey, Object secondKey, Object thirdKey) {
+  public synchronized Cache<V> clear(Object firstKey, Object secondKey, Object thirdKey) {
     resetKey(firstKey, secondKey, thirdKey);
     return doClear();
   }
 
-  public Cache<V> clear(Object[] key) {
+  public synchronized Cache<V> clear(Object[] key) {
     resetKey(key);
     return doClear();
   }
@@ -225,7 +226,7 @@ public class Cache<V> {
   /**
    * Clears the default as well as all group caches.
    */
-  public void clear() {
+  public synchronized void clear() {
     try {
       exchange.clear();
       exchange.removeAll();
@@ -242,7 +243,7 @@ public class Cache<V> {
    * @return The set of cache keys for this group.
    */
   @SuppressWarnings("rawtypes")
-  public Set keySet(Object key) {
+  public synchronized Set keySet(Object key) {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
       exchange.clear();
@@ -259,7 +260,7 @@ public class Cache<V> {
   }
 
   @SuppressWarnings("rawtypes")
-  public Set keySet(Object firstKey, Object secondKey) {
+  public synchronized Set keySet(Object firstKey, Object secondKey) {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
       exchange.clear();
@@ -281,7 +282,7 @@ public class Cache<V> {
    *
    * @return The set containing the keys for this cache.
    */
-  public Set<Object> keySet() {
+  public synchronized Set<Object> keySet() {
     try {
       Set<Object> keys = Sets.newLinkedHashSet();
       exchange.clear();
@@ -300,29 +301,29 @@ public class Cache<V> {
    * Lazy-loading values for given keys
    */
   public Iterable<V> values(Object firstKey, Object secondKey) {
-    return new ValueIterable<>(exchange, firstKey, secondKey);
+    return new ValueIterable<>(this, exchange, firstKey, secondKey);
   }
 
   /**
    * Lazy-loading values for a given key
    */
   public Iterable<V> values(Object firstKey) {
-    return new ValueIterable<>(exchange, firstKey);
+    return new ValueIterable<>(this, exchange, firstKey);
   }
 
   /**
    * Lazy-loading values
    */
   public Iterable<V> values() {
-    return new ValueIterable<>(exchange);
+    return new ValueIterable<>(this, exchange);
   }
 
   public Iterable<Entry<V>> entries() {
-    return new EntryIterable<>(exchange);
+    return new EntryIterable<>(this, exchange);
   }
 
   public Iterable<Entry<V>> entries(Object firstKey) {
-    return new EntryIterable<>(exchange, firstKey);
+    return new EntryIterable<>(this, exchange, firstKey);
   }
 
   private void resetKey(Object key) {
@@ -352,25 +353,29 @@ public class Cache<V> {
   //
 
   private static class ValueIterable<T> implements Iterable<T> {
+    private final Object lock;
     private final Exchange originExchange;
     private final Object[] keys;
 
-    private ValueIterable(Exchange originExchange, Object... keys) {
+    private ValueIterable(Object lock, Exchange originExchange, Object... keys) {
+      this.lock = lock;
       this.originExchange = originExchange;
       this.keys = keys;
     }
 
     @Override
     public Iterator<T> iterator() {
-      originExchange.clear();
-      KeyFilter filter = new KeyFilter();
-      for (Object key : keys) {
-        originExchange.append(key);
-        filter = filter.append(KeyFilter.simpleTerm(key));
+      synchronized (lock) {
+        originExchange.clear();
+        KeyFilter filter = new KeyFilter();
+        for (Object key : keys) {
+          originExchange.append(key);
+          filter = filter.append(KeyFilter.simpleTerm(key));
+        }
+        originExchange.append(Key.BEFORE);
+        Exchange iteratorExchange = new Exchange(originExchange);
+        return new ValueIterator<>(iteratorExchange, filter);
       }
-      originExchange.append(Key.BEFORE);
-      Exchange iteratorExchange = new Exchange(originExchange);
-      return new ValueIterator<>(iteratorExchange, filter);
     }
   }
 
@@ -413,25 +418,29 @@ public class Cache<V> {
   }
 
   private static class EntryIterable<T> implements Iterable<Entry<T>> {
+    private final Object lock;
     private final Exchange originExchange;
     private final Object[] keys;
 
-    private EntryIterable(Exchange originExchange, Object... keys) {
+    private EntryIterable(Object lock, Exchange originExchange, Object... keys) {
+      this.lock = lock;
       this.originExchange = originExchange;
       this.keys = keys;
     }
 
     @Override
     public Iterator<Entry<T>> iterator() {
-      originExchange.clear();
-      KeyFilter filter = new KeyFilter();
-      for (Object key : keys) {
-        originExchange.append(key);
-        filter = filter.append(KeyFilter.simpleTerm(key));
+      synchronized (lock) {
+        originExchange.clear();
+        KeyFilter filter = new KeyFilter();
+        for (Object key : keys) {
+          originExchange.append(key);
+          filter = filter.append(KeyFilter.simpleTerm(key));
+        }
+        originExchange.append(Key.BEFORE);
+        Exchange iteratorExchange = new Exchange(originExchange);
+        return new EntryIterator<>(iteratorExchange, filter);
       }
-      originExchange.append(Key.BEFORE);
-      Exchange iteratorExchange = new Exchange(originExchange);
-      return new EntryIterator<>(iteratorExchange, filter);
     }
   }
 
@@ -21,13 +21,14 @@ package org.sonar.scanner.index;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
@@ -48,9 +49,18 @@ import org.sonar.api.resources.ResourceUtils;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.core.component.ComponentKeys;
 import org.sonar.scanner.DefaultProjectTree;
+import org.sonar.scanner.scan.ProjectScanContainer;
 import org.sonar.scanner.scan.measure.MeasureCache;
 import org.sonar.scanner.sensor.DefaultSensorStorage;
 
+/**
+ * Index of the resources of the project. Projects and modules are shared, while files and directories are
+ * indexed by module, the current module being bound to the thread that analyzes it so that modules can be analyzed
+ * concurrently (see {@link org.sonar.scanner.scan.ProjectScanContainer}).
+ * <p/>
+ * Other threads, for example those created by sensors, are attributed the module being analyzed as long as there is
+ * only one. When several modules are analyzed concurrently, they fail to access the resources of modules.
+ */
 public class DefaultIndex {
 
   private static final Logger LOG = LoggerFactory.getLogger(DefaultIndex.class);
@@ -58,10 +68,13 @@ public class DefaultIndex {
   private final BatchComponentCache componentCache;
   private final MeasureCache measureCache;
   private final DefaultProjectTree projectTree;
-  // caches
-  private DefaultSensorStorage sensorStorage;
-  private Project currentProject;
-  private Map<Resource, Bucket> buckets = Maps.newLinkedHashMap();
+  // project and modules
+  private final Map<Resource, Bucket> buckets = Maps.newLinkedHashMap();
+  // files and directories of the modules being analyzed
+  private final Map<Project, Map<Resource, Bucket>> bucketsByModule = new ConcurrentHashMap<>();
+  private final ThreadLocal<ModuleState> currentModule = new ThreadLocal<>();
+  private final Set<ModuleState> analyzedModules = ConcurrentHashMap.newKeySet();
+  private Project rootProject;
 
   public DefaultIndex(BatchComponentCache componentCache, DefaultProjectTree projectTree, MeasureCache measureCache) {
     this.componentCache = componentCache;
@@ -76,12 +89,12 @@ public class DefaultIndex {
     }
   }
 
-  void doStart(Project rootProject) {
+  synchronized void doStart(Project rootProject) {
     Bucket bucket = new Bucket(rootProject);
     addBucket(rootProject, bucket);
     BatchComponent component = componentCache.add(rootProject, null);
     component.setInputComponent(new DefaultInputModule(rootProject.getEffectiveKey()));
-    currentProject = rootProject;
+    this.rootProject = rootProject;
 
     for (Project module : rootProject.getModules()) {
       addModule(rootProject, module);
@@ -89,7 +102,14 @@ public class DefaultIndex {
   }
 
   private void addBucket(Resource resource, Bucket bucket) {
-    buckets.put(resource, bucket);
+    bucketsOf(resource).put(resource, bucket);
+  }
+
+  private Map<Resource, Bucket> bucketsOf(Resource resource) {
+    if (ResourceUtils.isSet(resource)) {
+      return buckets;
+    }
+    return bucketsByModule.computeIfAbsent(getProject(), k -> Maps.newLinkedHashMap());
   }
 
   private void addModule(Project parent, Project module) {
@@ -105,29 +125,59 @@ public class DefaultIndex {
   }
 
   public Project getProject() {
-    return currentProject;
+    ModuleState state = currentModule();
+    return state != null ? state.project : rootProject;
   }
 
+  /**
+   * Binds the module to the current thread until {@link #unsetCurrentProject()} is called.
+   */
   public void setCurrentProject(Project project, DefaultSensorStorage sensorStorage) {
-    this.currentProject = project;
+    unsetCurrentProject();
+    // the sensor storage depends on the current module, so it needs to be reloaded.
+    ModuleState state = new ModuleState(project, sensorStorage);
+    currentModule.set(state);
+    analyzedModules.add(state);
+  }
 
-    // the following components depend on the current module, so they need to be reloaded.
-    this.sensorStorage = sensorStorage;
+  /**
+   * Ends the analysis of the module bound to the current thread, if any, so that a thread which is reused
+   * to analyze another module does not keep the previous one.
+   */
+  public void unsetCurrentProject() {
+    ModuleState state = currentModule.get();
+    if (state != null) {
+      analyzedModules.remove(state);
+      currentModule.remove();
+    }
+  }
+
+  @CheckForNull
+  private ModuleState currentModule() {
+    ModuleState state = currentModule.get();
+    if (state != null) {
+      return state;
+    }
+    ModuleState[] states = analyzedModules.toArray(new ModuleState[0]);
+    if (states.length == 0) {
+      return null;
+    }
+    if (states.length == 1) {
+      return states[0];
+    }
+    throw new IllegalStateException(String.format("Thread '%s' does not analyze any module, so it can't access the resources of the %d modules " +
+      "being analyzed concurrently (see property %s)", Thread.currentThread().getName(), states.length, ProjectScanContainer.MODULE_THREADS_PROPERTY));
   }
 
   /**
    * Keep only project stuff
    */
-  public void clear() {
-    Iterator<Map.Entry<Resource, Bucket>> it = buckets.entrySet().iterator();
-    while (it.hasNext()) {
-      Map.Entry<Resource, Bucket> entry = it.next();
-      Resource resource = entry.getKey();
-      if (!ResourceUtils.isSet(resource)) {
-        entry.getValue().clear();
-        it.remove();
+  public synchronized void clear() {
+    Map<Resource, Bucket> moduleBuckets = bucketsByModule.remove(getProject());
+    if (moduleBuckets != null) {
+      for (Bucket bucket : moduleBuckets.values()) {
+        bucket.clear();
       }
-
     }
   }
 
@@ -159,9 +209,12 @@ public class DefaultIndex {
   }
 
   public Measure addMeasure(Resource resource, Measure measure) {
-    Bucket bucket = getBucket(resource);
-    if (bucket != null) {
-      return sensorStorage.saveMeasure(resource, measure);
+    if (getResource(resource) != null) {
+      ModuleState state = currentModule();
+      if (state == null) {
+        throw new IllegalStateException("Measures can be added only during the analysis of a module");
+      }
+      return state.sensorStorage.saveMeasure(resource, measure);
     }
     return measure;
   }
@@ -170,15 +223,20 @@ public class DefaultIndex {
     return dependency;
   }
 
-  public Set<Resource> getResources() {
-    return buckets.keySet();
+  public synchronized Set<Resource> getResources() {
+    Set<Resource> resources = Sets.newLinkedHashSet(buckets.keySet());
+    Map<Resource, Bucket> moduleBuckets = bucketsByModule.get(getProject());
+    if (moduleBuckets != null) {
+      resources.addAll(moduleBuckets.keySet());
+    }
+    return resources;
   }
 
   public String getSource(Resource reference) {
     Resource resource = getResource(reference);
     if (resource instanceof File) {
       File file = (File) resource;
-      Project module = currentProject;
+      Project module = getProject();
       ProjectDefinition def = projectTree.getProjectDefinition(module);
       try {
         return FileUtils.readFileToString(new java.io.File(def.getBaseDir(), file.getPath()));
@@ -192,13 +250,13 @@ public class DefaultIndex {
   /**
    * Does nothing if the resource is already registered.
    */
-  public Resource addResource(Resource resource) {
+  public synchronized Resource addResource(Resource resource) {
     Bucket bucket = doIndex(resource);
     return bucket != null ? bucket.getResource() : null;
   }
 
   @CheckForNull
-  public <R extends Resource> R getResource(@Nullable R reference) {
+  public synchronized <R extends Resource> R getResource(@Nullable R reference) {
     Bucket bucket = getBucket(reference);
     if (bucket != null) {
       return (R) bucket.getResource();
@@ -206,7 +264,7 @@ public class DefaultIndex {
     return null;
   }
 
-  public List<Resource> getChildren(Resource resource) {
+  public synchronized List<Resource> getChildren(Resource resource) {
     List<Resource> children = Lists.newLinkedList();
     Bucket bucket = getBucket(resource);
     if (bucket != null) {
@@ -217,7 +275,7 @@ public class DefaultIndex {
     return children;
   }
 
-  public Resource getParent(Resource resource) {
+  public synchronized Resource getParent(Resource resource) {
     Bucket bucket = getBucket(resource);
     if (bucket != null && bucket.getParent() != null) {
       return bucket.getParent().getResource();
@@ -225,7 +283,7 @@ public class DefaultIndex {
     return null;
   }
 
-  public boolean index(Resource resource) {
+  public synchronized boolean index(Resource resource) {
     Bucket bucket = doIndex(resource);
     return bucket != null;
   }
@@ -237,7 +295,7 @@ public class DefaultIndex {
     return doIndex(resource, resource.getParent());
   }
 
-  public boolean index(Resource resource, Resource parentReference) {
+  public synchronized boolean index(Resource resource, Resource parentReference) {
     Bucket bucket = doIndex(resource, parentReference);
     return bucket != null;
   }
@@ -253,6 +311,7 @@ public class DefaultIndex {
       return null;
     }
 
+    Project currentProject = getProject();
     Resource parent = (Resource) ObjectUtils.defaultIfNull(parentReference, currentProject);
 
     Bucket parentBucket = getBucket(parent);
@@ -283,9 +342,19 @@ public class DefaultIndex {
       return null;
     }
     if (StringUtils.isNotBlank(reference.getKey())) {
-      return buckets.get(reference);
+      return bucketsOf(reference).get(reference);
     }
     return null;
   }
 
+  private static class ModuleState {
+    private final Project project;
+    private final DefaultSensorStorage sensorStorage;
+
+    private ModuleState(Project project, DefaultSensorStorage sensorStorage) {
+      this.project = project;
+      this.sensorStorage = sensorStorage;
+    }
+  }
+
 }
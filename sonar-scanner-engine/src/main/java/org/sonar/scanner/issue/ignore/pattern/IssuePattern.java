@@ -32,6 +32,11 @@ import java.util.Set;
 public class IssuePattern {
 
   private WildcardPattern resourcePattern;
+  /**
+   * Key of the only resource matched by this pattern, see {@link #forResource(String)}. When set,
+   * {@link #resourcePattern} is not used.
+   */
+  private String resourceKey;
   private WildcardPattern rulePattern;
   private Set<Integer> lines = Sets.newLinkedHashSet();
   private Set<LineRange> lineRanges = Sets.newLinkedHashSet();
@@ -53,6 +58,12 @@ public class IssuePattern {
     this.lineRanges = lineRanges;
   }
 
+  private IssuePattern(String resourceKey, WildcardPattern rulePattern, Set<LineRange> lineRanges) {
+    this.resourceKey = resourceKey;
+    this.rulePattern = rulePattern;
+    this.lineRanges = lineRanges;
+  }
+
   public WildcardPattern getResourcePattern() {
     return resourcePattern;
   }
@@ -153,11 +164,18 @@ public class IssuePattern {
   }
 
   boolean matchResource(String resource) {
+    if (resourceKey != null) {
+      return resourceKey.equals(resource);
+    }
     return resource != null && resourcePattern.match(resource);
   }
 
+  /**
+   * Copy of this pattern that matches only the given resource. The key of the resource is compared as is, it's not
+   * compiled to a {@link WildcardPattern} that would be cached for each file of the project.
+   */
   public IssuePattern forResource(String resource) {
-    return new IssuePattern(resource, rulePattern.toString(), lineRanges).setCheckLines(isCheckLines());
+    return new IssuePattern(resource, rulePattern, lineRanges).setCheckLines(isCheckLines());
   }
 
   @Override
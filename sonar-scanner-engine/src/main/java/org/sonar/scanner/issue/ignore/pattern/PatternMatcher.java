@@ -53,11 +53,12 @@ public class PatternMatcher {
   }
 
   public void addPatternToExcludeResource(String resource) {
-    addPatternForComponent(resource, new IssuePattern(resource, "*").setCheckLines(false));
+    // the pattern of resource is replaced by the resource itself when the pattern is added
+    addPatternForComponent(resource, new IssuePattern("*", "*").setCheckLines(false));
   }
 
   public void addPatternToExcludeLines(String resource, Set<LineRange> lineRanges) {
-    addPatternForComponent(resource, new IssuePattern(resource, "*", lineRanges).setCheckLines(true));
+    addPatternForComponent(resource, new IssuePattern("*", "*", lineRanges).setCheckLines(true));
   }
 
 }
@@ -19,24 +19,25 @@
  */
 package org.sonar.scanner.issue.ignore.scanner;
 
-import java.nio.charset.Charset;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssueInclusionPatternInitializer;
 
+/**
+ * Initializes the patterns of issue exclusions and inclusions of each file. The patterns based on the content
+ * of files are found by {@link IssueExclusionsRegexpScanner} when files are indexed.
+ */
 public final class IssueExclusionsLoader {
 
-  private final IssueExclusionsRegexpScanner regexpScanner;
   private final IssueExclusionPatternInitializer exclusionPatternInitializer;
   private final IssueInclusionPatternInitializer inclusionPatternInitializer;
   private final FileSystem fileSystem;
 
-  public IssueExclusionsLoader(IssueExclusionsRegexpScanner regexpScanner, IssueExclusionPatternInitializer exclusionPatternInitializer,
+  public IssueExclusionsLoader(IssueExclusionPatternInitializer exclusionPatternInitializer,
     IssueInclusionPatternInitializer inclusionPatternInitializer,
     FileSystem fileSystem) {
-    this.regexpScanner = regexpScanner;
     this.exclusionPatternInitializer = exclusionPatternInitializer;
     this.inclusionPatternInitializer = inclusionPatternInitializer;
     this.fileSystem = fileSystem;
@@ -51,22 +52,12 @@ public final class IssueExclusionsLoader {
    * {@inheritDoc}
    */
   public void execute() {
-    Charset sourcesEncoding = fileSystem.encoding();
-
     for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().all())) {
-      try {
-        String componentEffectiveKey = ((DefaultInputFile) inputFile).key();
-        if (componentEffectiveKey != null) {
-          String path = inputFile.relativePath();
-          inclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
-          exclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
-          if (exclusionPatternInitializer.hasFileContentPattern()) {
-            regexpScanner.scan(componentEffectiveKey, inputFile.file(), sourcesEncoding);
-          }
-        }
-      } catch (Exception e) {
-        throw new IllegalStateException("Unable to read the source file : '" + inputFile.absolutePath() + "' with the charset : '"
-          + sourcesEncoding.name() + "'.", e);
+      String componentEffectiveKey = ((DefaultInputFile) inputFile).key();
+      if (componentEffectiveKey != null) {
+        String path = inputFile.relativePath();
+        inclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
+        exclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
       }
     }
   }
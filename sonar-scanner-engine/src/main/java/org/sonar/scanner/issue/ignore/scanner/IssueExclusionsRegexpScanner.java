@@ -21,20 +21,28 @@ package org.sonar.scanner.issue.ignore.scanner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.LineRange;
+import javax.annotation.CheckForNull;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * Looks for the regexps of issue exclusions in the content of files. Files are not read by this class: the
+ * {@link FileMetadata.CharHandler} returned by {@link #createCharHandlerFor(String)} is fed with the content of
+ * the file when its metadata is computed during indexing, so that each file is read and decoded once.
+ * <p/>
+ * Handlers of different files can be used concurrently, as files are indexed by several threads.
+ */
 @ScannerSide
 public class IssueExclusionsRegexpScanner {
 
@@ -44,16 +52,9 @@ public class IssueExclusionsRegexpScanner {
   private List<java.util.regex.Pattern> allFilePatterns;
   private List<DoubleRegexpMatcher> blockMatchers;
 
-  // fields to be reset at every new scan
-  private DoubleRegexpMatcher currentMatcher;
-  private int fileLength;
-  private List<LineExclusion> lineExclusions;
-  private LineExclusion currentLineExclusion;
-
   public IssueExclusionsRegexpScanner(IssueExclusionPatternInitializer patternsInitializer) {
     this.exclusionPatternInitializer = patternsInitializer;
 
-    lineExclusions = Lists.newArrayList();
     allFilePatterns = Lists.newArrayList();
     blockMatchers = Lists.newArrayList();
 
@@ -65,93 +66,144 @@ public class IssueExclusionsRegexpScanner {
         java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
         java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
     }
-
-    init();
   }
 
-  private void init() {
-    currentMatcher = null;
-    fileLength = 0;
-    lineExclusions.clear();
-    currentLineExclusion = null;
+  /**
+   * @return the handler of the content of the file, or {@code null} if no regexp is configured
+   */
+  @CheckForNull
+  public FileMetadata.CharHandler createCharHandlerFor(String resource) {
+    if (allFilePatterns.isEmpty() && blockMatchers.isEmpty()) {
+      return null;
+    }
+    return new FileScanner(resource);
   }
 
   public void scan(String resource, File file, Charset sourcesEncoding) throws IOException {
-    LOG.debug("Scanning {}", resource);
-    init();
+    FileMetadata.readFile(file, sourcesEncoding, new FileScanner(resource));
+  }
+
+  private synchronized void addPatternToExcludeResource(String resource) {
+    exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
+  }
+
+  private synchronized void addPatternToExcludeLines(String resource, Set<LineRange> lineRanges) {
+    exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
+  }
+
+  /**
+   * Scan of the lines of a single file. Lines are split like {@link java.io.BufferedReader#readLine()} does.
+   */
+  private class FileScanner extends FileMetadata.CharHandler {
+    private final String resource;
+    private final StringBuilder line = new StringBuilder();
+    private int lineIndex = 0;
+    private boolean excludedFile = false;
+    private DoubleRegexpMatcher currentMatcher;
+    private final List<LineExclusion> lineExclusions = Lists.newArrayList();
+    private LineExclusion currentLineExclusion;
+
+    private FileScanner(String resource) {
+      this.resource = resource;
+      LOG.debug("Scanning {}", resource);
+    }
+
+    @Override
+    protected void handleIgnoreEoL(char c) {
+      if (!excludedFile) {
+        line.append(c);
+      }
+    }
+
+    @Override
+    protected void newLine() {
+      if (!excludedFile) {
+        processLine();
+      }
+    }
+
+    @Override
+    protected void eof() {
+      if (excludedFile) {
+        return;
+      }
+      if (line.length() > 0) {
+        processLine();
+      }
+
+      if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
+        // this will happen when there is a start block regexp but no end block regexp
+        endExclusion(lineIndex + 1);
+      }
+
+      // now create the new line-based pattern for this file if there are exclusions
+      if (!lineExclusions.isEmpty()) {
+        Set<LineRange> lineRanges = convertLineExclusionsToLineRanges(lineIndex);
+        LOG.debug("- Line exclusions found: {}", lineRanges);
+        addPatternToExcludeLines(resource, lineRanges);
+      }
+    }
 
-    List<String> lines = FileUtils.readLines(file, sourcesEncoding.name());
-    int lineIndex = 0;
-    for (String line : lines) {
+    private void processLine() {
       lineIndex++;
-      if (line.trim().length() == 0) {
-        continue;
+      String lineStr = line.toString();
+      line.setLength(0);
+      if (lineStr.trim().length() == 0) {
+        return;
       }
 
       // first check the single regexp patterns that can be used to totally exclude a file
       for (java.util.regex.Pattern pattern : allFilePatterns) {
-        if (pattern.matcher(line).find()) {
-          exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
+        if (pattern.matcher(lineStr).find()) {
+          addPatternToExcludeResource(resource);
           // nothing more to do on this file
           LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", pattern);
+          excludedFile = true;
           return;
         }
       }
 
       // then check the double regexps if we're still here
-      checkDoubleRegexps(line, lineIndex);
-    }
-
-    if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
-      // this will happen when there is a start block regexp but no end block regexp
-      endExclusion(lineIndex + 1);
+      checkDoubleRegexps(lineStr, lineIndex);
     }
 
-    // now create the new line-based pattern for this file if there are exclusions
-    fileLength = lineIndex;
-    if (!lineExclusions.isEmpty()) {
-      Set<LineRange> lineRanges = convertLineExclusionsToLineRanges();
-      LOG.debug("- Line exclusions found: {}", lineRanges);
-      exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
-    }
-  }
-
-  private Set<LineRange> convertLineExclusionsToLineRanges() {
-    Set<LineRange> lineRanges = Sets.newHashSet();
-    for (LineExclusion lineExclusion : lineExclusions) {
-      lineRanges.add(lineExclusion.toLineRange());
+    private Set<LineRange> convertLineExclusionsToLineRanges(int fileLength) {
+      Set<LineRange> lineRanges = Sets.newHashSet();
+      for (LineExclusion lineExclusion : lineExclusions) {
+        lineRanges.add(lineExclusion.toLineRange(fileLength));
+      }
+      return lineRanges;
     }
-    return lineRanges;
-  }
 
-  private void checkDoubleRegexps(String line, int lineIndex) {
-    if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
-          startExclusion(lineIndex);
-          currentMatcher = matcher;
-          break;
+    private void checkDoubleRegexps(String line, int lineIndex) {
+      if (currentMatcher == null) {
+        for (DoubleRegexpMatcher matcher : blockMatchers) {
+          if (matcher.matchesFirstPattern(line)) {
+            startExclusion(lineIndex);
+            currentMatcher = matcher;
+            break;
+          }
+        }
+      } else {
+        if (currentMatcher.matchesSecondPattern(line)) {
+          endExclusion(lineIndex);
+          currentMatcher = null;
         }
-      }
-    } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
-        endExclusion(lineIndex);
-        currentMatcher = null;
       }
     }
-  }
 
-  private void startExclusion(int lineIndex) {
-    currentLineExclusion = new LineExclusion(lineIndex);
-    lineExclusions.add(currentLineExclusion);
-  }
+    private void startExclusion(int lineIndex) {
+      currentLineExclusion = new LineExclusion(lineIndex);
+      lineExclusions.add(currentLineExclusion);
+    }
 
-  private void endExclusion(int lineIndex) {
-    currentLineExclusion.setEnd(lineIndex);
-    currentLineExclusion = null;
+    private void endExclusion(int lineIndex) {
+      currentLineExclusion.setEnd(lineIndex);
+      currentLineExclusion = null;
+    }
   }
 
-  private class LineExclusion {
+  private static class LineExclusion {
 
     private int start;
     private int end;
@@ -165,7 +217,7 @@ public class IssueExclusionsRegexpScanner {
       this.end = end;
     }
 
-    public LineRange toLineRange() {
+    public LineRange toLineRange(int fileLength) {
       return new LineRange(start, end == -1 ? fileLength : end);
     }
 
@@ -19,74 +19,94 @@
  */
 package org.sonar.scanner.issue.tracking;
 
-import com.google.common.base.Function;
-import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.core.component.ComponentKeys;
+import org.sonar.home.cache.FileCache;
+import org.sonar.scanner.bootstrap.BatchWsClient;
 import org.sonar.scanner.index.BatchComponent;
 import org.sonar.scanner.index.BatchComponentCache;
-import org.sonar.scanner.index.Cache;
-import org.sonar.scanner.index.Caches;
 import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonar.scanner.repository.ProjectRepositories;
 import org.sonar.scanner.repository.ServerIssuesLoader;
 import org.sonar.scanner.scan.ImmutableProjectReactor;
 
+/**
+ * Issues of the project on server. They are synchronized with a local copy (see {@link ServerIssuesStore}) and
+ * only their offsets in this copy are kept in memory, by component.
+ */
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
 public class ServerIssueRepository {
 
   private static final Logger LOG = Loggers.get(ServerIssueRepository.class);
   private static final String LOG_MSG = "Load server issues";
+  // batch id of issues on deleted components
+  private static final int MISSING_COMPONENT = 0;
 
-  private final Caches caches;
-  private Cache<ServerIssue> issuesCache;
   private final ServerIssuesLoader previousIssuesLoader;
   private final ImmutableProjectReactor reactor;
   private final BatchComponentCache resourceCache;
+  private final ProjectRepositories projectRepositories;
+  private final FileCache fileCache;
+  private final BatchWsClient wsClient;
+  private ServerIssuesStore store;
+  private Map<Integer, List<Integer>> offsetsByBatchId;
 
-  public ServerIssueRepository(Caches caches, ServerIssuesLoader previousIssuesLoader, ImmutableProjectReactor reactor, BatchComponentCache resourceCache) {
-    this.caches = caches;
+  public ServerIssueRepository(ServerIssuesLoader previousIssuesLoader, ImmutableProjectReactor reactor, BatchComponentCache resourceCache,
+    ProjectRepositories projectRepositories, FileCache fileCache, BatchWsClient wsClient) {
     this.previousIssuesLoader = previousIssuesLoader;
     this.reactor = reactor;
     this.resourceCache = resourceCache;
+    this.projectRepositories = projectRepositories;
+    this.fileCache = fileCache;
+    this.wsClient = wsClient;
   }
 
   public void load() {
     Profiler profiler = Profiler.create(LOG).startInfo(LOG_MSG);
-    this.issuesCache = caches.createCache("previousIssues");
-    caches.registerValueCoder(ServerIssue.class, new ServerIssueValueCoder());
-    previousIssuesLoader.load(reactor.getRoot().getKeyWithBranch(), new SaveIssueConsumer());
+    String projectKey = reactor.getRoot().getKeyWithBranch();
+    store = new ServerIssuesStore(fileCache.getDir(), wsClient.baseUrl(), projectKey);
+    store.sync(previousIssuesLoader, projectKey, projectRepositories.lastAnalysisDate().getTime());
+
+    Map<Integer, List<Integer>> offsets = new HashMap<>();
+    store.forEach((issue, offset) -> offsets.computeIfAbsent(batchId(issue), k -> new ArrayList<>()).add(offset));
+    offsetsByBatchId = offsets;
     profiler.stopInfo();
   }
 
-  public Iterable<ServerIssue> byComponent(BatchComponent component) {
-    return issuesCache.values(component.batchId());
+  private int batchId(ServerIssue issue) {
+    String componentKey = ComponentKeys.createEffectiveKey(issue.getModuleKey(), issue.hasPath() ? issue.getPath() : null);
+    BatchComponent r = resourceCache.get(componentKey);
+    // Deleted resource
+    return r == null ? MISSING_COMPONENT : r.batchId();
   }
 
-  private class SaveIssueConsumer implements Function<ServerIssue, Void> {
-
-    @Override
-    public Void apply(@Nullable ServerIssue issue) {
-      if (issue == null) {
-        return null;
-      }
-      String componentKey = ComponentKeys.createEffectiveKey(issue.getModuleKey(), issue.hasPath() ? issue.getPath() : null);
-      BatchComponent r = resourceCache.get(componentKey);
-      if (r == null) {
-        // Deleted resource
-        issuesCache.put(0, issue.getKey(), issue);
-      } else {
-        issuesCache.put(r.batchId(), issue.getKey(), issue);
-      }
-      return null;
-    }
+  public Iterable<ServerIssue> byComponent(BatchComponent component) {
+    return read(component.batchId());
   }
 
   public Iterable<ServerIssue> issuesOnMissingComponents() {
-    return issuesCache.values(0);
+    return read(MISSING_COMPONENT);
+  }
+
+  private List<ServerIssue> read(int batchId) {
+    List<Integer> offsets = offsetsByBatchId.get(batchId);
+    if (offsets == null) {
+      return Collections.emptyList();
+    }
+    List<ServerIssue> issues = new ArrayList<>(offsets.size());
+    for (int offset : offsets) {
+      issues.add(store.read(offset));
+    }
+    return issues;
   }
 }
@@ -0,0 +1,271 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonar.scanner.repository.ServerIssuesLoader;
+
+/**
+ * Copy of the server issues of a project, stored in the user cache of the scanner between analyses in issues mode.
+ * The copy is valid for a given analysis of the project on server: until the next one, issues are only updated
+ * by users, so only the issues updated since the previous synchronization are downloaded. After a new analysis
+ * of the project, all issues are downloaded again, as components may have been moved or removed.
+ * <p/>
+ * The file is memory-mapped and issues are decoded only when requested, by offset.
+ */
+class ServerIssuesStore {
+
+  private static final Logger LOG = Loggers.get(ServerIssuesStore.class);
+  private static final int FORMAT_VERSION = 1;
+  // format version, date of the analysis on server, then the greatest date of update of issues
+  private static final int HEADER_SIZE = 4 + 8 + 8;
+  private static final int SYNC_DATE_POSITION = 4 + 8;
+  // an issue updated just before the previous synchronization may have been indexed after it
+  static final long SYNC_MARGIN_MS = 60_000L;
+
+  private final Path file;
+  private ByteBuffer buffer;
+
+  ServerIssuesStore(File cacheDir, String serverUrl, String projectKey) {
+    this.file = cacheDir.toPath().resolve("_issues").resolve(DigestUtils.md5Hex(serverUrl + "|" + projectKey) + ".dat");
+  }
+
+  /**
+   * Updates the copy of issues from server, then maps it in memory
+   */
+  void sync(ServerIssuesLoader loader, String projectKey, long analysisDate) {
+    Path synced;
+    try {
+      Header previous = readHeader();
+      if (previous != null && previous.analysisDate == analysisDate) {
+        synced = update(loader, projectKey, previous);
+      } else {
+        synced = download(loader, projectKey, analysisDate);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to store server issues in " + file.getParent(), e);
+    }
+    try (FileChannel channel = FileChannel.open(synced)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read server issues from " + synced, e);
+    }
+  }
+
+  /**
+   * Calls the consumer with each stored issue and its offset, as given to {@link #read(int)}
+   */
+  void forEach(ObjIntConsumer<ServerIssue> consumer) {
+    ByteBuffer issues = buffer.duplicate();
+    issues.position(HEADER_SIZE);
+    while (issues.hasRemaining()) {
+      int offset = issues.position();
+      consumer.accept(readIssue(issues), offset);
+    }
+  }
+
+  /**
+   * Can be called concurrently
+   */
+  ServerIssue read(int offset) {
+    ByteBuffer issues = buffer.duplicate();
+    issues.position(offset);
+    return readIssue(issues);
+  }
+
+  @CheckForNull
+  private Header readHeader() {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+      if (input.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      return new Header(input.readLong(), input.readLong());
+    } catch (IOException e) {
+      LOG.warn("Fail to read the copy of server issues {}, all issues will be downloaded", file, e);
+      return null;
+    }
+  }
+
+  private Path download(ServerIssuesLoader loader, String projectKey, long analysisDate) throws IOException {
+    LOG.debug("Download all server issues");
+    Path tempFile = createTempFile();
+    try (IssuesWriter writer = new IssuesWriter(tempFile, analysisDate)) {
+      loader.load(projectKey, issue -> {
+        writer.write(issue);
+        return null;
+      });
+    } catch (IOException | RuntimeException e) {
+      FileUtils.deleteQuietly(tempFile.toFile());
+      throw e;
+    }
+    return replaceFile(tempFile);
+  }
+
+  private Path update(ServerIssuesLoader loader, String projectKey, Header previous) throws IOException {
+    Map<String, ServerIssue> changedIssues = new LinkedHashMap<>();
+    loader.load(projectKey, Math.max(0L, previous.syncDate - SYNC_MARGIN_MS), issue -> {
+      changedIssues.put(issue.getKey(), issue);
+      return null;
+    });
+    LOG.debug("{} server issues updated since the previous synchronization", changedIssues.size());
+    if (changedIssues.isEmpty()) {
+      return file;
+    }
+
+    Path tempFile = createTempFile();
+    try (IssuesWriter writer = new IssuesWriter(tempFile, previous.analysisDate);
+      DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      writer.syncDate = previous.syncDate;
+      input.skipBytes(HEADER_SIZE);
+      ServerIssue issue = ServerIssue.parseDelimitedFrom(input);
+      while (issue != null) {
+        if (!changedIssues.containsKey(issue.getKey())) {
+          writer.write(issue);
+        }
+        issue = ServerIssue.parseDelimitedFrom(input);
+      }
+      for (ServerIssue changedIssue : changedIssues.values()) {
+        if (!Issue.STATUS_CLOSED.equals(changedIssue.getStatus())) {
+          writer.write(changedIssue);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      FileUtils.deleteQuietly(tempFile.toFile());
+      throw e;
+    }
+    return replaceFile(tempFile);
+  }
+
+  private Path createTempFile() throws IOException {
+    Files.createDirectories(file.getParent());
+    return Files.createTempFile(file.getParent(), "issues", ".tmp");
+  }
+
+  /**
+   * On Windows, the file can not be replaced while it's still mapped by a previous analysis executed in the same JVM.
+   * The new copy is then used by the current analysis only.
+   */
+  private Path replaceFile(Path tempFile) {
+    try {
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      return file;
+    } catch (IOException e) {
+      LOG.warn("Fail to replace the copy of server issues {}", file, e);
+      tempFile.toFile().deleteOnExit();
+      return tempFile;
+    }
+  }
+
+  private static ServerIssue readIssue(ByteBuffer issues) {
+    byte[] bytes = new byte[readSize(issues)];
+    issues.get(bytes);
+    try {
+      return ServerIssue.parseFrom(bytes);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decode server issue", e);
+    }
+  }
+
+  /**
+   * Varint prefix written by {@link ServerIssue#writeDelimitedTo(java.io.OutputStream)}
+   */
+  private static int readSize(ByteBuffer issues) {
+    int size = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = issues.get();
+      size |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return size;
+  }
+
+  private static class Header {
+    private final long analysisDate;
+    private final long syncDate;
+
+    private Header(long analysisDate, long syncDate) {
+      this.analysisDate = analysisDate;
+      this.syncDate = syncDate;
+    }
+  }
+
+  /**
+   * Writes the header, then the issues. The greatest date of update of issues is written on close. It's at least the
+   * date of the analysis on server, which is the date of the copy when the project has no issues.
+   */
+  private static class IssuesWriter implements AutoCloseable {
+    private final Path tempFile;
+    private final DataOutputStream output;
+    private long syncDate;
+
+    private IssuesWriter(Path tempFile, long analysisDate) throws IOException {
+      this.tempFile = tempFile;
+      this.syncDate = analysisDate;
+      this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)));
+      output.writeInt(FORMAT_VERSION);
+      output.writeLong(analysisDate);
+      output.writeLong(syncDate);
+    }
+
+    private void write(ServerIssue issue) {
+      try {
+        issue.writeDelimitedTo(output);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to store server issue", e);
+      }
+      syncDate = Math.max(syncDate, issue.getUpdatedAt());
+    }
+
+    @Override
+    public void close() throws IOException {
+      output.close();
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(tempFile.toFile(), "rw")) {
+        randomAccessFile.seek(SYNC_DATE_POSITION);
+        randomAccessFile.writeLong(syncDate);
+      }
+    }
+  }
+}
@@ -80,6 +80,7 @@ public abstract class AbstractPhaseExecutor {
     if (module.isRoot()) {
       executeOnRoot();
       postJobsExecutor.execute(sensorContext);
+      afterPostJobsOnRoot();
     }
     cleanMemory();
     eventBus.fireEvent(new ProjectAnalysisEvent(module, false));
@@ -87,6 +88,13 @@ public abstract class AbstractPhaseExecutor {
 
   protected abstract void executeOnRoot();
 
+  /**
+   * Executed on root module once post-jobs are completed, for work that is allowed to run concurrently with them.
+   */
+  protected void afterPostJobsOnRoot() {
+    // nothing to do by default
+  }
+
   private void initIssueExclusions() {
     if (issueExclusionsLoader.shouldExecute()) {
       String stepName = "Init issue exclusions";
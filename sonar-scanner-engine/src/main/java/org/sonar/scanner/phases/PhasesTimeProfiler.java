@@ -19,8 +19,13 @@
  */
 package org.sonar.scanner.phases;
 
-
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.events.SensorExecutionHandler;
 import org.sonar.api.batch.events.SensorsPhaseHandler;
 import org.sonar.api.utils.log.Logger;
@@ -32,7 +37,13 @@ public class PhasesTimeProfiler implements SensorExecutionHandler, SensorsPhaseH
 
   private static final Logger LOG = Loggers.get(PhasesTimeProfiler.class);
 
-  private Profiler profiler = Profiler.create(LOG);
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+  /**
+   * Sensors may be executed concurrently, so each one has its own profiler. CPU time is measured
+   * on the thread executing the sensor.
+   */
+  private final Map<Sensor, SensorProfiling> profilingBySensor = new ConcurrentHashMap<>();
 
   @Override
   public void onSensorsPhase(SensorsPhaseEvent event) {
@@ -43,10 +54,33 @@ public class PhasesTimeProfiler implements SensorExecutionHandler, SensorsPhaseH
 
   @Override
   public void onSensorExecution(SensorExecutionEvent event) {
+    Sensor sensor = event.getSensor();
     if (event.isStart()) {
-      profiler.startInfo("Sensor " + BatchUtils.describe(event.getSensor()));
+      Profiler profiler = Profiler.create(LOG).startInfo("Sensor " + BatchUtils.describe(sensor));
+      profilingBySensor.put(sensor, new SensorProfiling(profiler, currentThreadCpuTime()));
     } else {
-      profiler.stopInfo();
+      SensorProfiling profiling = profilingBySensor.remove(sensor);
+      if (profiling != null) {
+        long cpuTime = currentThreadCpuTime();
+        if (cpuTime >= 0 && profiling.startCpuTime >= 0) {
+          profiling.profiler.addContext("cpu", TimeUnit.NANOSECONDS.toMillis(cpuTime - profiling.startCpuTime) + "ms");
+        }
+        profiling.profiler.stopInfo();
+      }
+    }
+  }
+
+  private long currentThreadCpuTime() {
+    return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1L;
+  }
+
+  private static class SensorProfiling {
+    private final Profiler profiler;
+    private final long startCpuTime;
+
+    private SensorProfiling(Profiler profiler, long startCpuTime) {
+      this.profiler = profiler;
+      this.startCpuTime = startCpuTime;
     }
   }
 
@@ -51,6 +51,11 @@ public final class PublishPhaseExecutor extends AbstractPhaseExecutor {
     publishReportJob();
   }
 
+  @Override
+  protected void afterPostJobsOnRoot() {
+    reportPublisher.waitForUpload();
+  }
+
   private void computeDuplications() {
     String stepName = "Computing duplications";
     eventBus.fireEvent(new BatchStepEvent(stepName, true));
@@ -20,14 +20,27 @@
 package org.sonar.scanner.phases;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.resources.Project;
 import org.sonar.scanner.bootstrap.BatchExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
-import java.util.Collection;
+import org.sonar.scanner.sensor.SensorWrapper;
 
+/**
+ * Executes sensors in the order computed by {@link BatchExtensionDictionnary}. Consecutive sensors declared as
+ * thread-safe (see {@link org.sonar.api.batch.sensor.SensorDescriptor#threadSafe()}) and with no ordering
+ * constraint between them are executed concurrently.
+ */
 @ScannerSide
 public class SensorsExecutor {
 
@@ -45,13 +58,85 @@ public class SensorsExecutor {
     Collection<Sensor> sensors = selector.select(Sensor.class, module, true, null);
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), true));
 
-    for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+    for (List<Sensor> group : groupConcurrentSensors(sensors)) {
+      if (group.size() == 1) {
+        executeSensor(context, group.get(0));
+      } else {
+        executeConcurrently(context, group);
+      }
     }
 
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
   }
 
+  /**
+   * Splits the sorted sensors into groups that keep the execution order. A group contains either a single sensor,
+   * or consecutive thread-safe sensors that are not ordered relatively to each other.
+   */
+  private List<List<Sensor>> groupConcurrentSensors(Collection<Sensor> sensors) {
+    List<List<Sensor>> groups = new ArrayList<>();
+    List<Sensor> current = new ArrayList<>();
+    for (Sensor sensor : sensors) {
+      if (!current.isEmpty() && !(isThreadSafe(sensor) && isIndependent(sensor, current))) {
+        groups.add(current);
+        current = new ArrayList<>();
+      }
+      current.add(sensor);
+      if (!isThreadSafe(sensor)) {
+        groups.add(current);
+        current = new ArrayList<>();
+      }
+    }
+    if (!current.isEmpty()) {
+      groups.add(current);
+    }
+    return groups;
+  }
+
+  private static boolean isThreadSafe(Sensor sensor) {
+    return sensor instanceof SensorWrapper && ((SensorWrapper) sensor).isThreadSafe();
+  }
+
+  private boolean isIndependent(Sensor sensor, List<Sensor> group) {
+    for (Sensor other : group) {
+      if (selector.areOrdered(sensor, other)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void executeConcurrently(SensorContext context, List<Sensor> sensors) {
+    int threads = Math.min(sensors.size(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Sensor-%d").build());
+    try {
+      List<Future<Void>> tasks = new ArrayList<>(sensors.size());
+      for (Sensor sensor : sensors) {
+        tasks.add(executorService.submit(() -> {
+          executeSensor(context, sensor);
+          return null;
+        }));
+      }
+      for (Future<Void> task : tasks) {
+        waitFor(task);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static void waitFor(Future<Void> task) {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      // Unwrap ExecutionException
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
     eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
     sensor.analyse(module, context);
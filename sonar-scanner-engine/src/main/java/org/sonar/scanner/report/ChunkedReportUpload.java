@@ -0,0 +1,150 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonarqube.ws.MediaTypes;
+import org.sonarqube.ws.WsCe;
+import org.sonarqube.ws.client.HttpException;
+import org.sonarqube.ws.client.PostRequest;
+import org.sonarqube.ws.client.WsResponse;
+
+/**
+ * Stream of the compressed report, sent to the server by chunks with api/ce/upload_report while it is written.
+ * When a chunk fails to be sent, the server is asked for the number of bytes it received and only the remaining
+ * bytes are sent again, so that a network failure does not restart the whole upload.
+ */
+class ChunkedReportUpload extends OutputStream {
+
+  static final int DEFAULT_CHUNK_SIZE = 10 * 1024 * 1024;
+  private static final int MAX_ATTEMPTS = 3;
+  private static final Logger LOG = Loggers.get(ChunkedReportUpload.class);
+
+  private final BatchWsClient wsClient;
+  private final String projectKey;
+  private final String projectBranch;
+  private final String uploadId;
+  // parts of requests are files
+  private final File chunkFile;
+  private final byte[] buffer;
+  private int count = 0;
+  // number of bytes acknowledged by the server
+  private long offset = 0L;
+
+  ChunkedReportUpload(BatchWsClient wsClient, String projectKey, @Nullable String projectBranch, String uploadId, File chunkFile, int chunkSize) {
+    this.wsClient = wsClient;
+    this.projectKey = projectKey;
+    this.projectBranch = projectBranch;
+    this.uploadId = uploadId;
+    this.chunkFile = chunkFile;
+    this.buffer = new byte[chunkSize];
+  }
+
+  long uploadedBytes() {
+    return offset;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (count == buffer.length) {
+      sendChunk();
+    }
+    buffer[count] = (byte) b;
+    count++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    int written = 0;
+    while (written < len) {
+      if (count == buffer.length) {
+        sendChunk();
+      }
+      int length = Math.min(len - written, buffer.length - count);
+      System.arraycopy(b, off + written, buffer, count, length);
+      count += length;
+      written += length;
+    }
+  }
+
+  /**
+   * Sends the last chunk
+   */
+  @Override
+  public void close() throws IOException {
+    if (count > 0) {
+      sendChunk();
+    }
+  }
+
+  private void sendChunk() throws IOException {
+    long end = offset + count;
+    long acknowledged = offset;
+    for (int attempt = 1; acknowledged < end; attempt++) {
+      try {
+        acknowledged = send(acknowledged, end);
+      } catch (RuntimeException e) {
+        if (attempt >= MAX_ATTEMPTS || (e instanceof HttpException && ((HttpException) e).code() < 500)) {
+          throw e;
+        }
+        LOG.warn("Fail to upload chunk of analysis report, retrying: {}", e.getMessage());
+        acknowledged = call(new PostRequest("api/ce/upload_report"));
+        if (acknowledged < offset || acknowledged > end) {
+          throw new IllegalStateException(
+            String.format("Server received %d bytes of the analysis report, expected between %d and %d", acknowledged, offset, end), e);
+        }
+      }
+    }
+    offset = end;
+    count = 0;
+  }
+
+  private long send(long from, long end) throws IOException {
+    byte[] bytes = Arrays.copyOfRange(buffer, (int) (from - offset), (int) (end - offset));
+    Files.write(chunkFile.toPath(), bytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    PostRequest post = new PostRequest("api/ce/upload_report")
+      .setParam("offset", from)
+      .setPart("chunk", new PostRequest.Part(MediaTypes.ZIP, chunkFile));
+    return call(post);
+  }
+
+  private long call(PostRequest post) {
+    post.setMediaType(MediaTypes.PROTOBUF)
+      .setParam("projectKey", projectKey)
+      .setParam("projectBranch", projectBranch)
+      .setParam("uploadId", uploadId);
+    WsResponse response = wsClient.call(post).failIfNotSuccessful();
+    try (InputStream protobuf = response.contentStream()) {
+      return WsCe.UploadReportWsResponse.parser().parseFrom(protobuf).getUploadedBytes();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read response of " + post.getPath(), e);
+    }
+  }
+}
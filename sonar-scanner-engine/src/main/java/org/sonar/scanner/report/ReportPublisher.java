@@ -22,6 +22,7 @@ package org.sonar.scanner.report;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import okhttp3.HttpUrl;
 import java.io.File;
 import java.io.IOException;
@@ -31,6 +32,10 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.picocontainer.Startable;
@@ -43,6 +48,7 @@ import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.Uuids;
 import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.bootstrap.BatchWsClient;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
@@ -74,6 +80,8 @@ public class ReportPublisher implements Startable {
 
   private File reportDir;
   private ScannerReportWriter writer;
+  private ExecutorService uploadExecutor;
+  private Future<String> uploadTask;
 
   public ReportPublisher(Settings settings, BatchWsClient wsClient, Server server, AnalysisContextReportPublisher contextPublisher,
     ImmutableProjectReactor projectReactor, DefaultAnalysisMode analysisMode, TempFolder temp, ReportPublisherStep[] publishers) {
@@ -103,6 +111,9 @@ public class ReportPublisher implements Startable {
 
   @Override
   public void stop() {
+    if (uploadExecutor != null) {
+      uploadExecutor.shutdownNow();
+    }
     if (!shouldKeepReport()) {
       deleteQuietly(reportDir);
     }
@@ -116,16 +127,41 @@ public class ReportPublisher implements Startable {
     return writer;
   }
 
+  /**
+   * Generates the report, then starts uploading it in background so that the upload overlaps with the
+   * execution of post-jobs. {@link #waitForUpload()} must be called afterwards.
+   */
   public void execute() {
     // If this is a issues mode analysis then we should not upload reports
-    String taskId = null;
     if (!analysisMode.isIssues()) {
-      File report = generateReportFile();
+      generateReport();
       if (shouldKeepReport()) {
         LOG.info("Analysis report generated in " + reportDir);
       }
       if (!analysisMode.isMediumTest()) {
-        taskId = upload(report);
+        uploadExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Report-upload-%d").build());
+        uploadTask = uploadExecutor.submit(this::upload);
+      }
+    }
+  }
+
+  /**
+   * Waits for the end of the upload started by {@link #execute()}, then logs where the analysis can be browsed.
+   */
+  public void waitForUpload() {
+    String taskId = null;
+    if (uploadTask != null) {
+      try {
+        taskId = uploadTask.get();
+      } catch (ExecutionException e) {
+        // Unwrap ExecutionException
+        throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      } finally {
+        uploadExecutor.shutdown();
+        uploadTask = null;
       }
     }
     logSuccess(taskId);
@@ -135,41 +171,43 @@ public class ReportPublisher implements Startable {
     return settings.getBoolean(KEEP_REPORT_PROP_KEY) || settings.getBoolean(VERBOSE_KEY);
   }
 
-  private File generateReportFile() {
-    try {
-      long startTime = System.currentTimeMillis();
-      for (ReportPublisherStep publisher : publishers) {
-        publisher.publish(writer);
-      }
-      long stopTime = System.currentTimeMillis();
-      LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
-
-      startTime = System.currentTimeMillis();
-      File reportZip = temp.newFile("batch-report", ".zip");
-      ZipUtils.zipDir(reportDir, reportZip);
-      stopTime = System.currentTimeMillis();
-      LOG.info("Analysis reports compressed in {}ms, zip size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(reportZip)));
-      return reportZip;
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to prepare analysis report", e);
+  private void generateReport() {
+    long startTime = System.currentTimeMillis();
+    for (ReportPublisherStep publisher : publishers) {
+      publisher.publish(writer);
     }
+    long stopTime = System.currentTimeMillis();
+    LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
   }
 
   /**
-   * Uploads the report file to server and returns the generated task id
+   * Compresses the report directly into the chunks uploaded to server, so that the zip file is not written on disk,
+   * then submits it. Returns the generated task id.
    */
   @VisibleForTesting
-  String upload(File report) {
+  String upload() {
     LOG.debug("Upload report");
     long startTime = System.currentTimeMillis();
     ProjectDefinition projectDefinition = projectReactor.getRoot();
-    PostRequest.Part filePart = new PostRequest.Part(MediaTypes.ZIP, report);
+    String uploadId = Uuids.create();
+    File chunkFile = temp.newFile("batch-report-chunk", ".zip");
+    ChunkedReportUpload upload = new ChunkedReportUpload(wsClient, projectDefinition.getKey(), projectDefinition.getBranch(), uploadId, chunkFile,
+      ChunkedReportUpload.DEFAULT_CHUNK_SIZE);
+    try {
+      ZipUtils.zipDir(reportDir, upload);
+      upload.close();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to upload analysis report", e);
+    } finally {
+      deleteQuietly(chunkFile);
+    }
+
     PostRequest post = new PostRequest("api/ce/submit")
       .setMediaType(MediaTypes.PROTOBUF)
       .setParam("projectKey", projectDefinition.getKey())
       .setParam("projectName", projectDefinition.getName())
       .setParam("projectBranch", projectDefinition.getBranch())
-      .setPart("report", filePart);
+      .setParam("uploadId", uploadId);
     WsResponse response = wsClient.call(post).failIfNotSuccessful();
     try (InputStream protobuf = response.contentStream()) {
       return WsCe.SubmitResponse.parser().parseFrom(protobuf).getTaskId();
@@ -177,7 +215,8 @@ public class ReportPublisher implements Startable {
       throw Throwables.propagate(e);
     } finally {
       long stopTime = System.currentTimeMillis();
-      LOG.info("Analysis report uploaded in " + (stopTime - startTime) + "ms");
+      LOG.info("Analysis report compressed and uploaded in {}ms, zip size={}", stopTime - startTime,
+        FileUtils.byteCountToDisplaySize(upload.uploadedBytes()));
     }
   }
 
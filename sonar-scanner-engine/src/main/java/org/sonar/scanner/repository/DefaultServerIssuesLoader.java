@@ -43,6 +43,13 @@ public class DefaultServerIssuesLoader implements ServerIssuesLoader {
     parseIssues(is, consumer);
   }
 
+  @Override
+  public void load(String componentKey, long changedSince, Function<ServerIssue, Void> consumer) {
+    GetRequest getRequest = new GetRequest("/batch/issues.protobuf?key=" + BatchUtils.encodeForUrl(componentKey) + "&changedSince=" + changedSince);
+    InputStream is = wsClient.call(getRequest).contentStream();
+    parseIssues(is, consumer);
+  }
+
   private static void parseIssues(InputStream is, Function<ServerIssue, Void> consumer) {
     try {
       ServerIssue previousIssue = ServerIssue.parseDelimitedFrom(is);
@@ -26,4 +26,10 @@ public interface ServerIssuesLoader {
 
   void load(String componentKey, Function<ServerIssue, Void> consumer);
 
+  /**
+   * Loads the issues updated on server since the given timestamp, including the closed ones.
+   * @since 6.1
+   */
+  void load(String componentKey, long changedSince, Function<ServerIssue, Void> consumer);
+
 }
@@ -19,15 +19,31 @@
  */
 package org.sonar.scanner.rule;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.log.Profiler;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.bootstrap.BatchWsClient;
 import org.sonar.scanner.util.BatchUtils;
 import org.sonarqube.ws.Rules.Active;
@@ -37,36 +53,119 @@ import org.sonarqube.ws.Rules.ActiveList;
 import org.sonarqube.ws.Rules.Rule;
 import org.sonarqube.ws.Rules.SearchResponse;
 
+/**
+ * Loads the active rules of a Quality profile from {@code api/rules/search}. The first page gives the total number
+ * of rules, the remaining pages are then requested concurrently.
+ * <p/>
+ * When the date of last change of the rules of the profile is known, the pages are kept in the user cache
+ * ({@link FileCache}) and reused as long as the server returns the same date, so unchanged profiles are not
+ * downloaded again.
+ */
 public class DefaultActiveRulesLoader implements ActiveRulesLoader {
+  private static final Logger LOG = Loggers.get(DefaultActiveRulesLoader.class);
   private static final String RULES_SEARCH_URL = "/api/rules/search.protobuf?f=repo,name,severity,lang,internalKey,templateKey,params,actives&activation=true";
+  private static final String CACHE_FILENAME = "active_rules.pb";
+  private static final int PAGE_SIZE = 500;
+  private static final int MAX_CONCURRENT_PAGES = 4;
 
   private final BatchWsClient wsClient;
+  private final FileCache fileCache;
+  private final ModuleQProfiles qProfiles;
 
-  public DefaultActiveRulesLoader(BatchWsClient wsClient) {
+  public DefaultActiveRulesLoader(BatchWsClient wsClient, FileCache fileCache, ModuleQProfiles qProfiles) {
     this.wsClient = wsClient;
+    this.fileCache = fileCache;
+    this.qProfiles = qProfiles;
   }
 
   @Override
   public List<LoadedActiveRule> load(String qualityProfileKey) {
+    Profiler profiler = Profiler.create(LOG).start();
+    String cacheKey = cacheKey(qualityProfileKey);
+    List<SearchResponse> pages;
+    if (cacheKey == null) {
+      pages = download(qualityProfileKey);
+      profiler.stopInfo("Load active rules of quality profile " + qualityProfileKey);
+    } else {
+      AtomicBoolean downloaded = new AtomicBoolean(false);
+      File cachedFile = fileCache.getVersioned(CACHE_FILENAME, cacheKey, (filename, toFile) -> {
+        downloaded.set(true);
+        writePages(download(qualityProfileKey), toFile);
+      });
+      pages = readPages(cachedFile);
+      profiler.stopInfo("Load active rules of quality profile " + qualityProfileKey + (downloaded.get() ? "" : " (from cache)"));
+    }
+
     List<LoadedActiveRule> ruleList = new LinkedList<>();
-    int page = 1;
-    int pageSize = 500;
-    int loaded = 0;
-
-    while (true) {
-      GetRequest getRequest = new GetRequest(getUrl(qualityProfileKey, page, pageSize));
-      SearchResponse response = loadFromStream(wsClient.call(getRequest).contentStream());
-      List<LoadedActiveRule> pageRules = readPage(response);
-      ruleList.addAll(pageRules);
-      loaded += response.getPs();
-
-      if (response.getTotal() <= loaded) {
-        break;
+    for (SearchResponse page : pages) {
+      ruleList.addAll(readPage(page));
+    }
+    return ruleList;
+  }
+
+  /**
+   * The cache entry is identified by the server, the profile and the date of last change of its rules. Returns
+   * {@code null} if this date is unknown, in which case nothing is cached.
+   */
+  @CheckForNull
+  private String cacheKey(String qualityProfileKey) {
+    for (QProfile qProfile : qProfiles.findAll()) {
+      Date rulesUpdatedAt = qProfile.getRulesUpdatedAt();
+      if (qProfile.getKey().equals(qualityProfileKey) && rulesUpdatedAt != null) {
+        return DigestUtils.md5Hex(wsClient.baseUrl() + "|" + qualityProfileKey + "|" + rulesUpdatedAt.getTime());
       }
-      page++;
     }
+    return null;
+  }
 
-    return ruleList;
+  private List<SearchResponse> download(String qualityProfileKey) {
+    SearchResponse firstPage = loadPage(qualityProfileKey, 1);
+    List<SearchResponse> pages = new ArrayList<>();
+    pages.add(firstPage);
+
+    int pageCount = pageCount(firstPage);
+    if (pageCount > 1) {
+      ExecutorService executor = Executors.newFixedThreadPool(Math.min(pageCount - 1, MAX_CONCURRENT_PAGES),
+        new ThreadFactoryBuilder().setNameFormat("ActiveRulesLoader-%d").setDaemon(true).build());
+      try {
+        List<Future<SearchResponse>> futures = new ArrayList<>(pageCount - 1);
+        for (int page = 2; page <= pageCount; page++) {
+          int p = page;
+          futures.add(executor.submit(() -> loadPage(qualityProfileKey, p)));
+        }
+        for (Future<SearchResponse> future : futures) {
+          pages.add(waitFor(future));
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+    return pages;
+  }
+
+  private static int pageCount(SearchResponse firstPage) {
+    long pageSize = firstPage.getPs();
+    if (pageSize <= 0) {
+      return 1;
+    }
+    return (int) ((firstPage.getTotal() + pageSize - 1) / pageSize);
+  }
+
+  private static SearchResponse waitFor(Future<SearchResponse> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      // Unwrap ExecutionException
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private SearchResponse loadPage(String qualityProfileKey, int page) {
+    GetRequest getRequest = new GetRequest(getUrl(qualityProfileKey, page, PAGE_SIZE));
+    return loadFromStream(wsClient.call(getRequest).contentStream());
   }
 
   private static String getUrl(String qualityProfileKey, int page, int pageSize) {
@@ -88,6 +187,28 @@ public class DefaultActiveRulesLoader implements ActiveRulesLoader {
     }
   }
 
+  private static void writePages(List<SearchResponse> pages, File toFile) throws IOException {
+    try (OutputStream output = Files.newOutputStream(toFile.toPath())) {
+      for (SearchResponse page : pages) {
+        page.writeDelimitedTo(output);
+      }
+    }
+  }
+
+  private static List<SearchResponse> readPages(File file) {
+    List<SearchResponse> pages = new ArrayList<>();
+    try (InputStream input = Files.newInputStream(file.toPath())) {
+      SearchResponse page = SearchResponse.parseDelimitedFrom(input);
+      while (page != null) {
+        pages.add(page);
+        page = SearchResponse.parseDelimitedFrom(input);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read cached active rules from " + file, e);
+    }
+    return pages;
+  }
+
   private static List<LoadedActiveRule> readPage(SearchResponse response) {
     List<LoadedActiveRule> loadedRules = new LinkedList<>();
 
@@ -180,8 +180,11 @@ public class ModuleScanContainer extends ComponentContainer {
   protected void doAfterStart() {
     DefaultIndex index = getComponentByType(DefaultIndex.class);
     index.setCurrentProject(module, getComponentByType(DefaultSensorStorage.class));
-
-    getComponentByType(AbstractPhaseExecutor.class).execute(module);
+    try {
+      getComponentByType(AbstractPhaseExecutor.class).execute(module);
+    } finally {
+      index.unsetCurrentProject();
+    }
 
     // Free memory since module settings are no more used
     module.setSettings(null);
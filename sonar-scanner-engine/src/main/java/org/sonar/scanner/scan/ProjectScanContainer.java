@@ -20,6 +20,13 @@
 package org.sonar.scanner.scan;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.api.config.Settings;
@@ -29,6 +36,7 @@ import org.sonar.api.resources.ResourceTypes;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.log.Profiler;
 import org.sonar.core.metric.ScannerMetrics;
 import org.sonar.core.platform.ComponentContainer;
 import org.sonar.scanner.DefaultProjectTree;
@@ -84,6 +92,7 @@ import org.sonar.scanner.rule.DefaultRulesLoader;
 import org.sonar.scanner.rule.RulesLoader;
 import org.sonar.scanner.rule.RulesProvider;
 import org.sonar.scanner.scan.filesystem.InputPathCache;
+import org.sonar.scanner.scan.filesystem.ModuleIndexingOrder;
 import org.sonar.scanner.scan.measure.DefaultMetricFinder;
 import org.sonar.scanner.scan.measure.DeprecatedMetricFinder;
 import org.sonar.scanner.scan.measure.MeasureCache;
@@ -93,6 +102,12 @@ import org.sonar.scanner.test.TestableBuilder;
 
 public class ProjectScanContainer extends ComponentContainer {
 
+  /**
+   * Number of threads used to analyze the modules that have no sub-modules. By default modules are
+   * analyzed one after the other.
+   */
+  public static final String MODULE_THREADS_PROPERTY = "sonar.moduleThreads";
+
   private static final Logger LOG = Loggers.get(ProjectScanContainer.class);
 
   private final AnalysisProperties props;
@@ -148,6 +163,7 @@ public class ProjectScanContainer extends ComponentContainer {
 
       // file system
       InputPathCache.class,
+      ModuleIndexingOrder.class,
       PathResolver.class,
 
       // rules
@@ -223,12 +239,28 @@ public class ProjectScanContainer extends ComponentContainer {
     analysisMode.printMode();
     LOG.debug("Start recursive analysis of project modules");
     DefaultProjectTree tree = getComponentByType(DefaultProjectTree.class);
-    scanRecursively(tree.getRootProject());
+    Project rootProject = tree.getRootProject();
+    int threads = moduleThreads();
+    if (threads > 1) {
+      scanConcurrently(rootProject, threads);
+    } else {
+      scanRecursively(rootProject);
+    }
     if (analysisMode.isMediumTest()) {
       getComponentByType(ScanTaskObservers.class).notifyEndOfScanTask();
     }
   }
 
+  private int moduleThreads() {
+    Settings settings = getComponentByType(Settings.class);
+    int threads = settings.getInt(MODULE_THREADS_PROPERTY);
+    if (threads > 1 && settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
+      LOG.warn("Property {} is ignored as profiling of modules is enabled", MODULE_THREADS_PROPERTY);
+      return 1;
+    }
+    return threads;
+  }
+
   private void scanRecursively(Project module) {
     for (Project subModules : module.getModules()) {
       scanRecursively(subModules);
@@ -236,9 +268,100 @@ public class ProjectScanContainer extends ComponentContainer {
     scan(module);
   }
 
+  /**
+   * Modules that have no sub-modules do not depend on each other, so they are analyzed first on a bounded pool
+   * of threads. Their parents are then analyzed one after the other, in the same order as {@link #scanRecursively(Project)}.
+   * Files are indexed in the order of {@link ModuleIndexingOrder}, so that component refs are the same on each analysis.
+   */
+  private void scanConcurrently(Project rootProject, int threads) {
+    List<Project> leaves = new ArrayList<>();
+    List<Project> parents = new ArrayList<>();
+    collectModules(rootProject, leaves, parents);
+    if (leaves.size() < 2) {
+      scanRecursively(rootProject);
+      return;
+    }
+    List<Project> order = new ArrayList<>(leaves);
+    order.addAll(parents);
+    ModuleIndexingOrder indexingOrder = getComponentByType(ModuleIndexingOrder.class);
+    indexingOrder.define(order);
+
+    // components of the project container are instantiated lazily, which must not happen from several threads
+    getPicoContainer().getComponents();
+    List<ModuleScanContainer> containers = new ArrayList<>(leaves.size());
+    for (Project leaf : leaves) {
+      containers.add(new ModuleScanContainer(this, leaf));
+    }
+
+    int poolSize = Math.min(threads, leaves.size());
+    LOG.info("Analyze {} modules with {} threads", leaves.size(), poolSize);
+    ExecutorService executorService = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder().setNameFormat("Module-%d").build());
+    try {
+      List<Future<Void>> tasks = new ArrayList<>(leaves.size());
+      for (int i = 0; i < leaves.size(); i++) {
+        Project leaf = leaves.get(i);
+        ModuleScanContainer container = containers.get(i);
+        tasks.add(executorService.submit(() -> {
+          try {
+            execute(container, leaf);
+          } finally {
+            indexingOrder.done(leaf);
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> task : tasks) {
+        waitFor(task);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    for (Project parent : parents) {
+      scan(parent);
+    }
+  }
+
+  private static void collectModules(Project module, List<Project> leaves, List<Project> parents) {
+    if (module.getModules().isEmpty()) {
+      leaves.add(module);
+      return;
+    }
+    for (Project subModule : module.getModules()) {
+      collectModules(subModule, leaves, parents);
+    }
+    parents.add(module);
+  }
+
+  private static void waitFor(Future<Void> task) {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      // Unwrap ExecutionException
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
   @VisibleForTesting
   void scan(Project module) {
-    new ModuleScanContainer(this, module).execute();
+    execute(new ModuleScanContainer(this, module), module);
+  }
+
+  private static void execute(ModuleScanContainer container, Project module) {
+    Profiler profiler = Profiler.create(LOG).startInfo("Analyze module " + module.getName());
+    container.execute();
+    profiler.stopInfo();
+  }
+
+  /**
+   * Module containers analyzed concurrently are stopped, and so removed, from their own thread.
+   */
+  @Override
+  public synchronized ComponentContainer removeChild(ComponentContainer childToBeRemoved) {
+    return super.removeChild(childToBeRemoved);
   }
 
   static class BatchExtensionFilter implements ExtensionMatcher {
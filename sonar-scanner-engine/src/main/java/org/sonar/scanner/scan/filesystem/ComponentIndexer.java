@@ -42,17 +42,29 @@ public class ComponentIndexer {
   private final DefaultIndex sonarIndex;
   private final Project module;
   private final BatchComponentCache componentCache;
+  private final ModuleIndexingOrder indexingOrder;
 
-  public ComponentIndexer(Project module, Languages languages, DefaultIndex sonarIndex, BatchComponentCache componentCache) {
+  public ComponentIndexer(Project module, Languages languages, DefaultIndex sonarIndex, BatchComponentCache componentCache,
+    ModuleIndexingOrder indexingOrder) {
     this.module = module;
     this.languages = languages;
     this.sonarIndex = sonarIndex;
     this.componentCache = componentCache;
+    this.indexingOrder = indexingOrder;
   }
 
   public void execute(DefaultModuleFileSystem fs) {
     module.setBaseDir(fs.baseDir());
 
+    indexingOrder.awaitTurn(module);
+    try {
+      indexFiles(fs);
+    } finally {
+      indexingOrder.done(module);
+    }
+  }
+
+  private void indexFiles(DefaultModuleFileSystem fs) {
     for (InputFile inputFile : fs.inputFiles()) {
       String languageKey = inputFile.language();
       boolean unitTest = InputFile.Type.TEST == inputFile.type();
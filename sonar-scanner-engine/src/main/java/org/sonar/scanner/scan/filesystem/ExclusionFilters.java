@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.batch.fs.internal.PathPatternSet;
 import org.sonar.api.scan.filesystem.FileExclusions;
 
 @ScannerSide
@@ -34,20 +35,20 @@ public class ExclusionFilters {
 
   private final FileExclusions exclusionSettings;
 
-  private PathPattern[] mainInclusions;
-  private PathPattern[] mainExclusions;
-  private PathPattern[] testInclusions;
-  private PathPattern[] testExclusions;
+  private PathPatternSet mainInclusions;
+  private PathPatternSet mainExclusions;
+  private PathPatternSet testInclusions;
+  private PathPatternSet testExclusions;
 
   public ExclusionFilters(FileExclusions exclusions) {
     this.exclusionSettings = exclusions;
   }
 
   public void prepare() {
-    mainInclusions = prepareMainInclusions();
-    mainExclusions = prepareMainExclusions();
-    testInclusions = prepareTestInclusions();
-    testExclusions = prepareTestExclusions();
+    mainInclusions = new PathPatternSet(prepareMainInclusions());
+    mainExclusions = new PathPatternSet(prepareMainExclusions());
+    testInclusions = new PathPatternSet(prepareTestInclusions());
+    testExclusions = new PathPatternSet(prepareTestExclusions());
     log("Included sources: ", mainInclusions);
     log("Excluded sources: ", mainExclusions);
     log("Included tests: ", testInclusions);
@@ -55,21 +56,21 @@ public class ExclusionFilters {
   }
 
   public boolean hasPattern() {
-    return mainInclusions.length > 0 || mainExclusions.length > 0 || testInclusions.length > 0 || testExclusions.length > 0;
+    return !mainInclusions.isEmpty() || !mainExclusions.isEmpty() || !testInclusions.isEmpty() || !testExclusions.isEmpty();
   }
 
-  private static void log(String title, PathPattern[] patterns) {
-    if (patterns.length > 0) {
+  private static void log(String title, PathPatternSet patterns) {
+    if (!patterns.isEmpty()) {
       LOG.info(title);
-      for (PathPattern pattern : patterns) {
+      for (PathPattern pattern : patterns.patterns()) {
         LOG.info("  " + pattern);
       }
     }
   }
 
   public boolean accept(InputFile inputFile, InputFile.Type type) {
-    PathPattern[] inclusionPatterns;
-    PathPattern[] exclusionPatterns;
+    PathPatternSet inclusionPatterns;
+    PathPatternSet exclusionPatterns;
     if (InputFile.Type.MAIN == type) {
       inclusionPatterns = mainInclusions;
       exclusionPatterns = mainExclusions;
@@ -80,23 +81,10 @@ public class ExclusionFilters {
       throw new IllegalArgumentException("Unknown file type: " + type);
     }
 
-    if (inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (PathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(inputFile);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
-    }
-    if (exclusionPatterns.length > 0) {
-      for (PathPattern pattern : exclusionPatterns) {
-        if (pattern.match(inputFile)) {
-          return false;
-        }
-      }
+    if (!inclusionPatterns.isEmpty() && !inclusionPatterns.matchesAny(inputFile)) {
+      return false;
     }
-    return true;
+    return !exclusionPatterns.matchesAny(inputFile);
   }
 
   PathPattern[] prepareMainInclusions() {
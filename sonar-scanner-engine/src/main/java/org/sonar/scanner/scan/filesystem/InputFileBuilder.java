@@ -28,6 +28,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.api.config.Settings;
 import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsRegexpScanner;
 
 import javax.annotation.CheckForNull;
 
@@ -44,9 +45,11 @@ class InputFileBuilder {
   private final DefaultModuleFileSystem fs;
   private final Settings settings;
   private final FileMetadata fileMetadata;
+  private final IssueExclusionsRegexpScanner exclusionsScanner;
 
   InputFileBuilder(String moduleKey, PathResolver pathResolver, LanguageDetection langDetection,
-    StatusDetection statusDetection, DefaultModuleFileSystem fs, Settings settings, FileMetadata fileMetadata) {
+    StatusDetection statusDetection, DefaultModuleFileSystem fs, Settings settings, FileMetadata fileMetadata,
+    IssueExclusionsRegexpScanner exclusionsScanner) {
     this.moduleKey = moduleKey;
     this.pathResolver = pathResolver;
     this.langDetection = langDetection;
@@ -54,6 +57,7 @@ class InputFileBuilder {
     this.fs = fs;
     this.settings = settings;
     this.fileMetadata = fileMetadata;
+    this.exclusionsScanner = exclusionsScanner;
   }
 
   String moduleKey() {
@@ -101,7 +105,13 @@ class InputFileBuilder {
     }
     inputFile.setLanguage(lang);
 
-    inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), fs.encoding()));
+    // the content of the file is scanned for issue exclusions while it is read to compute metadata
+    FileMetadata.CharHandler exclusionsHandler = exclusionsScanner.createCharHandlerFor(inputFile.key());
+    if (exclusionsHandler == null) {
+      inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), fs.encoding()));
+    } else {
+      inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), fs.encoding(), exclusionsHandler));
+    }
 
     inputFile.setStatus(statusDetection.status(inputFile.moduleKey(), inputFile.relativePath(), inputFile.hash()));
 
@@ -19,74 +19,84 @@
  */
 package org.sonar.scanner.scan.filesystem;
 
-import com.google.common.collect.Table;
-import com.google.common.collect.TreeBasedTable;
+import com.google.common.collect.Iterables;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
 
-import javax.annotation.CheckForNull;
-
 /**
  * Cache of all files and dirs. This cache is shared amongst all project modules. Inclusion and
  * exclusion patterns are already applied.
+ * <p/>
+ * Modules can be indexed concurrently, so paths are stored in concurrent maps sorted by module key
+ * and relative path.
  */
 @ScannerSide
 public class InputPathCache {
 
-  private final Table<String, String, InputFile> inputFileCache = TreeBasedTable.create();
-  private final Table<String, String, InputDir> inputDirCache = TreeBasedTable.create();
+  private final ConcurrentNavigableMap<String, Map<String, InputFile>> inputFileCache = new ConcurrentSkipListMap<>();
+  private final ConcurrentNavigableMap<String, Map<String, InputDir>> inputDirCache = new ConcurrentSkipListMap<>();
 
   public Iterable<InputFile> allFiles() {
-    return inputFileCache.values();
+    return Iterables.concat(Iterables.transform(inputFileCache.values(), Map::values));
   }
 
   public Iterable<InputDir> allDirs() {
-    return inputDirCache.values();
+    return Iterables.concat(Iterables.transform(inputDirCache.values(), Map::values));
   }
 
   public Iterable<InputFile> filesByModule(String moduleKey) {
-    return inputFileCache.row(moduleKey).values();
+    return row(inputFileCache, moduleKey).values();
   }
 
   public Iterable<InputDir> dirsByModule(String moduleKey) {
-    return inputDirCache.row(moduleKey).values();
+    return row(inputDirCache, moduleKey).values();
   }
 
   public InputPathCache removeModule(String moduleKey) {
-    inputFileCache.row(moduleKey).clear();
-    inputDirCache.row(moduleKey).clear();
+    inputFileCache.remove(moduleKey);
+    inputDirCache.remove(moduleKey);
     return this;
   }
 
   public InputPathCache remove(String moduleKey, InputFile inputFile) {
-    inputFileCache.remove(moduleKey, inputFile.relativePath());
+    row(inputFileCache, moduleKey).remove(inputFile.relativePath());
     return this;
   }
 
   public InputPathCache remove(String moduleKey, InputDir inputDir) {
-    inputDirCache.remove(moduleKey, inputDir.relativePath());
+    row(inputDirCache, moduleKey).remove(inputDir.relativePath());
     return this;
   }
 
   public InputPathCache put(String moduleKey, InputFile inputFile) {
-    inputFileCache.put(moduleKey, inputFile.relativePath(), inputFile);
+    inputFileCache.computeIfAbsent(moduleKey, k -> new ConcurrentSkipListMap<>()).put(inputFile.relativePath(), inputFile);
     return this;
   }
 
   public InputPathCache put(String moduleKey, InputDir inputDir) {
-    inputDirCache.put(moduleKey, inputDir.relativePath(), inputDir);
+    inputDirCache.computeIfAbsent(moduleKey, k -> new ConcurrentSkipListMap<>()).put(inputDir.relativePath(), inputDir);
     return this;
   }
 
   @CheckForNull
   public InputFile getFile(String moduleKey, String relativePath) {
-    return inputFileCache.get(moduleKey, relativePath);
+    return row(inputFileCache, moduleKey).get(relativePath);
   }
 
   @CheckForNull
   public InputDir getDir(String moduleKey, String relativePath) {
-    return inputDirCache.get(moduleKey, relativePath);
+    return row(inputDirCache, moduleKey).get(relativePath);
+  }
+
+  private static <T> Map<String, T> row(Map<String, Map<String, T>> cache, String moduleKey) {
+    Map<String, T> row = cache.get(moduleKey);
+    return row != null ? row : Collections.<String, T>emptyMap();
   }
 
 }
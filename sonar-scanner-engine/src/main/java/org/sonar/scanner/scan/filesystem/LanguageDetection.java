@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.PathPattern;
+import org.sonar.api.batch.fs.internal.PathPatternSet;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
 import org.sonar.scanner.repository.language.Language;
@@ -35,6 +36,7 @@ import org.sonar.scanner.repository.language.LanguagesRepository;
 import javax.annotation.CheckForNull;
 
 import java.text.MessageFormat;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +53,11 @@ class LanguageDetection {
   private final Map<String, PathPattern[]> patternsByLanguage = Maps.newLinkedHashMap();
   private final List<String> languagesToConsider = Lists.newArrayList();
   private final String forcedLanguage;
+  /**
+   * Patterns of all the languages to consider, so that the patterns matching a file are found in a single pass
+   */
+  private final PathPatternSet patternsToConsider;
+  private final Map<PathPattern, String> languageByPattern = new IdentityHashMap<>();
 
   LanguageDetection(Settings settings, LanguagesRepository languages) {
     for (Language language : languages.all()) {
@@ -82,6 +89,15 @@ class LanguageDetection {
     } else {
       languagesToConsider.addAll(patternsByLanguage.keySet());
     }
+
+    List<PathPattern> patterns = Lists.newArrayList();
+    for (String languageKey : languagesToConsider) {
+      for (PathPattern pattern : patternsByLanguage.get(languageKey)) {
+        patterns.add(pattern);
+        languageByPattern.put(pattern, languageKey);
+      }
+    }
+    patternsToConsider = new PathPatternSet(patterns.toArray(new PathPattern[patterns.size()]));
   }
 
   Map<String, PathPattern[]> patternsByLanguage() {
@@ -91,15 +107,14 @@ class LanguageDetection {
   @CheckForNull
   String language(InputFile inputFile) {
     String detectedLanguage = null;
-    for (String languageKey : languagesToConsider) {
-      if (isCandidateForLanguage(inputFile, languageKey)) {
-        if (detectedLanguage == null) {
-          detectedLanguage = languageKey;
-        } else {
-          // Language was already forced by another pattern
-          throw MessageException.of(MessageFormat.format("Language of file ''{0}'' can not be decided as the file matches patterns of both {1} and {2}",
-            inputFile.relativePath(), getDetails(detectedLanguage), getDetails(languageKey)));
-        }
+    for (PathPattern pattern : patternsToConsider.matching(inputFile, false)) {
+      String languageKey = languageByPattern.get(pattern);
+      if (detectedLanguage == null) {
+        detectedLanguage = languageKey;
+      } else if (!detectedLanguage.equals(languageKey)) {
+        // Language was already forced by another pattern
+        throw MessageException.of(MessageFormat.format("Language of file ''{0}'' can not be decided as the file matches patterns of both {1} and {2}",
+          inputFile.relativePath(), getDetails(detectedLanguage), getDetails(languageKey)));
       }
     }
     if (detectedLanguage != null) {
@@ -115,18 +130,6 @@ class LanguageDetection {
     return null;
   }
 
-  private boolean isCandidateForLanguage(InputFile inputFile, String languageKey) {
-    PathPattern[] patterns = patternsByLanguage.get(languageKey);
-    if (patterns != null) {
-      for (PathPattern pathPattern : patterns) {
-        if (pathPattern.match(inputFile, false)) {
-          return true;
-        }
-      }
-    }
-    return false;
-  }
-
   private String getFileLangPatternPropKey(String languageKey) {
     return "sonar.lang.patterns." + languageKey;
   }
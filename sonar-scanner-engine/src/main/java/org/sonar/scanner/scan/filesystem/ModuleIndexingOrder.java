@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.resources.Project;
+
+/**
+ * Order in which the files of the modules are indexed as components. When modules are analyzed concurrently, a module
+ * waits for the modules preceding it to be indexed, so that the refs of components in the scanner report do not
+ * depend on the scheduling of threads. Modules are indexed as soon as they are analyzed when no order is defined.
+ *
+ * @since 6.1
+ */
+@ScannerSide
+public class ModuleIndexingOrder {
+
+  private final List<Project> order = new ArrayList<>();
+  private final Set<Project> indexed = new HashSet<>();
+
+  public synchronized void define(List<Project> modules) {
+    order.clear();
+    order.addAll(modules);
+    indexed.clear();
+  }
+
+  /**
+   * Blocks until all the modules preceding the given one are indexed, or have failed.
+   */
+  public synchronized void awaitTurn(Project module) {
+    while (!isTurnOf(module)) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for indexing of module " + module.getKey(), e);
+      }
+    }
+  }
+
+  /**
+   * Must be called once the module is indexed, or when its analysis fails.
+   */
+  public synchronized void done(Project module) {
+    indexed.add(module);
+    notifyAll();
+  }
+
+  private boolean isTurnOf(Project module) {
+    int position = order.indexOf(module);
+    for (int i = 0; i < position; i++) {
+      if (!indexed.contains(order.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
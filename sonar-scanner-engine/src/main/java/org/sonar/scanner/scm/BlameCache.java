@@ -0,0 +1,153 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.protocol.output.ScannerReport;
+
+/**
+ * Blame of the files of a module computed by the previous analysis on this machine. It's stored in the user cache
+ * of the scanner, so that it's kept between analyses, whatever the working directory and the data stored on server.
+ * The blame of a file is reused when its content has not changed, as identified by its hash, so that only
+ * the files modified since the previous analysis are blamed.
+ * <p/>
+ * Blame can be outdated if the history of the repository is rewritten without changing files. Property
+ * {@link ScmConfiguration#FORCE_RELOAD_KEY} ignores the cache.
+ */
+class BlameCache {
+
+  private static final Logger LOG = Loggers.get(BlameCache.class);
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path file;
+  private final Map<String, Entry> previousEntries;
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  private BlameCache(Path file, Map<String, Entry> previousEntries) {
+    this.file = file;
+    this.previousEntries = previousEntries;
+  }
+
+  static BlameCache load(File cacheDir, String moduleKey) {
+    Path file = cacheDir.toPath().resolve("_blame").resolve(DigestUtils.md5Hex(moduleKey) + ".dat");
+    Map<String, Entry> entries = new HashMap<>();
+    if (Files.exists(file)) {
+      try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+        read(input, entries);
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Fail to read the cache of SCM blame {}, all files will be blamed", file, e);
+        entries.clear();
+      }
+    }
+    return new BlameCache(file, entries);
+  }
+
+  private static void read(DataInputStream input, Map<String, Entry> entries) throws IOException {
+    if (input.readInt() != FORMAT_VERSION) {
+      return;
+    }
+    int count = input.readInt();
+    for (int i = 0; i < count; i++) {
+      String path = input.readUTF();
+      String hash = input.readUTF();
+      ScannerReport.Changesets changesets = ScannerReport.Changesets.parseDelimitedFrom(input);
+      entries.put(path, new Entry(hash, changesets));
+    }
+  }
+
+  /**
+   * Blame computed by a previous analysis for the same content of the file. Its component ref is not set.
+   * The entry is kept for the next analysis.
+   */
+  @CheckForNull
+  synchronized ScannerReport.Changesets get(InputFile inputFile) {
+    Entry entry = previousEntries.get(inputFile.relativePath());
+    if (entry == null || !entry.hash.equals(((DefaultInputFile) inputFile).hash())
+      || entry.changesets.getChangesetIndexByLineCount() != inputFile.lines()) {
+      return null;
+    }
+    entries.put(inputFile.relativePath(), entry);
+    return entry.changesets;
+  }
+
+  /**
+   * Called concurrently when files are blamed by several threads
+   */
+  synchronized void put(InputFile inputFile, ScannerReport.Changesets changesets) {
+    String hash = ((DefaultInputFile) inputFile).hash();
+    if (hash != null) {
+      entries.put(inputFile.relativePath(), new Entry(hash, changesets.toBuilder().clearComponentRef().build()));
+    }
+  }
+
+  /**
+   * Replaces the cache by the blame of the files of the current analysis, either reused or just computed.
+   * Failures are logged, the cache being an optimization only.
+   */
+  synchronized void save() {
+    Path tempFile = null;
+    try {
+      Files.createDirectories(file.getParent());
+      tempFile = Files.createTempFile(file.getParent(), "blame", ".tmp");
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+          output.writeUTF(entry.getKey());
+          output.writeUTF(entry.getValue().hash);
+          entry.getValue().changesets.writeDelimitedTo(output);
+        }
+      }
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.warn("Fail to write the cache of SCM blame {}", file, e);
+      if (tempFile != null) {
+        FileUtils.deleteQuietly(tempFile.toFile());
+      }
+    }
+  }
+
+  private static class Entry {
+    private final String hash;
+    private final ScannerReport.Changesets changesets;
+
+    private Entry(String hash, ScannerReport.Changesets changesets) {
+      this.hash = hash;
+      this.changesets = changesets;
+    }
+  }
+}
@@ -47,7 +47,27 @@ import org.sonar.scanner.scan.ImmutableProjectReactor;
     project = false,
     module = false,
     global = false,
-    type = PropertyType.BOOLEAN)
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = ScmConfiguration.BLAME_CACHE_KEY,
+    defaultValue = "true",
+    name = "Reuse SCM information of unchanged files",
+    description = "Blame of files is kept in the user cache of the scanner and reused by the next analyses on the same machine when the content of files is unchanged.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = ScmConfiguration.BLAME_THREADS_KEY,
+    defaultValue = "1",
+    name = "Number of threads blaming files",
+    description = "Files are split into as many groups as threads, each group being blamed concurrently. Use a value greater than 1 only if the SCM provider supports concurrent blames.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.INTEGER)
 })
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
@@ -55,6 +75,8 @@ public final class ScmConfiguration implements Startable {
   private static final Logger LOG = Loggers.get(ScmConfiguration.class);
 
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String BLAME_CACHE_KEY = "sonar.scm.blameCache";
+  public static final String BLAME_THREADS_KEY = "sonar.scm.blameThreads";
 
   private final ImmutableProjectReactor projectReactor;
   private final Settings settings;
@@ -147,6 +169,14 @@ public final class ScmConfiguration implements Startable {
     return settings.getBoolean(FORCE_RELOAD_KEY);
   }
 
+  public boolean useBlameCache() {
+    return !settings.hasKey(BLAME_CACHE_KEY) || settings.getBoolean(BLAME_CACHE_KEY);
+  }
+
+  public int blameThreads() {
+    return Math.max(1, settings.getInt(BLAME_THREADS_KEY));
+  }
+
   @Override
   public void stop() {
     // Nothing to do
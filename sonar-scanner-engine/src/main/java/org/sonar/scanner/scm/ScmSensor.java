@@ -19,25 +19,33 @@
  */
 package org.sonar.scanner.scm;
 
-import java.util.LinkedList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Status;
+import org.sonar.api.batch.scm.BlameCommand;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.index.BatchComponent;
 import org.sonar.scanner.index.BatchComponentCache;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Changesets.Builder;
 import org.sonar.scanner.report.ReportPublisher;
-import org.sonar.scanner.repository.FileData;
 import org.sonar.scanner.repository.ProjectRepositories;
 
 public final class ScmSensor implements Sensor {
@@ -50,15 +58,18 @@ public final class ScmSensor implements Sensor {
   private final ProjectRepositories projectRepositories;
   private final BatchComponentCache componentCache;
   private final ReportPublisher publishReportJob;
+  private final FileCache fileCache;
 
   public ScmSensor(ProjectDefinition projectDefinition, ScmConfiguration configuration,
-    ProjectRepositories projectRepositories, FileSystem fs, BatchComponentCache componentCache, ReportPublisher publishReportJob) {
+    ProjectRepositories projectRepositories, FileSystem fs, BatchComponentCache componentCache, ReportPublisher publishReportJob,
+    FileCache fileCache) {
     this.projectDefinition = projectDefinition;
     this.configuration = configuration;
     this.projectRepositories = projectRepositories;
     this.fs = fs;
     this.componentCache = componentCache;
     this.publishReportJob = publishReportJob;
+    this.fileCache = fileCache;
   }
 
   @Override
@@ -77,42 +88,108 @@ public final class ScmSensor implements Sensor {
       return;
     }
 
-    List<InputFile> filesToBlame = collectFilesToBlame();
-    if (!filesToBlame.isEmpty()) {
-      String key = configuration.provider().key();
-      LOG.info("SCM provider for this project is: " + key);
-      DefaultBlameOutput output = new DefaultBlameOutput(publishReportJob.getWriter(), componentCache, filesToBlame);
-      try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
-      } catch (Exception e) {
-        output.finish(false);
-        throw e;
+    BlameCache blameCache = configuration.useBlameCache() ? BlameCache.load(fileCache.getDir(), projectDefinition.getKeyWithBranch()) : null;
+    try {
+      List<InputFile> filesToBlame = collectFilesToBlame(blameCache);
+      if (!filesToBlame.isEmpty()) {
+        String key = configuration.provider().key();
+        LOG.info("SCM provider for this project is: " + key);
+        DefaultBlameOutput output = new DefaultBlameOutput(publishReportJob.getWriter(), componentCache, filesToBlame, blameCache);
+        try {
+          blame(filesToBlame, output);
+        } catch (Exception e) {
+          output.finish(false);
+          throw e;
+        }
+        output.finish(true);
+      }
+    } finally {
+      if (blameCache != null) {
+        blameCache.save();
       }
-      output.finish(true);
     }
   }
 
-  private List<InputFile> collectFilesToBlame() {
+  private void blame(List<InputFile> filesToBlame, DefaultBlameOutput output) {
+    BlameCommand blameCommand = configuration.provider().blameCommand();
+    int threads = Math.min(configuration.blameThreads(), filesToBlame.size());
+    if (threads <= 1) {
+      blameCommand.blame(new DefaultBlameInput(fs, filesToBlame), output);
+      return;
+    }
+
+    List<List<InputFile>> chunks = Lists.partition(filesToBlame, (filesToBlame.size() + threads - 1) / threads);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("SCM-blame-%d").build());
+    try {
+      List<Future<Void>> tasks = new ArrayList<>(chunks.size());
+      for (int i = 0; i < chunks.size(); i++) {
+        List<InputFile> chunk = chunks.get(i);
+        String chunkName = (i + 1) + "/" + chunks.size();
+        tasks.add(executorService.submit(() -> {
+          long start = System.currentTimeMillis();
+          blameCommand.blame(new DefaultBlameInput(fs, chunk), output);
+          LOG.info("Blame of chunk {} ({} files) done | time={}ms", chunkName, chunk.size(), System.currentTimeMillis() - start);
+          return null;
+        }));
+      }
+      for (Future<Void> task : tasks) {
+        waitFor(task);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static void waitFor(Future<Void> task) {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      // Unwrap ExecutionException
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private List<InputFile> collectFilesToBlame(@Nullable BlameCache blameCache) {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
     }
-    List<InputFile> filesToBlame = new LinkedList<>();
+    List<InputFile> filesToBlame = new ArrayList<>();
+    int reusedFromCache = 0;
     for (InputFile f : fs.inputFiles(fs.predicates().all())) {
-      if (configuration.forceReloadAll() || f.status() != Status.SAME) {
+      if (configuration.forceReloadAll()) {
         addIfNotEmpty(filesToBlame, f);
-      } else {
+      } else if (f.status() == Status.SAME && StringUtils.isNotEmpty(projectRepositories.fileData(projectDefinition.getKeyWithBranch(), f.relativePath()).revision())) {
         // File status is SAME so that mean fileData exists
-        FileData fileData = projectRepositories.fileData(projectDefinition.getKeyWithBranch(), f.relativePath());
-        if (StringUtils.isEmpty(fileData.revision())) {
-          addIfNotEmpty(filesToBlame, f);
-        } else {
-          askToCopyDataFromPreviousAnalysis(f);
+        askToCopyDataFromPreviousAnalysis(f);
+        if (blameCache != null) {
+          // keep the blame in cache for the next analyses
+          blameCache.get(f);
         }
+      } else if (blameCache != null && copyDataFromCache(f, blameCache)) {
+        reusedFromCache++;
+      } else {
+        addIfNotEmpty(filesToBlame, f);
       }
     }
+    if (reusedFromCache > 0) {
+      LOG.info("SCM information of {} unchanged files is reused from the cache", reusedFromCache);
+    }
     return filesToBlame;
   }
 
+  private boolean copyDataFromCache(InputFile f, BlameCache blameCache) {
+    ScannerReport.Changesets cached = blameCache.get(f);
+    if (cached == null) {
+      return false;
+    }
+    BatchComponent batchComponent = componentCache.get(f);
+    publishReportJob.getWriter().writeComponentChangesets(cached.toBuilder().setComponentRef(batchComponent.batchId()).build());
+    return true;
+  }
+
   private void askToCopyDataFromPreviousAnalysis(InputFile f) {
     BatchComponent batchComponent = componentCache.get(f);
     Builder scmBuilder = ScannerReport.Changesets.newBuilder();
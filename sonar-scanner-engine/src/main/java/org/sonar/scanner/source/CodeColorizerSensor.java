@@ -50,8 +50,8 @@ public final class CodeColorizerSensor implements Sensor {
   @Override
   public void execute(final SensorContext context) {
     FileSystem fs = context.fileSystem();
+    ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir());
     for (InputFile f : fs.inputFiles(fs.predicates().all())) {
-      ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir());
       int batchId = resourceCache.get(f).batchId();
       String language = f.language();
       if (reader.hasSyntaxHighlighting(batchId) || language == null) {
@@ -19,12 +19,15 @@
  */
 package org.sonar.scanner.source;
 
+import javax.annotation.CheckForNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.colorizer.HtmlCodeBuilder;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,10 +37,12 @@ public class HighlightingCodeBuilder extends HtmlCodeBuilder {
 
   private int currentOffset = 0;
   private static final Pattern START_TAG_PATTERN = Pattern.compile("<span class=\"(.+)\">");
-  private static final Pattern END_TAG_PATTERN = Pattern.compile("</span>");
+  private static final String END_TAG = "</span>";
   private int startOffset = -1;
-  private String cssClass;
+  private TypeOfText type;
   private final NewHighlighting highlighting;
+  // tokenizers always append the same few tags, so they are parsed only once
+  private final Map<String, TypeOfText> typesByStartTag = new HashMap<>();
 
   public HighlightingCodeBuilder(NewHighlighting highlighting) {
     this.highlighting = highlighting;
@@ -60,22 +65,31 @@ public class HighlightingCodeBuilder extends HtmlCodeBuilder {
   @Override
   public void appendWithoutTransforming(String htmlTag) {
     if (startOffset == -1) {
-      Matcher startMatcher = START_TAG_PATTERN.matcher(htmlTag);
-      if (startMatcher.matches()) {
+      type = typesByStartTag.get(htmlTag);
+      if (type == null) {
+        type = parseStartTag(htmlTag);
+      }
+      if (type != null) {
         startOffset = currentOffset;
-        cssClass = startMatcher.group(1);
-      } else {
-        LOG.warn("Expected to match highlighting start html tag but was: " + htmlTag);
       }
+    } else if (END_TAG.equals(htmlTag)) {
+      highlighting.highlight(startOffset, currentOffset, type);
+      startOffset = -1;
     } else {
-      Matcher endMatcher = END_TAG_PATTERN.matcher(htmlTag);
-      if (endMatcher.matches()) {
-        highlighting.highlight(startOffset, currentOffset, TypeOfText.forCssClass(cssClass));
-        startOffset = -1;
-      } else {
-        LOG.warn("Expected to match highlighting end html tag but was: " + htmlTag);
-      }
+      LOG.warn("Expected to match highlighting end html tag but was: " + htmlTag);
+    }
+  }
+
+  @CheckForNull
+  private TypeOfText parseStartTag(String htmlTag) {
+    Matcher startMatcher = START_TAG_PATTERN.matcher(htmlTag);
+    if (startMatcher.matches()) {
+      TypeOfText startType = TypeOfText.forCssClass(startMatcher.group(1));
+      typesByStartTag.put(htmlTag, startType);
+      return startType;
     }
+    LOG.warn("Expected to match highlighting start html tag but was: " + htmlTag);
+    return null;
   }
 
   @Override
@@ -274,6 +274,22 @@ public class BatchExtensionDictionnaryTest {
     selector.evaluateAnnotatedClasses(wrong, DependsUpon.class);
   }
 
+  @Test
+  public void areOrdered() {
+    BatchExtension dependedUpon = new ClassDependedUpon();
+    BatchExtension dependsUpon = new ClassDependsUpon();
+    BatchExtension pre = new PreSensor();
+    BatchExtension other = new FakeSensor();
+
+    BatchExtensionDictionnary selector = newSelector(dependedUpon, dependsUpon, pre, other);
+
+    assertThat(selector.areOrdered(dependedUpon, dependsUpon)).isTrue();
+    assertThat(selector.areOrdered(dependsUpon, dependedUpon)).isTrue();
+    assertThat(selector.areOrdered(pre, other)).isTrue();
+    assertThat(selector.areOrdered(dependedUpon, other)).isFalse();
+    assertThat(selector.areOrdered(other, dependsUpon)).isFalse();
+  }
+
   @Test
   public void dependsUponPhase() {
     BatchExtension pre = new PreSensor();
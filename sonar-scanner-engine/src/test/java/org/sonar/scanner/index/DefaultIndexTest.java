@@ -20,6 +20,9 @@
 package org.sonar.scanner.index;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -40,6 +43,7 @@ import org.sonar.scanner.scan.measure.MeasureCache;
 import org.sonar.scanner.sensor.DefaultSensorStorage;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -151,4 +155,52 @@ public class DefaultIndexTest {
     assertThat(index.getResource(moduleB1).getPath()).isEqualTo("moduleB1");
   }
 
+  @Test
+  public void other_threads_are_attributed_the_only_module_being_analyzed() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertThat(executor.submit(() -> index.getProject()).get()).isSameAs(project);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void reused_thread_does_not_keep_module_after_its_analysis() throws Exception {
+    index.unsetCurrentProject();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(() -> {
+        index.setCurrentProject(moduleA, mock(DefaultSensorStorage.class));
+        index.unsetCurrentProject();
+      }).get();
+
+      assertThat(executor.submit(() -> index.getProject()).get()).isSameAs(project);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void fail_to_access_resources_from_thread_without_module_when_modules_are_analyzed_concurrently() throws Exception {
+    ExecutorService moduleExecutor = Executors.newSingleThreadExecutor();
+    ExecutorService otherExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "other"));
+    try {
+      moduleExecutor.submit(() -> index.setCurrentProject(moduleA, mock(DefaultSensorStorage.class))).get();
+
+      assertThat(index.getProject()).isSameAs(project);
+      try {
+        otherExecutor.submit(() -> index.getProject()).get();
+        fail("An IllegalStateException should have been raised");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(IllegalStateException.class)
+          .hasMessage("Thread 'other' does not analyze any module, so it can't access the resources of the 2 modules " +
+            "being analyzed concurrently (see property sonar.moduleThreads)");
+      }
+    } finally {
+      moduleExecutor.shutdownNow();
+      otherExecutor.shutdownNow();
+    }
+  }
+
 }
@@ -58,6 +58,16 @@ public class IssuePatternTest {
     assertThat(new IssuePattern("org.*.??ar", "*").matchResource("plop")).isFalse();
   }
 
+  @Test
+  public void pattern_for_resource_matches_only_its_key() {
+    IssuePattern pattern = new IssuePattern("**", "checkstyle:*").forResource("src/*.java");
+
+    assertThat(pattern.matchResource("src/*.java")).isTrue();
+    assertThat(pattern.matchResource("src/Foo.java")).isFalse();
+    assertThat(pattern.matchResource(null)).isFalse();
+    assertThat(pattern.matchRule(Rule.create("checkstyle", "IllegalRegexp", "").ruleKey())).isTrue();
+  }
+
   @Test
   public void shouldMatchRule() {
     RuleKey rule = Rule.create("checkstyle", "IllegalRegexp", "").ruleKey();
@@ -20,11 +20,9 @@
 package org.sonar.scanner.issue.ignore.scanner;
 
 import java.io.File;
-import java.io.IOException;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
-import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -37,22 +35,14 @@ import org.sonar.scanner.issue.ignore.pattern.PatternMatcher;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class IssueExclusionsLoaderTest {
 
-  @Rule
-  public ExpectedException thrown = ExpectedException.none();
-
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
 
-  @Mock
-  private IssueExclusionsRegexpScanner regexpScanner;
-
   @Mock
   private IssueInclusionPatternInitializer inclusionPatternInitializer;
 
@@ -71,7 +61,7 @@ public class IssueExclusionsLoaderTest {
     baseDir = temp.newFolder();
     fs = new DefaultFileSystem(baseDir.toPath()).setEncoding(UTF_8);
     MockitoAnnotations.initMocks(this);
-    scanner = new IssueExclusionsLoader(regexpScanner, exclusionPatternInitializer, inclusionPatternInitializer, fs);
+    scanner = new IssueExclusionsLoader(exclusionPatternInitializer, inclusionPatternInitializer, fs);
   }
 
   @Test
@@ -100,57 +90,17 @@ public class IssueExclusionsLoaderTest {
   }
 
   @Test
-  public void shouldAnalyzeProject() throws IOException {
-    File javaFile1 = new File(baseDir, "src/main/java/Foo.java");
+  public void shouldAnalyzeProject() {
     fs.add(new DefaultInputFile("polop", "src/main/java/Foo.java")
       .setType(InputFile.Type.MAIN));
-    File javaTestFile1 = new File(baseDir, "src/test/java/FooTest.java");
     fs.add(new DefaultInputFile("polop", "src/test/java/FooTest.java")
       .setType(InputFile.Type.TEST));
 
-    when(exclusionPatternInitializer.hasFileContentPattern()).thenReturn(true);
-
     scanner.execute();
 
     verify(inclusionPatternInitializer).initializePatternsForPath("src/main/java/Foo.java", "polop:src/main/java/Foo.java");
     verify(inclusionPatternInitializer).initializePatternsForPath("src/test/java/FooTest.java", "polop:src/test/java/FooTest.java");
     verify(exclusionPatternInitializer).initializePatternsForPath("src/main/java/Foo.java", "polop:src/main/java/Foo.java");
     verify(exclusionPatternInitializer).initializePatternsForPath("src/test/java/FooTest.java", "polop:src/test/java/FooTest.java");
-    verify(regexpScanner).scan("polop:src/main/java/Foo.java", javaFile1, UTF_8);
-    verify(regexpScanner).scan("polop:src/test/java/FooTest.java", javaTestFile1, UTF_8);
-  }
-
-  @Test
-  public void shouldAnalyseFilesOnlyWhenRegexConfigured() {
-    File javaFile1 = new File(baseDir, "src/main/java/Foo.java");
-    fs.add(new DefaultInputFile("polop", "src/main/java/Foo.java")
-      .setType(InputFile.Type.MAIN));
-    File javaTestFile1 = new File(baseDir, "src/test/java/FooTest.java");
-    fs.add(new DefaultInputFile("polop", "src/test/java/FooTest.java")
-      .setType(InputFile.Type.TEST));
-    when(exclusionPatternInitializer.hasFileContentPattern()).thenReturn(false);
-
-    scanner.execute();
-
-    verify(inclusionPatternInitializer).initializePatternsForPath("src/main/java/Foo.java", "polop:src/main/java/Foo.java");
-    verify(inclusionPatternInitializer).initializePatternsForPath("src/test/java/FooTest.java", "polop:src/test/java/FooTest.java");
-    verify(exclusionPatternInitializer).initializePatternsForPath("src/main/java/Foo.java", "polop:src/main/java/Foo.java");
-    verify(exclusionPatternInitializer).initializePatternsForPath("src/test/java/FooTest.java", "polop:src/test/java/FooTest.java");
-    verifyZeroInteractions(regexpScanner);
-  }
-
-  @Test
-  public void shouldReportFailure() throws IOException {
-    File phpFile1 = new File(baseDir, "src/Foo.php");
-    fs.add(new DefaultInputFile("polop", "src/Foo.php")
-      .setType(InputFile.Type.MAIN));
-
-    when(exclusionPatternInitializer.hasFileContentPattern()).thenReturn(true);
-    doThrow(new IOException("BUG")).when(regexpScanner).scan("polop:src/Foo.php", phpFile1, UTF_8);
-
-    thrown.expect(IllegalStateException.class);
-    thrown.expectMessage("Unable to read the source file");
-
-    scanner.execute();
   }
 }
@@ -0,0 +1,175 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import com.google.common.base.Function;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.scanner.protocol.input.ScannerInput.ServerIssue;
+import org.sonar.scanner.repository.ServerIssuesLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServerIssuesStoreTest {
+
+  private static final long ANALYSIS_DATE = 1_000_000L;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File cacheDir;
+  private FakeLoader loader = new FakeLoader();
+
+  @Before
+  public void setUp() throws IOException {
+    cacheDir = temp.newFolder();
+  }
+
+  @Test
+  public void download_all_issues_when_no_copy() {
+    loader.issues.add(issue("A", 10L));
+    loader.issues.add(issue("B", 20L));
+
+    ServerIssuesStore store = sync(ANALYSIS_DATE);
+
+    assertThat(loader.changedSince).containsExactly((Long) null);
+    assertThat(keys(store)).containsExactly("A", "B");
+  }
+
+  @Test
+  public void download_only_issues_changed_since_previous_synchronization() {
+    loader.issues.add(issue("A", ANALYSIS_DATE - 10L));
+    loader.issues.add(issue("B", ANALYSIS_DATE + 20L));
+    sync(ANALYSIS_DATE);
+
+    loader.issues.clear();
+    loader.issues.add(issue("A", ANALYSIS_DATE + 30L).toBuilder().setStatus("CLOSED").build());
+    loader.issues.add(issue("C", ANALYSIS_DATE + 40L));
+    ServerIssuesStore store = sync(ANALYSIS_DATE);
+
+    assertThat(loader.changedSince).containsExactly(null, ANALYSIS_DATE + 20L - ServerIssuesStore.SYNC_MARGIN_MS);
+    assertThat(keys(store)).containsExactly("B", "C");
+
+    // new synchronization starts from the last update
+    loader.issues.clear();
+    sync(ANALYSIS_DATE);
+    assertThat(loader.changedSince).containsExactly(null, ANALYSIS_DATE + 20L - ServerIssuesStore.SYNC_MARGIN_MS,
+      ANALYSIS_DATE + 40L - ServerIssuesStore.SYNC_MARGIN_MS);
+  }
+
+  @Test
+  public void synchronization_of_copy_without_issues_starts_from_analysis_date() {
+    sync(ANALYSIS_DATE);
+
+    ServerIssuesStore store = sync(ANALYSIS_DATE);
+
+    assertThat(loader.changedSince).containsExactly(null, ANALYSIS_DATE - ServerIssuesStore.SYNC_MARGIN_MS);
+    assertThat(keys(store)).isEmpty();
+  }
+
+  @Test
+  public void synchronization_starts_from_analysis_date_when_issues_were_updated_before() {
+    loader.issues.add(issue("A", ANALYSIS_DATE - 10L));
+    sync(ANALYSIS_DATE);
+
+    sync(ANALYSIS_DATE);
+
+    assertThat(loader.changedSince).containsExactly(null, ANALYSIS_DATE - ServerIssuesStore.SYNC_MARGIN_MS);
+  }
+
+  @Test
+  public void download_all_issues_after_new_analysis_on_server() {
+    loader.issues.add(issue("A", 10L));
+    sync(ANALYSIS_DATE);
+
+    loader.issues.clear();
+    loader.issues.add(issue("B", 20L));
+    ServerIssuesStore store = sync(ANALYSIS_DATE + 1);
+
+    assertThat(loader.changedSince).containsExactly(null, null);
+    assertThat(keys(store)).containsExactly("B");
+  }
+
+  @Test
+  public void copies_are_isolated_by_server_and_project() {
+    loader.issues.add(issue("A", 10L));
+    sync(ANALYSIS_DATE);
+
+    new ServerIssuesStore(cacheDir, "http://other", "foo").sync(loader, "foo", ANALYSIS_DATE);
+    new ServerIssuesStore(cacheDir, "http://localhost", "bar").sync(loader, "bar", ANALYSIS_DATE);
+
+    assertThat(loader.changedSince).containsExactly(null, null, null);
+  }
+
+  @Test
+  public void read_issue_by_offset() {
+    loader.issues.add(issue("A", 10L));
+    loader.issues.add(issue("B", 20L).toBuilder().setPath("src/Foo.java").setLine(12).build());
+    ServerIssuesStore store = sync(ANALYSIS_DATE);
+
+    List<Integer> offsets = new ArrayList<>();
+    store.forEach((issue, offset) -> offsets.add(offset));
+
+    assertThat(store.read(offsets.get(1))).isEqualTo(loader.issues.get(1));
+    assertThat(store.read(offsets.get(0))).isEqualTo(loader.issues.get(0));
+  }
+
+  private ServerIssuesStore sync(long analysisDate) {
+    ServerIssuesStore store = new ServerIssuesStore(cacheDir, "http://localhost", "foo");
+    store.sync(loader, "foo", analysisDate);
+    return store;
+  }
+
+  private static ServerIssue issue(String key, long updatedAt) {
+    return ServerIssue.newBuilder().setKey(key).setModuleKey("foo").setStatus("OPEN").setUpdatedAt(updatedAt).build();
+  }
+
+  private static List<String> keys(ServerIssuesStore store) {
+    List<String> keys = new ArrayList<>();
+    store.forEach((issue, offset) -> keys.add(issue.getKey()));
+    return keys;
+  }
+
+  /**
+   * Returns all its issues, whatever the date of the previous synchronization
+   */
+  private static class FakeLoader implements ServerIssuesLoader {
+    private final List<ServerIssue> issues = new ArrayList<>();
+    private final List<Long> changedSince = new ArrayList<>();
+
+    @Override
+    public void load(String componentKey, Function<ServerIssue, Void> consumer) {
+      changedSince.add(null);
+      issues.forEach(consumer::apply);
+    }
+
+    @Override
+    public void load(String componentKey, long changedSince, Function<ServerIssue, Void> consumer) {
+      this.changedSince.add(changedSince);
+      issues.forEach(consumer::apply);
+    }
+  }
+}
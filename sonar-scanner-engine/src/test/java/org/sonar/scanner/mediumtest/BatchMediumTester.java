@@ -476,6 +476,15 @@ public class BatchMediumTester {
         consumer.apply(serverIssue);
       }
     }
+
+    @Override
+    public void load(String componentKey, long changedSince, Function<ServerIssue, Void> consumer) {
+      for (ServerIssue serverIssue : serverIssues) {
+        if (serverIssue.getUpdatedAt() >= changedSince) {
+          consumer.apply(serverIssue);
+        }
+      }
+    }
   }
 
   private static class FakeServerLineHashesLoader implements ServerLineHashesLoader {
@@ -293,4 +293,31 @@ public class FileSystemMediumTest {
     assertThat(result.inputDirs()).hasSize(4);
   }
 
+  @Test
+  public void scanMultiModuleProjectConcurrently() {
+    File projectDir = new File("src/test/resources/mediumtest/xoo/multi-modules-sample");
+    TaskResult serial = tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .start();
+    TaskResult concurrent = tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .property("sonar.moduleThreads", "4")
+      .start();
+    TaskResult otherConcurrent = tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .property("sonar.moduleThreads", "4")
+      .start();
+
+    assertThat(concurrent.inputFiles()).hasSize(4);
+    assertThat(concurrent.inputDirs()).hasSize(4);
+    assertThat(concurrent.allMeasures()).isEqualTo(serial.allMeasures());
+    for (InputFile inputFile : serial.inputFiles()) {
+      InputFile concurrentFile = concurrent.inputFile(inputFile.relativePath());
+      assertThat(concurrent.issuesFor(concurrentFile)).isEqualTo(serial.issuesFor(inputFile));
+      // component refs do not depend on the scheduling of threads
+      assertThat(concurrent.getReportComponent(concurrentFile.key()).getRef())
+        .isEqualTo(otherConcurrent.getReportComponent(concurrentFile.key()).getRef());
+    }
+  }
+
 }
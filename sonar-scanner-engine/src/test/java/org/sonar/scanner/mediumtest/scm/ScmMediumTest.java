@@ -22,8 +22,10 @@ package org.sonar.scanner.mediumtest.scm;
 import com.google.common.collect.ImmutableMap;
 import java.io.File;
 import java.io.IOException;
+import java.util.stream.Collectors;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -281,6 +283,107 @@ public class ScmMediumTest {
     assertThat(file2Scm).isNotNull();
   }
 
+  @Test
+  public void reuse_blame_of_unchanged_files_from_cache() throws IOException {
+    File baseDir = prepareProject();
+    TaskBuilder taskBuilder = tester.newTask()
+      .properties(ImmutableMap.<String, String>builder()
+        .put("sonar.task", "scan")
+        .put("sonar.projectBaseDir", baseDir.getAbsolutePath())
+        .put("sonar.projectKey", "com.foo.project")
+        .put("sonar.projectName", "Foo Project")
+        .put("sonar.projectVersion", "1.0-SNAPSHOT")
+        .put("sonar.sources", "src")
+        .put("sonar.scm.provider", "xoo")
+        .build());
+    taskBuilder.start();
+
+    // blame would fail without .scm file
+    FileUtils.deleteQuietly(new File(baseDir, "src/sample.xoo.scm"));
+    taskBuilder.start();
+
+    ScannerReport.Changesets fileScm = getChangesets(baseDir, "src/sample.xoo");
+    assertThat(fileScm.getChangesetIndexByLineList()).hasSize(5);
+    assertThat(fileScm.getChangeset(fileScm.getChangesetIndexByLine(4)).getAuthor()).isEqualTo("simon");
+    assertThat(logTester.logs()).contains("SCM information of 1 unchanged files is reused from the cache");
+  }
+
+  @Test
+  public void blame_chunks_of_files_concurrently() throws IOException {
+    File baseDir = prepareProject();
+    for (int i = 1; i <= 4; i++) {
+      FileUtils.write(new File(baseDir, "src/file" + i + ".xoo"), "Sample xoo\ncontent");
+      FileUtils.write(new File(baseDir, "src/file" + i + ".xoo.scm"),
+        // revision,author,dateTime
+        "1,author" + i + ",2013-01-04\n" +
+          "2,author" + i + ",2014-01-04\n");
+    }
+    TaskBuilder taskBuilder = tester.newTask()
+      .properties(ImmutableMap.<String, String>builder()
+        .put("sonar.task", "scan")
+        .put("sonar.projectBaseDir", baseDir.getAbsolutePath())
+        .put("sonar.projectKey", "com.foo.project")
+        .put("sonar.projectName", "Foo Project")
+        .put("sonar.projectVersion", "1.0-SNAPSHOT")
+        .put("sonar.sources", "src")
+        .put("sonar.scm.provider", "xoo")
+        .put("sonar.scm.blameThreads", "2")
+        .build());
+    taskBuilder.start();
+
+    assertBlameOfConcurrentlyBlamedFiles(baseDir);
+    assertThat(logTester.logs()).containsSubsequence("5 files to be analyzed", "5/5 files analyzed");
+    assertThat(logTester.logs().stream()
+      .filter(log -> log.startsWith("Blame of chunk "))
+      .map(log -> StringUtils.substringBefore(log, " | time="))
+      .collect(Collectors.toList()))
+        .containsOnly("Blame of chunk 1/2 (3 files) done", "Blame of chunk 2/2 (2 files) done");
+
+    // blame of all the chunks has been kept in cache
+    for (File scmFile : FileUtils.listFiles(new File(baseDir, "src"), new String[] {"scm"}, false)) {
+      FileUtils.deleteQuietly(scmFile);
+    }
+    taskBuilder.start();
+
+    assertBlameOfConcurrentlyBlamedFiles(baseDir);
+    assertThat(logTester.logs()).contains("SCM information of 5 unchanged files is reused from the cache");
+  }
+
+  private void assertBlameOfConcurrentlyBlamedFiles(File baseDir) {
+    ScannerReport.Changesets sampleScm = getChangesets(baseDir, "src/sample.xoo");
+    assertThat(sampleScm.getChangesetIndexByLineList()).hasSize(5);
+    assertThat(sampleScm.getChangeset(sampleScm.getChangesetIndexByLine(4)).getAuthor()).isEqualTo("simon");
+    for (int i = 1; i <= 4; i++) {
+      ScannerReport.Changesets fileScm = getChangesets(baseDir, "src/file" + i + ".xoo");
+      assertThat(fileScm.getChangesetIndexByLineList()).hasSize(2);
+      assertThat(fileScm.getChangesetList()).extracting(Changeset::getRevision).containsExactly("1", "2");
+      assertThat(fileScm.getChangesetList()).extracting(Changeset::getAuthor).containsOnly("author" + i);
+    }
+  }
+
+  @Test
+  public void fail_when_blame_of_a_chunk_fails() throws IOException {
+    File baseDir = prepareProject();
+    FileUtils.write(new File(baseDir, "src/other.xoo"), "Sample xoo\ncontent");
+    FileUtils.write(new File(baseDir, "src/other.xoo.scm"), "1,foo,2013-01-04\n2,bar\n");
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Not enough fields on line 2");
+
+    tester.newTask()
+      .properties(ImmutableMap.<String, String>builder()
+        .put("sonar.task", "scan")
+        .put("sonar.projectBaseDir", baseDir.getAbsolutePath())
+        .put("sonar.projectKey", "com.foo.project")
+        .put("sonar.projectName", "Foo Project")
+        .put("sonar.projectVersion", "1.0-SNAPSHOT")
+        .put("sonar.sources", "src")
+        .put("sonar.scm.provider", "xoo")
+        .put("sonar.scm.blameThreads", "2")
+        .build())
+      .start();
+  }
+
   @Test
   public void configureUsingScmURL() throws IOException {
 
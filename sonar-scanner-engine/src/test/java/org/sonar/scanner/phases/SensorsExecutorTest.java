@@ -0,0 +1,126 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.phases;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.resources.Project;
+import org.sonar.scanner.bootstrap.BatchExtensionDictionnary;
+import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.sensor.SensorWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SensorsExecutorTest {
+  SensorsExecutor executor;
+
+  Project project = new Project("project");
+  BatchExtensionDictionnary selector = mock(BatchExtensionDictionnary.class);
+  SensorContext context = mock(SensorContext.class);
+
+  @Before
+  public void setUp() {
+    executor = new SensorsExecutor(selector, project, mock(EventBus.class));
+  }
+
+  @Test
+  public void should_execute_sensors_in_order() {
+    Sensor sensor1 = mock(Sensor.class);
+    Sensor sensor2 = mock(Sensor.class);
+    when(selector.select(Sensor.class, project, true, null)).thenReturn(Arrays.asList(sensor1, sensor2));
+
+    executor.execute(context);
+
+    InOrder inOrder = inOrder(sensor1, sensor2);
+    inOrder.verify(sensor1).analyse(project, context);
+    inOrder.verify(sensor2).analyse(project, context);
+  }
+
+  @Test
+  public void should_execute_independent_thread_safe_sensors_concurrently() {
+    CountDownLatch latch = new CountDownLatch(2);
+    SensorWrapper sensor1 = new AwaitingSensor(latch);
+    SensorWrapper sensor2 = new AwaitingSensor(latch);
+    when(selector.select(Sensor.class, project, true, null)).thenReturn(Arrays.<Sensor>asList(sensor1, sensor2));
+
+    // would time out if sensors were executed one after the other
+    executor.execute(context);
+
+    assertThat(latch.getCount()).isZero();
+  }
+
+  @Test
+  public void should_not_execute_ordered_sensors_concurrently() {
+    SensorWrapper sensor1 = threadSafeSensor();
+    SensorWrapper sensor2 = threadSafeSensor();
+    when(selector.select(Sensor.class, project, true, null)).thenReturn(Arrays.<Sensor>asList(sensor1, sensor2));
+    when(selector.areOrdered(any(), any())).thenReturn(true);
+
+    executor.execute(context);
+
+    InOrder inOrder = inOrder(sensor1, sensor2);
+    inOrder.verify(sensor1).analyse(project, context);
+    inOrder.verify(sensor2).analyse(project, context);
+    verify(selector).areOrdered(sensor2, sensor1);
+  }
+
+  private static SensorWrapper threadSafeSensor() {
+    SensorWrapper sensor = mock(SensorWrapper.class);
+    when(sensor.isThreadSafe()).thenReturn(true);
+    return sensor;
+  }
+
+  private static class AwaitingSensor extends SensorWrapper {
+    private final CountDownLatch latch;
+
+    AwaitingSensor(CountDownLatch latch) {
+      super(mock(org.sonar.api.batch.sensor.Sensor.class), null, null);
+      this.latch = latch;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    public void analyse(Project module, SensorContext context) {
+      latch.countDown();
+      try {
+        if (!latch.await(10, TimeUnit.SECONDS)) {
+          throw new IllegalStateException("Sensors were not executed concurrently");
+        }
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
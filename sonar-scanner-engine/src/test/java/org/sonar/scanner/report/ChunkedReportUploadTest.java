@@ -0,0 +1,136 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonarqube.ws.WsCe;
+import org.sonarqube.ws.client.HttpException;
+import org.sonarqube.ws.client.MockWsResponse;
+import org.sonarqube.ws.client.PostRequest;
+import org.sonarqube.ws.client.WsRequest;
+import org.sonarqube.ws.client.WsResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ChunkedReportUploadTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private BatchWsClient wsClient = mock(BatchWsClient.class);
+  private FakeServer server = new FakeServer();
+  private File chunkFile;
+
+  @Before
+  public void setUp() throws IOException {
+    chunkFile = temp.newFile();
+    when(wsClient.call(any(WsRequest.class))).thenAnswer(server);
+  }
+
+  @Test
+  public void send_stream_by_chunks() throws IOException {
+    ChunkedReportUpload upload = new ChunkedReportUpload(wsClient, "foo", "branch", "ABCDE", chunkFile, 4);
+    upload.write(new byte[] {1, 2, 3});
+    upload.write(4);
+    upload.write(new byte[] {5, 6, 7, 8, 9, 10}, 1, 5);
+    upload.close();
+
+    assertThat(server.received.toByteArray()).isEqualTo(new byte[] {1, 2, 3, 4, 6, 7, 8, 9, 10});
+    assertThat(upload.uploadedBytes()).isEqualTo(9L);
+    assertThat(server.offsets).containsExactly("0", "4", "8");
+    assertThat(server.params.getParams())
+      .containsEntry("projectKey", "foo")
+      .containsEntry("projectBranch", "branch")
+      .containsEntry("uploadId", "ABCDE");
+  }
+
+  @Test
+  public void resend_only_the_bytes_not_received_by_server() throws IOException {
+    server.receivedBytesBeforeFailure = 2;
+    ChunkedReportUpload upload = new ChunkedReportUpload(wsClient, "foo", null, "ABCDE", chunkFile, 5);
+    upload.write(new byte[] {1, 2, 3, 4, 5, 6, 7});
+    upload.close();
+
+    assertThat(server.received.toByteArray()).isEqualTo(new byte[] {1, 2, 3, 4, 5, 6, 7});
+    assertThat(upload.uploadedBytes()).isEqualTo(7L);
+    // the failed request, the request for the number of received bytes, then the remaining bytes of the first chunk
+    assertThat(server.offsets).containsExactly("0", null, "2", "5");
+  }
+
+  @Test
+  public void do_not_retry_on_client_error() throws IOException {
+    server.receivedBytesBeforeFailure = 0;
+    server.failureCode = 403;
+    ChunkedReportUpload upload = new ChunkedReportUpload(wsClient, "foo", null, "ABCDE", chunkFile, 5);
+    upload.write(new byte[] {1, 2, 3});
+
+    thrown.expect(HttpException.class);
+    upload.close();
+  }
+
+  /**
+   * Appends chunks at the requested offset, as done by api/ce/upload_report
+   */
+  private static class FakeServer implements Answer<WsResponse> {
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private final List<String> offsets = new ArrayList<>();
+    private PostRequest params;
+    private int receivedBytesBeforeFailure = -1;
+    private int failureCode = 502;
+
+    @Override
+    public WsResponse answer(InvocationOnMock invocation) throws Throwable {
+      params = (PostRequest) invocation.getArguments()[0];
+      String offset = params.getParams().get("offset");
+      offsets.add(offset);
+      if (offset != null) {
+        assertThat(Long.parseLong(offset)).isEqualTo(received.size());
+        byte[] chunk = Files.readAllBytes(params.getParts().get("chunk").getFile().toPath());
+        if (receivedBytesBeforeFailure >= 0) {
+          received.write(chunk, 0, receivedBytesBeforeFailure);
+          receivedBytesBeforeFailure = -1;
+          throw new HttpException("http://localhost/api/ce/upload_report", failureCode);
+        }
+        received.write(chunk);
+      }
+      byte[] response = WsCe.UploadReportWsResponse.newBuilder().setUploadedBytes(received.size()).build().toByteArray();
+      return new MockWsResponse().setContent(response);
+    }
+  }
+}
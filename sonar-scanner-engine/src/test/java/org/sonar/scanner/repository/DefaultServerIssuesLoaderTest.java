@@ -73,6 +73,28 @@ public class DefaultServerIssuesLoaderTest {
     assertThat(result).extracting("key").containsExactly("ab1", "ab2");
   }
 
+  @Test
+  public void loadChangedIssuesFromWs() throws Exception {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ServerIssue.newBuilder().setKey("ab1").setStatus("CLOSED").build()
+      .writeDelimitedTo(bos);
+
+    InputStream is = new ByteArrayInputStream(bos.toByteArray());
+    WsTestUtil.mockStream(wsClient, "/batch/issues.protobuf?key=foo&changedSince=123", is);
+
+    final List<ServerIssue> result = new ArrayList<>();
+    loader.load("foo", 123L, new Function<ScannerInput.ServerIssue, Void>() {
+
+      @Override
+      public Void apply(ServerIssue input) {
+        result.add(input);
+        return null;
+      }
+    });
+
+    assertThat(result).extracting("key").containsExactly("ab1");
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testError() throws IOException {
     InputStream is = mock(InputStream.class);
@@ -19,63 +19,150 @@
  */
 package org.sonar.scanner.rule;
 
+import org.apache.commons.lang.StringUtils;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
 import org.sonar.scanner.WsTestUtil;
 import org.sonar.scanner.bootstrap.BatchWsClient;
 import org.sonar.scanner.rule.DefaultActiveRulesLoader;
 import org.sonar.scanner.rule.LoadedActiveRule;
+import org.sonarqube.ws.QualityProfiles.SearchWsResponse.QualityProfile;
 import com.google.common.io.Resources;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 import org.junit.Before;
 
 public class DefaultActiveRulesLoaderTest {
-  private DefaultActiveRulesLoader loader;
+  private static final String QP_KEY = "c+-test_c+-values-17445";
+  private static final String REQ1 = "/api/rules/search.protobuf?f=repo,name,severity,lang,internalKey,templateKey,params,actives&activation=true&qprofile=c%2B-test_c%2B-values-17445&p=1&ps=500";
+  private static final String REQ2 = "/api/rules/search.protobuf?f=repo,name,severity,lang,internalKey,templateKey,params,actives&activation=true&qprofile=c%2B-test_c%2B-values-17445&p=2&ps=500";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private FileCache fileCache;
   private BatchWsClient wsClient;
 
   @Before
-  public void setUp() {
+  public void setUp() throws IOException {
     wsClient = mock(BatchWsClient.class);
-    loader = new DefaultActiveRulesLoader(wsClient);
+    when(wsClient.baseUrl()).thenReturn("http://localhost:9000");
+    fileCache = FileCache.create(temp.newFolder(), mock(Logger.class));
   }
 
   @Test
   public void feed_real_response_encode_qp() throws IOException {
-    InputStream response1 = loadResource("active_rule_search1.protobuf");
-    InputStream response2 = loadResource("active_rule_search2.protobuf");
-
-    String req1 = "/api/rules/search.protobuf?f=repo,name,severity,lang,internalKey,templateKey,params,actives&activation=true&qprofile=c%2B-test_c%2B-values-17445&p=1&ps=500";
-    String req2 = "/api/rules/search.protobuf?f=repo,name,severity,lang,internalKey,templateKey,params,actives&activation=true&qprofile=c%2B-test_c%2B-values-17445&p=2&ps=500";
-    WsTestUtil.mockStream(wsClient, req1, response1);
-    WsTestUtil.mockStream(wsClient, req2, response2);
+    DefaultActiveRulesLoader loader = new DefaultActiveRulesLoader(wsClient, fileCache, profile(""));
+    mockResponses();
 
-    Collection<LoadedActiveRule> activeRules = loader.load("c+-test_c+-values-17445");
+    Collection<LoadedActiveRule> activeRules = loader.load(QP_KEY);
     assertThat(activeRules).hasSize(226);
     assertActiveRule(activeRules);
 
-    WsTestUtil.verifyCall(wsClient, req1);
-    WsTestUtil.verifyCall(wsClient, req2);
+    WsTestUtil.verifyCall(wsClient, REQ1);
+    WsTestUtil.verifyCall(wsClient, REQ2);
 
     verifyNoMoreInteractions(wsClient);
   }
 
+  @Test
+  public void reuse_cached_rules_while_profile_is_unchanged() throws IOException {
+    DefaultActiveRulesLoader loader = new DefaultActiveRulesLoader(wsClient, fileCache, profile("2016-08-01T10:00:00+0200"));
+    mockResponses();
+
+    assertThat(loader.load(QP_KEY)).hasSize(226);
+    Collection<LoadedActiveRule> activeRules = loader.load(QP_KEY);
+    assertThat(activeRules).hasSize(226);
+    assertActiveRule(activeRules);
+
+    // second load is served by the cache
+    WsTestUtil.verifyCall(wsClient, REQ1);
+    WsTestUtil.verifyCall(wsClient, REQ2);
+    assertThat(infoLogs()).containsExactly("Load active rules of quality profile " + QP_KEY,
+      "Load active rules of quality profile " + QP_KEY + " (from cache)");
+  }
+
+  @Test
+  public void download_rules_again_when_profile_is_changed() throws IOException {
+    DefaultActiveRulesLoader loader = new DefaultActiveRulesLoader(wsClient, fileCache, profile("2016-08-01T10:00:00+0200"));
+    mockResponses();
+    assertThat(loader.load(QP_KEY)).hasSize(226);
+
+    // rules of the profile changed on server
+    BatchWsClient otherWsClient = mock(BatchWsClient.class);
+    when(otherWsClient.baseUrl()).thenReturn("http://localhost:9000");
+    mockResponses(otherWsClient);
+    loader = new DefaultActiveRulesLoader(otherWsClient, fileCache, profile("2016-08-02T10:00:00+0200"));
+
+    Collection<LoadedActiveRule> activeRules = loader.load(QP_KEY);
+    assertThat(activeRules).hasSize(226);
+    assertActiveRule(activeRules);
+    WsTestUtil.verifyCall(otherWsClient, REQ1);
+    WsTestUtil.verifyCall(otherWsClient, REQ2);
+    assertThat(infoLogs()).containsExactly("Load active rules of quality profile " + QP_KEY,
+      "Load active rules of quality profile " + QP_KEY);
+  }
+
+  private List<String> infoLogs() {
+    return logTester.logs(LoggerLevel.INFO).stream()
+      .map(log -> StringUtils.substringBefore(log, " | time="))
+      .collect(Collectors.toList());
+  }
+
+  private void mockResponses() throws IOException {
+    mockResponses(wsClient);
+  }
+
+  private void mockResponses(BatchWsClient client) throws IOException {
+    WsTestUtil.mockStream(client, REQ1, loadResource("active_rule_search1.protobuf"));
+    WsTestUtil.mockStream(client, REQ2, loadResource("active_rule_search2.protobuf"));
+  }
+
+  private static ModuleQProfiles profile(String rulesUpdatedAt) {
+    QualityProfile qp = QualityProfile.newBuilder().setKey(QP_KEY).setLanguage("c++").setRulesUpdatedAt(rulesUpdatedAt).build();
+    return new ModuleQProfiles(Arrays.asList(qp));
+  }
+
   private static void assertActiveRule(Collection<LoadedActiveRule> activeRules) {
-    RuleKey key = RuleKey.of("squid", "S3008");
-    for (LoadedActiveRule r : activeRules) {
-      if (!r.getRuleKey().equals(key)) {
-        continue;
-      }
-
-      assertThat(r.getParams().get("format")).isEqualTo("^[a-z][a-zA-Z0-9]*$");
-      assertThat(r.getSeverity()).isEqualTo("MINOR");
-    }
+    Map<RuleKey, LoadedActiveRule> byKey = activeRules.stream().collect(Collectors.toMap(LoadedActiveRule::getRuleKey, r -> r));
+
+    // first page
+    LoadedActiveRule rule = byKey.get(RuleKey.of("squid", "S1192"));
+    assertThat(rule.getSeverity()).isEqualTo("MINOR");
+    assertThat(rule.getParams()).containsOnly(entry("threshold", "3"));
+
+    // second page
+    rule = byKey.get(RuleKey.of("squid", "S3008"));
+    assertThat(rule.getName()).isEqualTo("Static non-final field names should comply with a naming convention");
+    assertThat(rule.getLanguage()).isEqualTo("java");
+    assertThat(rule.getInternalKey()).isEqualTo("S3008");
+    assertThat(rule.getSeverity()).isEqualTo("MINOR");
+    assertThat(rule.getParams()).containsOnly(entry("format", "^[a-z][a-zA-Z0-9]*$"));
+
+    rule = byKey.get(RuleKey.of("squid", "S2273"));
+    assertThat(rule.getSeverity()).isEqualTo("CRITICAL");
+    assertThat(rule.getParams()).isEmpty();
   }
 
   private InputStream loadResource(String name) throws IOException {
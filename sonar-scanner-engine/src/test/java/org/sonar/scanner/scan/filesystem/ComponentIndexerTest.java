@@ -112,7 +112,7 @@ public class ComponentIndexerTest {
     BatchComponentCache resourceCache = mock(BatchComponentCache.class);
     when(resourceCache.get(any(Resource.class)))
       .thenReturn(new BatchComponent(2, org.sonar.api.resources.File.create("foo.php"), new BatchComponent(1, Directory.create("src"), null)));
-    return new ComponentIndexer(project, languages, sonarIndex, resourceCache);
+    return new ComponentIndexer(project, languages, sonarIndex, resourceCache, new ModuleIndexingOrder());
   }
 
   @Test
@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sonar.api.resources.Project;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModuleIndexingOrderTest {
+
+  private Project moduleA = new Project("a");
+  private Project moduleB = new Project("b");
+
+  @Test
+  public void do_not_wait_when_no_order_is_defined() {
+    ModuleIndexingOrder order = new ModuleIndexingOrder();
+
+    order.awaitTurn(moduleB);
+    order.awaitTurn(moduleA);
+  }
+
+  @Test
+  public void wait_for_indexing_of_previous_modules() throws InterruptedException {
+    ModuleIndexingOrder order = new ModuleIndexingOrder();
+    order.define(Arrays.asList(moduleA, moduleB));
+
+    CountDownLatch indexedB = new CountDownLatch(1);
+    Thread thread = new Thread(() -> {
+      order.awaitTurn(moduleB);
+      indexedB.countDown();
+    });
+    thread.start();
+
+    assertThat(indexedB.await(100, TimeUnit.MILLISECONDS)).isFalse();
+    order.awaitTurn(moduleA);
+    order.done(moduleA);
+    assertThat(indexedB.await(10, TimeUnit.SECONDS)).isTrue();
+    thread.join();
+  }
+
+  @Test
+  public void module_out_of_order_does_not_wait() {
+    ModuleIndexingOrder order = new ModuleIndexingOrder();
+    order.define(Arrays.asList(moduleA, moduleB));
+
+    order.awaitTurn(new Project("c"));
+  }
+}
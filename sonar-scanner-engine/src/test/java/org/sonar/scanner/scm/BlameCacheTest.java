@@ -0,0 +1,100 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import java.io.File;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.scanner.protocol.output.ScannerReport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BlameCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File cacheDir;
+
+  @Before
+  public void prepare() throws Exception {
+    cacheDir = temp.newFolder();
+  }
+
+  @Test
+  public void empty_cache() {
+    BlameCache cache = BlameCache.load(cacheDir, "foo");
+
+    assertThat(cache.get(newFile("src/Foo.java", "abc", 2))).isNull();
+  }
+
+  @Test
+  public void reuse_blame_of_unchanged_files() {
+    BlameCache cache = BlameCache.load(cacheDir, "foo");
+    cache.put(newFile("src/Foo.java", "abc", 2), newChangesets(2));
+    cache.put(newFile("src/Bar.java", "def", 1), newChangesets(1));
+    cache.save();
+
+    BlameCache reloaded = BlameCache.load(cacheDir, "foo");
+    ScannerReport.Changesets changesets = reloaded.get(newFile("src/Foo.java", "abc", 2));
+    assertThat(changesets).isNotNull();
+    assertThat(changesets.getComponentRef()).isEqualTo(0);
+    assertThat(changesets.getChangesetIndexByLineList()).containsExactly(0, 0);
+    assertThat(changesets.getChangeset(0).getRevision()).isEqualTo("rev1");
+    // content changed
+    assertThat(reloaded.get(newFile("src/Bar.java", "xyz", 1))).isNull();
+
+    // another module
+    assertThat(BlameCache.load(cacheDir, "other").get(newFile("src/Foo.java", "abc", 2))).isNull();
+  }
+
+  @Test
+  public void only_files_of_last_analysis_are_kept() {
+    BlameCache cache = BlameCache.load(cacheDir, "foo");
+    cache.put(newFile("src/Foo.java", "abc", 2), newChangesets(2));
+    cache.put(newFile("src/Bar.java", "def", 1), newChangesets(1));
+    cache.save();
+
+    cache = BlameCache.load(cacheDir, "foo");
+    assertThat(cache.get(newFile("src/Foo.java", "abc", 2))).isNotNull();
+    cache.save();
+
+    cache = BlameCache.load(cacheDir, "foo");
+    assertThat(cache.get(newFile("src/Foo.java", "abc", 2))).isNotNull();
+    assertThat(cache.get(newFile("src/Bar.java", "def", 1))).isNull();
+  }
+
+  private static DefaultInputFile newFile(String path, String hash, int lines) {
+    return new DefaultInputFile("foo", path).setHash(hash).setLines(lines);
+  }
+
+  private static ScannerReport.Changesets newChangesets(int lines) {
+    ScannerReport.Changesets.Builder builder = ScannerReport.Changesets.newBuilder()
+      .setComponentRef(12)
+      .addChangeset(ScannerReport.Changesets.Changeset.newBuilder().setRevision("rev1").setAuthor("john").setDate(123456789L));
+    for (int i = 0; i < lines; i++) {
+      builder.addChangesetIndexByLine(0);
+    }
+    return builder.build();
+  }
+}
@@ -56,7 +56,7 @@ public class DefaultBlameOutputTest {
   public void shouldNotFailIfNotSameNumberOfLines() {
     InputFile file = new DefaultInputFile("foo", "src/main/java/Foo.java").setLines(10);
 
-    new DefaultBlameOutput(null, null, Arrays.asList(file)).blameResult(file, Arrays.asList(new BlameLine().revision("1").author("guy")));
+    new DefaultBlameOutput(null, null, Arrays.asList(file), null).blameResult(file, Arrays.asList(new BlameLine().revision("1").author("guy")));
   }
 
   @Test
@@ -66,7 +66,7 @@ public class DefaultBlameOutputTest {
     thrown.expect(IllegalArgumentException.class);
     thrown.expectMessage("It was not expected to blame file src/main/java/Foo.java");
 
-    new DefaultBlameOutput(null, null, Arrays.<InputFile>asList(new DefaultInputFile("foo", "src/main/java/Foo2.java")))
+    new DefaultBlameOutput(null, null, Arrays.<InputFile>asList(new DefaultInputFile("foo", "src/main/java/Foo2.java")), null)
       .blameResult(file, Arrays.asList(new BlameLine().revision("1").author("guy")));
   }
 
@@ -77,7 +77,7 @@ public class DefaultBlameOutputTest {
     thrown.expect(IllegalArgumentException.class);
     thrown.expectMessage("Blame date is null for file src/main/java/Foo.java at line 1");
 
-    new DefaultBlameOutput(null, componentCache, Arrays.<InputFile>asList(file))
+    new DefaultBlameOutput(null, componentCache, Arrays.<InputFile>asList(file), null)
       .blameResult(file, Arrays.asList(new BlameLine().revision("1").author("guy")));
   }
 
@@ -88,7 +88,7 @@ public class DefaultBlameOutputTest {
     thrown.expect(IllegalArgumentException.class);
     thrown.expectMessage("Blame revision is blank for file src/main/java/Foo.java at line 1");
 
-    new DefaultBlameOutput(null, componentCache, Arrays.<InputFile>asList(file))
+    new DefaultBlameOutput(null, componentCache, Arrays.<InputFile>asList(file), null)
       .blameResult(file, Arrays.asList(new BlameLine().date(new Date()).author("guy")));
   }
 
@@ -0,0 +1,105 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.db.protobuf.DbFileSources;
+
+/**
+ * Decoration of the lines of a file in HTML, as done by api/sources/lines: {@link HtmlLineDecorator},
+ * {@link HtmlTextDecorator} which it replaces for single lines, and {@link HtmlSourceDecorator} when lines are
+ * already cached. Located in the package of the decorators, which are not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HtmlLineDecoratorBenchmark {
+
+  private static final int LINES = 1_000;
+  private static final String DATA_HASH = "data_hash";
+
+  private final DbFileSources.Line[] lines = new DbFileSources.Line[LINES];
+  private final HtmlSourceDecorator cachedDecorator = new HtmlSourceDecorator();
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42L);
+    for (int i = 0; i < LINES; i++) {
+      String variable = "value" + random.nextInt(100);
+      String literal = "\"<some & string " + random.nextInt(100) + ">\"";
+      // public int valueXX = compute(valueXX, "<some & string XX>"); // comment
+      String source = "  public int " + variable + " = compute(" + variable + ", " + literal + "); // comment";
+      int variableStart = 13;
+      int variableEnd = variableStart + variable.length();
+      int secondVariableStart = variableEnd + 11;
+      int secondVariableEnd = secondVariableStart + variable.length();
+      int literalStart = secondVariableEnd + 2;
+      int literalEnd = literalStart + literal.length();
+      int commentStart = literalEnd + 3;
+      lines[i] = DbFileSources.Line.newBuilder()
+        .setLine(i + 1)
+        .setSource(source)
+        .setHighlighting("2,8,k;9,12,k;" + literalStart + "," + literalEnd + ",s;" + commentStart + "," + source.length() + ",cd")
+        .setSymbols(variableStart + "," + variableEnd + ",1;" + secondVariableStart + "," + secondVariableEnd + ",1")
+        .build();
+      cachedDecorator.getDecoratedSourceAsHtml(DATA_HASH, lines[i]);
+    }
+  }
+
+  @Benchmark
+  public void lineDecorator(Blackhole blackhole) {
+    for (DbFileSources.Line line : lines) {
+      blackhole.consume(HtmlLineDecorator.decorate(line.getSource(), line.getHighlighting(), line.getSymbols()));
+    }
+  }
+
+  @Benchmark
+  public void textDecorator(Blackhole blackhole) {
+    HtmlTextDecorator textDecorator = new HtmlTextDecorator();
+    for (DbFileSources.Line line : lines) {
+      DecorationDataHolder decorationDataHolder = new DecorationDataHolder();
+      decorationDataHolder.loadSyntaxHighlightingData(line.getHighlighting());
+      decorationDataHolder.loadLineSymbolReferences(line.getSymbols());
+      blackhole.consume(textDecorator.decorateTextWithHtml(line.getSource(), decorationDataHolder, 1, 1));
+    }
+  }
+
+  @Benchmark
+  public void cachedLines(Blackhole blackhole) {
+    for (DbFileSources.Line line : lines) {
+      blackhole.consume(cachedDecorator.getDecoratedSourceAsHtml(DATA_HASH, line));
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
+
+/**
+ * The metrics of {@link CoreMetrics}, without the database used by
+ * {@link org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryImpl}
+ */
+class CoreMetricRepository implements MetricRepository {
+
+  private final List<Metric> metrics = new ArrayList<>();
+  private final Map<String, Metric> metricsByKey = new HashMap<>();
+  private final Map<Long, Metric> metricsById = new HashMap<>();
+
+  CoreMetricRepository() {
+    int id = 1;
+    for (org.sonar.api.measures.Metric<?> coreMetric : CoreMetrics.getMetrics()) {
+      Metric metric = new MetricImpl(id, coreMetric.getKey(), coreMetric.getName(), Metric.MetricType.valueOf(coreMetric.getType().name()),
+        coreMetric.getDecimalScale(), coreMetric.getBestValue(), false);
+      metrics.add(metric);
+      metricsByKey.put(metric.getKey(), metric);
+      metricsById.put((long) id, metric);
+      id++;
+    }
+  }
+
+  @Override
+  public Metric getByKey(String key) {
+    Metric metric = metricsByKey.get(key);
+    if (metric == null) {
+      throw new IllegalStateException(String.format("Metric with key '%s' does not exist", key));
+    }
+    return metric;
+  }
+
+  @Override
+  public Metric getById(long id) {
+    Metric metric = metricsById.get(id);
+    if (metric == null) {
+      throw new IllegalStateException(String.format("Metric with id '%s' does not exist", id));
+    }
+    return metric;
+  }
+
+  @Override
+  public Iterable<Metric> getAll() {
+    return metrics;
+  }
+}
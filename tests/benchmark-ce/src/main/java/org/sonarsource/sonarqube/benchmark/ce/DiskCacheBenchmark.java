@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
+import org.sonar.server.util.cache.DiskCache;
+
+/**
+ * Serialization of the issues of a project into the {@link IssueCache} of the Compute Engine, and reading of
+ * these issues, as done by the steps which persist, index and notify issues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DiskCacheBenchmark {
+
+  @Param({"10000", "100000"})
+  public int issues;
+
+  private final List<DefaultIssue> input = new ArrayList<>();
+  private File dir;
+  private IssueCache filledCache;
+
+  @Setup
+  public void setUp() throws IOException {
+    Random random = new Random(SyntheticReport.SEED);
+    Date now = new Date();
+    for (int i = 0; i < issues; i++) {
+      int line = 1 + random.nextInt(1_000);
+      input.add(new DefaultIssue()
+        .setKey("issue" + i)
+        .setRuleKey(RuleKey.of(SyntheticReport.RULE_REPOSITORY, "S" + random.nextInt(50)))
+        .setComponentUuid("uuid-" + (i / 10))
+        .setComponentKey(SyntheticReport.PROJECT_KEY + ":src/main/java/Class" + (i / 10) + ".java")
+        .setProjectUuid("uuid-1")
+        .setProjectKey(SyntheticReport.PROJECT_KEY)
+        .setLanguage(SyntheticReport.LANGUAGE)
+        .setSeverity(Severity.MAJOR)
+        .setMessage("Message " + random.nextInt(50))
+        .setLine(line)
+        .setChecksum("h" + line)
+        .setStatus(Issue.STATUS_OPEN)
+        .setCreationDate(now)
+        .setUpdateDate(now)
+        .setNew(true));
+    }
+    dir = Files.createTempDirectory("disk-cache").toFile();
+    filledCache = new IssueCache(new File(dir, "filled"), System2.INSTANCE);
+    append(filledCache);
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Benchmark
+  public IssueCache append() {
+    IssueCache cache = new IssueCache(new File(dir, "appended"), System2.INSTANCE);
+    append(cache);
+    return cache;
+  }
+
+  private void append(IssueCache cache) {
+    try (DiskCache<DefaultIssue>.DiskAppender appender = cache.newAppender()) {
+      for (DefaultIssue issue : input) {
+        appender.append(issue);
+      }
+    }
+  }
+
+  @Benchmark
+  public void traverse(Blackhole blackhole) {
+    try (CloseableIterator<DefaultIssue> issuesIt = filledCache.traverse()) {
+      while (issuesIt.hasNext()) {
+        blackhole.consume(issuesIt.next());
+      }
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+
+/**
+ * Latency of reading a range of lines from the column FILE_SOURCES.BINARY_DATA, as done by api/sources/lines
+ * and the source viewer, depending on the size of the file and of the range. The same data is encoded
+ * as a single compressed message, the format written by versions prior to 6.1, and in chunks of lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileSourceRangeBenchmark {
+
+  @Param({"1000", "10000", "50000"})
+  public int lines;
+
+  /**
+   * Number of requested lines, starting from the middle of the file. 0 means the whole file.
+   */
+  @Param({"50", "500", "0"})
+  public int range;
+
+  private final FileSourceDto dto = new FileSourceDto();
+  private byte[] singleBlockData;
+  private byte[] chunkedData;
+  private int from;
+  private int toInclusive;
+
+  @Setup
+  public void setUp() throws IOException {
+    Random random = new Random(SyntheticReport.SEED);
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    for (int line = 1; line <= lines; line++) {
+      data.addLinesBuilder()
+        .setLine(line)
+        .setSource("    int value" + line + " = compute(" + random.nextInt(1_000) + ", \"some string literal\");")
+        .setScmRevision("rev" + random.nextInt(100))
+        .setScmAuthor("author" + random.nextInt(10))
+        .setScmDate(1_400_000_000_000L + random.nextInt(1_000_000))
+        .setUtLineHits(random.nextInt(3))
+        .setOverallLineHits(random.nextInt(3))
+        .setHighlighting("0,3,k;4,9,c;28,49,s")
+        .setSymbols("4,9," + line);
+    }
+    DbFileSources.Data message = data.build();
+
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      message.writeTo(compressedOutput);
+    }
+    singleBlockData = byteOutput.toByteArray();
+    chunkedData = FileSourceDto.encodeSourceData(message);
+
+    if (range == 0) {
+      from = 1;
+      toInclusive = lines;
+    } else {
+      from = lines / 2;
+      toInclusive = from + range - 1;
+    }
+  }
+
+  @Benchmark
+  public DbFileSources.Data singleBlock() {
+    return dto.decodeSourceData(singleBlockData, from, toInclusive);
+  }
+
+  @Benchmark
+  public DbFileSources.Data chunked() {
+    return dto.decodeSourceData(chunkedData, from, toInclusive);
+  }
+}
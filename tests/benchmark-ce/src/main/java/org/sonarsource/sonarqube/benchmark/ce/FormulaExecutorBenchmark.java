@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderImpl;
+import org.sonar.server.computation.task.projectanalysis.duplication.Duplicate;
+import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
+import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepositoryImpl;
+import org.sonar.server.computation.task.projectanalysis.duplication.InnerDuplicate;
+import org.sonar.server.computation.task.projectanalysis.duplication.TextBlock;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryImpl;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
+import org.sonar.server.computation.task.projectanalysis.period.PeriodsHolderImpl;
+import org.sonar.server.computation.task.projectanalysis.step.CommentMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.ComplexityMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.ComputeFormulaMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.CoverageMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.DuplicationMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.LanguageDistributionMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.NewCoverageMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.SizeMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.UnitTestMeasuresStep;
+
+/**
+ * Execution by {@link ComputeFormulaMeasuresStep} of the formulas of size, coverage, comment, duplication,
+ * language distribution, test and complexity measures on the tree of components of a report. Measures of files
+ * are loaded from the report by a new {@link MeasureRepositoryImpl} on each invocation. There is no leak period,
+ * as on the first analysis of a project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FormulaExecutorBenchmark {
+
+  @Param({"1000", "10000"})
+  public int files;
+
+  private ReportTree tree;
+  private final MetricRepository metricRepository = new CoreMetricRepository();
+  private final TreeRootHolderImpl treeRootHolder = new TreeRootHolderImpl();
+  private final PeriodsHolderImpl periodsHolder = new PeriodsHolderImpl();
+  private final DuplicationRepositoryImpl duplicationRepository = new DuplicationRepositoryImpl();
+
+  @Setup
+  public void setUp() {
+    tree = new ReportTree(new SyntheticReport().setFiles(files).fixture());
+    treeRootHolder.setRoot(tree.root());
+    periodsHolder.setPeriods(Collections.emptyList());
+    for (Component file : tree.files()) {
+      try (CloseableIterator<ScannerReport.Duplication> duplications = tree.reader().readComponentDuplications(file.getReportAttributes().getRef())) {
+        while (duplications.hasNext()) {
+          ScannerReport.Duplication duplication = duplications.next();
+          ScannerReport.TextRange duplicate = duplication.getDuplicate(0).getRange();
+          duplicationRepository.add(file, new Duplication(
+            new TextBlock(duplication.getOriginPosition().getStartLine(), duplication.getOriginPosition().getEndLine()),
+            Collections.<Duplicate>singletonList(new InnerDuplicate(new TextBlock(duplicate.getStartLine(), duplicate.getEndLine())))));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public MeasureRepository computeFormulaMeasures() {
+    // database is used only by base measures, which are not read as there is no leak period
+    MeasureRepository measureRepository = new MeasureRepositoryImpl(null, tree.reader(), metricRepository, metricKey -> true);
+    new ComputeFormulaMeasuresStep(treeRootHolder, metricRepository, measureRepository, periodsHolder,
+      new SizeMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new NewCoverageMeasuresStep(treeRootHolder, periodsHolder, measureRepository, metricRepository),
+      new CoverageMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new CommentMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new DuplicationMeasuresStep(treeRootHolder, metricRepository, measureRepository, duplicationRepository),
+      new LanguageDistributionMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new UnitTestMeasuresStep(treeRootHolder, metricRepository, measureRepository),
+      new ComplexityMeasuresStep(treeRootHolder, metricRepository, measureRepository))
+        .execute();
+    return measureRepository;
+  }
+}
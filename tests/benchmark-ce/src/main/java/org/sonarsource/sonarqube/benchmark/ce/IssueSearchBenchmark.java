@@ -0,0 +1,198 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.node.NodeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.config.Settings;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.System2;
+import org.sonar.core.platform.ComponentContainer;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.es.IndexCreator;
+import org.sonar.server.es.IndexDefinitions;
+import org.sonar.server.es.SearchOptions;
+import org.sonar.server.es.SearchResult;
+import org.sonar.server.issue.IssueQuery;
+import org.sonar.server.issue.index.IssueAuthorizationCache;
+import org.sonar.server.issue.index.IssueAuthorizationDao;
+import org.sonar.server.issue.index.IssueAuthorizationIndexer;
+import org.sonar.server.issue.index.IssueDoc;
+import org.sonar.server.issue.index.IssueIndex;
+import org.sonar.server.issue.index.IssueIndexDefinition;
+import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.user.AbstractUserSession;
+
+/**
+ * Latency of searches of issues by a user who can browse all the projects, according to the number of projects.
+ * The authorized projects are either read from {@link IssueAuthorizationCache}, or resolved again before each search,
+ * as after a change of permissions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IssueSearchBenchmark {
+
+  private static final int ISSUES_PER_PROJECT = 20;
+  private static final String GROUP = "sonar-users";
+
+  @Param({"100", "1000", "10000"})
+  public int projects;
+
+  private Path esDir;
+  private Node node;
+  private ComponentContainer container;
+  private IssueAuthorizationCache authorizationCache;
+  private IssueIndex issueIndex;
+  private BenchmarkUserSession userSession;
+
+  @Setup
+  public void setUp() throws IOException {
+    esDir = Files.createTempDirectory("es");
+    node = NodeBuilder.nodeBuilder().local(true).data(true).settings(org.elasticsearch.common.settings.Settings.builder()
+      .put("cluster.name", "benchmark")
+      .put("node.name", "benchmark")
+      .put("http.enabled", false)
+      .put("config.ignore_system_properties", true)
+      .put("path.home", esDir))
+      .build();
+    node.start();
+    node.client().admin().cluster().prepareHealth().setWaitForGreenStatus().get();
+
+    EsClient esClient = new EsClient(node.client());
+    container = new ComponentContainer();
+    container.addSingletons(new Settings(), esClient, IssueIndexDefinition.class, IndexDefinitions.class, IndexCreator.class);
+    container.startComponents();
+
+    authorizationCache = new IssueAuthorizationCache(esClient, System2.INSTANCE);
+    userSession = new BenchmarkUserSession().setLogin("john").setUserGroups(GROUP);
+    issueIndex = new IssueIndex(esClient, System2.INSTANCE, userSession, authorizationCache);
+
+    List<IssueAuthorizationDao.Dto> authorizations = new ArrayList<>();
+    for (int i = 0; i < projects; i++) {
+      authorizations.add(new IssueAuthorizationDao.Dto(projectUuid(i), 1_000L).addGroup(GROUP));
+    }
+    new IssueAuthorizationIndexer(null, esClient, authorizationCache).index(authorizations);
+    new IssueIndexer(null, esClient).index(issues());
+  }
+
+  private Iterator<IssueDoc> issues() {
+    Random random = new Random(SyntheticReport.SEED);
+    Date date = new Date(1_500_000_000_000L);
+    List<IssueDoc> docs = new ArrayList<>();
+    for (int i = 0; i < projects * ISSUES_PER_PROJECT; i++) {
+      String projectUuid = projectUuid(i / ISSUES_PER_PROJECT);
+      String fileUuid = projectUuid + "-file" + random.nextInt(10);
+      docs.add(new IssueDoc()
+        .setKey("issue" + i)
+        .setRuleKey(RuleKey.of(SyntheticReport.RULE_REPOSITORY, "S" + random.nextInt(50)).toString())
+        .setType(RuleType.CODE_SMELL)
+        .setLanguage(SyntheticReport.LANGUAGE)
+        .setProjectUuid(projectUuid)
+        .setModuleUuid(projectUuid)
+        .setModuleUuidPath("." + projectUuid + ".")
+        .setComponentUuid(fileUuid)
+        .setFilePath("src/" + fileUuid + ".java")
+        .setDirectoryPath("src")
+        .setMessage("Message " + random.nextInt(50))
+        .setLine(1 + random.nextInt(1_000))
+        .setSeverity(Severity.MAJOR)
+        .setManualSeverity(false)
+        .setStatus(Issue.STATUS_OPEN)
+        .setEffort(10L)
+        .setFuncCreationDate(date)
+        .setFuncUpdateDate(date)
+        .setTechnicalUpdateDate(date));
+    }
+    return docs.iterator();
+  }
+
+  private static String projectUuid(int index) {
+    return "project" + index;
+  }
+
+  @TearDown
+  public void tearDown() {
+    container.stopComponents();
+    node.close();
+    FileUtils.deleteQuietly(esDir.toFile());
+  }
+
+  @Benchmark
+  public SearchResult<IssueDoc> search() {
+    return issueIndex.search(IssueQuery.builder(userSession).build(), new SearchOptions());
+  }
+
+  @Benchmark
+  public SearchResult<IssueDoc> searchAfterChangeOfPermissions() {
+    authorizationCache.invalidate();
+    return issueIndex.search(IssueQuery.builder(userSession).build(), new SearchOptions());
+  }
+
+  private static class BenchmarkUserSession extends AbstractUserSession<BenchmarkUserSession> {
+    BenchmarkUserSession() {
+      super(BenchmarkUserSession.class);
+    }
+
+    @Override
+    public List<String> globalPermissions() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean hasComponentPermission(String permission, String componentKey) {
+      return true;
+    }
+
+    @Override
+    public boolean hasComponentUuidPermission(String permission, String componentUuid) {
+      return true;
+    }
+  }
+}
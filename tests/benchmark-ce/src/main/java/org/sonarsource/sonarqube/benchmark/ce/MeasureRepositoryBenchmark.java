@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryImpl;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
+
+/**
+ * Raw measures of {@link MeasureRepositoryImpl}: loading of the measures of files from the report, and addition
+ * then update of computed measures on all the components, as done by the formulas. Base measures, which are
+ * read from database, are not involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MeasureRepositoryBenchmark {
+
+  @Param({"1000", "10000"})
+  public int files;
+
+  private ReportTree tree;
+  private MetricRepository metricRepository;
+  private final List<Metric> reportMetrics = new ArrayList<>();
+  private final List<Metric> computedMetrics = new ArrayList<>();
+  private final List<Component> components = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    tree = new ReportTree(new SyntheticReport().setFiles(files).fixture());
+    metricRepository = new CoreMetricRepository();
+    for (org.sonar.api.measures.Metric<?> metric : SyntheticReport.FILE_METRICS) {
+      reportMetrics.add(metricRepository.getByKey(metric.getKey()));
+    }
+    computedMetrics.add(metricRepository.getByKey(CoreMetrics.FILES_KEY));
+    computedMetrics.add(metricRepository.getByKey(CoreMetrics.DIRECTORIES_KEY));
+    computedMetrics.add(metricRepository.getByKey(CoreMetrics.VIOLATIONS_KEY));
+    collect(tree.root());
+  }
+
+  private void collect(Component component) {
+    components.add(component);
+    for (Component child : component.getChildren()) {
+      collect(child);
+    }
+  }
+
+  private MeasureRepository newRepository() {
+    // database is used only by base measures
+    return new MeasureRepositoryImpl(null, tree.reader(), metricRepository, metricKey -> true);
+  }
+
+  @Benchmark
+  public void loadReportMeasures(Blackhole blackhole) {
+    MeasureRepository repository = newRepository();
+    for (Component file : tree.files()) {
+      for (Metric metric : reportMetrics) {
+        blackhole.consume(repository.getRawMeasure(file, metric));
+      }
+    }
+  }
+
+  @Benchmark
+  public MeasureRepository addAndUpdateComputedMeasures() {
+    MeasureRepository repository = newRepository();
+    for (Component component : components) {
+      for (Metric metric : computedMetrics) {
+        repository.add(component, metric, Measure.newMeasureBuilder().create(1));
+      }
+    }
+    for (Component component : components) {
+      for (Metric metric : computedMetrics) {
+        int value = repository.getRawMeasure(component, metric).get().getIntValue();
+        repository.update(component, metric, Measure.newMeasureBuilder().create(value + 1));
+      }
+    }
+    return repository;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentImpl;
+import org.sonar.server.computation.task.projectanalysis.measure.ColumnarRawMeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureVariations;
+import org.sonar.server.computation.task.projectanalysis.measure.QualityGateStatus;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
+
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+/**
+ * Heap retained by the raw measures of a project, stored in a {@link MapBasedRawMeasureRepository} and in a
+ * {@link ColumnarRawMeasureRepository}. Files get the usual size, issue and debt measures, half of them with
+ * variations of new code, and the project gets in addition the measures of the quality gate.
+ * <p>
+ * Number of components is set by the system property "components", 200,000 by default. Heap is read after
+ * explicit GCs before and after the filling of each repository, for example:
+ * <pre>java -Xmx4g -Dcomponents=200000 -cp benchmarks.jar org.sonarsource.sonarqube.benchmark.ce.MeasureRepositoryHeapHarness</pre>
+ * </p>
+ */
+public class MeasureRepositoryHeapHarness {
+
+  private static final List<String> FILE_METRIC_KEYS = Arrays.asList(
+    CoreMetrics.LINES_KEY, CoreMetrics.NCLOC_KEY, CoreMetrics.STATEMENTS_KEY, CoreMetrics.FUNCTIONS_KEY, CoreMetrics.CLASSES_KEY,
+    CoreMetrics.COMPLEXITY_KEY, CoreMetrics.COMMENT_LINES_KEY, CoreMetrics.COMMENT_LINES_DENSITY_KEY, CoreMetrics.VIOLATIONS_KEY,
+    CoreMetrics.CODE_SMELLS_KEY, CoreMetrics.BUGS_KEY, CoreMetrics.VULNERABILITIES_KEY, CoreMetrics.TECHNICAL_DEBT_KEY,
+    CoreMetrics.NCLOC_DATA_KEY);
+  private static final List<String> NEW_CODE_METRIC_KEYS = Arrays.asList(
+    CoreMetrics.NEW_VIOLATIONS_KEY, CoreMetrics.NEW_TECHNICAL_DEBT_KEY, CoreMetrics.NEW_LINES_TO_COVER_KEY, CoreMetrics.NEW_UNCOVERED_LINES_KEY);
+
+  private final MetricRepository metricRepository = new CoreMetricRepository();
+  private final List<Component> files = new ArrayList<>();
+  private final Component project;
+
+  private MeasureRepositoryHeapHarness(int components) {
+    for (int ref = 2; ref <= components; ref++) {
+      files.add(ComponentImpl.builder(ScannerReport.Component.newBuilder().setRef(ref).setType(ScannerReport.Component.ComponentType.FILE)
+        .setPath("src/File" + ref + ".java").build())
+        .setKey(SyntheticReport.PROJECT_KEY + ":src/File" + ref + ".java")
+        .setUuid("uuid-" + ref)
+        .build());
+    }
+    project = ComponentImpl.builder(ScannerReport.Component.newBuilder().setRef(1).setType(ScannerReport.Component.ComponentType.PROJECT).build())
+      .setKey(SyntheticReport.PROJECT_KEY)
+      .setUuid("uuid-1")
+      .addChildren(files.toArray(new Component[files.size()]))
+      .build();
+  }
+
+  public static void main(String[] args) {
+    MeasureRepositoryHeapHarness harness = new MeasureRepositoryHeapHarness(Integer.getInteger("components", 200_000));
+    System.out.printf("%-15s %12s%n", "Repository", "Heap (MB)");
+    harness.print("map", new MapBasedRawMeasureRepository<>(Component::getUuid));
+    harness.print("columnar", new ColumnarRawMeasureRepository<>(Component::getUuid));
+  }
+
+  private void print(String name, MeasureRepository repository) {
+    long before = usedHeap();
+    fill(repository);
+    long after = usedHeap();
+    System.out.printf("%-15s %12d%n", name, (after - before) / (1024 * 1024));
+    // keeps the repository reachable until the heap is read
+    repository.getRawMeasure(project, metricRepository.getByKey(CoreMetrics.ALERT_STATUS_KEY));
+  }
+
+  private void fill(MeasureRepository repository) {
+    int i = 0;
+    for (Component file : files) {
+      for (String metricKey : FILE_METRIC_KEYS) {
+        repository.add(file, metricRepository.getByKey(metricKey), newMeasure(metricRepository.getByKey(metricKey), i));
+      }
+      if (i % 2 == 0) {
+        for (String metricKey : NEW_CODE_METRIC_KEYS) {
+          repository.add(file, metricRepository.getByKey(metricKey),
+            newMeasureBuilder().setVariations(new MeasureVariations((double) i, null, (double) i)).createNoValue());
+        }
+      }
+      i++;
+    }
+    for (String metricKey : FILE_METRIC_KEYS) {
+      repository.add(project, metricRepository.getByKey(metricKey), newMeasure(metricRepository.getByKey(metricKey), i));
+    }
+    repository.add(project, metricRepository.getByKey(CoreMetrics.ALERT_STATUS_KEY), newMeasureBuilder()
+      .setQualityGateStatus(new QualityGateStatus(Measure.Level.OK))
+      .create(Measure.Level.OK));
+    repository.add(project, metricRepository.getByKey(CoreMetrics.QUALITY_GATE_DETAILS_KEY), newMeasureBuilder()
+      .create("{\"level\":\"OK\",\"conditions\":[]}"));
+  }
+
+  private static Measure newMeasure(Metric metric, int i) {
+    switch (metric.getType().getValueType()) {
+      case INT:
+        return newMeasureBuilder().create(i % 1_000);
+      case LONG:
+        return newMeasureBuilder().create((long) i * 10);
+      case DOUBLE:
+        return newMeasureBuilder().create((i % 1_000) / 10d, 1);
+      case STRING:
+        return newMeasureBuilder().create("1=1;2=1;3=0;4=1");
+      default:
+        throw new IllegalArgumentException("Unsupported metric type " + metric.getType());
+    }
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,353 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.database.DatabaseProperties;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.RuleStatus;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.api.web.UserRole;
+import org.sonar.ce.container.ComputeEngineContainerImpl;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.report.ReportFiles;
+import org.sonar.ce.settings.ThreadLocalSettings;
+import org.sonar.core.platform.ComponentContainer;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DdlUtils;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.permission.template.PermissionTemplateDto;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.db.profiling.StatementStatistics;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.process.NetworkUtils;
+import org.sonar.process.ProcessId;
+import org.sonar.process.ProcessProperties;
+import org.sonar.process.Props;
+import org.sonar.search.SearchServer;
+import org.sonar.server.activity.index.ActivityIndexDefinition;
+import org.sonar.server.component.index.ComponentIndexDefinition;
+import org.sonar.server.computation.task.container.TaskContainer;
+import org.sonar.server.computation.task.projectanalysis.container.ContainerFactory;
+import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ComputationSteps;
+import org.sonar.server.es.IndexCreator;
+import org.sonar.server.es.IndexDefinitions;
+import org.sonar.server.issue.index.IssueIndexDefinition;
+import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
+import org.sonar.server.permission.DefaultPermissionTemplates;
+import org.sonar.server.rule.index.RuleIndexDefinition;
+import org.sonar.server.startup.RegisterMetrics;
+import org.sonar.server.test.index.TestIndexDefinition;
+import org.sonar.server.user.index.UserIndexDefinition;
+import org.sonar.server.view.index.ViewIndexDefinition;
+
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_PROCESS_INDEX;
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+
+/**
+ * Load harness of the processing of analysis reports. The Compute Engine container is started on an embedded H2
+ * database and an in-process Elasticsearch node, then synthetic reports of the same project are processed one after
+ * the other, so that the first analysis creates the project and the next ones track its issues. Steps are executed
+ * one by one, as done by {@link org.sonar.server.computation.task.step.ComputationStepExecutor}, and the duration,
+ * the memory allocated and the SQL statements of each step are printed and written into {@code target/ce-steps.json}.
+ * <p/>
+ * The report and the number of analyses are configured by the system properties {@code files}, {@code lines},
+ * {@code issues}, {@code measures}, {@code duplications}, {@code coverage}, {@code rules} and {@code analyses}:
+ * <pre>
+ *   java -Dfiles=10000 -Danalyses=2 -cp target/benchmarks.jar org.sonarsource.sonarqube.benchmark.ce.ReportProcessingHarness
+ * </pre>
+ */
+public class ReportProcessingHarness implements AutoCloseable {
+
+  private static final String JDBC_URL = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+  private static final String JDBC_LOGIN = "sonar";
+  private static final String PROJECT_UUID = "benchmark-project";
+  private static final long FIRST_ANALYSIS_DATE = 1_500_000_000_000L;
+  private static final long ONE_DAY = 24L * 60 * 60 * 1000;
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private final File workDir;
+  private Connection connection;
+  private SearchServer searchServer;
+  private HarnessContainer computeEngine;
+  private ComponentContainer container;
+  private DbClient dbClient;
+
+  public ReportProcessingHarness(File workDir) {
+    this.workDir = workDir;
+  }
+
+  public static void main(String[] args) throws Exception {
+    SyntheticReport report = new SyntheticReport()
+      .setFiles(Integer.getInteger("files", 1_000))
+      .setLinesPerFile(Integer.getInteger("lines", 200))
+      .setIssuesPerFile(Integer.getInteger("issues", 10))
+      .setMeasuresPerFile(Integer.getInteger("measures", SyntheticReport.FILE_METRICS.size()))
+      .setDuplicationsPerFile(Integer.getInteger("duplications", 1))
+      .setCoverage(Boolean.parseBoolean(System.getProperty("coverage", "true")))
+      .setRules(Integer.getInteger("rules", 50));
+    int analyses = Integer.getInteger("analyses", 3);
+    File workDir = new File("target", "harness").getAbsoluteFile();
+    FileUtils.deleteQuietly(workDir);
+
+    List<StepResult> results = new ArrayList<>();
+    try (ReportProcessingHarness harness = new ReportProcessingHarness(workDir)) {
+      harness.start(report.ruleKeys());
+      for (int analysis = 1; analysis <= analyses; analysis++) {
+        results.addAll(harness.process(report, analysis, FIRST_ANALYSIS_DATE + analysis * ONE_DAY));
+      }
+    }
+    print(results);
+    writeJson(results, new File("target", "ce-steps.json"));
+  }
+
+  void start(List<RuleKey> ruleKeys) throws SQLException {
+    Properties properties = ProcessProperties.defaults();
+    properties.setProperty(ProcessProperties.PATH_HOME, workDir.getAbsolutePath());
+    properties.setProperty(ProcessProperties.PATH_DATA, new File(workDir, "data").getAbsolutePath());
+    properties.setProperty(ProcessProperties.PATH_TEMP, new File(workDir, "temp").getAbsolutePath());
+    properties.setProperty(ProcessProperties.PATH_LOGS, new File(workDir, "logs").getAbsolutePath());
+    properties.setProperty(ProcessProperties.SEARCH_CLUSTER_NAME, "benchmark");
+    properties.setProperty(ProcessProperties.SEARCH_PORT, String.valueOf(NetworkUtils.freePort()));
+    properties.setProperty(PROPERTY_PROCESS_INDEX, String.valueOf(ProcessId.COMPUTE_ENGINE.getIpcIndex()));
+    properties.setProperty(PROPERTY_SHARED_PATH, new File(workDir, "temp").getAbsolutePath());
+    properties.setProperty(DatabaseProperties.PROP_URL, JDBC_URL);
+    properties.setProperty(DatabaseProperties.PROP_USER, JDBC_LOGIN);
+    properties.setProperty(DatabaseProperties.PROP_PASSWORD, JDBC_LOGIN);
+
+    createDatabase();
+
+    searchServer = new SearchServer(new Props(properties));
+    searchServer.start();
+    if (!searchServer.isUp()) {
+      throw new IllegalStateException("Elasticsearch is not up");
+    }
+
+    computeEngine = new HarnessContainer();
+    computeEngine.start(new Props(properties));
+    container = computeEngine.level4();
+    dbClient = container.getComponentByType(DbClient.class);
+
+    createIndices();
+    insertReferenceData(ruleKeys);
+  }
+
+  /**
+   * The connection is kept open until the end, so that the in-memory database is not dropped
+   */
+  private void createDatabase() throws SQLException {
+    connection = DriverManager.getConnection(JDBC_URL, JDBC_LOGIN, JDBC_LOGIN);
+    DdlUtils.createSchema(connection, "h2");
+    // properties required by the startup of the Compute Engine, and default permission template applied to new projects
+    insertProperty(CoreProperties.SERVER_ID, "benchmark");
+    insertProperty(CoreProperties.SERVER_STARTTIME, DateUtils.formatDateTime(new Date()));
+    insertProperty(DefaultPermissionTemplates.DEFAULT_TEMPLATE_PROPERTY, DefaultPermissionTemplates.DEFAULT_TEMPLATE.getUuid());
+  }
+
+  private void insertProperty(String key, String value) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("insert into properties (prop_key, text_value) values (?, ?)")) {
+      statement.setString(1, key);
+      statement.setString(2, value);
+      statement.executeUpdate();
+    }
+  }
+
+  /**
+   * Indices are created by the web server, which is not started
+   */
+  private void createIndices() {
+    ComponentContainer indices = container.createChild();
+    indices.add(IssueIndexDefinition.class, TestIndexDefinition.class, ProjectMeasuresIndexDefinition.class, ComponentIndexDefinition.class,
+      ViewIndexDefinition.class, RuleIndexDefinition.class, UserIndexDefinition.class, ActivityIndexDefinition.class,
+      IndexDefinitions.class, IndexCreator.class);
+    indices.startComponents();
+    indices.stopComponents();
+  }
+
+  /**
+   * Metrics, rules and permission template, which are registered by the web server at startup
+   */
+  private void insertReferenceData(List<RuleKey> ruleKeys) {
+    new RegisterMetrics(dbClient).start();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      long now = System.currentTimeMillis();
+      for (RuleKey ruleKey : ruleKeys) {
+        dbClient.ruleDao().insert(dbSession, RuleDto.createFor(ruleKey)
+          .setName("Rule " + ruleKey.rule())
+          .setDescription("Rule " + ruleKey.rule())
+          .setLanguage(SyntheticReport.LANGUAGE)
+          .setSeverity(Severity.MAJOR)
+          .setStatus(RuleStatus.READY)
+          .setType(RuleType.CODE_SMELL)
+          .setCreatedAt(now)
+          .setUpdatedAt(now));
+      }
+      PermissionTemplateDto template = dbClient.permissionTemplateDao().insert(dbSession, new PermissionTemplateDto()
+        .setName("Default template")
+        .setUuid(DefaultPermissionTemplates.DEFAULT_TEMPLATE.getUuid())
+        .setCreatedAt(new Date(now))
+        .setUpdatedAt(new Date(now)));
+      dbClient.permissionTemplateDao().insertGroupPermission(dbSession, template.getId(), null, UserRole.USER);
+      dbClient.permissionTemplateDao().insertGroupPermission(dbSession, template.getId(), null, UserRole.CODEVIEWER);
+      dbSession.commit();
+    }
+  }
+
+  /**
+   * Submits the report as done by the web server, then executes the steps of its processing
+   */
+  List<StepResult> process(SyntheticReport report, int analysis, long analysisDate) throws IOException {
+    String taskUuid = "task" + analysis;
+    ReportFiles reportFiles = container.getComponentByType(ReportFiles.class);
+    File zip = report.writeZip(new File(workDir, "report"), new File(workDir, "report.zip"), analysisDate);
+    try (InputStream input = FileUtils.openInputStream(zip)) {
+      reportFiles.save(taskUuid, input);
+    }
+    CeTask task = new CeTask.Builder()
+      .setUuid(taskUuid)
+      .setType(CeTaskTypes.REPORT)
+      .setComponentUuid(PROJECT_UUID)
+      .setComponentKey(SyntheticReport.PROJECT_KEY)
+      .setComponentName("Benchmark")
+      .build();
+
+    List<StepResult> results = new ArrayList<>();
+    TaskContainer taskContainer = container.getComponentByType(ContainerFactory.class).create(container, task, null);
+    try {
+      for (ComputationStep step : taskContainer.getComponentByType(ComputationSteps.class).instances()) {
+        results.add(execute(analysis, step));
+      }
+    } finally {
+      taskContainer.getComponentByType(ThreadLocalSettings.class).unload();
+      taskContainer.cleanup();
+      reportFiles.deleteIfExists(taskUuid);
+    }
+    return results;
+  }
+
+  private StepResult execute(int analysis, ComputationStep step) {
+    SqlStatistics sqlStatistics = dbClient.getMyBatis().getSqlStatistics();
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+    sqlStatistics.startRecordingForCurrentThread();
+    long start = System.nanoTime();
+    SqlStatistics stepStatistics;
+    try {
+      step.execute();
+    } finally {
+      stepStatistics = sqlStatistics.stopRecordingForCurrentThread();
+    }
+    StepResult result = new StepResult(analysis, step.getDescription(), (System.nanoTime() - start) / 1_000_000L,
+      THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore);
+    for (StatementStatistics statement : stepStatistics.getAll()) {
+      result.sqlCalls += statement.getCalls();
+      result.sqlRows += statement.getRows();
+      result.sqlTimeMs += statement.getTotalTimeMillis();
+    }
+    return result;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (computeEngine != null) {
+      computeEngine.stop();
+    }
+    if (searchServer != null) {
+      searchServer.stop();
+    }
+    if (connection != null) {
+      connection.close();
+    }
+  }
+
+  private static void print(List<StepResult> results) {
+    String format = "%-9s %-60s %10s %12s %10s %10s %10s%n";
+    System.out.printf(format, "Analysis", "Step", "Time (ms)", "Alloc (MB)", "SQL calls", "SQL rows", "SQL (ms)");
+    for (StepResult result : results) {
+      System.out.printf(format, result.analysis, result.step, result.durationMs, result.allocatedBytes / (1024 * 1024),
+        result.sqlCalls, result.sqlRows, result.sqlTimeMs);
+    }
+  }
+
+  private static void writeJson(List<StepResult> results, File file) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      JsonWriter json = JsonWriter.of(writer).beginArray();
+      for (StepResult result : results) {
+        json.beginObject()
+          .prop("analysis", result.analysis)
+          .prop("step", result.step)
+          .prop("durationMs", result.durationMs)
+          .prop("allocatedBytes", result.allocatedBytes)
+          .prop("sqlCalls", result.sqlCalls)
+          .prop("sqlRows", result.sqlRows)
+          .prop("sqlTimeMs", result.sqlTimeMs)
+          .endObject();
+      }
+      json.endArray().close();
+    }
+  }
+
+  static class StepResult {
+    private final int analysis;
+    private final String step;
+    private final long durationMs;
+    private final long allocatedBytes;
+    private long sqlCalls = 0L;
+    private long sqlRows = 0L;
+    private long sqlTimeMs = 0L;
+
+    StepResult(int analysis, String step, long durationMs, long allocatedBytes) {
+      this.analysis = analysis;
+      this.step = step;
+      this.durationMs = durationMs;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+
+  /**
+   * Gives access to the container of the Compute Engine in which tasks are processed
+   */
+  private static class HarnessContainer extends ComputeEngineContainerImpl {
+    ComponentContainer level4() {
+      return getComponentContainer();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.sonar.core.component.ComponentKeys;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirectoryHolderImpl;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderImpl;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentImpl;
+
+/**
+ * Tree of the components of an uncompressed report, built as done by
+ * {@link org.sonar.server.computation.task.projectanalysis.step.BuildComponentTreeStep} but without database,
+ * UUIDs being derived from the references of components.
+ */
+final class ReportTree {
+
+  private final BatchReportReader reader;
+  private final List<Component> files = new ArrayList<>();
+  private final Component root;
+
+  ReportTree(File reportDir) {
+    BatchReportDirectoryHolderImpl directoryHolder = new BatchReportDirectoryHolderImpl();
+    directoryHolder.setDirectory(reportDir);
+    this.reader = new BatchReportReaderImpl(directoryHolder);
+    ScannerReport.Component project = reader.readComponent(reader.readMetadata().getRootComponentRef());
+    this.root = build(project, project.getKey());
+  }
+
+  BatchReportReader reader() {
+    return reader;
+  }
+
+  Component root() {
+    return root;
+  }
+
+  List<Component> files() {
+    return files;
+  }
+
+  private Component build(ScannerReport.Component reportComponent, String moduleKey) {
+    List<Component> children = new ArrayList<>(reportComponent.getChildRefCount());
+    for (int childRef : reportComponent.getChildRefList()) {
+      children.add(build(reader.readComponent(childRef), moduleKey));
+    }
+    String key = reportComponent.getType() == ScannerReport.Component.ComponentType.PROJECT ? moduleKey
+      : ComponentKeys.createEffectiveKey(moduleKey, reportComponent.getPath());
+    Component component = ComponentImpl.builder(reportComponent)
+      .setKey(key)
+      .setUuid("uuid-" + reportComponent.getRef())
+      .addChildren(children.toArray(new Component[children.size()]))
+      .build();
+    if (component.getType() == Component.Type.FILE) {
+      files.add(component);
+    }
+    return component;
+  }
+}
@@ -0,0 +1,336 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.ZipUtils;
+import org.sonar.scanner.protocol.Constants;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReport.Component.ComponentType;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+
+/**
+ * Generates the analysis report of a single module Java project, as sent by the scanner. Files contain the
+ * configured numbers of issues, measures and duplicated blocks, and coverage of one line out of two. The same seed
+ * always produces the same report, except for the date of analysis, so that results of consecutive runs can be compared.
+ * <p/>
+ * Reports of JMH benchmarks are written once into {@code target/fixtures} and are reused by the next runs.
+ */
+public final class SyntheticReport {
+
+  public static final long SEED = 42L;
+  public static final String PROJECT_KEY = "benchmark";
+  public static final String LANGUAGE = "java";
+  public static final String RULE_REPOSITORY = "squid";
+  public static final String QPROFILE_KEY = "benchmark-java";
+
+  static final int PROJECT_REF = 1;
+
+  /**
+   * Metrics of the measures of files, in the order they are added to the report
+   */
+  static final List<Metric> FILE_METRICS = Arrays.<Metric>asList(
+    CoreMetrics.LINES, CoreMetrics.NCLOC, CoreMetrics.COMMENT_LINES, CoreMetrics.COMPLEXITY, CoreMetrics.FUNCTIONS,
+    CoreMetrics.CLASSES, CoreMetrics.STATEMENTS, CoreMetrics.PUBLIC_API, CoreMetrics.PUBLIC_UNDOCUMENTED_API);
+
+  private static final int FILES_PER_DIRECTORY = 50;
+  private static final int DUPLICATED_BLOCK_LINES = 10;
+  private static final String[] STATEMENTS = {"i++;", "i = i + 1;", "s = s.trim();", "return i;", "// comment", "if (i > 0) { i--; }"};
+  private static final String COMPLETED_MARKER = ".completed";
+
+  private int files = 1_000;
+  private int linesPerFile = 200;
+  private int issuesPerFile = 10;
+  private int measuresPerFile = FILE_METRICS.size();
+  private int duplicationsPerFile = 1;
+  private boolean coverage = true;
+  private int rules = 50;
+
+  public SyntheticReport setFiles(int files) {
+    this.files = files;
+    return this;
+  }
+
+  public SyntheticReport setLinesPerFile(int linesPerFile) {
+    if (linesPerFile < 3) {
+      throw new IllegalArgumentException("Files must have at least 3 lines: " + linesPerFile);
+    }
+    this.linesPerFile = linesPerFile;
+    return this;
+  }
+
+  public SyntheticReport setIssuesPerFile(int issuesPerFile) {
+    this.issuesPerFile = issuesPerFile;
+    return this;
+  }
+
+  /**
+   * Number of measures of each file, at most the number of metrics of {@link #FILE_METRICS}
+   */
+  public SyntheticReport setMeasuresPerFile(int measuresPerFile) {
+    this.measuresPerFile = Math.min(measuresPerFile, FILE_METRICS.size());
+    return this;
+  }
+
+  /**
+   * Number of blocks of each file which are duplicated in the second half of the same file
+   */
+  public SyntheticReport setDuplicationsPerFile(int duplicationsPerFile) {
+    this.duplicationsPerFile = duplicationsPerFile;
+    return this;
+  }
+
+  public SyntheticReport setCoverage(boolean coverage) {
+    this.coverage = coverage;
+    return this;
+  }
+
+  public SyntheticReport setRules(int rules) {
+    this.rules = rules;
+    return this;
+  }
+
+  public int getFiles() {
+    return files;
+  }
+
+  /**
+   * Keys of the rules activated in the quality profile, which must exist in database before the report is processed
+   */
+  public List<RuleKey> ruleKeys() {
+    List<RuleKey> keys = new ArrayList<>(rules);
+    for (int i = 0; i < rules; i++) {
+      keys.add(RuleKey.of(RULE_REPOSITORY, "S" + i));
+    }
+    return keys;
+  }
+
+  /**
+   * Directory {@code target/fixtures/<name>} containing the uncompressed report, generated only if it does not exist yet
+   */
+  public File fixture() {
+    Path dir = Paths.get("target", "fixtures", String.format("report-%d-%d-%d-%d-%d-%s-%d",
+      files, linesPerFile, issuesPerFile, measuresPerFile, duplicationsPerFile, coverage, rules)).toAbsolutePath();
+    if (!Files.exists(dir.resolve(COMPLETED_MARKER))) {
+      FileUtils.deleteQuietly(dir.toFile());
+      write(dir.toFile(), 1_500_000_000_000L);
+      try {
+        Files.createFile(dir.resolve(COMPLETED_MARKER));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Fail to write report in " + dir, e);
+      }
+    }
+    return dir.toFile();
+  }
+
+  /**
+   * Writes the report into {@code workDir} and compresses it into {@code zip}, as done by the scanner before
+   * uploading it
+   */
+  public File writeZip(File workDir, File zip, long analysisDate) {
+    FileUtils.deleteQuietly(workDir);
+    write(workDir, analysisDate);
+    try {
+      ZipUtils.zipDir(workDir, zip);
+      return zip;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Fail to compress report " + workDir, e);
+    } finally {
+      FileUtils.deleteQuietly(workDir);
+    }
+  }
+
+  public void write(File dir, long analysisDate) {
+    try {
+      FileUtils.forceMkdir(dir);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Fail to create directory " + dir, e);
+    }
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writeMetadata(writer, analysisDate);
+    writeActiveRules(writer);
+
+    Random random = new Random(SEED);
+    int directories = (files + FILES_PER_DIRECTORY - 1) / FILES_PER_DIRECTORY;
+    ScannerReport.Component.Builder project = ScannerReport.Component.newBuilder()
+      .setRef(PROJECT_REF)
+      .setType(ComponentType.PROJECT)
+      .setKey(PROJECT_KEY)
+      .setName("Benchmark")
+      .setVersion("1.0");
+    int nextRef = PROJECT_REF + 1;
+    for (int d = 0; d < directories; d++) {
+      int directoryRef = nextRef;
+      nextRef++;
+      project.addChildRef(directoryRef);
+      String directoryPath = "src/main/java/org/acme/pkg" + d;
+      ScannerReport.Component.Builder directory = ScannerReport.Component.newBuilder()
+        .setRef(directoryRef)
+        .setType(ComponentType.DIRECTORY)
+        .setPath(directoryPath);
+      for (int f = d * FILES_PER_DIRECTORY; f < Math.min(files, (d + 1) * FILES_PER_DIRECTORY); f++) {
+        int fileRef = nextRef;
+        nextRef++;
+        directory.addChildRef(fileRef);
+        writeFile(writer, fileRef, directoryPath + "/Class" + f + ".java", random);
+      }
+      writer.writeComponent(directory.build());
+    }
+    writer.writeComponent(project.build());
+  }
+
+  private static void writeMetadata(ScannerReportWriter writer, long analysisDate) {
+    ScannerReport.Metadata.Builder metadata = ScannerReport.Metadata.newBuilder()
+      .setAnalysisDate(analysisDate)
+      .setProjectKey(PROJECT_KEY)
+      .setRootComponentRef(PROJECT_REF);
+    metadata.getMutableQprofilesPerLanguage().put(LANGUAGE, ScannerReport.Metadata.QProfile.newBuilder()
+      .setKey(QPROFILE_KEY)
+      .setName("Benchmark")
+      .setLanguage(LANGUAGE)
+      .setRulesUpdatedAt(analysisDate)
+      .build());
+    writer.writeMetadata(metadata.build());
+  }
+
+  private void writeActiveRules(ScannerReportWriter writer) {
+    List<ScannerReport.ActiveRule> activeRules = new ArrayList<>(rules);
+    for (RuleKey ruleKey : ruleKeys()) {
+      activeRules.add(ScannerReport.ActiveRule.newBuilder()
+        .setRuleRepository(ruleKey.repository())
+        .setRuleKey(ruleKey.rule())
+        .setSeverity(Constants.Severity.MAJOR)
+        .build());
+    }
+    writer.writeActiveRules(activeRules);
+  }
+
+  private void writeFile(ScannerReportWriter writer, int ref, String path, Random random) {
+    List<String> lines = sourceLines(path, random);
+    writer.writeComponent(ScannerReport.Component.newBuilder()
+      .setRef(ref)
+      .setType(ComponentType.FILE)
+      .setPath(path)
+      .setLanguage(LANGUAGE)
+      .setLines(lines.size())
+      .build());
+    try {
+      FileUtils.writeLines(writer.getSourceFile(ref), StandardCharsets.UTF_8.name(), lines, "\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException("Fail to write source of " + path, e);
+    }
+    writer.writeComponentIssues(ref, issues(lines, random));
+    writer.writeComponentMeasures(ref, measures(random));
+    writer.writeComponentDuplications(ref, duplications());
+    if (coverage) {
+      writer.writeComponentCoverage(ref, coverage(random));
+    }
+  }
+
+  private List<String> sourceLines(String path, Random random) {
+    List<String> lines = new ArrayList<>(linesPerFile);
+    String className = path.substring(path.lastIndexOf('/') + 1, path.length() - ".java".length());
+    lines.add("public class " + className + " {");
+    for (int i = 1; i < linesPerFile - 1; i++) {
+      lines.add("  " + STATEMENTS[random.nextInt(STATEMENTS.length)]);
+    }
+    lines.add("}");
+    return lines;
+  }
+
+  private List<ScannerReport.Issue> issues(List<String> lines, Random random) {
+    List<ScannerReport.Issue> issues = new ArrayList<>(issuesPerFile);
+    for (int i = 0; i < issuesPerFile; i++) {
+      int line = 1 + random.nextInt(lines.size());
+      issues.add(ScannerReport.Issue.newBuilder()
+        .setRuleRepository(RULE_REPOSITORY)
+        .setRuleKey("S" + random.nextInt(rules))
+        .setMsg("Message " + random.nextInt(50))
+        .setSeverity(Constants.Severity.MAJOR)
+        .setTextRange(ScannerReport.TextRange.newBuilder()
+          .setStartLine(line)
+          .setEndLine(line)
+          .setStartOffset(0)
+          .setEndOffset(lines.get(line - 1).length()))
+        .build());
+    }
+    return issues;
+  }
+
+  private List<ScannerReport.Measure> measures(Random random) {
+    List<ScannerReport.Measure> measures = new ArrayList<>(measuresPerFile);
+    for (Metric metric : FILE_METRICS.subList(0, measuresPerFile)) {
+      int value = metric.equals(CoreMetrics.LINES) ? linesPerFile : random.nextInt(linesPerFile);
+      measures.add(ScannerReport.Measure.newBuilder()
+        .setMetricKey(metric.getKey())
+        .setIntValue(ScannerReport.Measure.IntValue.newBuilder().setValue(value))
+        .build());
+    }
+    return measures;
+  }
+
+  private List<ScannerReport.Duplication> duplications() {
+    int count = Math.min(duplicationsPerFile, linesPerFile / (2 * DUPLICATED_BLOCK_LINES));
+    List<ScannerReport.Duplication> duplications = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int start = 1 + i * DUPLICATED_BLOCK_LINES;
+      duplications.add(ScannerReport.Duplication.newBuilder()
+        .setOriginPosition(lineRange(start))
+        .addDuplicate(ScannerReport.Duplicate.newBuilder().setRange(lineRange(start + linesPerFile / 2)))
+        .build());
+    }
+    return duplications;
+  }
+
+  private static ScannerReport.TextRange lineRange(int startLine) {
+    return ScannerReport.TextRange.newBuilder()
+      .setStartLine(startLine)
+      .setEndLine(startLine + DUPLICATED_BLOCK_LINES - 1)
+      .build();
+  }
+
+  private List<ScannerReport.LineCoverage> coverage(Random random) {
+    List<ScannerReport.LineCoverage> coverage = new ArrayList<>(linesPerFile / 2);
+    for (int line = 2; line < linesPerFile; line += 2) {
+      ScannerReport.LineCoverage.Builder lineCoverage = ScannerReport.LineCoverage.newBuilder()
+        .setLine(line)
+        .setUtHits(random.nextInt(4) != 0);
+      if (line % 10 == 0) {
+        lineCoverage.setConditions(2).setUtCoveredConditions(random.nextInt(3));
+      }
+      coverage.add(lineCoverage.build());
+    }
+    return coverage;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.tracking.LazyInput;
+import org.sonar.core.issue.tracking.LineHashSequence;
+import org.sonar.core.issue.tracking.Tracker;
+import org.sonar.core.issue.tracking.Tracking;
+
+/**
+ * Matching of the raw issues of a file with the issues of the previous analysis, as done by the Compute Engine
+ * with {@link DefaultIssue} and {@link LazyInput}. Inputs are created by each invocation, so that the computation
+ * of block hashes is measured too. Compared to the base file, lines are inserted at the beginning of the raw file
+ * and some lines are modified, some issues are fixed, some are new and some have a different message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TrackerBenchmark {
+
+  private static final int INSERTED_LINES = 3;
+
+  @Param({"1000", "10000"})
+  public int lines;
+
+  @Param({"100", "1000", "10000"})
+  public int issues;
+
+  private final List<String> baseHashes = new ArrayList<>();
+  private final List<String> rawHashes = new ArrayList<>();
+  private final List<DefaultIssue> baseIssues = new ArrayList<>();
+  private final List<DefaultIssue> rawIssues = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(SyntheticReport.SEED);
+    for (int i = 0; i < lines; i++) {
+      // a small set of hashes, as many lines are identical in real code
+      baseHashes.add("h" + random.nextInt(lines / 4));
+    }
+    for (int i = 0; i < INSERTED_LINES; i++) {
+      rawHashes.add("inserted" + i);
+    }
+    for (String hash : baseHashes) {
+      rawHashes.add(random.nextInt(20) == 0 ? ("modified" + random.nextInt()) : hash);
+    }
+
+    for (int i = 0; i < issues; i++) {
+      int line = 1 + random.nextInt(lines);
+      RuleKey rule = RuleKey.of(SyntheticReport.RULE_REPOSITORY, "S" + random.nextInt(50));
+      String message = "Message " + random.nextInt(50);
+      int kind = random.nextInt(10);
+      if (kind != 0) {
+        baseIssues.add(issue("base" + i, rule, line, message, baseHashes.get(line - 1)));
+      }
+      if (kind != 1) {
+        int rawLine = line + INSERTED_LINES;
+        String rawMessage = kind == 2 ? (message + " (updated)") : message;
+        rawIssues.add(issue("raw" + i, rule, rawLine, rawMessage, rawHashes.get(rawLine - 1)));
+      }
+    }
+  }
+
+  private static DefaultIssue issue(String key, RuleKey rule, int line, String message, String lineHash) {
+    return new DefaultIssue()
+      .setKey(key)
+      .setRuleKey(rule)
+      .setLine(line)
+      .setMessage(message)
+      .setChecksum(lineHash);
+  }
+
+  @Benchmark
+  public Tracking<DefaultIssue, DefaultIssue> track() {
+    return new Tracker<DefaultIssue, DefaultIssue>().track(new ListInput(rawHashes, rawIssues), new ListInput(baseHashes, baseIssues));
+  }
+
+  private static class ListInput extends LazyInput<DefaultIssue> {
+    private final List<String> hashes;
+    private final List<DefaultIssue> issues;
+
+    ListInput(List<String> hashes, List<DefaultIssue> issues) {
+      this.hashes = hashes;
+      this.issues = issues;
+    }
+
+    @Override
+    protected LineHashSequence loadLineHashSequence() {
+      return new LineHashSequence(hashes);
+    }
+
+    @Override
+    protected List<DefaultIssue> loadIssues() {
+      return issues;
+    }
+  }
+}
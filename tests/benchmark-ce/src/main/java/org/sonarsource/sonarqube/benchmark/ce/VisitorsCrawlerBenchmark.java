@@ -0,0 +1,149 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.ce;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
+
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+
+/**
+ * Overhead of {@link VisitorsCrawler}, as used by the steps which execute the visitors of issues, measures and
+ * sources: trivial visitors, half of them type aware and pre-order, the other half path aware and post-order, are
+ * executed on a tree of components by a single {@link VisitorsCrawler}, by one crawler per visitor, and by a plain
+ * recursion which calls the visitors without checking their depth nor maintaining their path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VisitorsCrawlerBenchmark {
+
+  @Param({"1000", "10000"})
+  public int files;
+
+  @Param({"2", "20"})
+  public int visitors;
+
+  private Component root;
+  private final List<CountingTypeAwareVisitor> typeAwareVisitors = new ArrayList<>();
+  private final List<CountingPathAwareVisitor> pathAwareVisitors = new ArrayList<>();
+  private final List<ComponentVisitor> allVisitors = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    root = new ReportTree(new SyntheticReport().setFiles(files).fixture()).root();
+    for (int i = 0; i < visitors / 2; i++) {
+      typeAwareVisitors.add(new CountingTypeAwareVisitor());
+      pathAwareVisitors.add(new CountingPathAwareVisitor());
+    }
+    allVisitors.addAll(typeAwareVisitors);
+    allVisitors.addAll(pathAwareVisitors);
+  }
+
+  @Benchmark
+  public VisitorsCrawler visitorsCrawler() {
+    VisitorsCrawler crawler = new VisitorsCrawler(allVisitors);
+    crawler.visit(root);
+    return crawler;
+  }
+
+  @Benchmark
+  public void crawlerPerVisitor() {
+    for (CountingTypeAwareVisitor visitor : typeAwareVisitors) {
+      new DepthTraversalTypeAwareCrawler(visitor).visit(root);
+    }
+    for (CountingPathAwareVisitor visitor : pathAwareVisitors) {
+      new PathAwareCrawler<>(visitor).visit(root);
+    }
+  }
+
+  @Benchmark
+  public void plainRecursion() {
+    visit(root);
+  }
+
+  private void visit(Component component) {
+    for (CountingTypeAwareVisitor visitor : typeAwareVisitors) {
+      visitor.visitAny(component);
+    }
+    for (Component child : component.getChildren()) {
+      visit(child);
+    }
+    for (CountingPathAwareVisitor visitor : pathAwareVisitors) {
+      // path is not used by the visitor
+      visitor.visitAny(component, null);
+    }
+  }
+
+  private static final class CountingTypeAwareVisitor extends TypeAwareVisitorAdapter {
+    private long count = 0;
+
+    CountingTypeAwareVisitor() {
+      super(CrawlerDepthLimit.FILE, PRE_ORDER);
+    }
+
+    @Override
+    public void visitAny(Component any) {
+      count++;
+    }
+  }
+
+  private static final class CountingPathAwareVisitor extends PathAwareVisitorAdapter<Long> {
+    private long count = 0;
+
+    CountingPathAwareVisitor() {
+      super(CrawlerDepthLimit.FILE, POST_ORDER, new SimpleStackElementFactory<Long>() {
+        @Override
+        public Long createForAny(Component component) {
+          return 0L;
+        }
+      });
+    }
+
+    @Override
+    public void visitAny(Component component, Path<Long> path) {
+      count++;
+    }
+  }
+}
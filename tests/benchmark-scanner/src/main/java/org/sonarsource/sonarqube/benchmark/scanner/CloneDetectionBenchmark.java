@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.PackedMemoryCloneIndex;
+
+/**
+ * Detection of the clones of a file by {@link SuffixTreeCloneDetectionAlgorithm} in an index of all the blocks
+ * of the project. Most blocks are unique, the others are copies of a limited set of snippets, so that each file
+ * is duplicated with some others.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CloneDetectionBenchmark {
+
+  private static final int SNIPPETS = 500;
+  private static final int SNIPPET_BLOCKS = 10;
+  private static final int PROBED_FILES = 100;
+
+  @Param({"1000", "10000"})
+  public int files;
+
+  @Param({"100"})
+  public int blocksPerFile;
+
+  private PackedMemoryCloneIndex index;
+  private final List<Collection<Block>> probedFiles = new ArrayList<>();
+  private int next = 0;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(SyntheticProject.SEED);
+    index = new PackedMemoryCloneIndex();
+    long uniqueHash = SNIPPETS * SNIPPET_BLOCKS;
+    for (int file = 0; file < files; file++) {
+      String resourceId = "file" + file;
+      int blockIndex = 0;
+      while (blockIndex < blocksPerFile) {
+        if (random.nextInt(20) == 0) {
+          // copy of a snippet
+          long snippetHash = (long) random.nextInt(SNIPPETS) * SNIPPET_BLOCKS;
+          for (int i = 0; i < SNIPPET_BLOCKS && blockIndex < blocksPerFile; i++) {
+            index.insert(block(resourceId, blockIndex, snippetHash + i));
+            blockIndex++;
+          }
+        } else {
+          uniqueHash++;
+          index.insert(block(resourceId, blockIndex, uniqueHash));
+          blockIndex++;
+        }
+      }
+    }
+    for (int i = 0; i < PROBED_FILES; i++) {
+      probedFiles.add(index.getByResourceId("file" + random.nextInt(files)));
+    }
+  }
+
+  private static Block block(String resourceId, int indexInFile, long hash) {
+    int line = indexInFile * 2 + 1;
+    return Block.builder()
+      .setResourceId(resourceId)
+      .setBlockHash(new ByteArray(hash))
+      .setIndexInFile(indexInFile)
+      .setLines(line, line + 10)
+      .setUnit(indexInFile * 5, indexInFile * 5 + 50)
+      .build();
+  }
+
+  @Benchmark
+  public List<CloneGroup> detect() {
+    next = (next + 1) % PROBED_FILES;
+    return SuffixTreeCloneDetectionAlgorithm.detect(index, probedFiles.get(next));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.AbstractLanguage;
+import org.sonar.api.resources.Languages;
+import org.sonar.api.resources.Project;
+import org.sonar.api.scan.filesystem.FileExclusions;
+import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.api.utils.internal.DefaultTempFolder;
+import org.sonar.scanner.analysis.AnalysisProperties;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.bootstrap.GlobalProperties;
+import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
+import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsRegexpScanner;
+import org.sonar.scanner.repository.ProjectRepositories;
+import org.sonar.scanner.repository.language.DefaultLanguagesRepository;
+import org.sonar.scanner.scan.filesystem.DefaultModuleFileSystem;
+import org.sonar.scanner.scan.filesystem.ExclusionFilters;
+import org.sonar.scanner.scan.filesystem.FileIndexer;
+import org.sonar.scanner.scan.filesystem.InputFileBuilderFactory;
+import org.sonar.scanner.scan.filesystem.LanguageDetectionFactory;
+import org.sonar.scanner.scan.filesystem.ModuleFileSystemInitializer;
+import org.sonar.scanner.scan.filesystem.StatusDetectionFactory;
+
+/**
+ * Indexing of a source tree by {@link FileIndexer}: the tree is walked, hidden directories are skipped,
+ * inclusion/exclusion patterns are applied, then language, status and metadata of the remaining files are
+ * computed by the thread pool of the indexer before they are added to the file system.
+ * <p/>
+ * The indexer is built with the components of a module container that it requires, without plugins,
+ * file filters or server data. Main and test files are declared in the same directory and split by patterns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class FileIndexingBenchmark {
+
+  @Param({"10000", "100000"})
+  public int files;
+
+  @Param({"100"})
+  public int lines;
+
+  private ProjectDefinition module;
+  private Settings settings;
+  private ModuleFileSystemInitializer initializer;
+  private DefaultAnalysisMode analysisMode;
+  private FileIndexer indexer;
+
+  @Setup
+  public void setUp() {
+    Path baseDir = SyntheticProject.sourceTree(files, lines);
+    module = ProjectDefinition.create()
+      .setKey(SyntheticProject.MODULE_KEY)
+      .setBaseDir(baseDir.toFile())
+      .setWorkDir(baseDir.resolveSibling("work-" + baseDir.getFileName()).toFile())
+      .setSources(".")
+      .setTests(".");
+    settings = new Settings();
+    settings.setProperty(CoreProperties.ENCODING_PROPERTY, "UTF-8");
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/generated/**,**/src/test/**");
+    settings.setProperty(CoreProperties.PROJECT_TEST_INCLUSIONS_PROPERTY, "**/src/test/**");
+
+    PathResolver pathResolver = new PathResolver();
+    initializer = new ModuleFileSystemInitializer(module, new DefaultTempFolder(module.getWorkDir()), pathResolver);
+    analysisMode = new DefaultAnalysisMode(new GlobalProperties(Collections.emptyMap()), new AnalysisProperties(Collections.emptyMap()));
+    Languages languages = new Languages(new BenchmarkLanguage("java"), new BenchmarkLanguage("xml"));
+    InputFileBuilderFactory inputFileBuilderFactory = new InputFileBuilderFactory(module, pathResolver,
+      new LanguageDetectionFactory(settings, new DefaultLanguagesRepository(languages)),
+      new StatusDetectionFactory(new ProjectRepositories()), settings, new FileMetadata(),
+      new IssueExclusionsRegexpScanner(new IssueExclusionPatternInitializer(settings)));
+    indexer = new FileIndexer(Collections.emptyList(), new ExclusionFilters(new FileExclusions(settings)), inputFileBuilderFactory, module);
+  }
+
+  @Benchmark
+  public DefaultModuleFileSystem walk_and_index() {
+    // a module file system can be indexed only once
+    DefaultModuleFileSystem fs = new DefaultModuleFileSystem(new Project(SyntheticProject.MODULE_KEY), settings, indexer, initializer, null, analysisMode);
+    fs.index();
+    return fs;
+  }
+
+  private static class BenchmarkLanguage extends AbstractLanguage {
+    private final String[] suffixes;
+
+    BenchmarkLanguage(String key) {
+      super(key);
+      this.suffixes = new String[] {key};
+    }
+
+    @Override
+    public String[] getFileSuffixes() {
+      return suffixes;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+
+/**
+ * Reading of a file by {@link FileMetadata}: lines, hash and line offsets, then hashes of lines
+ * as computed for issue tracking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileMetadataBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int lines;
+
+  private final FileMetadata fileMetadata = new FileMetadata();
+  private File file;
+  private DefaultInputFile inputFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = File.createTempFile("benchmark", ".java");
+    Files.write(file.toPath(), SyntheticProject.javaSource("Foo", lines, new Random(SyntheticProject.SEED)).getBytes(StandardCharsets.UTF_8));
+    inputFile = new DefaultInputFile(SyntheticProject.MODULE_KEY, file.getName())
+      .setModuleBaseDir(file.getParentFile().toPath())
+      .setCharset(StandardCharsets.UTF_8);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Benchmark
+  public FileMetadata.Metadata read_metadata() {
+    return fileMetadata.readMetadata(file, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public void compute_line_hashes(Blackhole blackhole) {
+    FileMetadata.computeLineHashesForIssueTracking(inputFile, (lineIdx, hash) -> blackhole.consume(hash));
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+
+/**
+ * Queries of {@link DefaultFileSystem} as executed by sensors, on a file system populated in memory. Files
+ * are not read, so sizes up to a million files can be benchmarked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileSystemQueryBenchmark {
+
+  @Param({"10000", "100000", "1000000"})
+  public int files;
+
+  private DefaultFileSystem fs;
+  private List<String> relativePaths;
+  private Path baseDir;
+  private int next = 0;
+
+  @Setup
+  public void setUp() {
+    baseDir = Paths.get("benchmark").toAbsolutePath();
+    fs = new DefaultFileSystem(baseDir);
+    relativePaths = SyntheticProject.relativePaths(files);
+    for (int i = 0; i < relativePaths.size(); i++) {
+      String relativePath = relativePaths.get(i);
+      fs.add(new DefaultInputFile(SyntheticProject.MODULE_KEY, relativePath)
+        .setModuleBaseDir(baseDir)
+        .setLanguage(SyntheticProject.language(relativePath))
+        .setType(relativePath.contains("/src/test/") ? InputFile.Type.TEST : InputFile.Type.MAIN)
+        .setStatus(i % 10 == 0 ? InputFile.Status.CHANGED : InputFile.Status.SAME));
+    }
+  }
+
+  private String nextRelativePath() {
+    next = (next + 7_919) % relativePaths.size();
+    return relativePaths.get(next);
+  }
+
+  @Benchmark
+  public InputFile by_relative_path() {
+    return fs.inputFile(fs.predicates().hasRelativePath(nextRelativePath()));
+  }
+
+  @Benchmark
+  public InputFile by_absolute_path() {
+    return fs.inputFile(fs.predicates().hasAbsolutePath(baseDir.resolve(nextRelativePath()).toString()));
+  }
+
+  @Benchmark
+  public int main_files_of_language() {
+    FilePredicates p = fs.predicates();
+    return count(p.and(p.hasLanguage("java"), p.hasType(InputFile.Type.MAIN)));
+  }
+
+  @Benchmark
+  public int changed_main_files_of_language() {
+    FilePredicates p = fs.predicates();
+    return count(p.and(p.hasLanguage("java"), p.hasType(InputFile.Type.MAIN), p.hasStatus(InputFile.Status.CHANGED)));
+  }
+
+  @Benchmark
+  public int files_matching_pattern() {
+    return count(fs.predicates().matchesPathPattern("**/generated/**/*.java"));
+  }
+
+  private int count(FilePredicate predicate) {
+    int count = 0;
+    for (InputFile inputFile : fs.inputFiles(predicate)) {
+      count++;
+    }
+    return count;
+  }
+}
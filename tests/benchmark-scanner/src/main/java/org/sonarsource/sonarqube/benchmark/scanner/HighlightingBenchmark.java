@@ -0,0 +1,139 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
+import org.sonar.api.batch.sensor.cpd.internal.DefaultCpdTokens;
+import org.sonar.api.batch.sensor.error.AnalysisError;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
+import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.measure.Measure;
+import org.sonar.api.batch.sensor.symbol.internal.DefaultSymbolTable;
+
+/**
+ * Highlighting of a file through {@link DefaultHighlighting}: conversion of offsets to text ranges, then sort
+ * and check of overlaps when saved. Rules are registered from the end of the file, as the order in which
+ * sensors register them is not specified.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HighlightingBenchmark {
+
+  private static final Pattern TOKEN = Pattern.compile("(\\b(?:public|int|return|if|new)\\b)|(\"[^\"]*\")|(//[^\\n]*)|(@\\w+)");
+
+  @Param({"100", "1000", "10000"})
+  public int lines;
+
+  private final SensorStorage storage = new NoOpStorage();
+  private DefaultInputFile inputFile;
+  private final List<int[]> ranges = new ArrayList<>();
+  private final List<TypeOfText> types = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    String content = SyntheticProject.javaSource("Foo", lines, new Random(SyntheticProject.SEED));
+    inputFile = new DefaultInputFile(SyntheticProject.MODULE_KEY, "src/Foo.java").initMetadata(content);
+    Matcher matcher = TOKEN.matcher(content);
+    while (matcher.find()) {
+      ranges.add(new int[] {matcher.start(), matcher.end()});
+      if (matcher.group(1) != null) {
+        types.add(TypeOfText.KEYWORD);
+      } else if (matcher.group(2) != null) {
+        types.add(TypeOfText.STRING);
+      } else if (matcher.group(3) != null) {
+        types.add(TypeOfText.COMMENT);
+      } else {
+        types.add(TypeOfText.ANNOTATION);
+      }
+    }
+  }
+
+  @Benchmark
+  public DefaultHighlighting highlight_and_save() {
+    DefaultHighlighting highlighting = new DefaultHighlighting(storage).onFile(inputFile);
+    for (int i = ranges.size() - 1; i >= 0; i--) {
+      int[] range = ranges.get(i);
+      highlighting.highlight(range[0], range[1], types.get(i));
+    }
+    highlighting.save();
+    return highlighting;
+  }
+
+  private static class NoOpStorage implements SensorStorage {
+    @Override
+    public void store(Measure measure) {
+      // not needed
+    }
+
+    @Override
+    public void store(Issue issue) {
+      // not needed
+    }
+
+    @Override
+    public void store(DefaultHighlighting highlighting) {
+      // not needed
+    }
+
+    @Override
+    public void store(DefaultCoverage defaultCoverage) {
+      // not needed
+    }
+
+    @Override
+    public void store(DefaultCpdTokens defaultCpdTokens) {
+      // not needed
+    }
+
+    @Override
+    public void store(DefaultSymbolTable symbolTable) {
+      // not needed
+    }
+
+    @Override
+    public void store(AnalysisError analysisError) {
+      // not needed
+    }
+  }
+}
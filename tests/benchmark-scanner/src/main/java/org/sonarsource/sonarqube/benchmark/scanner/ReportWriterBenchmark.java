@@ -0,0 +1,157 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.scanner.protocol.Constants;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+
+/**
+ * Writing of the analysis report of a project by {@link ScannerReportWriter}: components, issues, measures,
+ * syntax highlighting and coverage of each file. Messages are built once, so that only serialization and
+ * file system operations are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportWriterBenchmark {
+
+  private static final int PROJECT_REF = 1;
+
+  @Param({"10000", "100000"})
+  public int files;
+
+  @Param({"100"})
+  public int lines;
+
+  private final List<ScannerReport.Issue> issues = new ArrayList<>();
+  private final List<ScannerReport.Measure> measures = new ArrayList<>();
+  private final List<ScannerReport.SyntaxHighlightingRule> highlighting = new ArrayList<>();
+  private final List<ScannerReport.LineCoverage> coverage = new ArrayList<>();
+  private List<String> relativePaths;
+  private File reportDir;
+
+  @Setup
+  public void setUp() {
+    relativePaths = SyntheticProject.relativePaths(files);
+    Random random = new Random(SyntheticProject.SEED);
+    for (int i = 0; i < 10; i++) {
+      int line = 1 + random.nextInt(lines);
+      issues.add(ScannerReport.Issue.newBuilder()
+        .setRuleRepository("squid")
+        .setRuleKey("S" + random.nextInt(1_000))
+        .setMsg("Remove this unused \"s\" local variable.")
+        .setSeverity(Constants.Severity.MAJOR)
+        .setTextRange(ScannerReport.TextRange.newBuilder().setStartLine(line).setEndLine(line).setStartOffset(2).setEndOffset(20))
+        .build());
+    }
+    for (String metric : new String[] {"lines", "ncloc", "complexity", "functions", "comment_lines"}) {
+      measures.add(ScannerReport.Measure.newBuilder()
+        .setMetricKey(metric)
+        .setIntValue(ScannerReport.Measure.IntValue.newBuilder().setValue(random.nextInt(lines)))
+        .build());
+    }
+    for (int line = 1; line <= lines; line++) {
+      highlighting.add(ScannerReport.SyntaxHighlightingRule.newBuilder()
+        .setRange(ScannerReport.TextRange.newBuilder().setStartLine(line).setEndLine(line).setStartOffset(2).setEndOffset(8))
+        .setType(ScannerReport.SyntaxHighlightingRule.HighlightingType.KEYWORD)
+        .build());
+      if (line % 2 == 0) {
+        coverage.add(ScannerReport.LineCoverage.newBuilder().setLine(line).setUtHits(random.nextBoolean()).build());
+      }
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void createReportDir() throws IOException {
+    reportDir = Files.createTempDirectory("benchmark-report").toFile();
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteReportDir() throws IOException {
+    Files.walkFileTree(reportDir.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  @Benchmark
+  public ScannerReportWriter write_report() {
+    ScannerReportWriter writer = new ScannerReportWriter(reportDir);
+    ScannerReport.Component.Builder project = ScannerReport.Component.newBuilder()
+      .setRef(PROJECT_REF)
+      .setKey(SyntheticProject.MODULE_KEY)
+      .setType(ScannerReport.Component.ComponentType.PROJECT);
+    for (int i = 0; i < relativePaths.size(); i++) {
+      int ref = PROJECT_REF + 1 + i;
+      String relativePath = relativePaths.get(i);
+      project.addChildRef(ref);
+      writer.writeComponent(ScannerReport.Component.newBuilder()
+        .setRef(ref)
+        .setType(ScannerReport.Component.ComponentType.FILE)
+        .setPath(relativePath)
+        .setLanguage(SyntheticProject.language(relativePath))
+        .setLines(lines)
+        .build());
+      writer.writeComponentIssues(ref, issues);
+      writer.writeComponentMeasures(ref, measures);
+      writer.writeComponentSyntaxHighlighting(ref, highlighting);
+      writer.writeComponentCoverage(ref, coverage);
+    }
+    writer.writeComponent(project.build());
+    return writer;
+  }
+}
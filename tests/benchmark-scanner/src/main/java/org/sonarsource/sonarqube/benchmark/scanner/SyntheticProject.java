@@ -0,0 +1,152 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the fixtures of benchmarks. The same seed always produces the same paths and the same contents,
+ * so that results of consecutive runs can be compared.
+ * <p/>
+ * Source trees are written once into {@code target/fixtures} and are reused by the next runs, as writing
+ * hundreds of thousands of files takes much longer than the benchmarks themselves.
+ */
+public final class SyntheticProject {
+
+  public static final long SEED = 42L;
+  public static final String MODULE_KEY = "benchmark";
+
+  private static final String[] KEYWORDS = {"public", "private", "static", "final", "return", "if", "else", "for", "while", "new", "int", "String"};
+  private static final int FILES_PER_PACKAGE = 50;
+  private static final int PACKAGES_PER_MODULE = 200;
+  private static final String COMPLETED_MARKER = ".completed";
+
+  private SyntheticProject() {
+    // only statics
+  }
+
+  /**
+   * Relative paths of {@code count} files spread into modules and packages. One file out of ten is a test,
+   * one package out of twenty contains generated code and one file out of twenty-five is not Java.
+   */
+  public static List<String> relativePaths(int count) {
+    List<String> paths = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int pkg = i / FILES_PER_PACKAGE;
+      int module = pkg / PACKAGES_PER_MODULE;
+      String dir = (i % 10 == 0) ? "src/test/java" : "src/main/java";
+      String pkgDir = (pkg % 20 == 0) ? ("generated/pkg" + pkg) : ("org/acme/pkg" + pkg);
+      String extension = (i % 25 == 0) ? ".xml" : ".java";
+      String suffix = (i % 10 == 0) ? "Test" : "";
+      paths.add("module" + module + "/" + dir + "/" + pkgDir + "/Class" + i + suffix + extension);
+    }
+    return paths;
+  }
+
+  public static String language(String relativePath) {
+    return relativePath.endsWith(".java") ? "java" : "xml";
+  }
+
+  /**
+   * Java-like source code of {@code lines} lines. Some lines are blank, some are duplicated from a small set
+   * of statements so that line hashes collide as they do in real code.
+   */
+  public static String javaSource(String className, int lines, Random random) {
+    StringBuilder sb = new StringBuilder(lines * 40);
+    sb.append("package org.acme;\n");
+    sb.append("/**\n * Generated class ").append(className).append("\n */\n");
+    sb.append("public class ").append(className).append(" {\n");
+    int written = 5;
+    int method = 0;
+    while (written < lines - 1) {
+      sb.append("  @Deprecated\n");
+      sb.append("  public int method").append(method).append("(String s, int i) {\n");
+      written += 2;
+      int statements = Math.min(5 + random.nextInt(20), lines - 2 - written);
+      for (int j = 0; j < statements; j++) {
+        appendStatement(sb, random);
+      }
+      written += statements;
+      sb.append("  }\n");
+      written++;
+      method++;
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private static void appendStatement(StringBuilder sb, Random random) {
+    switch (random.nextInt(6)) {
+      case 0:
+        sb.append('\n');
+        break;
+      case 1:
+        sb.append("    // ").append(KEYWORDS[random.nextInt(KEYWORDS.length)]).append(" comment\n");
+        break;
+      case 2:
+        sb.append("    i = i + 0x").append(Integer.toHexString(random.nextInt(1_000))).append(";\n");
+        break;
+      case 3:
+        sb.append("    s = \"literal ").append(random.nextInt(100)).append("\" + s;\n");
+        break;
+      case 4:
+        sb.append("    if (i > ").append(random.nextInt(10)).append(") { return i; }\n");
+        break;
+      default:
+        sb.append("    i++;\n");
+        break;
+    }
+  }
+
+  /**
+   * Directory {@code target/fixtures/<name>} containing a source tree of {@code files} files of {@code lines}
+   * lines, generated only if it does not exist yet.
+   */
+  public static Path sourceTree(int files, int lines) {
+    Path dir = Paths.get("target", "fixtures", "project-" + files + "-" + lines).toAbsolutePath();
+    if (Files.exists(dir.resolve(COMPLETED_MARKER))) {
+      return dir;
+    }
+    try {
+      Random random = new Random(SEED);
+      for (String relativePath : relativePaths(files)) {
+        Path file = dir.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        String className = file.getFileName().toString().replaceFirst("\\..*", "");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+          writer.write(javaSource(className, lines, random));
+        }
+      }
+      Files.createFile(dir.resolve(COMPLETED_MARKER));
+      return dir;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Fail to generate source tree in " + dir, e);
+    }
+  }
+}
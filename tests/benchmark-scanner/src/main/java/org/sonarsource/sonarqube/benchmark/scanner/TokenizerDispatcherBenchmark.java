@@ -0,0 +1,71 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.channel.Channel;
+import org.sonar.colorizer.HtmlCodeBuilder;
+import org.sonar.colorizer.JavaTokenizers;
+import org.sonar.colorizer.TokenizerDispatcher;
+
+/**
+ * Colorization of Java code by the tokenizers of {@link JavaTokenizers}, as done for the syntax highlighting
+ * of files by the deprecated colorizer API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TokenizerDispatcherBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int lines;
+
+  private String code;
+  private TokenizerDispatcher dispatcher;
+
+  @Setup
+  public void setUp() {
+    code = SyntheticProject.javaSource("Foo", lines, new Random(SyntheticProject.SEED));
+    List<Channel<HtmlCodeBuilder>> tokenizers = new ArrayList<>(JavaTokenizers.forHtml());
+    dispatcher = new TokenizerDispatcher(tokenizers);
+  }
+
+  @Benchmark
+  public String colorize() {
+    return dispatcher.colorize(code);
+  }
+}
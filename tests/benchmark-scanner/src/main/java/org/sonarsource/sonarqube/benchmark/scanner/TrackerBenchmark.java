@@ -0,0 +1,171 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.core.issue.tracking.BlockHashSequence;
+import org.sonar.core.issue.tracking.Input;
+import org.sonar.core.issue.tracking.LineHashSequence;
+import org.sonar.core.issue.tracking.Trackable;
+import org.sonar.core.issue.tracking.Tracker;
+import org.sonar.core.issue.tracking.Tracking;
+
+/**
+ * Matching of the issues of a file by {@link Tracker}. Compared to the base file, lines are inserted at the
+ * beginning of the raw file and some lines are modified, so that all the passes of the tracker are involved.
+ * Some issues are fixed, some are new and some have a different message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TrackerBenchmark {
+
+  private static final int INSERTED_LINES = 3;
+  private static final RuleKey[] RULES = {
+    RuleKey.of("squid", "S100"), RuleKey.of("squid", "S101"), RuleKey.of("squid", "S1192"), RuleKey.of("squid", "S1481"), RuleKey.of("squid", "S2095")};
+
+  @Param({"1000", "10000"})
+  public int lines;
+
+  @Param({"100", "1000", "10000"})
+  public int issues;
+
+  private FakeInput rawInput;
+  private FakeInput baseInput;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(SyntheticProject.SEED);
+    List<String> baseHashes = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      // a small set of hashes, as many lines are identical in real code
+      baseHashes.add("h" + random.nextInt(lines / 4));
+    }
+    List<String> rawHashes = new ArrayList<>(lines + INSERTED_LINES);
+    for (int i = 0; i < INSERTED_LINES; i++) {
+      rawHashes.add("inserted" + i);
+    }
+    for (String hash : baseHashes) {
+      rawHashes.add(random.nextInt(20) == 0 ? ("modified" + random.nextInt()) : hash);
+    }
+
+    List<FakeIssue> baseIssues = new ArrayList<>(issues);
+    List<FakeIssue> rawIssues = new ArrayList<>(issues);
+    for (int i = 0; i < issues; i++) {
+      int line = 1 + random.nextInt(lines);
+      RuleKey rule = RULES[random.nextInt(RULES.length)];
+      String message = "Message " + random.nextInt(50);
+      int kind = random.nextInt(10);
+      if (kind != 0) {
+        baseIssues.add(new FakeIssue(rule, line, message, baseHashes.get(line - 1)));
+      }
+      if (kind != 1) {
+        int rawLine = line + INSERTED_LINES;
+        String rawMessage = kind == 2 ? (message + " (updated)") : message;
+        rawIssues.add(new FakeIssue(rule, rawLine, rawMessage, rawHashes.get(rawLine - 1)));
+      }
+    }
+    baseInput = new FakeInput(baseHashes, baseIssues);
+    rawInput = new FakeInput(rawHashes, rawIssues);
+  }
+
+  @Benchmark
+  public Tracking<FakeIssue, FakeIssue> track() {
+    return new Tracker<FakeIssue, FakeIssue>().track(rawInput, baseInput);
+  }
+
+  static class FakeInput implements Input<FakeIssue> {
+    private final LineHashSequence lineHashes;
+    private final List<FakeIssue> issues;
+
+    FakeInput(List<String> hashes, List<FakeIssue> issues) {
+      this.lineHashes = new LineHashSequence(hashes);
+      this.issues = issues;
+    }
+
+    @Override
+    public LineHashSequence getLineHashSequence() {
+      return lineHashes;
+    }
+
+    @Override
+    public BlockHashSequence getBlockHashSequence() {
+      return BlockHashSequence.create(lineHashes);
+    }
+
+    @Override
+    public Collection<FakeIssue> getIssues() {
+      return issues;
+    }
+  }
+
+  static class FakeIssue implements Trackable {
+    private final RuleKey ruleKey;
+    private final Integer line;
+    private final String message;
+    private final String lineHash;
+
+    FakeIssue(RuleKey ruleKey, Integer line, String message, String lineHash) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.message = message;
+      this.lineHash = lineHash;
+    }
+
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public RuleKey getRuleKey() {
+      return ruleKey;
+    }
+  }
+}
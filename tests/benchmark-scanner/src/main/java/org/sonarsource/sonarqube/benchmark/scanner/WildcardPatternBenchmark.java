@@ -0,0 +1,74 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark.scanner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.utils.WildcardPattern;
+
+/**
+ * Matching of relative paths against usual inclusion and exclusion patterns with {@link WildcardPattern},
+ * which is done for each indexed file and for each file predicate based on patterns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WildcardPatternBenchmark {
+
+  private static final String[] PATTERNS = {"**/generated/**", "**/*Test.java", "module1/src/main/java/org/acme/pkg2*/**", "**/*.xml", "src/**/Class?.java"};
+
+  private WildcardPattern[] patterns;
+  private List<String> relativePaths;
+  private int next = 0;
+
+  @Setup
+  public void setUp() {
+    patterns = WildcardPattern.create(PATTERNS);
+    relativePaths = SyntheticProject.relativePaths(10_000);
+  }
+
+  private String nextRelativePath() {
+    next = (next + 1) % relativePaths.size();
+    return relativePaths.get(next);
+  }
+
+  @Benchmark
+  public boolean match_any() {
+    return WildcardPattern.match(patterns, nextRelativePath());
+  }
+
+  @Benchmark
+  public WildcardPattern[] create() {
+    return WildcardPattern.create(PATTERNS);
+  }
+}